@@ -0,0 +1,102 @@
+package com.realestate.analytics;
+
+import com.realestate.dto.Distribution;
+import com.realestate.dto.MarketStats;
+import com.realestate.model.Property.ListingType;
+import com.realestate.model.Property.PropertyStatus;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Running figures for one (listing type, dimension, key). Status counts and price sums move
+ * exactly with every status change; the digests only ever grow. The computed
+ * {@link MarketStats} is cached until the next change, so repeated reads cost nothing.
+ */
+final class MarketAggregate {
+    private static final double COMPRESSION = 100;
+    private static final PropertyStatus[] STATUSES = PropertyStatus.values();
+    
+    private final ListingType listingType;
+    private final MarketDimension dimension;
+    private final String key;
+    private final long[] statusCounts = new long[STATUSES.length];
+    private double activePriceSum;
+    private final TDigest listPrice = new TDigest(COMPRESSION);
+    private final TDigest listPricePerSquareFoot = new TDigest(COMPRESSION);
+    private final TDigest closePrice = new TDigest(COMPRESSION);
+    private final TDigest daysOnMarket = new TDigest(COMPRESSION);
+    private MarketStats snapshot;
+    
+    MarketAggregate(ListingType listingType, MarketDimension dimension, String key) {
+        this.listingType = listingType;
+        this.dimension = dimension;
+        this.key = key;
+    }
+    
+    void enter(PropertyStatus status, double price) {
+        statusCounts[status.ordinal()]++;
+        if (status == PropertyStatus.ACTIVE) {
+            activePriceSum += price;
+        }
+        snapshot = null;
+    }
+    
+    void leave(PropertyStatus status, double price) {
+        statusCounts[status.ordinal()]--;
+        if (status == PropertyStatus.ACTIVE) {
+            activePriceSum -= price;
+        }
+        snapshot = null;
+    }
+    
+    void listed(double price, double pricePerSquareFoot) {
+        listPrice.add(price);
+        if (!Double.isNaN(pricePerSquareFoot)) {
+            listPricePerSquareFoot.add(pricePerSquareFoot);
+        }
+        snapshot = null;
+    }
+    
+    void closed(double price, long days) {
+        closePrice.add(price);
+        if (days >= 0) {
+            daysOnMarket.add(days);
+        }
+        snapshot = null;
+    }
+    
+    boolean isEmpty() {
+        for (long count : statusCounts) {
+            if (count != 0) {
+                return false;
+            }
+        }
+        return listPrice.count() == 0 && closePrice.count() == 0;
+    }
+    
+    MarketStats snapshot() {
+        if (snapshot == null) {
+            Map<PropertyStatus, Long> counts = new EnumMap<>(PropertyStatus.class);
+            for (PropertyStatus status : STATUSES) {
+                if (statusCounts[status.ordinal()] != 0) {
+                    counts.put(status, statusCounts[status.ordinal()]);
+                }
+            }
+            long active = statusCounts[PropertyStatus.ACTIVE.ordinal()];
+            snapshot = new MarketStats(listingType, dimension, key, Collections.unmodifiableMap(counts),
+                    active == 0 ? null : activePriceSum / active,
+                    distribution(listPrice), distribution(listPricePerSquareFoot),
+                    distribution(closePrice), distribution(daysOnMarket));
+        }
+        return snapshot;
+    }
+    
+    private static Distribution distribution(TDigest digest) {
+        if (digest.count() == 0) {
+            return null;
+        }
+        return new Distribution(digest.count(), digest.mean(), digest.quantile(0.25), digest.quantile(0.5),
+                digest.quantile(0.75), digest.quantile(0.9));
+    }
+}
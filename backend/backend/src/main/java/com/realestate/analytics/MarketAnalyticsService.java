@@ -0,0 +1,239 @@
+package com.realestate.analytics;
+
+import com.realestate.dto.MarketStats;
+import com.realestate.event.EntityChangeType;
+import com.realestate.event.PropertyChangedEvent;
+import com.realestate.model.Property;
+import com.realestate.model.Property.ListingType;
+import com.realestate.model.Property.PropertyStatus;
+import com.realestate.startup.ListingSink;
+import com.realestate.startup.WarmBootSnapshot;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Market figures per city, property type and month, kept up to date from committed listing
+ * changes instead of GROUP BY scans. Each listing contributes:
+ * <ul>
+ *   <li>its current status and, while active, its price to the status counts of its groups,
+ *       moved exactly on every change;</li>
+ *   <li>a "listed" event with the asking price and price per square foot when first seen;</li>
+ *   <li>a "closed" event with the price and days on market when it becomes sold or rented.</li>
+ * </ul>
+ * Events go into t-digests, which cannot forget values: a sale that is reverted keeps counting
+ * in the close-price and days-on-market quantiles until the next rebuild at startup, while the
+ * status counts correct immediately. Sale, rent and lease listings are aggregated separately
+ * since their prices are not comparable. Changes that arrive while a rebuild loads are applied
+ * to the live figures and replayed into the rebuilt ones before they replace them.
+ */
+@Service
+public class MarketAnalyticsService {
+    private static final Logger log = LoggerFactory.getLogger(MarketAnalyticsService.class);
+    
+    private final WarmBootSnapshot warmBoot;
+    private final ReentrantLock lock = new ReentrantLock();
+    private State state = new State();
+    /** Changes applied since the running rebuild started, or {@code null} when none runs. */
+    private List<Change> changedDuringRebuild;
+    
+    public MarketAnalyticsService(WarmBootSnapshot warmBoot) {
+        this.warmBoot = warmBoot;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.nanoTime();
+        State rebuilt = new State();
+        lock.lock();
+        try {
+            changedDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.unlock();
+        }
+        boolean loaded = false;
+        try {
+            warmBoot.load("analytics", new ListingSink() {
+                @Override
+                public void upsert(Property property) {
+                    rebuilt.apply(property.getId(), ListingState.of(property), closeDate(property));
+                }
+                
+                @Override
+                public void remove(long id) {
+                    rebuilt.apply(id, null, LocalDate.now());
+                }
+            });
+            loaded = true;
+        } finally {
+            lock.lock();
+            try {
+                if (loaded) {
+                    for (Change change : changedDuringRebuild) {
+                        rebuilt.apply(change.id(), change.current(), change.closeDate());
+                    }
+                    state = rebuilt;
+                }
+                changedDuringRebuild = null;
+            } finally {
+                lock.unlock();
+            }
+        }
+        log.info("Aggregated market figures for {} listings in {} ms",
+                rebuilt.listings.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPropertyChanged(PropertyChangedEvent event) {
+        Property property = event.getProperty();
+        ListingState current = event.getChangeType() == EntityChangeType.DELETED ? null : ListingState.of(property);
+        LocalDate closeDate = closeDate(property);
+        lock.lock();
+        try {
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.add(new Change(property.getId(), current, closeDate));
+            }
+            state.apply(property.getId(), current, closeDate);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public Optional<MarketStats> stats(ListingType listingType, MarketDimension dimension, String key) {
+        lock.lock();
+        try {
+            MarketAggregate aggregate = state.group(listingType, dimension).get(key);
+            return aggregate == null || aggregate.isEmpty() ? Optional.empty() : Optional.of(aggregate.snapshot());
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /** Figures for every value of {@code dimension}, ordered by key. */
+    public List<MarketStats> breakdown(ListingType listingType, MarketDimension dimension) {
+        lock.lock();
+        try {
+            List<MarketStats> stats = new ArrayList<>();
+            for (MarketAggregate aggregate : new TreeMap<>(state.group(listingType, dimension)).values()) {
+                if (!aggregate.isEmpty()) {
+                    stats.add(aggregate.snapshot());
+                }
+            }
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /** The listing's last update is the best available close date for sold and rented listings. */
+    private static LocalDate closeDate(Property property) {
+        return property.getUpdatedAt() != null ? property.getUpdatedAt().toLocalDate() : LocalDate.now();
+    }
+    
+    private static boolean isClosed(PropertyStatus status) {
+        return status == PropertyStatus.SOLD || status == PropertyStatus.RENTED;
+    }
+    
+    private record Change(long id, ListingState current, LocalDate closeDate) {
+    }
+    
+    /** The fields of a listing the aggregates depend on, as of the last applied change. */
+    private record ListingState(ListingType listingType, String city, Property.PropertyType propertyType,
+                                PropertyStatus status, double price, Integer squareFeet, LocalDate listingDate) {
+        
+        static ListingState of(Property property) {
+            if (property.getListingType() == null || property.getStatus() == null || property.getPrice() == null) {
+                return null;
+            }
+            return new ListingState(property.getListingType(),
+                    property.getCity() == null ? null : property.getCity().trim(),
+                    property.getPropertyType(), property.getStatus(), property.getPrice().doubleValue(),
+                    property.getSquareFeet(), property.getListingDate());
+        }
+        
+        double pricePerSquareFoot() {
+            return squareFeet != null && squareFeet > 0 ? price / squareFeet : Double.NaN;
+        }
+    }
+    
+    private static final class State {
+        final Map<Long, ListingState> listings = new HashMap<>();
+        final Map<ListingType, Map<MarketDimension, Map<String, MarketAggregate>>> aggregates =
+                new EnumMap<>(ListingType.class);
+        
+        void apply(Long id, ListingState current, LocalDate closeDate) {
+            ListingState previous = current == null ? listings.remove(id) : listings.put(id, current);
+            if (previous != null) {
+                for (MarketAggregate aggregate : inventoryGroups(previous)) {
+                    aggregate.leave(previous.status(), previous.price());
+                }
+            }
+            if (current == null) {
+                return;
+            }
+            for (MarketAggregate aggregate : inventoryGroups(current)) {
+                aggregate.enter(current.status(), current.price());
+            }
+            if (previous == null) {
+                for (MarketAggregate aggregate : inventoryGroups(current)) {
+                    aggregate.listed(current.price(), current.pricePerSquareFoot());
+                }
+            }
+            if (isClosed(current.status()) && (previous == null || !isClosed(previous.status()))) {
+                long days = current.listingDate() == null ? -1
+                        : Math.max(0, ChronoUnit.DAYS.between(current.listingDate(), closeDate));
+                for (MarketAggregate aggregate : closeGroups(current, closeDate)) {
+                    aggregate.closed(current.price(), days);
+                }
+            }
+        }
+        
+        /** Groups keyed by listing attributes, with the listing month for {@link MarketDimension#MONTH}. */
+        private List<MarketAggregate> inventoryGroups(ListingState listing) {
+            return groups(listing, listing.listingDate());
+        }
+        
+        /** Same groups, except that the month is the month of the close. */
+        private List<MarketAggregate> closeGroups(ListingState listing, LocalDate closeDate) {
+            return groups(listing, closeDate);
+        }
+        
+        private List<MarketAggregate> groups(ListingState listing, LocalDate month) {
+            List<MarketAggregate> groups = new ArrayList<>(3);
+            if (listing.city() != null && !listing.city().isEmpty()) {
+                groups.add(aggregate(listing.listingType(), MarketDimension.CITY, listing.city()));
+            }
+            if (listing.propertyType() != null) {
+                groups.add(aggregate(listing.listingType(), MarketDimension.PROPERTY_TYPE, listing.propertyType().name()));
+            }
+            if (month != null) {
+                groups.add(aggregate(listing.listingType(), MarketDimension.MONTH, YearMonth.from(month).toString()));
+            }
+            return groups;
+        }
+        
+        private MarketAggregate aggregate(ListingType listingType, MarketDimension dimension, String key) {
+            return group(listingType, dimension)
+                    .computeIfAbsent(key, k -> new MarketAggregate(listingType, dimension, k));
+        }
+        
+        Map<String, MarketAggregate> group(ListingType listingType, MarketDimension dimension) {
+            return aggregates.computeIfAbsent(listingType, t -> new EnumMap<>(MarketDimension.class))
+                    .computeIfAbsent(dimension, d -> new HashMap<>());
+        }
+    }
+}
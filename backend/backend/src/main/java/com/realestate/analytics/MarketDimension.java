@@ -0,0 +1,9 @@
+package com.realestate.analytics;
+
+/**
+ * Ways market aggregates are grouped. For {@link #MONTH}, listing-time figures and current
+ * status counts use the listing month and close-time figures use the month of the close.
+ */
+public enum MarketDimension {
+    CITY, PROPERTY_TYPE, MONTH
+}
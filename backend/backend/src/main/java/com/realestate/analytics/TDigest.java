@@ -0,0 +1,196 @@
+package com.realestate.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Merging t-digest (Dunning and Ertl) for approximate quantiles of a stream of doubles. Values
+ * are buffered and periodically merged into at most about {@code compression} centroids whose
+ * size limit follows the arcsine scale function, so centroids near the tails stay small and
+ * extreme quantiles stay accurate. Two digests merge into one that summarizes both streams,
+ * which lets per-month digests be combined into any date range.
+ *
+ * <p>Values cannot be removed. Not thread-safe.
+ */
+public final class TDigest {
+    private static final int INITIAL_BUFFER = 16;
+    
+    private final double compression;
+    private final int maxBuffer;
+    private double[] means = new double[0];
+    private double[] weights = new double[0];
+    private int centroids;
+    private double[] buffer = new double[INITIAL_BUFFER];
+    private double[] bufferWeights = new double[INITIAL_BUFFER];
+    private int buffered;
+    private double totalWeight;
+    private double sum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    
+    public TDigest(double compression) {
+        if (compression < 10) {
+            throw new IllegalArgumentException("Compression must be at least 10");
+        }
+        this.compression = compression;
+        this.maxBuffer = (int) (compression * 4);
+    }
+    
+    public void add(double value) {
+        add(value, 1);
+    }
+    
+    public void add(double value, double weight) {
+        if (Double.isNaN(value) || weight <= 0) {
+            return;
+        }
+        if (buffered == buffer.length) {
+            if (buffered >= maxBuffer) {
+                compress();
+            } else {
+                int grown = Math.min(maxBuffer, buffer.length * 2);
+                buffer = Arrays.copyOf(buffer, grown);
+                bufferWeights = Arrays.copyOf(bufferWeights, grown);
+            }
+        }
+        buffer[buffered] = value;
+        bufferWeights[buffered++] = weight;
+        totalWeight += weight;
+        sum += value * weight;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+    
+    /** Adds everything summarized by {@code other} to this digest. */
+    public void merge(TDigest other) {
+        other.compress();
+        for (int i = 0; i < other.centroids; i++) {
+            add(other.means[i], other.weights[i]);
+        }
+        // add() only saw centroid means, which keeps the sum exact but understates the extremes
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+    
+    public long count() {
+        return Math.round(totalWeight);
+    }
+    
+    public double mean() {
+        return totalWeight == 0 ? Double.NaN : sum / totalWeight;
+    }
+    
+    public double min() { return totalWeight == 0 ? Double.NaN : min; }
+    
+    public double max() { return totalWeight == 0 ? Double.NaN : max; }
+    
+    /** Estimated value at quantile {@code q} in [0, 1]; NaN while empty. */
+    public double quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile must be in [0, 1]: " + q);
+        }
+        compress();
+        if (centroids == 0) {
+            return Double.NaN;
+        }
+        if (centroids == 1) {
+            return means[0];
+        }
+        double index = q * totalWeight;
+        if (index < weights[0] / 2) {
+            return min + (means[0] - min) * (index / (weights[0] / 2));
+        }
+        double weightSoFar = weights[0] / 2;
+        for (int i = 0; i < centroids - 1; i++) {
+            double step = (weights[i] + weights[i + 1]) / 2;
+            if (weightSoFar + step > index) {
+                double t = (index - weightSoFar) / step;
+                return means[i] + t * (means[i + 1] - means[i]);
+            }
+            weightSoFar += step;
+        }
+        double last = weights[centroids - 1] / 2;
+        double t = Math.min(1, (index - weightSoFar) / last);
+        return means[centroids - 1] + t * (max - means[centroids - 1]);
+    }
+    
+    public TDigest copy() {
+        TDigest copy = new TDigest(compression);
+        copy.merge(this);
+        return copy;
+    }
+    
+    int centroidCount() {
+        compress();
+        return centroids;
+    }
+    
+    private void compress() {
+        if (buffered == 0) {
+            return;
+        }
+        int n = centroids + buffered;
+        double[] allMeans = Arrays.copyOf(means, n);
+        double[] allWeights = Arrays.copyOf(weights, n);
+        System.arraycopy(buffer, 0, allMeans, centroids, buffered);
+        System.arraycopy(bufferWeights, 0, allWeights, centroids, buffered);
+        sortByMean(allMeans, allWeights, n);
+        
+        double[] mergedMeans = new double[Math.min(n, (int) Math.ceil(compression) * 2)];
+        double[] mergedWeights = new double[mergedMeans.length];
+        int out = 0;
+        double weightSoFar = 0;
+        double currentMean = allMeans[0];
+        double currentWeight = allWeights[0];
+        double kLeft = scale(0);
+        for (int i = 1; i < n; i++) {
+            double proposed = currentWeight + allWeights[i];
+            if (scale((weightSoFar + proposed) / totalWeight) - kLeft <= 1) {
+                currentMean += (allMeans[i] - currentMean) * allWeights[i] / proposed;
+                currentWeight = proposed;
+            } else {
+                if (out == mergedMeans.length) {
+                    mergedMeans = Arrays.copyOf(mergedMeans, out * 2);
+                    mergedWeights = Arrays.copyOf(mergedWeights, out * 2);
+                }
+                mergedMeans[out] = currentMean;
+                mergedWeights[out++] = currentWeight;
+                weightSoFar += currentWeight;
+                kLeft = scale(weightSoFar / totalWeight);
+                currentMean = allMeans[i];
+                currentWeight = allWeights[i];
+            }
+        }
+        if (out == mergedMeans.length) {
+            mergedMeans = Arrays.copyOf(mergedMeans, out + 1);
+            mergedWeights = Arrays.copyOf(mergedWeights, out + 1);
+        }
+        mergedMeans[out] = currentMean;
+        mergedWeights[out++] = currentWeight;
+        
+        means = mergedMeans;
+        weights = mergedWeights;
+        centroids = out;
+        buffered = 0;
+    }
+    
+    /** Arcsine scale function k1: one unit of k may hold more weight near the median than in the tails. */
+    private double scale(double q) {
+        return compression / (2 * Math.PI) * Math.asin(2 * Math.min(1, Math.max(0, q)) - 1);
+    }
+    
+    private static void sortByMean(double[] means, double[] weights, int n) {
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(means[a], means[b]));
+        double[] sortedMeans = new double[n];
+        double[] sortedWeights = new double[n];
+        for (int i = 0; i < n; i++) {
+            sortedMeans[i] = means[order[i]];
+            sortedWeights[i] = weights[order[i]];
+        }
+        System.arraycopy(sortedMeans, 0, means, 0, n);
+        System.arraycopy(sortedWeights, 0, weights, 0, n);
+    }
+}
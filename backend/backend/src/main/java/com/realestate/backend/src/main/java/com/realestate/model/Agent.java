@@ -1,5 +1,6 @@
 package com.realestate.model;
 
+import com.realestate.event.AgentLifecycleListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import java.time.LocalDate;
@@ -8,9 +9,16 @@ import java.util.List;
 
 @Entity
 @Table(name = "agents")
+// Agent dashboard: listings in the same query; transactions are a second bag, so they load in
+// one follow-up query instead of multiplying the join
+@NamedEntityGraph(name = Agent.DASHBOARD_GRAPH, attributeNodes = @NamedAttributeNode("properties"))
+@EntityListeners(AgentLifecycleListener.class)
 public class Agent {
+    public static final String DASHBOARD_GRAPH = "Agent.dashboard";
+    
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "agent_seq")
+    @SequenceGenerator(name = "agent_seq", sequenceName = "agent_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "First name is required")
@@ -48,6 +56,7 @@ public class Agent {
     
     private String city;
     private String state;
+    private String country;
     
     @Column(name = "postal_code")
     private String postalCode;
@@ -55,7 +64,7 @@ public class Agent {
     @Column(name = "hire_date")
     private LocalDate hireDate;
     
-    @Column(name = "commission_rate", precision = 5, scale = 2)
+    @Column(name = "commission_rate")
     private Double commissionRate;
     
     @Column(name = "specialization")
@@ -154,6 +163,9 @@ public class Agent {
     public String getState() { return state; }
     public void setState(String state) { this.state = state; }
     
+    public String getCountry() { return country; }
+    public void setCountry(String country) { this.country = country; }
+    
     public String getPostalCode() { return postalCode; }
     public void setPostalCode(String postalCode) { this.postalCode = postalCode; }
     
@@ -1,5 +1,7 @@
 package com.realestate.model;
 
+import com.realestate.event.PropertyLifecycleListener;
+import com.realestate.geo.PropertyGeocodingListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import java.math.BigDecimal;
@@ -8,10 +10,23 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "properties")
+@Table(name = "properties", indexes = {
+        // keyset browse orders (see PropertyRepository#browseNewest and friends)
+        @Index(name = "idx_properties_status_listing_date", columnList = "status, listing_date, id"),
+        @Index(name = "idx_properties_status_price", columnList = "status, price, id")
+})
+@EntityListeners({PropertyGeocodingListener.class, PropertyLifecycleListener.class})
+// Listing lists that show agent and owner names
+@NamedEntityGraph(name = Property.WITH_AGENT_AND_OWNER_GRAPH, attributeNodes = {
+        @NamedAttributeNode("agent"),
+        @NamedAttributeNode("owner")
+})
 public class Property {
+    public static final String WITH_AGENT_AND_OWNER_GRAPH = "Property.withAgentAndOwner";
+    
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "property_seq")
+    @SequenceGenerator(name = "property_seq", sequenceName = "property_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "Property title is required")
@@ -37,6 +52,18 @@ public class Property {
     
     private String country;
     
+    @DecimalMin(value = "-90.0", message = "Latitude must be between -90 and 90")
+    @DecimalMax(value = "90.0", message = "Latitude must be between -90 and 90")
+    private Double latitude;
+    
+    @DecimalMin(value = "-180.0", message = "Longitude must be between -180 and 180")
+    @DecimalMax(value = "180.0", message = "Longitude must be between -180 and 180")
+    private Double longitude;
+    
+    // The full address the coordinates were resolved from; null when the caller supplied them
+    @Column(name = "geocoded_address", length = 1500)
+    private String geocodedAddress;
+    
     @NotNull(message = "Property type is required")
     @Enumerated(EnumType.STRING)
     @Column(name = "property_type")
@@ -212,6 +239,15 @@ public class Property {
     public String getCountry() { return country; }
     public void setCountry(String country) { this.country = country; }
     
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+    
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
+    
+    public String getGeocodedAddress() { return geocodedAddress; }
+    public void setGeocodedAddress(String geocodedAddress) { this.geocodedAddress = geocodedAddress; }
+    
     public PropertyType getPropertyType() { return propertyType; }
     public void setPropertyType(PropertyType propertyType) { this.propertyType = propertyType; }
     
@@ -308,6 +344,10 @@ public class Property {
         return fullAddress.toString();
     }
     
+    public boolean hasCoordinates() {
+        return latitude != null && longitude != null;
+    }
+    
     public String getShortDescription() {
         return bedrooms + " bed, " + bathrooms + " bath " + propertyType.toString().toLowerCase();
     }
@@ -1,5 +1,6 @@
 package com.realestate.model;
 
+import com.realestate.event.ClientLifecycleListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import java.time.LocalDateTime;
@@ -7,9 +8,17 @@ import java.util.List;
 
 @Entity
 @Table(name = "clients")
+// Client portfolio: owned listings and each listing's agent in one query
+@NamedEntityGraph(name = Client.PORTFOLIO_GRAPH,
+        attributeNodes = @NamedAttributeNode(value = "properties", subgraph = "listing"),
+        subgraphs = @NamedSubgraph(name = "listing", attributeNodes = @NamedAttributeNode("agent")))
+@EntityListeners(ClientLifecycleListener.class)
 public class Client {
+    public static final String PORTFOLIO_GRAPH = "Client.portfolio";
+    
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "client_seq")
+    @SequenceGenerator(name = "client_seq", sequenceName = "client_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "First name is required")
@@ -47,10 +56,10 @@ public class Client {
     @Column(name = "client_type")
     private ClientType clientType;
     
-    @Column(name = "budget_min", precision = 15, scale = 2)
+    @Column(name = "budget_min")
     private Double budgetMin;
     
-    @Column(name = "budget_max", precision = 15, scale = 2)
+    @Column(name = "budget_max")
     private Double budgetMax;
     
     @Column(name = "preferred_locations")
@@ -0,0 +1,57 @@
+package com.realestate.browse;
+
+import com.realestate.model.Property.PropertyStatus;
+import com.realestate.search.ListingSort;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position after the last row of a browse page: the sort and status it was issued for, that
+ * row's sort key and its id. Encoded as URL-safe base64 so clients treat it as opaque; a
+ * cursor is only accepted for the same sort and status it came from.
+ */
+final class BrowseCursor {
+    private static final String VERSION = "1";
+    private static final String SEPARATOR = "|";
+    
+    final ListingSort sort;
+    final PropertyStatus status;
+    final String key;
+    final long id;
+    
+    BrowseCursor(ListingSort sort, PropertyStatus status, String key, long id) {
+        this.sort = sort;
+        this.status = status;
+        this.key = key;
+        this.id = id;
+    }
+    
+    String encode() {
+        String raw = String.join(SEPARATOR, VERSION, sort.name(), status.name(), key, Long.toString(id));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * @throws IllegalArgumentException if the token is malformed or was issued for another sort
+     *         or status
+     */
+    static BrowseCursor decode(String token, ListingSort sort, PropertyStatus status) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|", -1);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        if (parts.length != 5 || !parts[0].equals(VERSION)) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        if (!parts[1].equals(sort.name()) || !parts[2].equals(status.name())) {
+            throw new IllegalArgumentException("Cursor was issued for sort " + parts[1] + " and status " + parts[2]);
+        }
+        try {
+            return new BrowseCursor(sort, status, parts[3], Long.parseLong(parts[4]));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+    }
+}
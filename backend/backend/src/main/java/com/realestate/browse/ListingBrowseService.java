@@ -0,0 +1,126 @@
+package com.realestate.browse;
+
+import com.realestate.dto.CursorPage;
+import com.realestate.dto.ListingCard;
+import com.realestate.model.Property.PropertyStatus;
+import com.realestate.outbox.AggregateType;
+import com.realestate.repository.PropertyRepository;
+import com.realestate.search.ListingSort;
+import com.realestate.shard.EntityShards;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Database-backed listing browse with keyset pagination. Every page is one index range scan
+ * that starts right after the previous page's last row, so page 500 costs the same as page 1,
+ * unlike {@code OFFSET}, which reads and discards every skipped row.
+ *
+ * <p>With sharding every shard scans from the same cursor in parallel and the pages are merged;
+ * a shard skips the listings it holds without serving them, see {@link EntityShards#servedBy}.
+ */
+@Service
+public class ListingBrowseService {
+    public static final int MAX_PAGE_SIZE = 100;
+    
+    private final PropertyRepository propertyRepository;
+    private final EntityShards shards;
+    private final TransactionTemplate readOnlyTransaction;
+    
+    public ListingBrowseService(PropertyRepository propertyRepository,
+                                EntityShards shards,
+                                PlatformTransactionManager transactionManager) {
+        this.propertyRepository = propertyRepository;
+        this.shards = shards;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+    
+    /**
+     * @param cursor {@code nextCursor} of the previous page, or null for the first page
+     * @throws IllegalArgumentException if the cursor is malformed or belongs to another sort or status
+     */
+    public CursorPage<ListingCard> browse(ListingSort sort, PropertyStatus status, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        BrowseCursor from = cursor == null || cursor.isEmpty() ? null : BrowseCursor.decode(cursor, sort, status);
+        // one extra row tells whether another page follows
+        Limit limit = Limit.of(pageSize + 1);
+        List<ListingCard> rows = shards.onEveryShard(shard -> readOnlyTransaction.execute(tx ->
+                        served(shard, sort, status, from, limit))).stream()
+                .flatMap(List::stream)
+                .sorted(order(sort))
+                .limit(limit.max())
+                .toList();
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+        List<ListingCard> page = rows.subList(0, pageSize);
+        ListingCard last = page.get(pageSize - 1);
+        return new CursorPage<>(List.copyOf(page), new BrowseCursor(sort, status, key(sort, last), last.getId()).encode());
+    }
+    
+    /** Up to {@code limit} rows after {@code cursor} that {@code shard} serves, reading on past those it does not. */
+    private List<ListingCard> served(int shard, ListingSort sort, PropertyStatus status, BrowseCursor cursor, Limit limit) {
+        List<ListingCard> served = new ArrayList<>();
+        BrowseCursor after = cursor;
+        while (true) {
+            List<ListingCard> rows = after == null ? first(sort, status, limit) : after(after, limit);
+            Set<Long> ids = shards.servedBy(shard, AggregateType.PROPERTY,
+                    rows.stream().map(ListingCard::getId).toList());
+            for (ListingCard row : rows) {
+                if (ids.contains(row.getId()) && served.size() < limit.max()) {
+                    served.add(row);
+                }
+            }
+            if (rows.size() < limit.max() || served.size() == limit.max()) {
+                return served;
+            }
+            ListingCard last = rows.get(rows.size() - 1);
+            after = new BrowseCursor(sort, status, key(sort, last), last.getId());
+        }
+    }
+    
+    private List<ListingCard> first(ListingSort sort, PropertyStatus status, Limit limit) {
+        return switch (sort) {
+            case NEWEST -> propertyRepository.browseNewest(status, limit);
+            case PRICE_ASC -> propertyRepository.browseCheapest(status, limit);
+            case PRICE_DESC -> propertyRepository.browseMostExpensive(status, limit);
+        };
+    }
+    
+    private List<ListingCard> after(BrowseCursor cursor, Limit limit) {
+        try {
+            return switch (cursor.sort) {
+                case NEWEST -> propertyRepository.browseNewestAfter(cursor.status,
+                        LocalDate.parse(cursor.key), cursor.id, limit);
+                case PRICE_ASC -> propertyRepository.browseCheapestAfter(cursor.status,
+                        new BigDecimal(cursor.key), cursor.id, limit);
+                case PRICE_DESC -> propertyRepository.browseMostExpensiveAfter(cursor.status,
+                        new BigDecimal(cursor.key), cursor.id, limit);
+            };
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+    }
+    
+    private static String key(ListingSort sort, ListingCard row) {
+        return sort == ListingSort.NEWEST ? row.getListingDate().toString() : row.getPrice().toPlainString();
+    }
+    
+    // Must order exactly as the browse queries do, or the merge interleaves shards wrongly
+    private static Comparator<ListingCard> order(ListingSort sort) {
+        return switch (sort) {
+            case NEWEST -> Comparator.comparing(ListingCard::getListingDate).thenComparing(ListingCard::getId).reversed();
+            case PRICE_ASC -> Comparator.comparing(ListingCard::getPrice).thenComparing(ListingCard::getId);
+            case PRICE_DESC -> Comparator.comparing(ListingCard::getPrice).thenComparing(ListingCard::getId).reversed();
+        };
+    }
+}
@@ -0,0 +1,58 @@
+package com.realestate.cache;
+
+/**
+ * Point-in-time counters for one cache. Hits and misses refer to the in-process tier; a miss
+ * answered by the second tier also counts as a second-tier hit.
+ */
+public class CacheStats {
+    private final long hits;
+    private final long misses;
+    private final long secondTierHits;
+    private final long evictions;
+    private final long expirations;
+    private final long invalidations;
+    private final long size;
+    private final long maximumSize;
+    
+    public CacheStats(long hits, long misses, long secondTierHits, long evictions, long expirations,
+                      long invalidations, long size, long maximumSize) {
+        this.hits = hits;
+        this.misses = misses;
+        this.secondTierHits = secondTierHits;
+        this.evictions = evictions;
+        this.expirations = expirations;
+        this.invalidations = invalidations;
+        this.size = size;
+        this.maximumSize = maximumSize;
+    }
+    
+    public long getHits() { return hits; }
+    
+    public long getMisses() { return misses; }
+    
+    public long getSecondTierHits() { return secondTierHits; }
+    
+    public long getEvictions() { return evictions; }
+    
+    public long getExpirations() { return expirations; }
+    
+    public long getInvalidations() { return invalidations; }
+    
+    public long getSize() { return size; }
+    
+    public long getMaximumSize() { return maximumSize; }
+    
+    public double getHitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+    
+    public double getCombinedHitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) (hits + secondTierHits) / requests;
+    }
+    
+    CacheStats withSecondTierHits(long secondTierHits) {
+        return new CacheStats(hits, misses, secondTierHits, evictions, expirations, invalidations, size, maximumSize);
+    }
+}
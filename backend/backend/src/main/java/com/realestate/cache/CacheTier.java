@@ -0,0 +1,17 @@
+package com.realestate.cache;
+
+/**
+ * Optional second cache tier consulted after an in-process miss, typically a shared remote
+ * store. Implementations must be safe for concurrent use; values handed to them are detached
+ * entities and should be serialized rather than retained by reference if the tier is remote.
+ */
+public interface CacheTier<K, V> {
+    
+    V get(K key);
+    
+    void put(K key, V value);
+    
+    void invalidate(K key);
+    
+    void invalidateAll();
+}
@@ -0,0 +1,10 @@
+package com.realestate.cache;
+
+/**
+ * Declares a bean of this type to put a second tier behind every entity cache. Without one the
+ * caches run in-process only.
+ */
+public interface CacheTierFactory {
+    
+    <K, V> CacheTier<K, V> create(String cacheName, Class<V> valueType);
+}
@@ -0,0 +1,31 @@
+package com.realestate.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Unbounded map-backed tier standing in for a remote store in local runs and tests.
+ */
+public class ConcurrentMapCacheTier<K, V> implements CacheTier<K, V> {
+    private final Map<K, V> values = new ConcurrentHashMap<>();
+    
+    @Override
+    public V get(K key) {
+        return values.get(key);
+    }
+    
+    @Override
+    public void put(K key, V value) {
+        values.put(key, value);
+    }
+    
+    @Override
+    public void invalidate(K key) {
+        values.remove(key);
+    }
+    
+    @Override
+    public void invalidateAll() {
+        values.clear();
+    }
+}
@@ -0,0 +1,221 @@
+package com.realestate.cache;
+
+import com.realestate.dto.AgentProfile;
+import com.realestate.dto.PropertyDetail;
+import com.realestate.event.AgentChangedEvent;
+import com.realestate.event.EntityChangeType;
+import com.realestate.event.PropertyChangedEvent;
+import com.realestate.model.Agent;
+import com.realestate.model.Property;
+import com.realestate.outbox.AggregateType;
+import com.realestate.repository.AgentRepository;
+import com.realestate.repository.PropertyRepository;
+import com.realestate.routing.ReadConsistency;
+import com.realestate.shard.EntityShards;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Read-through caches for listing detail and agent profile lookups, plus a query cache of each
+ * agent's listing ids.
+ *
+ * <p>Entries are evicted twice per write: once when Hibernate flushes the change, so later reads
+ * in the same process stop using the old value, and again after the transaction completes,
+ * which discards anything a concurrent reader loaded from the not-yet-committed state. The
+ * agent listing cache stays in-process only because a reassigned listing has to be found by
+ * scanning cached values, which a remote tier cannot do.
+ *
+ * <p>Misses are loaded from the primary ({@link ReadConsistency#PRIMARY}): a replica that has not
+ * yet applied the write behind an eviction would refill the entry with the old row, which then
+ * stays until it expires. With sharding they are loaded from the shard the entity lives on, see
+ * {@link EntityShards}.
+ */
+@Service
+public class EntityCacheService {
+    public static final String PROPERTIES = "properties";
+    public static final String AGENTS = "agents";
+    public static final String AGENT_LISTINGS = "agent-listings";
+    
+    private final PropertyRepository propertyRepository;
+    private final AgentRepository agentRepository;
+    private final EntityShards shards;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TwoLevelCache<Long, PropertyDetail> properties;
+    private final TwoLevelCache<Long, AgentProfile> agents;
+    private final TwoLevelCache<Long, long[]> agentListings;
+    
+    public EntityCacheService(PropertyRepository propertyRepository,
+                              AgentRepository agentRepository,
+                              EntityShards shards,
+                              PlatformTransactionManager transactionManager,
+                              ObjectProvider<CacheTierFactory> tierFactory,
+                              @Value("${realestate.cache.properties.maximum-size:10000}") int propertiesSize,
+                              @Value("${realestate.cache.properties.expire-after-write:10m}") Duration propertiesTtl,
+                              @Value("${realestate.cache.agents.maximum-size:2000}") int agentsSize,
+                              @Value("${realestate.cache.agents.expire-after-write:30m}") Duration agentsTtl,
+                              @Value("${realestate.cache.agent-listings.maximum-size:2000}") int agentListingsSize,
+                              @Value("${realestate.cache.agent-listings.expire-after-write:5m}") Duration agentListingsTtl) {
+        this.propertyRepository = propertyRepository;
+        this.agentRepository = agentRepository;
+        this.shards = shards;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        CacheTierFactory factory = tierFactory.getIfAvailable();
+        this.properties = new TwoLevelCache<>(new TinyLfuCache<>(PROPERTIES, propertiesSize, propertiesTtl),
+                factory != null ? factory.create(PROPERTIES, PropertyDetail.class) : null);
+        this.agents = new TwoLevelCache<>(new TinyLfuCache<>(AGENTS, agentsSize, agentsTtl),
+                factory != null ? factory.create(AGENTS, AgentProfile.class) : null);
+        this.agentListings = new TwoLevelCache<>(
+                new TinyLfuCache<>(AGENT_LISTINGS, agentListingsSize, agentListingsTtl), null);
+    }
+    
+    public Optional<PropertyDetail> findProperty(Long id) {
+        return Optional.ofNullable(properties.get(id, key -> loadFrom(AggregateType.PROPERTY, key, null, () ->
+                propertyRepository.findById(key).map(PropertyDetail::of).orElse(null))));
+    }
+    
+    public Optional<AgentProfile> findAgent(Long id) {
+        return Optional.ofNullable(agents.get(id, key -> loadFrom(AggregateType.AGENT, key, null, () ->
+                agentRepository.findById(key).map(AgentProfile::of).orElse(null))));
+    }
+    
+    /**
+     * Listings of one agent in id order. Ids come from the query cache and the listings
+     * themselves from the listing cache, with all misses loaded in one query.
+     */
+    public List<PropertyDetail> findAgentListings(Long agentId) {
+        long[] ids = agentListings.get(agentId, key -> loadFrom(AggregateType.AGENT, key, new long[0], () ->
+                propertyRepository.findIdsByAgentId(key).stream()
+                        .mapToLong(Long::longValue)
+                        .toArray()));
+        List<Long> keys = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            keys.add(id);
+        }
+        return new ArrayList<>(properties.getAll(keys, this::loadProperties).values());
+    }
+    
+    /** Ids of the listings most worth keeping cached, for {@link #preload} after a restart. */
+    public List<Long> hotPropertyIds(int limit) {
+        return properties.hottestKeys(limit);
+    }
+    
+    public List<Long> hotAgentIds(int limit) {
+        return agents.hottestKeys(limit);
+    }
+    
+    /** Loads the given listings and agents into the caches, one query per cache for all misses. */
+    public void preload(Collection<Long> propertyIds, Collection<Long> agentIds) {
+        properties.getAll(propertyIds, this::loadProperties);
+        agents.getAll(agentIds, missing -> loadAll(AggregateType.AGENT, missing, ids -> {
+            Map<Long, AgentProfile> loaded = new HashMap<>();
+            for (Agent agent : agentRepository.findAllById(ids)) {
+                loaded.put(agent.getId(), AgentProfile.of(agent));
+            }
+            return loaded;
+        }));
+    }
+    
+    @EventListener
+    public void onPropertyFlushed(PropertyChangedEvent event) {
+        evict(event);
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onPropertyCommitted(PropertyChangedEvent event) {
+        evict(event);
+    }
+    
+    @EventListener
+    public void onAgentFlushed(AgentChangedEvent event) {
+        agents.invalidate(event.getAgent().getId());
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onAgentCommitted(AgentChangedEvent event) {
+        agents.invalidate(event.getAgent().getId());
+    }
+    
+    public Map<String, CacheStats> stats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        for (TwoLevelCache<Long, ?> cache : List.of(properties, agents, agentListings)) {
+            stats.put(cache.getName(), cache.stats());
+        }
+        return stats;
+    }
+    
+    /**
+     * Empties the named cache.
+     *
+     * @return false if no cache has that name
+     */
+    public boolean clear(String name) {
+        for (TwoLevelCache<Long, ?> cache : List.of(properties, agents, agentListings)) {
+            if (cache.getName().equals(name)) {
+                cache.invalidateAll();
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private Map<Long, PropertyDetail> loadProperties(Set<Long> missing) {
+        return loadAll(AggregateType.PROPERTY, missing, ids -> {
+            Map<Long, PropertyDetail> loaded = new HashMap<>();
+            for (Property property : propertyRepository.findAllById(ids)) {
+                loaded.put(property.getId(), PropertyDetail.of(property));
+            }
+            return loaded;
+        });
+    }
+    
+    /** Runs {@code loader} on the shard {@code id} lives on, or returns {@code absent} if it was never stored. */
+    private <T> T loadFrom(AggregateType type, long id, T absent, Supplier<T> loader) {
+        OptionalInt shard = shards.locate(type, id);
+        return shard.isPresent() ? shards.onShard(shard.getAsInt(), () -> load(loader)) : absent;
+    }
+    
+    /** Runs {@code loader} once per shard, with the ids living there. */
+    private <T> Map<Long, T> loadAll(AggregateType type, Set<Long> ids, Function<List<Long>, Map<Long, T>> loader) {
+        Map<Long, T> loaded = new HashMap<>();
+        shards.byShard(type, ids).forEach((shard, onShard) ->
+                loaded.putAll(shards.onShard(shard, () -> load(() -> loader.apply(onShard)))));
+        return loaded;
+    }
+    
+    private <T> T load(Supplier<T> loader) {
+        return ReadConsistency.PRIMARY.run(() -> readOnlyTransaction.execute(status -> loader.get()));
+    }
+    
+    private void evict(PropertyChangedEvent event) {
+        Property property = event.getProperty();
+        long id = property.getId();
+        properties.invalidate(id);
+        if (property.getAgent() != null) {
+            agentListings.invalidate(property.getAgent().getId());
+        }
+        if (event.getChangeType() != EntityChangeType.CREATED) {
+            // the previous agent is unknown after a reassignment, so drop any list still holding the id
+            agentListings.invalidateLocalIf(ids -> Arrays.binarySearch(ids, id) >= 0);
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package com.realestate.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Size- and TTL-bounded in-process cache using W-TinyLFU. New entries enter a small LRU window;
+ * an entry pushed out of the window is only admitted to the main area if the
+ * {@link FrequencySketch} rates it as requested more often than the main area's eviction victim.
+ * The main area is a segmented LRU: a hit in probation promotes the entry to protected, and
+ * protected overflow is demoted back to probation.
+ *
+ * <p>Lookups read the map without locking and record the access under a try-lock, so a
+ * contended read skips the policy update rather than waiting for it. Writes always lock.
+ *
+ * <p>Every invalidation advances a stamp. Loaders take the stamp before reading the database and
+ * hand it back to {@link #putIfFresh}, which refuses the value if an invalidation happened in
+ * between; this keeps a read that raced a write from re-caching the old row.
+ */
+public class TinyLfuCache<K, V> {
+    private static final double WINDOW_FRACTION = 0.01;
+    private static final double PROTECTED_FRACTION = 0.80;
+    
+    private static final byte UNLINKED = 0;
+    private static final byte WINDOW = 1;
+    private static final byte PROBATION = 2;
+    private static final byte PROTECTED = 3;
+    
+    private final String name;
+    private final int maximumSize;
+    private final long expireAfterWriteNanos;
+    private final int windowMaximum;
+    private final int protectedMaximum;
+    private final ConcurrentHashMap<K, Node<K, V>> data;
+    private final FrequencySketch sketch;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Node<K, V> window = Node.sentinel();
+    private final Node<K, V> probation = Node.sentinel();
+    private final Node<K, V> protectedSegment = Node.sentinel();
+    private int windowSize;
+    private int protectedSize;
+    
+    private final AtomicLong invalidationStamp = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    
+    public TinyLfuCache(String name, int maximumSize, Duration expireAfterWrite) {
+        if (maximumSize < 2) {
+            throw new IllegalArgumentException("Cache " + name + " needs a maximum size of at least 2");
+        }
+        this.name = name;
+        this.maximumSize = maximumSize;
+        this.expireAfterWriteNanos = expireAfterWrite.toNanos();
+        this.windowMaximum = Math.max(1, (int) (maximumSize * WINDOW_FRACTION));
+        this.protectedMaximum = (int) ((maximumSize - windowMaximum) * PROTECTED_FRACTION);
+        this.data = new ConcurrentHashMap<>(Math.min(maximumSize, 1 << 16));
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+    
+    public String getName() { return name; }
+    
+    public int getMaximumSize() { return maximumSize; }
+    
+    public V getIfPresent(K key) {
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            misses.increment();
+            recordAccess(key, null);
+            return null;
+        }
+        if (node.isExpired(System.nanoTime(), expireAfterWriteNanos)) {
+            expire(node);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        recordAccess(key, node);
+        return node.value;
+    }
+    
+    /**
+     * Returns the cached value or loads it, caching the result unless it is null or an
+     * invalidation happened while the loader ran.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V value = getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+        long stamp = invalidationStamp();
+        value = loader.apply(key);
+        if (value != null) {
+            putIfFresh(key, value, stamp);
+        }
+        return value;
+    }
+    
+    public long invalidationStamp() {
+        return invalidationStamp.get();
+    }
+    
+    public void put(K key, V value) {
+        lock.lock();
+        try {
+            putLocked(key, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Caches the value only if nothing was invalidated since {@code stamp} was taken.
+     *
+     * @return whether the value was cached
+     */
+    public boolean putIfFresh(K key, V value, long stamp) {
+        lock.lock();
+        try {
+            if (invalidationStamp.get() != stamp) {
+                return false;
+            }
+            putLocked(key, value);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public void invalidate(K key) {
+        lock.lock();
+        try {
+            invalidationStamp.incrementAndGet();
+            Node<K, V> node = data.remove(key);
+            if (node != null) {
+                unlink(node);
+                invalidations.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Removes every entry whose value matches. Walks the whole cache, so it is meant for
+     * infrequent writes whose affected keys cannot be derived from the write itself.
+     */
+    public void invalidateIf(Predicate<? super V> predicate) {
+        lock.lock();
+        try {
+            invalidationStamp.incrementAndGet();
+            Iterator<Node<K, V>> nodes = data.values().iterator();
+            while (nodes.hasNext()) {
+                Node<K, V> node = nodes.next();
+                if (predicate.test(node.value)) {
+                    nodes.remove();
+                    unlink(node);
+                    invalidations.increment();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            invalidationStamp.incrementAndGet();
+            for (Node<K, V> node : data.values()) {
+                unlink(node);
+                invalidations.increment();
+            }
+            data.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public long size() {
+        return data.size();
+    }
+    
+    /**
+     * Up to {@code limit} keys, most valuable first: protected entries, then probation, then the
+     * window, each from most to least recently used.
+     */
+    public List<K> hottestKeys(int limit) {
+        List<K> keys = new ArrayList<>(Math.min(limit, data.size()));
+        lock.lock();
+        try {
+            for (Node<K, V> sentinel : List.of(protectedSegment, probation, window)) {
+                for (Node<K, V> node = sentinel.prev; node != sentinel && keys.size() < limit; node = node.prev) {
+                    keys.add(node.key);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return keys;
+    }
+    
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), 0, evictions.sum(), expirations.sum(),
+                invalidations.sum(), data.size(), maximumSize);
+    }
+    
+    private void recordAccess(K key, Node<K, V> node) {
+        if (!lock.tryLock()) {
+            return;
+        }
+        try {
+            sketch.increment(key);
+            if (node != null) {
+                onHit(node);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void putLocked(K key, V value) {
+        long now = System.nanoTime();
+        Node<K, V> existing = data.get(key);
+        if (existing != null) {
+            existing.value = value;
+            existing.writeTime = now;
+            onHit(existing);
+            return;
+        }
+        Node<K, V> node = new Node<>(key, value, now);
+        data.put(key, node);
+        linkLast(window, node, WINDOW);
+        windowSize++;
+        evict(now);
+    }
+    
+    private void onHit(Node<K, V> node) {
+        switch (node.queue) {
+            case WINDOW -> moveToTail(window, node);
+            case PROTECTED -> moveToTail(protectedSegment, node);
+            case PROBATION -> {
+                unlink(node);
+                linkLast(protectedSegment, node, PROTECTED);
+                protectedSize++;
+                if (protectedSize > protectedMaximum) {
+                    Node<K, V> demoted = protectedSegment.next;
+                    unlink(demoted);
+                    linkLast(probation, demoted, PROBATION);
+                }
+            }
+            default -> {
+                // removed concurrently; nothing to reorder
+            }
+        }
+    }
+    
+    /**
+     * Moves window overflow into probation, then, while over capacity, lets the newest
+     * probation entry (the candidate) duel the oldest (the victim) on estimated frequency.
+     */
+    private void evict(long now) {
+        Node<K, V> candidate = null;
+        if (windowSize > windowMaximum) {
+            candidate = window.next;
+            unlink(candidate);
+            linkLast(probation, candidate, PROBATION);
+        }
+        while (data.size() > maximumSize) {
+            Node<K, V> victim = victimFor(candidate);
+            if (candidate == null || candidate == victim) {
+                remove(victim, now);
+            } else if (candidate.isExpired(now, expireAfterWriteNanos)) {
+                remove(candidate, now);
+            } else if (victim.isExpired(now, expireAfterWriteNanos)
+                    || sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+                remove(victim, now);
+            } else {
+                remove(candidate, now);
+            }
+            candidate = null;
+        }
+    }
+    
+    /** Oldest entry other than the candidate, preferring probation, then protected, then the window. */
+    private Node<K, V> victimFor(Node<K, V> candidate) {
+        for (Node<K, V> sentinel : List.of(probation, protectedSegment, window)) {
+            Node<K, V> oldest = sentinel.next == candidate ? candidate.next : sentinel.next;
+            if (oldest != sentinel) {
+                return oldest;
+            }
+        }
+        return candidate;
+    }
+    
+    private void remove(Node<K, V> node, long now) {
+        data.remove(node.key, node);
+        unlink(node);
+        if (node.isExpired(now, expireAfterWriteNanos)) {
+            expirations.increment();
+        } else {
+            evictions.increment();
+        }
+    }
+    
+    private void expire(Node<K, V> node) {
+        lock.lock();
+        try {
+            if (data.remove(node.key, node)) {
+                unlink(node);
+                expirations.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void linkLast(Node<K, V> sentinel, Node<K, V> node, byte queue) {
+        node.prev = sentinel.prev;
+        node.next = sentinel;
+        sentinel.prev.next = node;
+        sentinel.prev = node;
+        node.queue = queue;
+    }
+    
+    private void moveToTail(Node<K, V> sentinel, Node<K, V> node) {
+        if (sentinel.prev != node) {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            node.prev = sentinel.prev;
+            node.next = sentinel;
+            sentinel.prev.next = node;
+            sentinel.prev = node;
+        }
+    }
+    
+    private void unlink(Node<K, V> node) {
+        if (node.queue == UNLINKED) {
+            return;
+        }
+        if (node.queue == WINDOW) {
+            windowSize--;
+        } else if (node.queue == PROTECTED) {
+            protectedSize--;
+        }
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+        node.queue = UNLINKED;
+    }
+    
+    private static final class Node<K, V> {
+        final K key;
+        volatile V value;
+        volatile long writeTime;
+        Node<K, V> prev;
+        Node<K, V> next;
+        byte queue;
+        
+        Node(K key, V value, long writeTime) {
+            this.key = key;
+            this.value = value;
+            this.writeTime = writeTime;
+        }
+        
+        static <K, V> Node<K, V> sentinel() {
+            Node<K, V> sentinel = new Node<>(null, null, 0);
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            return sentinel;
+        }
+        
+        boolean isExpired(long now, long expireAfterWriteNanos) {
+            return now - writeTime >= expireAfterWriteNanos;
+        }
+    }
+}
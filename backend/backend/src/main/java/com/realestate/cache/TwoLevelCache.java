@@ -0,0 +1,163 @@
+package com.realestate.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link TinyLfuCache} in front of an optional {@link CacheTier}. A second-tier failure is
+ * logged and treated as a miss so an unavailable remote store degrades to database reads
+ * instead of failing requests.
+ */
+public class TwoLevelCache<K, V> {
+    private static final Logger log = LoggerFactory.getLogger(TwoLevelCache.class);
+    
+    private final TinyLfuCache<K, V> local;
+    private final CacheTier<K, V> secondTier;
+    private final LongAdder secondTierHits = new LongAdder();
+    
+    public TwoLevelCache(TinyLfuCache<K, V> local, CacheTier<K, V> secondTier) {
+        this.local = local;
+        this.secondTier = secondTier;
+    }
+    
+    public String getName() { return local.getName(); }
+    
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V value = local.getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+        long stamp = local.invalidationStamp();
+        value = secondTierGet(key);
+        if (value != null) {
+            secondTierHits.increment();
+            local.putIfFresh(key, value, stamp);
+            return value;
+        }
+        value = loader.apply(key);
+        if (value != null && local.putIfFresh(key, value, stamp)) {
+            secondTierPut(key, value);
+        }
+        return value;
+    }
+    
+    /**
+     * Looks up several keys at once, handing all misses to {@code loader} in a single call.
+     * The result keeps the iteration order of {@code keys} and omits keys the loader did not
+     * return.
+     */
+    public Map<K, V> getAll(Collection<K> keys, Function<Set<K>, Map<K, V>> loader) {
+        Map<K, V> found = new HashMap<>();
+        Set<K> missing = new HashSet<>();
+        for (K key : keys) {
+            V value = local.getIfPresent(key);
+            if (value != null) {
+                found.put(key, value);
+            } else {
+                missing.add(key);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long stamp = local.invalidationStamp();
+            for (Iterator<K> it = missing.iterator(); it.hasNext(); ) {
+                K key = it.next();
+                V value = secondTierGet(key);
+                if (value != null) {
+                    secondTierHits.increment();
+                    local.putIfFresh(key, value, stamp);
+                    found.put(key, value);
+                    it.remove();
+                }
+            }
+            if (!missing.isEmpty()) {
+                loader.apply(missing).forEach((key, value) -> {
+                    found.put(key, value);
+                    if (local.putIfFresh(key, value, stamp)) {
+                        secondTierPut(key, value);
+                    }
+                });
+            }
+        }
+        Map<K, V> ordered = new LinkedHashMap<>();
+        for (K key : keys) {
+            V value = found.get(key);
+            if (value != null) {
+                ordered.put(key, value);
+            }
+        }
+        return ordered;
+    }
+    
+    public void invalidate(K key) {
+        local.invalidate(key);
+        if (secondTier != null) {
+            try {
+                secondTier.invalidate(key);
+            } catch (RuntimeException e) {
+                log.warn("Second tier of cache {} failed to invalidate {}", getName(), key, e);
+            }
+        }
+    }
+    
+    /**
+     * Evicts matching entries from the in-process tier. The second tier cannot be scanned, so
+     * callers that use this must also know the affected keys or rely on its own expiry.
+     */
+    public void invalidateLocalIf(Predicate<? super V> predicate) {
+        local.invalidateIf(predicate);
+    }
+    
+    public void invalidateAll() {
+        local.invalidateAll();
+        if (secondTier != null) {
+            try {
+                secondTier.invalidateAll();
+            } catch (RuntimeException e) {
+                log.warn("Second tier of cache {} failed to clear", getName(), e);
+            }
+        }
+    }
+    
+    /** See {@link TinyLfuCache#hottestKeys}; only the in-process tier is consulted. */
+    public List<K> hottestKeys(int limit) {
+        return local.hottestKeys(limit);
+    }
+    
+    public CacheStats stats() {
+        return local.stats().withSecondTierHits(secondTierHits.sum());
+    }
+    
+    private V secondTierGet(K key) {
+        if (secondTier == null) {
+            return null;
+        }
+        try {
+            return secondTier.get(key);
+        } catch (RuntimeException e) {
+            log.warn("Second tier of cache {} failed to read {}", getName(), key, e);
+            return null;
+        }
+    }
+    
+    private void secondTierPut(K key, V value) {
+        if (secondTier == null) {
+            return;
+        }
+        try {
+            secondTier.put(key, value);
+        } catch (RuntimeException e) {
+            log.warn("Second tier of cache {} failed to store {}", getName(), key, e);
+        }
+    }
+}
@@ -0,0 +1,407 @@
+package com.realestate.compact;
+
+import com.realestate.model.Agent;
+import com.realestate.model.Client;
+import com.realestate.model.Property;
+import com.realestate.model.Property.ListingType;
+import com.realestate.model.Property.PropertyCondition;
+import com.realestate.model.Property.PropertyStatus;
+import com.realestate.model.Property.PropertyType;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongFunction;
+
+/**
+ * Read-only copy of a {@link Property} for holding many listings in memory. Every scalar is a
+ * primitive: numbers use {@link #NULL_INT}, {@link #NULL_LONG} or NaN for null, money is a
+ * long count of cents, dates are epoch days, timestamps epoch microseconds (UTC) and enums
+ * ordinals. Low-cardinality strings (city, state, postal code, country, heating, cooling and
+ * flooring type) are codes in a shared {@link StringDictionary}; the other strings are the
+ * entity's own instances. Associations are kept as ids.
+ *
+ * <p>{@link #writeTo} and {@link #readFrom} give a binary form for on-disk snapshots. Dictionary
+ * fields are written as their strings, since codes only mean something to one dictionary, and
+ * enums as ordinals; {@link #FORMAT_FINGERPRINT} changes whenever an enum does.
+ *
+ * <p>{@code ListingFootprintHarness} in the benchmarks compares the heap retained per listing
+ * by the two representations.
+ */
+public final class CompactListing {
+    public static final int NULL_INT = Integer.MIN_VALUE;
+    public static final long NULL_LONG = Long.MIN_VALUE;
+    private static final byte NULL_ORDINAL = -1;
+    private static final PropertyType[] PROPERTY_TYPES = PropertyType.values();
+    private static final ListingType[] LISTING_TYPES = ListingType.values();
+    private static final PropertyStatus[] STATUSES = PropertyStatus.values();
+    private static final PropertyCondition[] CONDITIONS = PropertyCondition.values();
+    private static final int FORMAT_VERSION = 1;
+    public static final int FORMAT_FINGERPRINT = List.of(FORMAT_VERSION, names(PROPERTY_TYPES), names(LISTING_TYPES),
+            names(STATUSES), names(CONDITIONS)).hashCode();
+    
+    private final StringDictionary dictionary;
+    private final long id;
+    private final long agentId;
+    private final long ownerId;
+    private final long priceCents;
+    private final long hoaFeeCents;
+    private final long propertyTaxesCents;
+    private final long createdAtMicros;
+    private final long updatedAtMicros;
+    private final double latitude;
+    private final double longitude;
+    private final double lotSize;
+    private final int bedrooms;
+    private final int bathrooms;
+    private final int squareFeet;
+    private final int yearBuilt;
+    private final int garageSpaces;
+    private final int parkingSpaces;
+    private final int listingDay;
+    private final int availableDay;
+    private final int city;
+    private final int state;
+    private final int postalCode;
+    private final int country;
+    private final int heatingType;
+    private final int coolingType;
+    private final int flooringType;
+    private final byte propertyType;
+    private final byte listingType;
+    private final byte status;
+    private final byte condition;
+    private final String title;
+    private final String description;
+    private final String address;
+    private final String propertyFeatures;
+    private final String appliancesIncluded;
+    private final String virtualTourUrl;
+    private final String mainImageUrl;
+    
+    private CompactListing(Property property, StringDictionary dictionary) {
+        this.dictionary = dictionary;
+        this.id = property.getId() == null ? NULL_LONG : property.getId();
+        this.agentId = property.getAgent() == null || property.getAgent().getId() == null
+                ? NULL_LONG : property.getAgent().getId();
+        this.ownerId = property.getOwner() == null || property.getOwner().getId() == null
+                ? NULL_LONG : property.getOwner().getId();
+        this.priceCents = toCents(property.getPrice());
+        this.hoaFeeCents = toCents(property.getHoaFee());
+        this.propertyTaxesCents = toCents(property.getPropertyTaxes());
+        this.createdAtMicros = toMicros(property.getCreatedAt());
+        this.updatedAtMicros = toMicros(property.getUpdatedAt());
+        this.latitude = orNaN(property.getLatitude());
+        this.longitude = orNaN(property.getLongitude());
+        this.lotSize = orNaN(property.getLotSize());
+        this.bedrooms = orNull(property.getBedrooms());
+        this.bathrooms = orNull(property.getBathrooms());
+        this.squareFeet = orNull(property.getSquareFeet());
+        this.yearBuilt = orNull(property.getYearBuilt());
+        this.garageSpaces = orNull(property.getGarageSpaces());
+        this.parkingSpaces = orNull(property.getParkingSpaces());
+        this.listingDay = toDay(property.getListingDate());
+        this.availableDay = toDay(property.getAvailableDate());
+        this.city = dictionary.encode(property.getCity());
+        this.state = dictionary.encode(property.getState());
+        this.postalCode = dictionary.encode(property.getPostalCode());
+        this.country = dictionary.encode(property.getCountry());
+        this.heatingType = dictionary.encode(property.getHeatingType());
+        this.coolingType = dictionary.encode(property.getCoolingType());
+        this.flooringType = dictionary.encode(property.getFlooringType());
+        this.propertyType = ordinal(property.getPropertyType());
+        this.listingType = ordinal(property.getListingType());
+        this.status = ordinal(property.getStatus());
+        this.condition = ordinal(property.getPropertyCondition());
+        this.title = property.getTitle();
+        this.description = property.getDescription();
+        this.address = property.getAddress();
+        this.propertyFeatures = property.getPropertyFeatures();
+        this.appliancesIncluded = property.getAppliancesIncluded();
+        this.virtualTourUrl = property.getVirtualTourUrl();
+        this.mainImageUrl = property.getMainImageUrl();
+    }
+    
+    private CompactListing(DataInput in, StringDictionary dictionary) throws IOException {
+        this.dictionary = dictionary;
+        this.id = in.readLong();
+        this.agentId = in.readLong();
+        this.ownerId = in.readLong();
+        this.priceCents = in.readLong();
+        this.hoaFeeCents = in.readLong();
+        this.propertyTaxesCents = in.readLong();
+        this.createdAtMicros = in.readLong();
+        this.updatedAtMicros = in.readLong();
+        this.latitude = in.readDouble();
+        this.longitude = in.readDouble();
+        this.lotSize = in.readDouble();
+        this.bedrooms = in.readInt();
+        this.bathrooms = in.readInt();
+        this.squareFeet = in.readInt();
+        this.yearBuilt = in.readInt();
+        this.garageSpaces = in.readInt();
+        this.parkingSpaces = in.readInt();
+        this.listingDay = in.readInt();
+        this.availableDay = in.readInt();
+        this.city = dictionary.encode(readString(in));
+        this.state = dictionary.encode(readString(in));
+        this.postalCode = dictionary.encode(readString(in));
+        this.country = dictionary.encode(readString(in));
+        this.heatingType = dictionary.encode(readString(in));
+        this.coolingType = dictionary.encode(readString(in));
+        this.flooringType = dictionary.encode(readString(in));
+        this.propertyType = readOrdinal(in, PROPERTY_TYPES.length);
+        this.listingType = readOrdinal(in, LISTING_TYPES.length);
+        this.status = readOrdinal(in, STATUSES.length);
+        this.condition = readOrdinal(in, CONDITIONS.length);
+        this.title = readString(in);
+        this.description = readString(in);
+        this.address = readString(in);
+        this.propertyFeatures = readString(in);
+        this.appliancesIncluded = readString(in);
+        this.virtualTourUrl = readString(in);
+        this.mainImageUrl = readString(in);
+    }
+    
+    public static CompactListing of(Property property, StringDictionary dictionary) {
+        return new CompactListing(property, dictionary);
+    }
+    
+    /** Reads a listing written by {@link #writeTo}, interning its strings in {@code dictionary}. */
+    public static CompactListing readFrom(DataInput in, StringDictionary dictionary) throws IOException {
+        return new CompactListing(in, dictionary);
+    }
+    
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(id);
+        out.writeLong(agentId);
+        out.writeLong(ownerId);
+        out.writeLong(priceCents);
+        out.writeLong(hoaFeeCents);
+        out.writeLong(propertyTaxesCents);
+        out.writeLong(createdAtMicros);
+        out.writeLong(updatedAtMicros);
+        out.writeDouble(latitude);
+        out.writeDouble(longitude);
+        out.writeDouble(lotSize);
+        out.writeInt(bedrooms);
+        out.writeInt(bathrooms);
+        out.writeInt(squareFeet);
+        out.writeInt(yearBuilt);
+        out.writeInt(garageSpaces);
+        out.writeInt(parkingSpaces);
+        out.writeInt(listingDay);
+        out.writeInt(availableDay);
+        for (int code : new int[] {city, state, postalCode, country, heatingType, coolingType, flooringType}) {
+            writeString(out, dictionary.decode(code));
+        }
+        out.writeByte(propertyType);
+        out.writeByte(listingType);
+        out.writeByte(status);
+        out.writeByte(condition);
+        for (String value : new String[] {title, description, address, propertyFeatures, appliancesIncluded,
+                virtualTourUrl, mainImageUrl}) {
+            writeString(out, value);
+        }
+    }
+    
+    /**
+     * A detached entity with this listing's fields. The agent and owner come from
+     * {@code agents} and {@code owners}, typically {@code EntityManager.getReference}; images and
+     * appointments are not part of the read model and are left unset.
+     */
+    public Property toEntity(LongFunction<Agent> agents, LongFunction<Client> owners) {
+        Property property = new Property();
+        property.setId(id == NULL_LONG ? null : id);
+        property.setTitle(title);
+        property.setDescription(description);
+        property.setAddress(address);
+        property.setCity(getCity());
+        property.setState(getState());
+        property.setPostalCode(getPostalCode());
+        property.setCountry(getCountry());
+        property.setLatitude(Double.isNaN(latitude) ? null : latitude);
+        property.setLongitude(Double.isNaN(longitude) ? null : longitude);
+        property.setPropertyType(getPropertyType());
+        property.setListingType(getListingType());
+        property.setPrice(getPrice());
+        property.setBedrooms(boxed(bedrooms));
+        property.setBathrooms(boxed(bathrooms));
+        property.setSquareFeet(boxed(squareFeet));
+        property.setLotSize(Double.isNaN(lotSize) ? null : lotSize);
+        property.setYearBuilt(boxed(yearBuilt));
+        property.setGarageSpaces(boxed(garageSpaces));
+        property.setParkingSpaces(boxed(parkingSpaces));
+        property.setPropertyFeatures(propertyFeatures);
+        property.setAppliancesIncluded(appliancesIncluded);
+        property.setHeatingType(getHeatingType());
+        property.setCoolingType(getCoolingType());
+        property.setFlooringType(getFlooringType());
+        property.setPropertyCondition(getPropertyCondition());
+        property.setHoaFee(fromCents(hoaFeeCents));
+        property.setPropertyTaxes(fromCents(propertyTaxesCents));
+        property.setListingDate(getListingDate());
+        property.setAvailableDate(listingDateOf(availableDay));
+        property.setStatus(getStatus());
+        property.setVirtualTourUrl(virtualTourUrl);
+        property.setMainImageUrl(mainImageUrl);
+        property.setAgent(agentId == NULL_LONG ? null : agents.apply(agentId));
+        property.setOwner(ownerId == NULL_LONG ? null : owners.apply(ownerId));
+        property.setCreatedAt(fromMicros(createdAtMicros));
+        property.setUpdatedAt(fromMicros(updatedAtMicros));
+        return property;
+    }
+    
+    public long getId() { return id; }
+    
+    /** Agent id, or {@link #NULL_LONG}. */
+    public long getAgentId() { return agentId; }
+    
+    /** Owner id, or {@link #NULL_LONG}. */
+    public long getOwnerId() { return ownerId; }
+    
+    /** Price in cents, or {@link #NULL_LONG}. */
+    public long getPriceCents() { return priceCents; }
+    
+    public BigDecimal getPrice() { return fromCents(priceCents); }
+    
+    public long getHoaFeeCents() { return hoaFeeCents; }
+    
+    public long getPropertyTaxesCents() { return propertyTaxesCents; }
+    
+    public double getLatitude() { return latitude; }
+    
+    public double getLongitude() { return longitude; }
+    
+    public boolean hasCoordinates() { return !Double.isNaN(latitude) && !Double.isNaN(longitude); }
+    
+    public double getLotSize() { return lotSize; }
+    
+    /** Bedrooms, or {@link #NULL_INT}; likewise for the other int fields. */
+    public int getBedrooms() { return bedrooms; }
+    
+    public int getBathrooms() { return bathrooms; }
+    
+    public int getSquareFeet() { return squareFeet; }
+    
+    public int getYearBuilt() { return yearBuilt; }
+    
+    public int getGarageSpaces() { return garageSpaces; }
+    
+    public int getParkingSpaces() { return parkingSpaces; }
+    
+    /** Listing date as an epoch day, or {@link #NULL_INT}. */
+    public int getListingDay() { return listingDay; }
+    
+    public LocalDate getListingDate() { return listingDateOf(listingDay); }
+    
+    public String getCity() { return dictionary.decode(city); }
+    
+    public String getState() { return dictionary.decode(state); }
+    
+    public String getPostalCode() { return dictionary.decode(postalCode); }
+    
+    public String getCountry() { return dictionary.decode(country); }
+    
+    public String getHeatingType() { return dictionary.decode(heatingType); }
+    
+    public String getCoolingType() { return dictionary.decode(coolingType); }
+    
+    public String getFlooringType() { return dictionary.decode(flooringType); }
+    
+    /** Dictionary code of the city, for grouping without decoding. */
+    public int getCityCode() { return city; }
+    
+    public PropertyType getPropertyType() { return propertyType == NULL_ORDINAL ? null : PROPERTY_TYPES[propertyType]; }
+    
+    public ListingType getListingType() { return listingType == NULL_ORDINAL ? null : LISTING_TYPES[listingType]; }
+    
+    public PropertyStatus getStatus() { return status == NULL_ORDINAL ? null : STATUSES[status]; }
+    
+    public PropertyCondition getPropertyCondition() { return condition == NULL_ORDINAL ? null : CONDITIONS[condition]; }
+    
+    public String getTitle() { return title; }
+    
+    public String getDescription() { return description; }
+    
+    public String getAddress() { return address; }
+    
+    public String getPropertyFeatures() { return propertyFeatures; }
+    
+    public String getAppliancesIncluded() { return appliancesIncluded; }
+    
+    public String getVirtualTourUrl() { return virtualTourUrl; }
+    
+    public String getMainImageUrl() { return mainImageUrl; }
+    
+    private static long toCents(BigDecimal amount) {
+        return amount == null ? NULL_LONG : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+    
+    private static BigDecimal fromCents(long cents) {
+        return cents == NULL_LONG ? null : BigDecimal.valueOf(cents, 2);
+    }
+    
+    private static long toMicros(LocalDateTime time) {
+        return time == null ? NULL_LONG : time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+    }
+    
+    private static LocalDateTime fromMicros(long micros) {
+        return micros == NULL_LONG ? null : LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+    
+    private static int toDay(LocalDate date) {
+        return date == null ? NULL_INT : (int) date.toEpochDay();
+    }
+    
+    private static LocalDate listingDateOf(int day) {
+        return day == NULL_INT ? null : LocalDate.ofEpochDay(day);
+    }
+    
+    private static int orNull(Integer value) {
+        return value == null ? NULL_INT : value;
+    }
+    
+    private static Integer boxed(int value) {
+        return value == NULL_INT ? null : value;
+    }
+    
+    private static double orNaN(Double value) {
+        return value == null ? Double.NaN : value;
+    }
+    
+    private static byte ordinal(Enum<?> value) {
+        return value == null ? NULL_ORDINAL : (byte) value.ordinal();
+    }
+    
+    private static List<String> names(Enum<?>[] constants) {
+        return Arrays.stream(constants).map(Enum::name).toList();
+    }
+    
+    private static byte readOrdinal(DataInput in, int constants) throws IOException {
+        byte ordinal = in.readByte();
+        if (ordinal < NULL_ORDINAL || ordinal >= constants) {
+            throw new IOException("Enum ordinal " + ordinal + " out of range");
+        }
+        return ordinal;
+    }
+    
+    /** Strings are at most a few thousand characters (see the column lengths), within writeUTF's limit. */
+    private static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+    
+    private static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
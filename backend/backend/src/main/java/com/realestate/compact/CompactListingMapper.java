@@ -0,0 +1,73 @@
+package com.realestate.compact;
+
+import com.realestate.model.Agent;
+import com.realestate.model.Client;
+import com.realestate.model.Property;
+import com.realestate.outbox.AggregateType;
+import com.realestate.repository.PropertyRepository;
+import com.realestate.shard.EntityShards;
+import jakarta.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.stereotype.Component;
+
+/**
+ * Converts between {@link Property} and {@link CompactListing} with one dictionary shared by the
+ * whole application, so a city or heating type is stored once however many listings mention it.
+ */
+@Component
+public class CompactListingMapper {
+    private static final int LOAD_BATCH_SIZE = 1000;
+    
+    private final PropertyRepository propertyRepository;
+    private final EntityManager entityManager;
+    private final EntityShards shards;
+    private final StringDictionary dictionary = new StringDictionary();
+    
+    public CompactListingMapper(PropertyRepository propertyRepository, EntityManager entityManager, EntityShards shards) {
+        this.propertyRepository = propertyRepository;
+        this.entityManager = entityManager;
+        this.shards = shards;
+    }
+    
+    public CompactListing toCompact(Property property) {
+        return CompactListing.of(property, dictionary);
+    }
+    
+    public List<CompactListing> toCompact(List<Property> properties) {
+        List<CompactListing> listings = new ArrayList<>(properties.size());
+        for (Property property : properties) {
+            listings.add(CompactListing.of(property, dictionary));
+        }
+        return listings;
+    }
+    
+    /**
+     * A detached entity for {@code listing}, with the agent and owner as uninitialized references.
+     * Must be called inside a transaction when those references are to be navigated.
+     */
+    public Property toEntity(CompactListing listing) {
+        return listing.toEntity(id -> entityManager.getReference(Agent.class, id),
+                id -> entityManager.getReference(Client.class, id));
+    }
+    
+    /**
+     * Every listing, shard by shard in id order. Pages are read in separate persistence contexts,
+     * so only one page of entities is alive at a time while the compact copies accumulate.
+     */
+    public List<CompactListing> loadAll() {
+        long count = shards.onEveryShard(shard -> propertyRepository.count()).stream().mapToLong(Long::longValue).sum();
+        List<CompactListing> listings = new ArrayList<>((int) Math.min(count, Integer.MAX_VALUE));
+        shards.forEachPage(AggregateType.PROPERTY, pageable -> propertyRepository.findAll(pageable), Property::getId,
+                LOAD_BATCH_SIZE, page -> {
+                    for (Property property : page) {
+                        listings.add(CompactListing.of(property, dictionary));
+                    }
+                });
+        return listings;
+    }
+    
+    public int dictionarySize() {
+        return dictionary.size();
+    }
+}
@@ -0,0 +1,49 @@
+package com.realestate.compact;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns dense int codes to strings, so that each distinct value is held once however many
+ * records refer to it. Meant for low-cardinality fields such as city or flooring type; codes
+ * are never reclaimed. Decoding is lock-free, adding a new value takes a lock.
+ */
+public final class StringDictionary {
+    public static final int NULL_CODE = -1;
+    
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[64];
+    private int size;
+    
+    public int encode(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        return code != null ? code : add(value);
+    }
+    
+    public String decode(int code) {
+        return code == NULL_CODE ? null : values[code];
+    }
+    
+    public int size() {
+        return codes.size();
+    }
+    
+    private synchronized int add(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        String[] current = values;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, size * 2);
+        }
+        current[size] = value;
+        // The volatile write publishes the entry before its code can be handed out
+        values = current;
+        codes.put(value, size);
+        return size++;
+    }
+}
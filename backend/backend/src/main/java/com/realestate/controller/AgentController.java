@@ -0,0 +1,43 @@
+package com.realestate.controller;
+
+import com.realestate.cache.EntityCacheService;
+import com.realestate.dto.AgentDashboard;
+import com.realestate.dto.AgentProfile;
+import com.realestate.dto.PropertyDetail;
+import com.realestate.view.PortfolioViewService;
+import java.util.List;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/agents")
+public class AgentController {
+    private final EntityCacheService entityCache;
+    private final PortfolioViewService portfolioViews;
+    
+    public AgentController(EntityCacheService entityCache, PortfolioViewService portfolioViews) {
+        this.entityCache = entityCache;
+        this.portfolioViews = portfolioViews;
+    }
+    
+    @GetMapping("/{id}")
+    public ResponseEntity<AgentProfile> get(@PathVariable Long id) {
+        return ResponseEntity.of(entityCache.findAgent(id));
+    }
+    
+    @GetMapping("/{id}/listings")
+    public ResponseEntity<List<PropertyDetail>> listings(@PathVariable Long id) {
+        if (entityCache.findAgent(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(entityCache.findAgentListings(id));
+    }
+    
+    @GetMapping("/{id}/dashboard")
+    public ResponseEntity<AgentDashboard> dashboard(@PathVariable Long id) {
+        return ResponseEntity.of(portfolioViews.agentDashboard(id));
+    }
+}
@@ -0,0 +1,31 @@
+package com.realestate.controller;
+
+import com.realestate.cache.CacheStats;
+import com.realestate.cache.EntityCacheService;
+import java.util.Map;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin/caches")
+public class CacheAdminController {
+    private final EntityCacheService entityCache;
+    
+    public CacheAdminController(EntityCacheService entityCache) {
+        this.entityCache = entityCache;
+    }
+    
+    @GetMapping
+    public Map<String, CacheStats> stats() {
+        return entityCache.stats();
+    }
+    
+    @DeleteMapping("/{name}")
+    public ResponseEntity<Void> clear(@PathVariable String name) {
+        return entityCache.clear(name) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+}
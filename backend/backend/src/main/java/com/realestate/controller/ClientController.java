@@ -0,0 +1,24 @@
+package com.realestate.controller;
+
+import com.realestate.dto.ClientPortfolio;
+import com.realestate.view.PortfolioViewService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/clients")
+public class ClientController {
+    private final PortfolioViewService portfolioViews;
+    
+    public ClientController(PortfolioViewService portfolioViews) {
+        this.portfolioViews = portfolioViews;
+    }
+    
+    @GetMapping("/{id}/portfolio")
+    public ResponseEntity<ClientPortfolio> portfolio(@PathVariable Long id) {
+        return ResponseEntity.of(portfolioViews.clientPortfolio(id));
+    }
+}
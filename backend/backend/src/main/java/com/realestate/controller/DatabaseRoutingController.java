@@ -0,0 +1,26 @@
+package com.realestate.controller;
+
+import com.realestate.routing.DatabaseRouting;
+import java.util.Map;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin/datasources")
+public class DatabaseRoutingController {
+    private final ObjectProvider<DatabaseRouting> routing;
+    
+    public DatabaseRoutingController(ObjectProvider<DatabaseRouting> routing) {
+        this.routing = routing;
+    }
+    
+    /** Pool usage per node and workload class, replica lag and read counts; 404 unless routing is enabled. */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> stats() {
+        DatabaseRouting databaseRouting = routing.getIfAvailable();
+        return databaseRouting == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(databaseRouting.stats());
+    }
+}
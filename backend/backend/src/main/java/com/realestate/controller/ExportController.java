@@ -0,0 +1,56 @@
+package com.realestate.controller;
+
+import com.realestate.export.ExportDataset;
+import com.realestate.export.ExportFormat;
+import com.realestate.export.ExportReport;
+import com.realestate.export.ExportService;
+import java.io.IOException;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/api/admin/export")
+public class ExportController {
+    private final ExportService exportService;
+    
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+    
+    /** Streams the dataset as a file download; rows are written to the response as they are read. */
+    @GetMapping("/{dataset:listings|transactions}")
+    public ResponseEntity<StreamingResponseBody> download(@PathVariable String dataset,
+                                                          @RequestParam(defaultValue = "CSV") ExportFormat format,
+                                                          @RequestParam(defaultValue = "false") boolean gzip) {
+        ExportDataset source = ExportDataset.valueOf(dataset.toUpperCase());
+        String fileName = source.getFileName() + "." + format.getExtension() + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(output -> exportService.export(source, format, gzip, output));
+    }
+    
+    /** Writes the dataset to files on the server, split by id range and exported in parallel. */
+    @PostMapping("/{dataset:listings|transactions}/files")
+    public ExportReport exportToFiles(@PathVariable String dataset,
+                                      @RequestParam(defaultValue = "CSV") ExportFormat format,
+                                      @RequestParam(defaultValue = "true") boolean gzip,
+                                      @RequestParam(defaultValue = "4") int partitions) throws IOException {
+        try {
+            return exportService.exportToFiles(ExportDataset.valueOf(dataset.toUpperCase()), format, gzip, partitions);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.realestate.controller;
+
+import com.realestate.media.ImageStore;
+import com.realestate.media.ThumbnailService;
+import com.realestate.media.ThumbnailSize;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Image uploads and thumbnails for listing galleries and agent profiles. The URL returned by an
+ * upload is what {@code Property.mainImageUrl}, the gallery images and
+ * {@code Agent.profileImageUrl} should hold; thumbnails live below it. Image ids are content
+ * hashes, so responses may be cached indefinitely.
+ */
+@RestController
+@RequestMapping("/api/media")
+public class ImageController {
+    private static final String IMAGES = "/api/media/images/";
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+    
+    private final ImageStore imageStore;
+    private final ThumbnailService thumbnailService;
+    
+    public ImageController(ImageStore imageStore, ThumbnailService thumbnailService) {
+        this.imageStore = imageStore;
+        this.thumbnailService = thumbnailService;
+    }
+    
+    /** Stores the request body as an image; its thumbnails are rendered in the background. */
+    @PostMapping(value = "/images", consumes = {"image/*", MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<Map<String, Object>> upload(InputStream content) throws IOException {
+        String id;
+        try {
+            id = thumbnailService.upload(content);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        Map<String, Object> thumbnails = new LinkedHashMap<>();
+        for (ThumbnailSize size : ThumbnailSize.values()) {
+            String name = size.name().toLowerCase(Locale.ROOT);
+            thumbnails.put(name, IMAGES + id + "/thumbnails/" + name);
+        }
+        Map<String, Object> uploaded = new LinkedHashMap<>();
+        uploaded.put("id", id);
+        uploaded.put("url", IMAGES + id);
+        uploaded.put("thumbnails", thumbnails);
+        return ResponseEntity.status(HttpStatus.CREATED).body(uploaded);
+    }
+    
+    @GetMapping("/images/{id}")
+    public ResponseEntity<StreamingResponseBody> original(@PathVariable String id) {
+        if (!imageStore.exists(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        Path file = imageStore.originalPath(id);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .cacheControl(IMMUTABLE)
+                .body(output -> {
+                    try (FileChannel channel = FileChannel.open(file)) {
+                        WritableByteChannel target = Channels.newChannel(output);
+                        long position = 0;
+                        while (position < channel.size()) {
+                            position += channel.transferTo(position, channel.size() - position, target);
+                        }
+                    }
+                });
+    }
+    
+    @GetMapping("/images/{id}/thumbnails/{size}")
+    public ResponseEntity<StreamingResponseBody> thumbnail(@PathVariable String id, @PathVariable String size,
+                                                           @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch)
+            throws IOException {
+        ThumbnailSize thumbnailSize;
+        try {
+            thumbnailSize = ThumbnailSize.valueOf(size.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+        ThumbnailService.Thumbnail thumbnail;
+        try {
+            thumbnail = thumbnailService.thumbnail(id, thumbnailSize).orElse(null);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, e.getMessage(), e);
+        }
+        if (thumbnail == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (thumbnail.getETag().equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(thumbnail.getETag()).cacheControl(IMMUTABLE).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_JPEG)
+                .contentLength(thumbnail.getLength())
+                .eTag(thumbnail.getETag())
+                .cacheControl(IMMUTABLE)
+                .body(output -> thumbnail.writeTo(Channels.newChannel(output)));
+    }
+    
+    @GetMapping("/thumbnail-cache")
+    public Map<String, Object> cacheStats() {
+        return thumbnailService.cacheStats();
+    }
+}
@@ -0,0 +1,39 @@
+package com.realestate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.realestate.ingest.BulkIngestionService;
+import com.realestate.ingest.CsvListingReader;
+import com.realestate.ingest.IngestionReport;
+import com.realestate.ingest.JsonListingReader;
+import com.realestate.ingest.ListingRecordReader;
+import java.io.IOException;
+import java.io.InputStream;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin/ingest")
+public class IngestionController {
+    private final BulkIngestionService ingestionService;
+    private final ObjectMapper objectMapper;
+    
+    public IngestionController(BulkIngestionService ingestionService, ObjectMapper objectMapper) {
+        this.ingestionService = ingestionService;
+        this.objectMapper = objectMapper;
+    }
+    
+    @PostMapping(value = "/listings", consumes = {"text/csv", MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public IngestionReport ingestListings(@RequestParam String jobId,
+                                          @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                          InputStream body) throws IOException {
+        ListingRecordReader reader = contentType.isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                ? new CsvListingReader(body)
+                : new JsonListingReader(objectMapper, body);
+        return ingestionService.ingest(jobId, reader);
+    }
+}
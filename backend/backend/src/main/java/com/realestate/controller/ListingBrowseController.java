@@ -0,0 +1,48 @@
+package com.realestate.controller;
+
+import com.realestate.browse.ListingBrowseService;
+import com.realestate.dto.CursorPage;
+import com.realestate.dto.ListingCard;
+import com.realestate.dto.ListingWithAgent;
+import com.realestate.model.Property.PropertyStatus;
+import com.realestate.search.ListingSort;
+import com.realestate.view.PortfolioViewService;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+@RestController
+@RequestMapping("/api/listings")
+public class ListingBrowseController {
+    private final ListingBrowseService browseService;
+    private final PortfolioViewService portfolioViews;
+    
+    public ListingBrowseController(ListingBrowseService browseService, PortfolioViewService portfolioViews) {
+        this.browseService = browseService;
+        this.portfolioViews = portfolioViews;
+    }
+    
+    @GetMapping
+    public Page<ListingWithAgent> list(@RequestParam(defaultValue = "ACTIVE") PropertyStatus status,
+                                       @PageableDefault(size = 20) Pageable pageable) {
+        return portfolioViews.listings(status, pageable);
+    }
+    
+    @GetMapping("/browse")
+    public CursorPage<ListingCard> browse(@RequestParam(defaultValue = "NEWEST") ListingSort sort,
+                                          @RequestParam(defaultValue = "ACTIVE") PropertyStatus status,
+                                          @RequestParam(required = false) String cursor,
+                                          @RequestParam(defaultValue = "20") int size) {
+        try {
+            return browseService.browse(sort, status, cursor, size);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+}
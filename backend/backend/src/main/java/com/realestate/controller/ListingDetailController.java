@@ -0,0 +1,34 @@
+package com.realestate.controller;
+
+import com.realestate.cache.EntityCacheService;
+import com.realestate.dto.MediaLinkStatus;
+import com.realestate.dto.PropertyDetail;
+import com.realestate.media.MediaLinkChecker;
+import java.util.List;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/listings")
+public class ListingDetailController {
+    private final EntityCacheService entityCache;
+    private final MediaLinkChecker mediaLinkChecker;
+    
+    public ListingDetailController(EntityCacheService entityCache, MediaLinkChecker mediaLinkChecker) {
+        this.entityCache = entityCache;
+        this.mediaLinkChecker = mediaLinkChecker;
+    }
+    
+    @GetMapping("/{id}")
+    public ResponseEntity<PropertyDetail> get(@PathVariable Long id) {
+        return ResponseEntity.of(entityCache.findProperty(id));
+    }
+    
+    @GetMapping("/{id}/media-status")
+    public ResponseEntity<List<MediaLinkStatus>> mediaStatus(@PathVariable Long id) {
+        return ResponseEntity.of(entityCache.findProperty(id).map(mediaLinkChecker::check));
+    }
+}
@@ -0,0 +1,63 @@
+package com.realestate.controller;
+
+import com.realestate.dto.ListingHistory;
+import com.realestate.dto.MarketHistoryBucket;
+import com.realestate.history.HistoryBucket;
+import com.realestate.history.ListingHistoryStore;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+@RestController
+@RequestMapping("/api/history")
+public class ListingHistoryController {
+    private static final Duration DEFAULT_CITY_WINDOW = Duration.ofDays(365);
+    
+    private final ListingHistoryStore historyStore;
+    
+    public ListingHistoryController(ListingHistoryStore historyStore) {
+        this.historyStore = historyStore;
+    }
+    
+    /** Price and status points of a listing; the whole history unless {@code from} or {@code to} narrow it. */
+    @GetMapping("/listings/{id}")
+    public ResponseEntity<ListingHistory> listing(@PathVariable long id,
+                                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        try {
+            return ResponseEntity.of(historyStore.history(id, from == null ? Instant.EPOCH : from,
+                    to == null ? Instant.now() : to));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+    
+    /** Changes in a city per period, e.g. {@code /cities/Austin?bucket=MONTH}; the last year by default. */
+    @GetMapping("/cities/{city}")
+    public List<MarketHistoryBucket> city(@PathVariable String city,
+                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                          @RequestParam(defaultValue = "WEEK") HistoryBucket bucket) {
+        Instant end = to == null ? Instant.now() : to;
+        try {
+            return historyStore.cityHistory(city, from == null ? end.minus(DEFAULT_CITY_WINDOW) : from, end, bucket);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+    
+    @GetMapping("/stats")
+    public Map<String, Object> stats() {
+        return historyStore.stats();
+    }
+}
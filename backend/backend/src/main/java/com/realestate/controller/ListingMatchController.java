@@ -0,0 +1,31 @@
+package com.realestate.controller;
+
+import com.realestate.dto.RematchReport;
+import com.realestate.match.ListingMatchService;
+import java.util.List;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/matching")
+public class ListingMatchController {
+    private final ListingMatchService matchService;
+    
+    public ListingMatchController(ListingMatchService matchService) {
+        this.matchService = matchService;
+    }
+    
+    @GetMapping("/listings/{id}")
+    public ResponseEntity<List<Long>> matchingClients(@PathVariable Long id) {
+        return ResponseEntity.of(matchService.matchingClients(id));
+    }
+    
+    @PostMapping("/rematch")
+    public RematchReport rematch() {
+        return matchService.rematchAll();
+    }
+}
@@ -0,0 +1,53 @@
+package com.realestate.controller;
+
+import com.realestate.dto.ListingSummary;
+import com.realestate.dto.NearbyListing;
+import com.realestate.dto.RankedListing;
+import com.realestate.search.ListingQuery;
+import com.realestate.search.ListingSearchEngine;
+import java.util.List;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/listings")
+public class ListingSearchController {
+    private final ListingSearchEngine searchEngine;
+    
+    public ListingSearchController(ListingSearchEngine searchEngine) {
+        this.searchEngine = searchEngine;
+    }
+    
+    @GetMapping("/search")
+    public Page<ListingSummary> search(@ModelAttribute ListingQuery query,
+                                       @PageableDefault(size = 20) Pageable pageable) {
+        return searchEngine.search(query, pageable);
+    }
+    
+    @GetMapping("/search/text")
+    public Page<RankedListing> searchText(@RequestParam(name = "q", defaultValue = "") String keywords,
+                                          @ModelAttribute ListingQuery query,
+                                          @PageableDefault(size = 20) Pageable pageable) {
+        return searchEngine.searchText(keywords, query, pageable);
+    }
+    
+    @GetMapping("/suggest")
+    public List<String> suggest(@RequestParam String prefix,
+                                @RequestParam(defaultValue = "10") int limit) {
+        return searchEngine.suggest(prefix, Math.min(limit, 50));
+    }
+    
+    @GetMapping("/nearby")
+    public List<NearbyListing> nearby(@ModelAttribute ListingQuery query,
+                                      @RequestParam double latitude,
+                                      @RequestParam double longitude,
+                                      @RequestParam(defaultValue = "20") int limit) {
+        return searchEngine.nearest(query, latitude, longitude, Math.min(limit, 200));
+    }
+}
@@ -0,0 +1,59 @@
+package com.realestate.controller;
+
+import com.realestate.dto.ListingCard;
+import com.realestate.dto.ListingSummary;
+import com.realestate.event.ListingStatusChangedEvent;
+import com.realestate.model.Property.PropertyStatus;
+import com.realestate.reactive.ListingStreamService;
+import com.realestate.search.ListingQuery;
+import com.realestate.search.ListingSort;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+/**
+ * Streaming variants of search and browse on the servlet stack: results are written as
+ * newline-delimited JSON, or as server-sent events with {@code Accept: text/event-stream}, one
+ * element at a time while the request stays asynchronous. The same streams are served by the
+ * reactive server under {@code /api/reactive/listings} when it is enabled.
+ */
+@RestController
+@RequestMapping("/api/listings")
+public class ListingStreamController {
+    private final ListingStreamService streams;
+    
+    public ListingStreamController(ListingStreamService streams) {
+        this.streams = streams;
+    }
+    
+    @GetMapping(value = "/stream/search", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<ListingSummary> search(@ModelAttribute ListingQuery query) {
+        return streams.search(query);
+    }
+    
+    @GetMapping(value = "/stream/browse", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<ListingCard> browse(@RequestParam(defaultValue = "NEWEST") ListingSort sort,
+                                    @RequestParam(defaultValue = "ACTIVE") PropertyStatus status) {
+        return streams.browse(sort, status);
+    }
+    
+    /** Server push of status changes, e.g. {@code ?status=SOLD&city=Austin}. */
+    @GetMapping(value = "/status-changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<ListingStatusChangedEvent>> statusChanges(
+            @RequestParam(name = "status", required = false) Set<PropertyStatus> statuses,
+            @RequestParam(required = false) String city) {
+        return streams.statusChangeEvents(statuses, city);
+    }
+    
+    @GetMapping("/status-changes/stats")
+    public Map<String, Object> statusChangeStats() {
+        return Map.of("subscribers", streams.getFeedSubscribers(), "dropped", streams.getDroppedChanges());
+    }
+}
@@ -0,0 +1,36 @@
+package com.realestate.controller;
+
+import com.realestate.analytics.MarketAnalyticsService;
+import com.realestate.analytics.MarketDimension;
+import com.realestate.dto.MarketStats;
+import com.realestate.model.Property.ListingType;
+import java.util.List;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/analytics/market")
+public class MarketAnalyticsController {
+    private final MarketAnalyticsService analytics;
+    
+    public MarketAnalyticsController(MarketAnalyticsService analytics) {
+        this.analytics = analytics;
+    }
+    
+    @GetMapping("/{dimension}")
+    public List<MarketStats> breakdown(@PathVariable MarketDimension dimension,
+                                       @RequestParam(defaultValue = "SALE") ListingType listingType) {
+        return analytics.breakdown(listingType, dimension);
+    }
+    
+    @GetMapping("/{dimension}/{key}")
+    public ResponseEntity<MarketStats> stats(@PathVariable MarketDimension dimension,
+                                             @PathVariable String key,
+                                             @RequestParam(defaultValue = "SALE") ListingType listingType) {
+        return ResponseEntity.of(analytics.stats(listingType, dimension, key));
+    }
+}
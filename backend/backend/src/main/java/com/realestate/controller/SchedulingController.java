@@ -0,0 +1,84 @@
+package com.realestate.controller;
+
+import com.realestate.schedule.AppointmentScheduler;
+import com.realestate.schedule.Booking;
+import com.realestate.schedule.FreeSlot;
+import com.realestate.schedule.SchedulingConflictException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+@RestController
+@RequestMapping("/api/scheduling")
+public class SchedulingController {
+    private final AppointmentScheduler scheduler;
+    
+    public SchedulingController(AppointmentScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+    
+    @PostMapping("/bookings")
+    public ResponseEntity<Booking> book(@RequestParam long agentId,
+                                        @RequestParam long propertyId,
+                                        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant start,
+                                        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant end) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(scheduler.book(agentId, propertyId, start, end));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+    
+    @DeleteMapping("/bookings/{id}")
+    public ResponseEntity<Void> cancel(@PathVariable long id) {
+        return scheduler.cancel(id) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+    
+    /** Bookings that would prevent booking the agent and property for {@code [start, end)}. */
+    @GetMapping("/conflicts")
+    public List<Booking> conflicts(@RequestParam long agentId,
+                                   @RequestParam long propertyId,
+                                   @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant start,
+                                   @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant end) {
+        return scheduler.conflicts(agentId, propertyId, start, end);
+    }
+    
+    @GetMapping("/agents/{agentId}/bookings")
+    public List<Booking> agentSchedule(@PathVariable long agentId,
+                                       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant start,
+                                       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant end) {
+        return scheduler.agentSchedule(agentId, start, end);
+    }
+    
+    /** The next free slots of any agent in the city, e.g. {@code ?city=Austin&duration=PT45M&count=5}. */
+    @GetMapping("/free-slots")
+    public List<FreeSlot> freeSlots(@RequestParam String city,
+                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                    @RequestParam(defaultValue = "PT1H") Duration duration,
+                                    @RequestParam(defaultValue = "10") int count) {
+        try {
+            return scheduler.freeSlots(city, from == null ? Instant.now() : from, duration, Math.min(count, 100));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+    
+    @ExceptionHandler(SchedulingConflictException.class)
+    public ResponseEntity<Map<String, Object>> conflict(SchedulingConflictException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("message", e.getMessage(), "conflicts", e.getConflicts()));
+    }
+}
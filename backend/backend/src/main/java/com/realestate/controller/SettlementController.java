@@ -0,0 +1,48 @@
+package com.realestate.controller;
+
+import com.realestate.settlement.SettlementEngine;
+import com.realestate.settlement.SettlementReport;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+@RestController
+@RequestMapping("/api/admin/settlements")
+public class SettlementController {
+    private final SettlementEngine settlementEngine;
+    
+    public SettlementController(SettlementEngine settlementEngine) {
+        this.settlementEngine = settlementEngine;
+    }
+    
+    /**
+     * Settles a month, e.g. {@code POST /2024-05?partitions=16}. Runs again resume the partitions
+     * still pending unless {@code recompute=true}; {@code dryRun=true} only reports.
+     */
+    @PostMapping("/{period}")
+    public SettlementReport settle(@PathVariable YearMonth period,
+                                   @RequestParam(defaultValue = "16") int partitions,
+                                   @RequestParam(defaultValue = "false") boolean dryRun,
+                                   @RequestParam(defaultValue = "false") boolean recompute) {
+        try {
+            return settlementEngine.settle(period, partitions, dryRun, recompute);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage(), e);
+        }
+    }
+    
+    @GetMapping("/{period}/partitions")
+    public List<Map<String, Object>> partitions(@PathVariable YearMonth period) {
+        return settlementEngine.partitions(period);
+    }
+}
@@ -0,0 +1,72 @@
+package com.realestate.controller;
+
+import com.realestate.shard.RegionKey;
+import com.realestate.shard.RegionRebalancer;
+import com.realestate.shard.ShardedListingStore;
+import java.util.Map;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/** Shard placement and region moves; 404 unless sharding is enabled. */
+@RestController
+@RequestMapping("/api/admin/shards")
+public class ShardAdminController {
+    private final ObjectProvider<ShardedListingStore> store;
+    private final ObjectProvider<RegionRebalancer> rebalancer;
+    
+    public ShardAdminController(ObjectProvider<ShardedListingStore> store, ObjectProvider<RegionRebalancer> rebalancer) {
+        this.store = store;
+        this.rebalancer = rebalancer;
+    }
+    
+    /** Listings, regions and pool usage per shard and the regions being moved. */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> stats() {
+        ShardedListingStore listingStore = store.getIfAvailable();
+        return listingStore == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(listingStore.stats());
+    }
+    
+    /**
+     * Moves a region to another shard while it stays online, e.g.
+     * {@code POST /moves?region=USA/CA&target=2}. Returns once the move is complete; running it
+     * again after a failure resumes it.
+     */
+    @PostMapping("/moves")
+    public ResponseEntity<Map<String, Object>> move(@RequestParam String region, @RequestParam int target) {
+        RegionRebalancer regionRebalancer = rebalancer.getIfAvailable();
+        if (regionRebalancer == null) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.ok(regionRebalancer.move(RegionKey.parse(region), target));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage(), e);
+        }
+    }
+    
+    /** Abandons an unfinished move; the region stays where it was. */
+    @DeleteMapping("/moves")
+    public ResponseEntity<Map<String, Object>> cancel(@RequestParam String region) {
+        RegionRebalancer regionRebalancer = rebalancer.getIfAvailable();
+        if (regionRebalancer == null) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.ok(regionRebalancer.cancel(RegionKey.parse(region)));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.realestate.controller;
+
+import com.realestate.dto.ListingSummary;
+import com.realestate.shard.ShardedListingQuery;
+import com.realestate.shard.ShardedListingStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/** Listing reads served by the region shards; 404 unless sharding is enabled. */
+@RestController
+@RequestMapping("/api/shards/listings")
+public class ShardedListingController {
+    private final ObjectProvider<ShardedListingStore> store;
+    
+    public ShardedListingController(ObjectProvider<ShardedListingStore> store) {
+        this.store = store;
+    }
+    
+    /** E.g. {@code ?regions=USA/CA,USA/NV&statuses=ACTIVE&sort=PRICE_ASC}; only an agentId narrows the shards asked. */
+    @GetMapping("/search")
+    public ResponseEntity<Page<ListingSummary>> search(@ModelAttribute ShardedListingQuery query,
+                                                       @PageableDefault(size = 20) Pageable pageable) {
+        ShardedListingStore listingStore = store.getIfAvailable();
+        if (listingStore == null) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.ok(listingStore.search(query, pageable));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+    
+    @GetMapping("/{id}")
+    public ResponseEntity<ListingSummary> get(@PathVariable long id) {
+        ShardedListingStore listingStore = store.getIfAvailable();
+        return listingStore == null ? ResponseEntity.notFound().build() : ResponseEntity.of(listingStore.find(id));
+    }
+}
@@ -0,0 +1,36 @@
+package com.realestate.controller;
+
+import com.realestate.startup.WarmBootSnapshot;
+import java.io.IOException;
+import java.util.Map;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+@RestController
+@RequestMapping("/api/admin/warm-boot")
+public class WarmBootController {
+    private final WarmBootSnapshot warmBoot;
+    
+    public WarmBootController(WarmBootSnapshot warmBoot) {
+        this.warmBoot = warmBoot;
+    }
+    
+    @GetMapping
+    public Map<String, Object> stats() {
+        return warmBoot.stats();
+    }
+    
+    /** Writes a snapshot now, e.g. before baking it into a machine image. */
+    @PostMapping("/snapshot")
+    public Map<String, Object> snapshot() {
+        try {
+            return warmBoot.write();
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage(), e);
+        }
+    }
+}
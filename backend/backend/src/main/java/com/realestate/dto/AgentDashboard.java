@@ -0,0 +1,32 @@
+package com.realestate.dto;
+
+import java.util.List;
+
+public class AgentDashboard {
+    private final Long agentId;
+    private final String agentName;
+    private final long activeListings;
+    private final int transactionCount;
+    private final List<ListingCard> listings;
+    
+    public AgentDashboard(Long agentId, String agentName, long activeListings, int transactionCount,
+                          List<ListingCard> listings) {
+        this.agentId = agentId;
+        this.agentName = agentName;
+        this.activeListings = activeListings;
+        this.transactionCount = transactionCount;
+        this.listings = listings;
+    }
+    
+    public Long getAgentId() { return agentId; }
+    
+    public String getAgentName() { return agentName; }
+    
+    public int getTotalListings() { return listings.size(); }
+    
+    public long getActiveListings() { return activeListings; }
+    
+    public int getTransactionCount() { return transactionCount; }
+    
+    public List<ListingCard> getListings() { return listings; }
+}
@@ -0,0 +1,90 @@
+package com.realestate.dto;
+
+import com.realestate.model.Agent;
+import com.realestate.model.Agent.AgentStatus;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Immutable public view of an agent for profile pages; commission and internal dates are left
+ * out.
+ */
+public class AgentProfile implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    private final Long id;
+    private final String firstName;
+    private final String lastName;
+    private final String email;
+    private final String phoneNumber;
+    private final String licenseNumber;
+    private final LocalDate licenseExpiryDate;
+    private final String city;
+    private final String state;
+    private final String specialization;
+    private final String bio;
+    private final String profileImageUrl;
+    private final AgentStatus status;
+    private final Integer yearsExperience;
+    private final String languagesSpoken;
+    
+    private AgentProfile(Agent agent) {
+        this.id = agent.getId();
+        this.firstName = agent.getFirstName();
+        this.lastName = agent.getLastName();
+        this.email = agent.getEmail();
+        this.phoneNumber = agent.getPhoneNumber();
+        this.licenseNumber = agent.getLicenseNumber();
+        this.licenseExpiryDate = agent.getLicenseExpiryDate();
+        this.city = agent.getCity();
+        this.state = agent.getState();
+        this.specialization = agent.getSpecialization();
+        this.bio = agent.getBio();
+        this.profileImageUrl = agent.getProfileImageUrl();
+        this.status = agent.getStatus();
+        this.yearsExperience = agent.getYearsExperience();
+        this.languagesSpoken = agent.getLanguagesSpoken();
+    }
+    
+    public static AgentProfile of(Agent agent) {
+        return new AgentProfile(agent);
+    }
+    
+    public Long getId() { return id; }
+    
+    public String getFirstName() { return firstName; }
+    
+    public String getLastName() { return lastName; }
+    
+    public String getFullName() {
+        return firstName + " " + lastName;
+    }
+    
+    public String getEmail() { return email; }
+    
+    public String getPhoneNumber() { return phoneNumber; }
+    
+    public String getLicenseNumber() { return licenseNumber; }
+    
+    public LocalDate getLicenseExpiryDate() { return licenseExpiryDate; }
+    
+    public boolean isLicenseValid() {
+        return licenseExpiryDate != null && licenseExpiryDate.isAfter(LocalDate.now());
+    }
+    
+    public String getCity() { return city; }
+    
+    public String getState() { return state; }
+    
+    public String getSpecialization() { return specialization; }
+    
+    public String getBio() { return bio; }
+    
+    public String getProfileImageUrl() { return profileImageUrl; }
+    
+    public AgentStatus getStatus() { return status; }
+    
+    public Integer getYearsExperience() { return yearsExperience; }
+    
+    public String getLanguagesSpoken() { return languagesSpoken; }
+}
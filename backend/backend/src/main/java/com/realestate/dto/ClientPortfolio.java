@@ -0,0 +1,21 @@
+package com.realestate.dto;
+
+import java.util.List;
+
+public class ClientPortfolio {
+    private final Long clientId;
+    private final String clientName;
+    private final List<ListingWithAgent> properties;
+    
+    public ClientPortfolio(Long clientId, String clientName, List<ListingWithAgent> properties) {
+        this.clientId = clientId;
+        this.clientName = clientName;
+        this.properties = properties;
+    }
+    
+    public Long getClientId() { return clientId; }
+    
+    public String getClientName() { return clientName; }
+    
+    public List<ListingWithAgent> getProperties() { return properties; }
+}
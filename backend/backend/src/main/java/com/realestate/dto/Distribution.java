@@ -0,0 +1,35 @@
+package com.realestate.dto;
+
+/**
+ * Count, mean and approximate quartiles of one metric. The mean is exact; quantiles come from a
+ * t-digest and are typically within a fraction of a percent of the true rank.
+ */
+public class Distribution {
+    private final long count;
+    private final double mean;
+    private final double p25;
+    private final double median;
+    private final double p75;
+    private final double p90;
+    
+    public Distribution(long count, double mean, double p25, double median, double p75, double p90) {
+        this.count = count;
+        this.mean = mean;
+        this.p25 = p25;
+        this.median = median;
+        this.p75 = p75;
+        this.p90 = p90;
+    }
+    
+    public long getCount() { return count; }
+    
+    public double getMean() { return mean; }
+    
+    public double getP25() { return p25; }
+    
+    public double getMedian() { return median; }
+    
+    public double getP75() { return p75; }
+    
+    public double getP90() { return p90; }
+}
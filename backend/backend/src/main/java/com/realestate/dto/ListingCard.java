@@ -0,0 +1,54 @@
+package com.realestate.dto;
+
+import com.realestate.model.Property;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Row of a browse page. Browse queries build it directly with a JPQL constructor expression, so
+ * no {@code Property} entity or lazy association proxy is created for it; views that already
+ * hold the entity use {@link #of(Property)}.
+ */
+public class ListingCard {
+    private final Long id;
+    private final String title;
+    private final BigDecimal price;
+    private final Integer bedrooms;
+    private final Integer bathrooms;
+    private final String city;
+    private final String mainImageUrl;
+    private final LocalDate listingDate;
+    
+    public ListingCard(Long id, String title, BigDecimal price, Integer bedrooms, Integer bathrooms,
+                       String city, String mainImageUrl, LocalDate listingDate) {
+        this.id = id;
+        this.title = title;
+        this.price = price;
+        this.bedrooms = bedrooms;
+        this.bathrooms = bathrooms;
+        this.city = city;
+        this.mainImageUrl = mainImageUrl;
+        this.listingDate = listingDate;
+    }
+    
+    public static ListingCard of(Property property) {
+        return new ListingCard(property.getId(), property.getTitle(), property.getPrice(), property.getBedrooms(),
+                property.getBathrooms(), property.getCity(), property.getMainImageUrl(), property.getListingDate());
+    }
+    
+    public Long getId() { return id; }
+    
+    public String getTitle() { return title; }
+    
+    public BigDecimal getPrice() { return price; }
+    
+    public Integer getBedrooms() { return bedrooms; }
+    
+    public Integer getBathrooms() { return bathrooms; }
+    
+    public String getCity() { return city; }
+    
+    public String getMainImageUrl() { return mainImageUrl; }
+    
+    public LocalDate getListingDate() { return listingDate; }
+}
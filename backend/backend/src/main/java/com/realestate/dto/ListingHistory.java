@@ -0,0 +1,33 @@
+package com.realestate.dto;
+
+import com.realestate.history.HistoryPoint;
+import java.util.List;
+
+/**
+ * Price and status history of one listing over a time window. The points start with the one
+ * in effect at the start of the window, if the listing existed then. Days on market and price
+ * changes count the listing's whole history up to the end of the window.
+ */
+public class ListingHistory {
+    private final long propertyId;
+    private final List<HistoryPoint> points;
+    private final long daysOnMarket;
+    private final int priceChanges;
+    
+    public ListingHistory(long propertyId, List<HistoryPoint> points, long daysOnMarket, int priceChanges) {
+        this.propertyId = propertyId;
+        this.points = points;
+        this.daysOnMarket = daysOnMarket;
+        this.priceChanges = priceChanges;
+    }
+    
+    public long getPropertyId() { return propertyId; }
+    
+    public List<HistoryPoint> getPoints() { return points; }
+    
+    /** Whole days spent {@code ACTIVE}. */
+    public long getDaysOnMarket() { return daysOnMarket; }
+    
+    /** Price changes after the listing price was first set. */
+    public int getPriceChanges() { return priceChanges; }
+}
@@ -0,0 +1,66 @@
+package com.realestate.dto;
+
+import com.realestate.model.Property.ListingType;
+import com.realestate.model.Property.PropertyStatus;
+import com.realestate.model.Property.PropertyType;
+import java.math.BigDecimal;
+
+public class ListingSummary {
+    private final Long id;
+    private final String title;
+    private final BigDecimal price;
+    private final Integer bedrooms;
+    private final Integer bathrooms;
+    private final Integer squareFeet;
+    private final String city;
+    private final String state;
+    private final PropertyType propertyType;
+    private final ListingType listingType;
+    private final PropertyStatus status;
+    private final String mainImageUrl;
+    
+    public ListingSummary(Long id, String title, BigDecimal price, Integer bedrooms, Integer bathrooms,
+                          Integer squareFeet, String city, String state, PropertyType propertyType,
+                          ListingType listingType, PropertyStatus status, String mainImageUrl) {
+        this.id = id;
+        this.title = title;
+        this.price = price;
+        this.bedrooms = bedrooms;
+        this.bathrooms = bathrooms;
+        this.squareFeet = squareFeet;
+        this.city = city;
+        this.state = state;
+        this.propertyType = propertyType;
+        this.listingType = listingType;
+        this.status = status;
+        this.mainImageUrl = mainImageUrl;
+    }
+    
+    public Long getId() { return id; }
+    
+    public String getTitle() { return title; }
+    
+    public BigDecimal getPrice() { return price; }
+    
+    public Integer getBedrooms() { return bedrooms; }
+    
+    public Integer getBathrooms() { return bathrooms; }
+    
+    public Integer getSquareFeet() { return squareFeet; }
+    
+    public String getCity() { return city; }
+    
+    public String getState() { return state; }
+    
+    public PropertyType getPropertyType() { return propertyType; }
+    
+    public ListingType getListingType() { return listingType; }
+    
+    public PropertyStatus getStatus() { return status; }
+    
+    public String getMainImageUrl() { return mainImageUrl; }
+    
+    public String getShortDescription() {
+        return bedrooms + " bed, " + bathrooms + " bath " + propertyType.toString().toLowerCase();
+    }
+}
@@ -0,0 +1,30 @@
+package com.realestate.dto;
+
+/**
+ * Listing row that also names the listing agent and, when known, the owner.
+ */
+public class ListingWithAgent {
+    private final ListingCard listing;
+    private final Long agentId;
+    private final String agentName;
+    private final Long ownerId;
+    private final String ownerName;
+    
+    public ListingWithAgent(ListingCard listing, Long agentId, String agentName, Long ownerId, String ownerName) {
+        this.listing = listing;
+        this.agentId = agentId;
+        this.agentName = agentName;
+        this.ownerId = ownerId;
+        this.ownerName = ownerName;
+    }
+    
+    public ListingCard getListing() { return listing; }
+    
+    public Long getAgentId() { return agentId; }
+    
+    public String getAgentName() { return agentName; }
+    
+    public Long getOwnerId() { return ownerId; }
+    
+    public String getOwnerName() { return ownerName; }
+}
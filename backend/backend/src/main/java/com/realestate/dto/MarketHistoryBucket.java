@@ -0,0 +1,35 @@
+package com.realestate.dto;
+
+import com.realestate.model.Property.PropertyStatus;
+import java.time.Instant;
+import java.util.Map;
+
+/** Price and status changes of a city's listings in one period of a market history roll-up. */
+public class MarketHistoryBucket {
+    private final Instant start;
+    private final long priceChanges;
+    private final long priceDrops;
+    private final Double averageDropPercent;
+    private final Map<PropertyStatus, Long> statusChanges;
+    
+    public MarketHistoryBucket(Instant start, long priceChanges, long priceDrops, Double averageDropPercent,
+                               Map<PropertyStatus, Long> statusChanges) {
+        this.start = start;
+        this.priceChanges = priceChanges;
+        this.priceDrops = priceDrops;
+        this.averageDropPercent = averageDropPercent;
+        this.statusChanges = statusChanges;
+    }
+    
+    public Instant getStart() { return start; }
+    
+    public long getPriceChanges() { return priceChanges; }
+    
+    public long getPriceDrops() { return priceDrops; }
+    
+    /** Mean size of the price drops relative to the price before them; null without drops. */
+    public Double getAverageDropPercent() { return averageDropPercent; }
+    
+    /** Listings moved into each status, including new listings as {@code ACTIVE}. */
+    public Map<PropertyStatus, Long> getStatusChanges() { return statusChanges; }
+}
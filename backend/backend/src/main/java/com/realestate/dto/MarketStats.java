@@ -0,0 +1,60 @@
+package com.realestate.dto;
+
+import com.realestate.analytics.MarketDimension;
+import com.realestate.model.Property.ListingType;
+import com.realestate.model.Property.PropertyStatus;
+import java.util.Map;
+
+/**
+ * Market figures for one value of a dimension, e.g. city "Austin" for sale listings. Listing
+ * counts and the average active price reflect current statuses; the distributions cover every
+ * listing event recorded since the last rebuild. A distribution is null while it has no data.
+ */
+public class MarketStats {
+    private final ListingType listingType;
+    private final MarketDimension dimension;
+    private final String key;
+    private final Map<PropertyStatus, Long> listingsByStatus;
+    private final Double averageActivePrice;
+    private final Distribution listPrice;
+    private final Distribution listPricePerSquareFoot;
+    private final Distribution closePrice;
+    private final Distribution daysOnMarket;
+    
+    public MarketStats(ListingType listingType, MarketDimension dimension, String key,
+                       Map<PropertyStatus, Long> listingsByStatus, Double averageActivePrice,
+                       Distribution listPrice, Distribution listPricePerSquareFoot,
+                       Distribution closePrice, Distribution daysOnMarket) {
+        this.listingType = listingType;
+        this.dimension = dimension;
+        this.key = key;
+        this.listingsByStatus = listingsByStatus;
+        this.averageActivePrice = averageActivePrice;
+        this.listPrice = listPrice;
+        this.listPricePerSquareFoot = listPricePerSquareFoot;
+        this.closePrice = closePrice;
+        this.daysOnMarket = daysOnMarket;
+    }
+    
+    public ListingType getListingType() { return listingType; }
+    
+    public MarketDimension getDimension() { return dimension; }
+    
+    public String getKey() { return key; }
+    
+    public Map<PropertyStatus, Long> getListingsByStatus() { return listingsByStatus; }
+    
+    public Double getAverageActivePrice() { return averageActivePrice; }
+    
+    /** Asking price when listed. */
+    public Distribution getListPrice() { return listPrice; }
+    
+    /** Asking price divided by square feet, for listings with a known size. */
+    public Distribution getListPricePerSquareFoot() { return listPricePerSquareFoot; }
+    
+    /** Price at the time the listing was marked sold or rented. */
+    public Distribution getClosePrice() { return closePrice; }
+    
+    /** Days from listing date to being marked sold or rented. */
+    public Distribution getDaysOnMarket() { return daysOnMarket; }
+}
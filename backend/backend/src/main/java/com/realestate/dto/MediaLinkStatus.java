@@ -0,0 +1,35 @@
+package com.realestate.dto;
+
+/**
+ * Result of probing one media link of a listing. {@code statusCode} is 0 when no HTTP response
+ * was received, in which case {@code error} says why.
+ */
+public class MediaLinkStatus {
+    private final String kind;
+    private final String url;
+    private final boolean reachable;
+    private final int statusCode;
+    private final long elapsedMillis;
+    private final String error;
+    
+    public MediaLinkStatus(String kind, String url, boolean reachable, int statusCode, long elapsedMillis, String error) {
+        this.kind = kind;
+        this.url = url;
+        this.reachable = reachable;
+        this.statusCode = statusCode;
+        this.elapsedMillis = elapsedMillis;
+        this.error = error;
+    }
+    
+    public String getKind() { return kind; }
+    
+    public String getUrl() { return url; }
+    
+    public boolean isReachable() { return reachable; }
+    
+    public int getStatusCode() { return statusCode; }
+    
+    public long getElapsedMillis() { return elapsedMillis; }
+    
+    public String getError() { return error; }
+}
@@ -0,0 +1,15 @@
+package com.realestate.dto;
+
+public class NearbyListing {
+    private final ListingSummary listing;
+    private final double distanceKm;
+    
+    public NearbyListing(ListingSummary listing, double distanceKm) {
+        this.listing = listing;
+        this.distanceKm = distanceKm;
+    }
+    
+    public ListingSummary getListing() { return listing; }
+    
+    public double getDistanceKm() { return distanceKm; }
+}
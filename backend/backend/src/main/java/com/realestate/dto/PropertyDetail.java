@@ -0,0 +1,167 @@
+package com.realestate.dto;
+
+import com.realestate.model.Property;
+import com.realestate.model.Property.ListingType;
+import com.realestate.model.Property.PropertyCondition;
+import com.realestate.model.Property.PropertyStatus;
+import com.realestate.model.Property.PropertyType;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Immutable snapshot of a listing for the detail page. Holds only the agent's id so the cached
+ * entry never needs invalidating when the agent's own profile changes.
+ */
+public class PropertyDetail implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    private final Long id;
+    private final String title;
+    private final String description;
+    private final String address;
+    private final String city;
+    private final String state;
+    private final String postalCode;
+    private final String country;
+    private final Double latitude;
+    private final Double longitude;
+    private final PropertyType propertyType;
+    private final ListingType listingType;
+    private final BigDecimal price;
+    private final Integer bedrooms;
+    private final Integer bathrooms;
+    private final Integer squareFeet;
+    private final Double lotSize;
+    private final Integer yearBuilt;
+    private final Integer garageSpaces;
+    private final Integer parkingSpaces;
+    private final String propertyFeatures;
+    private final String appliancesIncluded;
+    private final String heatingType;
+    private final String coolingType;
+    private final String flooringType;
+    private final PropertyCondition propertyCondition;
+    private final BigDecimal hoaFee;
+    private final BigDecimal propertyTaxes;
+    private final LocalDate listingDate;
+    private final LocalDate availableDate;
+    private final PropertyStatus status;
+    private final String virtualTourUrl;
+    private final String mainImageUrl;
+    private final Long agentId;
+    private final LocalDateTime updatedAt;
+    
+    private PropertyDetail(Property property) {
+        this.id = property.getId();
+        this.title = property.getTitle();
+        this.description = property.getDescription();
+        this.address = property.getAddress();
+        this.city = property.getCity();
+        this.state = property.getState();
+        this.postalCode = property.getPostalCode();
+        this.country = property.getCountry();
+        this.latitude = property.getLatitude();
+        this.longitude = property.getLongitude();
+        this.propertyType = property.getPropertyType();
+        this.listingType = property.getListingType();
+        this.price = property.getPrice();
+        this.bedrooms = property.getBedrooms();
+        this.bathrooms = property.getBathrooms();
+        this.squareFeet = property.getSquareFeet();
+        this.lotSize = property.getLotSize();
+        this.yearBuilt = property.getYearBuilt();
+        this.garageSpaces = property.getGarageSpaces();
+        this.parkingSpaces = property.getParkingSpaces();
+        this.propertyFeatures = property.getPropertyFeatures();
+        this.appliancesIncluded = property.getAppliancesIncluded();
+        this.heatingType = property.getHeatingType();
+        this.coolingType = property.getCoolingType();
+        this.flooringType = property.getFlooringType();
+        this.propertyCondition = property.getPropertyCondition();
+        this.hoaFee = property.getHoaFee();
+        this.propertyTaxes = property.getPropertyTaxes();
+        this.listingDate = property.getListingDate();
+        this.availableDate = property.getAvailableDate();
+        this.status = property.getStatus();
+        this.virtualTourUrl = property.getVirtualTourUrl();
+        this.mainImageUrl = property.getMainImageUrl();
+        this.agentId = property.getAgent() != null ? property.getAgent().getId() : null;
+        this.updatedAt = property.getUpdatedAt();
+    }
+    
+    public static PropertyDetail of(Property property) {
+        return new PropertyDetail(property);
+    }
+    
+    public Long getId() { return id; }
+    
+    public String getTitle() { return title; }
+    
+    public String getDescription() { return description; }
+    
+    public String getAddress() { return address; }
+    
+    public String getCity() { return city; }
+    
+    public String getState() { return state; }
+    
+    public String getPostalCode() { return postalCode; }
+    
+    public String getCountry() { return country; }
+    
+    public Double getLatitude() { return latitude; }
+    
+    public Double getLongitude() { return longitude; }
+    
+    public PropertyType getPropertyType() { return propertyType; }
+    
+    public ListingType getListingType() { return listingType; }
+    
+    public BigDecimal getPrice() { return price; }
+    
+    public Integer getBedrooms() { return bedrooms; }
+    
+    public Integer getBathrooms() { return bathrooms; }
+    
+    public Integer getSquareFeet() { return squareFeet; }
+    
+    public Double getLotSize() { return lotSize; }
+    
+    public Integer getYearBuilt() { return yearBuilt; }
+    
+    public Integer getGarageSpaces() { return garageSpaces; }
+    
+    public Integer getParkingSpaces() { return parkingSpaces; }
+    
+    public String getPropertyFeatures() { return propertyFeatures; }
+    
+    public String getAppliancesIncluded() { return appliancesIncluded; }
+    
+    public String getHeatingType() { return heatingType; }
+    
+    public String getCoolingType() { return coolingType; }
+    
+    public String getFlooringType() { return flooringType; }
+    
+    public PropertyCondition getPropertyCondition() { return propertyCondition; }
+    
+    public BigDecimal getHoaFee() { return hoaFee; }
+    
+    public BigDecimal getPropertyTaxes() { return propertyTaxes; }
+    
+    public LocalDate getListingDate() { return listingDate; }
+    
+    public LocalDate getAvailableDate() { return availableDate; }
+    
+    public PropertyStatus getStatus() { return status; }
+    
+    public String getVirtualTourUrl() { return virtualTourUrl; }
+    
+    public String getMainImageUrl() { return mainImageUrl; }
+    
+    public Long getAgentId() { return agentId; }
+    
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+}
@@ -0,0 +1,15 @@
+package com.realestate.dto;
+
+public class RankedListing {
+    private final ListingSummary listing;
+    private final float score;
+    
+    public RankedListing(ListingSummary listing, float score) {
+        this.listing = listing;
+        this.score = score;
+    }
+    
+    public ListingSummary getListing() { return listing; }
+    
+    public float getScore() { return score; }
+}
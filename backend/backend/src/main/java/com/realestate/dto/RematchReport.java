@@ -0,0 +1,31 @@
+package com.realestate.dto;
+
+/**
+ * Outcome of matching every active listing against the freshly compiled criteria of every
+ * client.
+ */
+public class RematchReport {
+    private final int clients;
+    private final long listings;
+    private final long matchedListings;
+    private final long pairs;
+    private final long elapsedMillis;
+    
+    public RematchReport(int clients, long listings, long matchedListings, long pairs, long elapsedMillis) {
+        this.clients = clients;
+        this.listings = listings;
+        this.matchedListings = matchedListings;
+        this.pairs = pairs;
+        this.elapsedMillis = elapsedMillis;
+    }
+    
+    public int getClients() { return clients; }
+    
+    public long getListings() { return listings; }
+    
+    public long getMatchedListings() { return matchedListings; }
+    
+    public long getPairs() { return pairs; }
+    
+    public long getElapsedMillis() { return elapsedMillis; }
+}
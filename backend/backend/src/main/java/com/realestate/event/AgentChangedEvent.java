@@ -0,0 +1,17 @@
+package com.realestate.event;
+
+import com.realestate.model.Agent;
+
+public class AgentChangedEvent {
+    private final Agent agent;
+    private final EntityChangeType changeType;
+    
+    public AgentChangedEvent(Agent agent, EntityChangeType changeType) {
+        this.agent = agent;
+        this.changeType = changeType;
+    }
+    
+    public Agent getAgent() { return agent; }
+    
+    public EntityChangeType getChangeType() { return changeType; }
+}
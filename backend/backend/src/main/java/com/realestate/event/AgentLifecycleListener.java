@@ -0,0 +1,35 @@
+package com.realestate.event;
+
+import com.realestate.model.Agent;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link Agent} counterpart of {@link PropertyLifecycleListener}.
+ */
+@Component
+public class AgentLifecycleListener {
+    private final ApplicationEventPublisher eventPublisher;
+    
+    public AgentLifecycleListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+    
+    @PostPersist
+    public void afterCreate(Agent agent) {
+        eventPublisher.publishEvent(new AgentChangedEvent(agent, EntityChangeType.CREATED));
+    }
+    
+    @PostUpdate
+    public void afterUpdate(Agent agent) {
+        eventPublisher.publishEvent(new AgentChangedEvent(agent, EntityChangeType.UPDATED));
+    }
+    
+    @PostRemove
+    public void afterRemove(Agent agent) {
+        eventPublisher.publishEvent(new AgentChangedEvent(agent, EntityChangeType.DELETED));
+    }
+}
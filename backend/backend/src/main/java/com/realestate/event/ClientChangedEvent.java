@@ -0,0 +1,17 @@
+package com.realestate.event;
+
+import com.realestate.model.Client;
+
+public class ClientChangedEvent {
+    private final Client client;
+    private final EntityChangeType changeType;
+    
+    public ClientChangedEvent(Client client, EntityChangeType changeType) {
+        this.client = client;
+        this.changeType = changeType;
+    }
+    
+    public Client getClient() { return client; }
+    
+    public EntityChangeType getChangeType() { return changeType; }
+}
@@ -0,0 +1,35 @@
+package com.realestate.event;
+
+import com.realestate.model.Client;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link Client} counterpart of {@link PropertyLifecycleListener}.
+ */
+@Component
+public class ClientLifecycleListener {
+    private final ApplicationEventPublisher eventPublisher;
+    
+    public ClientLifecycleListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+    
+    @PostPersist
+    public void afterCreate(Client client) {
+        eventPublisher.publishEvent(new ClientChangedEvent(client, EntityChangeType.CREATED));
+    }
+    
+    @PostUpdate
+    public void afterUpdate(Client client) {
+        eventPublisher.publishEvent(new ClientChangedEvent(client, EntityChangeType.UPDATED));
+    }
+    
+    @PostRemove
+    public void afterRemove(Client client) {
+        eventPublisher.publishEvent(new ClientChangedEvent(client, EntityChangeType.DELETED));
+    }
+}
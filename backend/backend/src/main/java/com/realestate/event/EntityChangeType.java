@@ -0,0 +1,5 @@
+package com.realestate.event;
+
+public enum EntityChangeType {
+    CREATED, UPDATED, DELETED
+}
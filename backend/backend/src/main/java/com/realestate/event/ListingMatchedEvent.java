@@ -0,0 +1,30 @@
+package com.realestate.event;
+
+import com.realestate.model.Property;
+import java.util.List;
+
+/**
+ * Published with the clients whose criteria a listing matches, for alerting. Rematches repeat
+ * pairs that may already have been announced, so consumers that notify clients should remember
+ * what they sent.
+ */
+public class ListingMatchedEvent {
+    
+    public enum Trigger { CREATED, UPDATED, REMATCH }
+    
+    private final Property property;
+    private final List<Long> clientIds;
+    private final Trigger trigger;
+    
+    public ListingMatchedEvent(Property property, List<Long> clientIds, Trigger trigger) {
+        this.property = property;
+        this.clientIds = clientIds;
+        this.trigger = trigger;
+    }
+    
+    public Property getProperty() { return property; }
+    
+    public List<Long> getClientIds() { return clientIds; }
+    
+    public Trigger getTrigger() { return trigger; }
+}
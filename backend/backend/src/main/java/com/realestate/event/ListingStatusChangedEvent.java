@@ -0,0 +1,29 @@
+package com.realestate.event;
+
+import com.realestate.dto.ListingSummary;
+import com.realestate.model.Property.PropertyStatus;
+import java.time.Instant;
+
+/**
+ * A committed change of a listing's status, e.g. ACTIVE to SOLD; {@code previousStatus} is null
+ * for a new listing. {@code listing} is the listing as of the change.
+ */
+public class ListingStatusChangedEvent {
+    private final ListingSummary listing;
+    private final PropertyStatus previousStatus;
+    private final Instant changedAt;
+    
+    public ListingStatusChangedEvent(ListingSummary listing, PropertyStatus previousStatus, Instant changedAt) {
+        this.listing = listing;
+        this.previousStatus = previousStatus;
+        this.changedAt = changedAt;
+    }
+    
+    public ListingSummary getListing() { return listing; }
+    
+    public PropertyStatus getPreviousStatus() { return previousStatus; }
+    
+    public PropertyStatus getStatus() { return listing.getStatus(); }
+    
+    public Instant getChangedAt() { return changedAt; }
+}
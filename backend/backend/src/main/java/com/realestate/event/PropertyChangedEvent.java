@@ -0,0 +1,17 @@
+package com.realestate.event;
+
+import com.realestate.model.Property;
+
+public class PropertyChangedEvent {
+    private final Property property;
+    private final EntityChangeType changeType;
+    
+    public PropertyChangedEvent(Property property, EntityChangeType changeType) {
+        this.property = property;
+        this.changeType = changeType;
+    }
+    
+    public Property getProperty() { return property; }
+    
+    public EntityChangeType getChangeType() { return changeType; }
+}
@@ -0,0 +1,37 @@
+package com.realestate.event;
+
+import com.realestate.model.Property;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Republishes JPA lifecycle callbacks for {@link Property} as Spring application events so
+ * in-process indexes can follow writes. The post-callbacks are used rather than
+ * {@code @PrePersist} so that only rows Hibernate has actually flushed are announced.
+ */
+@Component
+public class PropertyLifecycleListener {
+    private final ApplicationEventPublisher eventPublisher;
+    
+    public PropertyLifecycleListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+    
+    @PostPersist
+    public void afterCreate(Property property) {
+        eventPublisher.publishEvent(new PropertyChangedEvent(property, EntityChangeType.CREATED));
+    }
+    
+    @PostUpdate
+    public void afterUpdate(Property property) {
+        eventPublisher.publishEvent(new PropertyChangedEvent(property, EntityChangeType.UPDATED));
+    }
+    
+    @PostRemove
+    public void afterRemove(Property property) {
+        eventPublisher.publishEvent(new PropertyChangedEvent(property, EntityChangeType.DELETED));
+    }
+}
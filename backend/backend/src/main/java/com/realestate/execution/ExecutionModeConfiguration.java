@@ -0,0 +1,64 @@
+package com.realestate.execution;
+
+import com.realestate.routing.DatabaseNode;
+import com.realestate.routing.DatabaseRouting;
+import com.realestate.shard.ShardRouter;
+import java.time.Duration;
+import java.util.List;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Extra wiring for {@code spring.threads.virtual.enabled=true}. Spring Boot itself moves Tomcat
+ * request handling and the application task executor onto virtual threads; this adds the
+ * connection limit that keeps an unbounded number of request threads from piling into the
+ * JDBC pool.
+ *
+ * <p>A single data source gets one limit of {@code realestate.execution.jdbc.max-connections}.
+ * With {@code realestate.routing.enabled=true} the application's data source spreads over
+ * several nodes with a pool per workload class, which one shared limit would undercut: bulk
+ * work could take every permit interactive work needs. It is left unwrapped and every pool of
+ * the primary and the replicas is limited to its own size instead, as are the shards' pools.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class ExecutionModeConfiguration {
+    private static final Logger log = LoggerFactory.getLogger(ExecutionModeConfiguration.class);
+    
+    @Bean
+    public static BeanPostProcessor connectionLimitingDataSourcePostProcessor(
+            @Value("${realestate.execution.jdbc.max-connections:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConnections,
+            @Value("${realestate.execution.jdbc.acquire-timeout:30s}") Duration acquireTimeout,
+            @Value("${realestate.routing.enabled:false}") boolean routingEnabled) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DatabaseRouting routing) {
+                    limitPools(routing.getNodes(), acquireTimeout);
+                } else if (bean instanceof ShardRouter router) {
+                    limitPools(router.getNodes(), acquireTimeout);
+                } else if (bean instanceof DataSource dataSource && !(bean instanceof ConnectionLimitingDataSource)
+                        && !routingEnabled) {
+                    log.info("Serving requests on virtual threads; data source '{}' limited to {} concurrent connections",
+                            beanName, maxConnections);
+                    return new ConnectionLimitingDataSource(dataSource, maxConnections, acquireTimeout);
+                }
+                return bean;
+            }
+        };
+    }
+    
+    private static void limitPools(List<DatabaseNode> nodes, Duration acquireTimeout) {
+        for (DatabaseNode node : nodes) {
+            node.limitConnections(acquireTimeout);
+            log.info("Serving requests on virtual threads; pools of node '{}' limited to their size", node.getName());
+        }
+    }
+}
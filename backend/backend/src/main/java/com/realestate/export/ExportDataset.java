@@ -0,0 +1,21 @@
+package com.realestate.export;
+
+/**
+ * Tables the reporting export reads. Rows are exported with every column of the table, in
+ * table order, so the export follows schema changes without a mapping of its own.
+ */
+public enum ExportDataset {
+    LISTINGS("properties"),
+    /** Agent transactions, mapped by the {@code Agent.transactions} association. */
+    TRANSACTIONS("transactions");
+    
+    private final String table;
+    
+    ExportDataset(String table) {
+        this.table = table;
+    }
+    
+    public String getTable() { return table; }
+    
+    public String getFileName() { return name().toLowerCase(); }
+}
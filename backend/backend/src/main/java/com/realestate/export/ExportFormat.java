@@ -0,0 +1,29 @@
+package com.realestate.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+
+public enum ExportFormat {
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+    
+    private final String contentType;
+    private final String extension;
+    
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+    
+    public String getContentType() { return contentType; }
+    
+    public String getExtension() { return extension; }
+    
+    RowWriter open(OutputStream output, ObjectMapper objectMapper) throws IOException {
+        return switch (this) {
+            case CSV -> new CsvRowWriter(output);
+            case NDJSON -> new NdjsonRowWriter(output, objectMapper);
+        };
+    }
+}
@@ -0,0 +1,70 @@
+package com.realestate.export;
+
+import java.util.List;
+
+public class ExportReport {
+    private final ExportDataset dataset;
+    private final ExportFormat format;
+    private final boolean compressed;
+    private final String directory;
+    private final long rows;
+    private final long elapsedMillis;
+    private final List<ExportFile> files;
+    
+    public ExportReport(ExportDataset dataset, ExportFormat format, boolean compressed, String directory,
+                        long rows, long elapsedMillis, List<ExportFile> files) {
+        this.dataset = dataset;
+        this.format = format;
+        this.compressed = compressed;
+        this.directory = directory;
+        this.rows = rows;
+        this.elapsedMillis = elapsedMillis;
+        this.files = files;
+    }
+    
+    public ExportDataset getDataset() { return dataset; }
+    
+    public ExportFormat getFormat() { return format; }
+    
+    public boolean isCompressed() { return compressed; }
+    
+    public String getDirectory() { return directory; }
+    
+    public long getRows() { return rows; }
+    
+    public long getElapsedMillis() { return elapsedMillis; }
+    
+    public List<ExportFile> getFiles() { return files; }
+    
+    public double getRowsPerSecond() {
+        return elapsedMillis == 0 ? rows : rows * 1000.0 / elapsedMillis;
+    }
+    
+    public static class ExportFile {
+        private final String name;
+        private final long firstId;
+        private final long lastId;
+        private final long rows;
+        private final long bytes;
+        
+        public ExportFile(String name, long firstId, long lastId, long rows, long bytes) {
+            this.name = name;
+            this.firstId = firstId;
+            this.lastId = lastId;
+            this.rows = rows;
+            this.bytes = bytes;
+        }
+        
+        public String getName() { return name; }
+        
+        /** Lower bound of the id range the file covers, inclusive. */
+        public long getFirstId() { return firstId; }
+        
+        /** Upper bound of the id range the file covers, inclusive. */
+        public long getLastId() { return lastId; }
+        
+        public long getRows() { return rows; }
+        
+        public long getBytes() { return bytes; }
+    }
+}
@@ -0,0 +1,271 @@
+package com.realestate.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.realestate.export.ExportReport.ExportFile;
+import com.realestate.routing.WorkloadClass;
+import com.realestate.shard.EntityShards;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Streams whole tables to CSV or NDJSON without going through the persistence context. Each
+ * export reads a forward-only, read-only JDBC cursor with a bounded fetch size and writes every
+ * row as soon as it is read, into one reused value array, so memory use does not grow with the
+ * table. Output can be gzip-compressed.
+ *
+ * <p>{@link #exportToFiles} splits the table into contiguous id ranges and exports them in
+ * parallel, one cursor, connection and file per range. Files are written under a temporary name
+ * and renamed when complete, so a failed export leaves no file that looks finished.
+ *
+ * <p>With sharding both datasets live with their agents on the shards, see {@link EntityShards}:
+ * {@link #export} streams one shard after the other, in id order on each, and
+ * {@link #exportToFiles} splits every shard into its own ranges. Exports are refused while a
+ * region is being moved, as its rows are then on two shards.
+ */
+@Service
+public class ExportService {
+    private static final Logger log = LoggerFactory.getLogger(ExportService.class);
+    private static final DateTimeFormatter JOB_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityShards shards;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final int fetchSize;
+    private final int maxPartitions;
+    
+    public ExportService(JdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager,
+                         EntityShards shards,
+                         ObjectMapper objectMapper,
+                         @Value("${realestate.export.dir:${java.io.tmpdir}/realestate-export}") Path directory,
+                         @Value("${realestate.export.fetch-size:1000}") int fetchSize,
+                         @Value("${realestate.export.max-partitions:8}") int maxPartitions) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shards = shards;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.directory = directory;
+        this.fetchSize = fetchSize;
+        this.maxPartitions = maxPartitions;
+    }
+    
+    /**
+     * Writes the whole dataset to {@code output}, which is closed afterwards, and returns the
+     * number of rows written.
+     */
+    public long export(ExportDataset dataset, ExportFormat format, boolean compressed, OutputStream output)
+            throws IOException {
+        requireSettled(dataset);
+        String sql = "SELECT * FROM " + dataset.getTable() + " ORDER BY id";
+        List<Integer> all = new ArrayList<>(shards.getShardCount());
+        for (int shard = 0; shard < shards.getShardCount(); shard++) {
+            all.add(shard);
+        }
+        return WorkloadClass.BULK.run(() -> exportQuery(sql, all, format, compressed, output));
+    }
+    
+    /**
+     * Exports the dataset into {@code partitions} files in a new directory below
+     * {@code realestate.export.dir}, one id range per file, in parallel. With sharding every
+     * shard is split into {@code partitions} ranges of its own.
+     */
+    public ExportReport exportToFiles(ExportDataset dataset, ExportFormat format, boolean compressed, int partitions)
+            throws IOException {
+        if (partitions < 1 || partitions > maxPartitions) {
+            throw new IllegalArgumentException("partitions must be between 1 and " + maxPartitions);
+        }
+        requireSettled(dataset);
+        long started = System.nanoTime();
+        Path target = directory.resolve(dataset.getFileName() + "-" + LocalDateTime.now().format(JOB_TIMESTAMP));
+        Files.createDirectories(target);
+        
+        List<ExportRange> ranges = new ArrayList<>();
+        shards.forEachShard(shard -> {
+            Map<String, Object> bounds = jdbcTemplate.queryForMap("SELECT MIN(id) AS lo, MAX(id) AS hi FROM "
+                    + dataset.getTable());
+            if (bounds.get("lo") != null) {
+                long lo = ((Number) bounds.get("lo")).longValue();
+                long hi = ((Number) bounds.get("hi")).longValue();
+                int count = (int) Math.min(partitions, hi - lo + 1);
+                long width = (hi - lo) / count + 1;
+                for (int i = 0; i < count; i++) {
+                    long first = lo + i * width;
+                    String prefix = shards.isSharded() ? "shard-" + shard + "-" : "";
+                    String name = String.format("%spart-%05d.%s%s", prefix, i, format.getExtension(), compressed ? ".gz" : "");
+                    ranges.add(new ExportRange(shard, first, Math.min(hi, first + width - 1), target.resolve(name)));
+                }
+            }
+        });
+        
+        List<ExportFile> files = new ArrayList<>();
+        if (!ranges.isEmpty()) {
+            ExecutorService pool = Executors.newFixedThreadPool(ranges.size(), exportThreads(dataset));
+            try {
+                List<Future<ExportFile>> parts = new ArrayList<>(ranges.size());
+                for (ExportRange range : ranges) {
+                    parts.add(pool.submit(() -> WorkloadClass.BULK.run(() -> exportRange(dataset, format, compressed,
+                            range))));
+                }
+                for (Future<ExportFile> part : parts) {
+                    files.add(part.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Export of " + dataset.getFileName() + " was interrupted", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException io) {
+                    throw io;
+                }
+                throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+        
+        long rows = files.stream().mapToLong(ExportFile::getRows).sum();
+        ExportReport report = new ExportReport(dataset, format, compressed, target.toString(), rows,
+                (System.nanoTime() - started) / 1_000_000, files);
+        log.info("Exported {} {} rows to {} in {} files, {} rows/s", rows, dataset.getFileName(), target, files.size(),
+                Math.round(report.getRowsPerSecond()));
+        return report;
+    }
+    
+    private void requireSettled(ExportDataset dataset) {
+        if (shards.isMoving()) {
+            throw new IllegalStateException("A region is being moved between shards; export " + dataset.getFileName()
+                    + " once the move is done");
+        }
+    }
+    
+    private ExportFile exportRange(ExportDataset dataset, ExportFormat format, boolean compressed, ExportRange range)
+            throws IOException {
+        String sql = "SELECT * FROM " + dataset.getTable() + " WHERE id BETWEEN " + range.first() + " AND " + range.last()
+                + " ORDER BY id";
+        Path file = range.file();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        long rows;
+        try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16)) {
+            rows = exportQuery(sql, List.of(range.shard()), format, compressed, output);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+        return new ExportFile(file.getFileName().toString(), range.first(), range.last(), rows, Files.size(file));
+    }
+    
+    /** Streams {@code sql} on each of {@code from} in turn into one output, with the header of the first. */
+    private long exportQuery(String sql, List<Integer> from, ExportFormat format, boolean compressed, OutputStream output)
+            throws IOException {
+        try (RowWriter writer = format.open(compressed ? new GZIPOutputStream(output, 1 << 16) : output, objectMapper)) {
+            long rows = 0;
+            for (int shard : from) {
+                boolean header = shard == from.get(0);
+                rows += shards.onShard(shard, () -> stream(sql, writer, header));
+            }
+            return rows;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+    
+    private long stream(String sql, RowWriter writer, boolean header) {
+        Long rows = readOnlyTransaction.execute(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            return statement;
+        }, resultSet -> {
+            try {
+                return write(resultSet, writer, header);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+        return rows == null ? 0 : rows;
+    }
+    
+    private static long write(ResultSet resultSet, RowWriter writer, boolean header) throws SQLException, IOException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int columns = metaData.getColumnCount();
+        String[] names = new String[columns];
+        int[] types = new int[columns];
+        for (int i = 0; i < columns; i++) {
+            names[i] = metaData.getColumnLabel(i + 1).toLowerCase();
+            types[i] = metaData.getColumnType(i + 1);
+        }
+        if (header) {
+            writer.header(names);
+        }
+        Object[] values = new Object[columns];
+        long rows = 0;
+        while (resultSet.next()) {
+            for (int i = 0; i < columns; i++) {
+                values[i] = read(resultSet, i + 1, types[i]);
+            }
+            writer.row(values);
+            rows++;
+        }
+        return rows;
+    }
+    
+    private static Object read(ResultSet resultSet, int column, int type) throws SQLException {
+        return switch (type) {
+            case Types.DATE -> resultSet.getObject(column, LocalDate.class);
+            case Types.TIMESTAMP -> resultSet.getObject(column, LocalDateTime.class);
+            case Types.TIMESTAMP_WITH_TIMEZONE -> resultSet.getObject(column, OffsetDateTime.class);
+            case Types.TIME -> resultSet.getObject(column, LocalTime.class);
+            case Types.BIT, Types.BOOLEAN, Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT, Types.REAL,
+                 Types.FLOAT, Types.DOUBLE, Types.NUMERIC, Types.DECIMAL -> resultSet.getObject(column);
+            // Text, enums and anything else as text
+            default -> resultSet.getString(column);
+        };
+    }
+    
+    private record ExportRange(int shard, long first, long last, Path file) {
+    }
+    
+    private static ThreadFactory exportThreads(ExportDataset dataset) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "export-" + dataset.getFileName() + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,45 @@
+package com.realestate.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * One JSON object per line, keyed by column name. Values are written with the application's
+ * {@link ObjectMapper}, so dates and decimals look as they do in the REST API.
+ */
+class NdjsonRowWriter implements RowWriter {
+    private final JsonGenerator generator;
+    private SerializedString[] names;
+    
+    NdjsonRowWriter(OutputStream output, ObjectMapper objectMapper) throws IOException {
+        this.generator = objectMapper.createGenerator(output);
+        generator.setRootValueSeparator(null);
+    }
+    
+    @Override
+    public void header(String[] columns) {
+        names = new SerializedString[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            names[i] = new SerializedString(columns[i]);
+        }
+    }
+    
+    @Override
+    public void row(Object[] values) throws IOException {
+        generator.writeStartObject();
+        for (int i = 0; i < values.length; i++) {
+            generator.writeFieldName(names[i]);
+            generator.writeObject(values[i]);
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+    
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
@@ -0,0 +1,16 @@
+package com.realestate.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Writes exported rows to a stream as they are read. Values are {@code null}, strings, numbers,
+ * booleans or {@code java.time} values; the array passed to {@link #row} is reused for the next
+ * row. Closing flushes and closes the underlying stream.
+ */
+interface RowWriter extends Closeable {
+    
+    void header(String[] columns) throws IOException;
+    
+    void row(Object[] values) throws IOException;
+}
@@ -0,0 +1,51 @@
+package com.realestate.geo;
+
+public final class BoundingBox {
+    private static final double KM_PER_DEGREE = Math.PI * GeoPoint.EARTH_RADIUS_KM / 180;
+    
+    private final double minLatitude;
+    private final double maxLatitude;
+    private final double minLongitude;
+    private final double maxLongitude;
+    
+    public BoundingBox(double minLatitude, double maxLatitude, double minLongitude, double maxLongitude) {
+        if (minLatitude > maxLatitude || minLongitude > maxLongitude) {
+            throw new IllegalArgumentException("Bounding box minimum must not exceed maximum");
+        }
+        this.minLatitude = Math.max(-90, minLatitude);
+        this.maxLatitude = Math.min(90, maxLatitude);
+        this.minLongitude = Math.max(-180, minLongitude);
+        this.maxLongitude = Math.min(180, maxLongitude);
+    }
+    
+    /**
+     * Smallest box enclosing the circle of {@code radiusKm} around the center. Boxes that would
+     * cross the antimeridian or reach a pole span every longitude, which only ever widens the
+     * candidate set; the exact distance check still applies afterwards.
+     */
+    public static BoundingBox around(double latitude, double longitude, double radiusKm) {
+        double latDelta = radiusKm / KM_PER_DEGREE;
+        double cosLat = Math.cos(Math.toRadians(latitude));
+        double lonDelta = cosLat < 1e-6 ? 180 : Math.min(180, radiusKm / (KM_PER_DEGREE * cosLat));
+        double minLongitude = longitude - lonDelta;
+        double maxLongitude = longitude + lonDelta;
+        if (latitude + latDelta >= 90 || latitude - latDelta <= -90 || minLongitude < -180 || maxLongitude > 180) {
+            minLongitude = -180;
+            maxLongitude = 180;
+        }
+        return new BoundingBox(latitude - latDelta, latitude + latDelta, minLongitude, maxLongitude);
+    }
+    
+    public double getMinLatitude() { return minLatitude; }
+    
+    public double getMaxLatitude() { return maxLatitude; }
+    
+    public double getMinLongitude() { return minLongitude; }
+    
+    public double getMaxLongitude() { return maxLongitude; }
+    
+    public boolean contains(double latitude, double longitude) {
+        return latitude >= minLatitude && latitude <= maxLatitude
+                && longitude >= minLongitude && longitude <= maxLongitude;
+    }
+}
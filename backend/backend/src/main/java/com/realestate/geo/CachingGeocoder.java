@@ -0,0 +1,81 @@
+package com.realestate.geo;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Front for the configured {@link GeocodingResolver} that remembers results, including misses,
+ * in a bounded LRU map keyed by the normalized address. Concurrent lookups of the same address
+ * share one in-flight resolution, so a parallel bulk import never resolves an address twice.
+ */
+@Service
+public class CachingGeocoder {
+    private final GeocodingResolver resolver;
+    private final Map<String, Optional<GeoPoint>> cache;
+    private final Map<String, CompletableFuture<Optional<GeoPoint>>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    
+    public CachingGeocoder(GeocodingResolver resolver,
+                           @Value("${realestate.geocoding.cache-size:100000}") int cacheSize) {
+        this.resolver = resolver;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Optional<GeoPoint>> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+    
+    public Optional<GeoPoint> geocode(String address) {
+        if (address == null || address.isBlank()) {
+            return Optional.empty();
+        }
+        String key = normalize(address);
+        Optional<GeoPoint> cached = cache.get(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        
+        CompletableFuture<Optional<GeoPoint>> pending = new CompletableFuture<>();
+        CompletableFuture<Optional<GeoPoint>> running = inFlight.putIfAbsent(key, pending);
+        if (running != null) {
+            hits.increment();
+            return running.join();
+        }
+        try {
+            cached = cache.get(key);
+            if (cached == null) {
+                misses.increment();
+                cached = resolver.resolve(address);
+                cache.put(key, cached);
+            }
+            pending.complete(cached);
+            return cached;
+        } catch (RuntimeException e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key);
+        }
+    }
+    
+    public long getHitCount() { return hits.sum(); }
+    
+    public long getMissCount() { return misses.sum(); }
+    
+    public int getCachedCount() { return cache.size(); }
+    
+    static String normalize(String address) {
+        return address.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,189 @@
+package com.realestate.geo;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Uniform latitude/longitude grid mapping each occupied cell to the integer slots of the points
+ * inside it. Cells are only materialized once a point lands in them, so memory follows the data
+ * rather than the covered area.
+ *
+ * <p>Not thread-safe; callers synchronize externally.
+ */
+public class GeoGridIndex {
+    public static final double DEFAULT_CELL_DEGREES = 0.05;
+    
+    private final double cellDegrees;
+    private final int rows;
+    private final int columns;
+    private final Map<Long, Cell> cells = new HashMap<>();
+    private int size;
+    
+    public GeoGridIndex() {
+        this(DEFAULT_CELL_DEGREES);
+    }
+    
+    public GeoGridIndex(double cellDegrees) {
+        this.cellDegrees = cellDegrees;
+        this.rows = (int) Math.ceil(180 / cellDegrees);
+        this.columns = (int) Math.ceil(360 / cellDegrees);
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public void add(int slot, double latitude, double longitude) {
+        cells.computeIfAbsent(cellKey(row(latitude), column(longitude)), key -> new Cell()).add(slot);
+        size++;
+    }
+    
+    public void remove(int slot, double latitude, double longitude) {
+        long key = cellKey(row(latitude), column(longitude));
+        Cell cell = cells.get(key);
+        if (cell != null && cell.remove(slot)) {
+            size--;
+            if (cell.size == 0) {
+                cells.remove(key);
+            }
+        }
+    }
+    
+    /**
+     * Sets the bit of every slot in a cell overlapping the box. The result is a superset of the
+     * points inside the box; callers apply the exact coordinate test afterwards.
+     */
+    public void collect(BoundingBox box, BitSet into) {
+        int minRow = row(box.getMinLatitude());
+        int maxRow = row(box.getMaxLatitude());
+        int minColumn = column(box.getMinLongitude());
+        int maxColumn = column(box.getMaxLongitude());
+        long coveredCells = (long) (maxRow - minRow + 1) * (maxColumn - minColumn + 1);
+        if (coveredCells > cells.size()) {
+            for (Map.Entry<Long, Cell> entry : cells.entrySet()) {
+                int row = (int) (entry.getKey() / columns);
+                int column = (int) (entry.getKey() % columns);
+                if (row >= minRow && row <= maxRow && column >= minColumn && column <= maxColumn) {
+                    entry.getValue().collect(into);
+                }
+            }
+            return;
+        }
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                Cell cell = cells.get(cellKey(row, column));
+                if (cell != null) {
+                    cell.collect(into);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Feeds the points of the square ring of cells at Chebyshev distance {@code ring} from the
+     * center cell to the collector and returns how many points were visited. Longitude wraps
+     * around, with column distances taken the short way round, so each cell belongs to exactly
+     * one ring: once a ring spans every column its edge rows visit each column once, and its
+     * side columns are left to the earlier rings that already covered them.
+     */
+    public int visitRing(double latitude, double longitude, int ring, SlotVisitor visitor) {
+        int centerRow = row(latitude);
+        int centerColumn = column(longitude);
+        boolean wholeWidth = 2 * ring + 1 >= columns;
+        int visited = 0;
+        for (int row = centerRow - ring; row <= centerRow + ring; row++) {
+            if (row < 0 || row >= rows) {
+                continue;
+            }
+            if (row == centerRow - ring || row == centerRow + ring) {
+                int first = wholeWidth ? 0 : centerColumn - ring;
+                int last = wholeWidth ? columns - 1 : centerColumn + ring;
+                for (int column = first; column <= last; column++) {
+                    visited += visitCell(row, column, visitor);
+                }
+            } else if (2 * ring < columns) {
+                visited += visitCell(row, centerColumn - ring, visitor);
+                visited += visitCell(row, centerColumn + ring, visitor);
+            } else if (2 * ring == columns) {
+                // Both sides wrap to the same column
+                visited += visitCell(row, centerColumn + ring, visitor);
+            }
+        }
+        return visited;
+    }
+    
+    /**
+     * Lower bound on the distance from the center to any point in the given ring, used to stop
+     * a nearest-neighbour expansion once no unvisited cell can beat the current k-th result.
+     */
+    public double ringLowerBoundKm(double latitude, int ring) {
+        if (ring <= 1) {
+            return 0;
+        }
+        double farthestLatitude = Math.min(89.9, Math.abs(latitude) + ring * cellDegrees);
+        double kmPerDegree = Math.PI * GeoPoint.EARTH_RADIUS_KM / 180;
+        return (ring - 1) * cellDegrees * kmPerDegree * Math.cos(Math.toRadians(farthestLatitude));
+    }
+    
+    public int maxRing() {
+        return Math.max(rows, columns);
+    }
+    
+    private int visitCell(int row, int column, SlotVisitor visitor) {
+        Cell cell = cells.get(cellKey(row, Math.floorMod(column, columns)));
+        if (cell == null) {
+            return 0;
+        }
+        for (int i = 0; i < cell.size; i++) {
+            visitor.visit(cell.slots[i]);
+        }
+        return cell.size;
+    }
+    
+    private int row(double latitude) {
+        return Math.min(rows - 1, Math.max(0, (int) Math.floor((latitude + 90) / cellDegrees)));
+    }
+    
+    private int column(double longitude) {
+        return Math.min(columns - 1, Math.max(0, (int) Math.floor((longitude + 180) / cellDegrees)));
+    }
+    
+    private long cellKey(int row, int column) {
+        return (long) row * columns + column;
+    }
+    
+    @FunctionalInterface
+    public interface SlotVisitor {
+        void visit(int slot);
+    }
+    
+    private static class Cell {
+        private int[] slots = new int[4];
+        private int size;
+        
+        void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+        
+        boolean remove(int slot) {
+            for (int i = 0; i < size; i++) {
+                if (slots[i] == slot) {
+                    slots[i] = slots[--size];
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        void collect(BitSet into) {
+            for (int i = 0; i < size; i++) {
+                into.set(slots[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.realestate.geo;
+
+import java.util.Objects;
+
+public final class GeoPoint {
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+    
+    private final double latitude;
+    private final double longitude;
+    
+    public GeoPoint(double latitude, double longitude) {
+        if (latitude < -90 || latitude > 90) {
+            throw new IllegalArgumentException("Latitude must be between -90 and 90");
+        }
+        if (longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("Longitude must be between -180 and 180");
+        }
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+    
+    public double getLatitude() { return latitude; }
+    
+    public double getLongitude() { return longitude; }
+    
+    public double distanceKm(GeoPoint other) {
+        return distanceKm(latitude, longitude, other.latitude, other.longitude);
+    }
+    
+    /**
+     * Great-circle distance using the haversine formula. Static and primitive-only so it can be
+     * used from the search scan loop without allocating.
+     */
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof GeoPoint)) return false;
+        GeoPoint other = (GeoPoint) o;
+        return Double.compare(latitude, other.latitude) == 0 && Double.compare(longitude, other.longitude) == 0;
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(latitude, longitude);
+    }
+    
+    @Override
+    public String toString() {
+        return latitude + "," + longitude;
+    }
+}
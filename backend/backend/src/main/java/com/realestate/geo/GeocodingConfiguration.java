@@ -0,0 +1,21 @@
+package com.realestate.geo;
+
+import java.nio.file.Path;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class GeocodingConfiguration {
+    
+    /**
+     * Default resolver when no provider-specific {@link GeocodingResolver} bean is declared.
+     */
+    @Bean
+    @ConditionalOnMissingBean(GeocodingResolver.class)
+    public GeocodingResolver localFileGeocodingResolver(
+            @Value("${realestate.geocoding.local-file:#{null}}") Path localFile) {
+        return new LocalFileGeocodingResolver(localFile);
+    }
+}
@@ -0,0 +1,11 @@
+package com.realestate.geo;
+
+import java.util.Optional;
+
+/**
+ * Resolves a free-text postal address to coordinates. Implementations may call out to a remote
+ * provider; {@link CachingGeocoder} makes sure each distinct address is only resolved once.
+ */
+public interface GeocodingResolver {
+    Optional<GeoPoint> resolve(String address);
+}
@@ -0,0 +1,46 @@
+package com.realestate.geo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Offline resolver backed by a local lookup file with one {@code address|latitude|longitude}
+ * entry per line. Used for development, tests and imports where coordinates are already known.
+ */
+public class LocalFileGeocodingResolver implements GeocodingResolver {
+    private final Map<String, GeoPoint> points = new HashMap<>();
+    
+    public LocalFileGeocodingResolver(Path file) {
+        if (file == null || !Files.exists(file)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split("\\|");
+                if (parts.length != 3) {
+                    throw new IllegalArgumentException("Invalid geocoding entry: " + line);
+                }
+                points.put(CachingGeocoder.normalize(parts[0]),
+                        new GeoPoint(Double.parseDouble(parts[1].trim()), Double.parseDouble(parts[2].trim())));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read geocoding file " + file, e);
+        }
+    }
+    
+    @Override
+    public Optional<GeoPoint> resolve(String address) {
+        return Optional.ofNullable(points.get(CachingGeocoder.normalize(address)));
+    }
+}
@@ -0,0 +1,52 @@
+package com.realestate.geo;
+
+import com.realestate.model.Property;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves a listing's coordinates from {@link Property#getFullAddress()} before it is written:
+ * when it has none, and when its address no longer matches the one its coordinates were
+ * resolved from. Coordinates the caller supplied, which have no geocoded address, are left
+ * alone. If the new address cannot be resolved, the stale coordinates are cleared rather than
+ * kept.
+ */
+@Component
+public class PropertyGeocodingListener {
+    private static final Logger log = LoggerFactory.getLogger(PropertyGeocodingListener.class);
+    
+    private final CachingGeocoder geocoder;
+    
+    public PropertyGeocodingListener(CachingGeocoder geocoder) {
+        this.geocoder = geocoder;
+    }
+    
+    @PrePersist
+    @PreUpdate
+    public void fillCoordinates(Property property) {
+        if (property.getAddress() == null) {
+            return;
+        }
+        String address = property.getFullAddress();
+        if (property.hasCoordinates()) {
+            if (property.getGeocodedAddress() == null || property.getGeocodedAddress().equals(address)) {
+                return;
+            }
+            property.setLatitude(null);
+            property.setLongitude(null);
+            property.setGeocodedAddress(null);
+        }
+        try {
+            geocoder.geocode(address).ifPresent(point -> {
+                property.setLatitude(point.getLatitude());
+                property.setLongitude(point.getLongitude());
+                property.setGeocodedAddress(address);
+            });
+        } catch (RuntimeException e) {
+            log.warn("Geocoding failed for property {}: {}", property.getId(), e.getMessage());
+        }
+    }
+}
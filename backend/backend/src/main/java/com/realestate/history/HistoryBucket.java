@@ -0,0 +1,24 @@
+package com.realestate.history;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+/** Width of the periods a market history roll-up is split into, aligned to UTC calendar days. */
+public enum HistoryBucket {
+    DAY,
+    /** Weeks starting on Monday. */
+    WEEK,
+    MONTH;
+    
+    /** Start of the period containing {@code epochSecond}, in epoch seconds. */
+    public long start(long epochSecond) {
+        LocalDate day = LocalDate.ofEpochDay(Math.floorDiv(epochSecond, 86_400L));
+        LocalDate start = switch (this) {
+            case DAY -> day;
+            case WEEK -> day.with(DayOfWeek.MONDAY);
+            case MONTH -> day.withDayOfMonth(1);
+        };
+        return start.atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+    }
+}
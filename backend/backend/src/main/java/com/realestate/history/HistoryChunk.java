@@ -0,0 +1,242 @@
+package com.realestate.history;
+
+import com.realestate.model.Property.PropertyStatus;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A run of one listing's history points in the compact encoding stored in
+ * {@code listing_history_chunks.data}. Each point is
+ * <ul>
+ *   <li>a header byte: bit 0 set when a price follows, bit 1 when a status follows, bits 2-3 the
+ *       unit of the price (cents, dollars, hundreds or thousands of dollars), bits 4 and 5 when
+ *       the price or status is restated rather than changed;</li>
+ *   <li>the time in epoch seconds as a zig-zag varint: absolute for the first point, the delta
+ *       to the first for the second, and the change in delta (delta of delta) after that;</li>
+ *   <li>if present, the difference to the previous price as a zig-zag varint in the largest
+ *       unit that divides it, so that a $10,000 price drop takes one byte;</li>
+ *   <li>if present, the status ordinal plus one.</li>
+ * </ul>
+ * A chunk decodes on its own: its first point carries the price and status over from the
+ * previous chunk, marked as restated where they did not change. Most points take 4 to 6 bytes.
+ */
+final class HistoryChunk {
+    static final long NO_PRICE = Long.MIN_VALUE;
+    private static final int PRICE = 1;
+    private static final int STATUS = 2;
+    private static final int UNIT_SHIFT = 2;
+    private static final int PRICE_RESTATED = 16;
+    private static final int STATUS_RESTATED = 32;
+    private static final long[] UNITS = {1, 100, 10_000, 100_000};
+    private static final PropertyStatus[] STATUSES = PropertyStatus.values();
+    
+    private byte[] data;
+    private int length;
+    private int count;
+    private long firstSecond;
+    private long lastSecond;
+    private long lastDelta;
+    /** Latest price and status, carried over from the previous chunk until the first point. */
+    private long priceCents = NO_PRICE;
+    private PropertyStatus status;
+    /** Base of the next price delta; restarts at zero in every chunk. */
+    private long encodedPrice;
+    /** Read position of {@link #forEach}. */
+    private int position;
+    
+    HistoryChunk() {
+        this.data = new byte[32];
+    }
+    
+    /** A chunk to read stored points from with {@link #forEach}; it cannot be appended to. */
+    static HistoryChunk wrap(byte[] bytes) {
+        HistoryChunk chunk = new HistoryChunk();
+        chunk.data = bytes;
+        chunk.length = bytes.length;
+        return chunk;
+    }
+    
+    /** A stored chunk to append to, with its latest point replayed. */
+    static HistoryChunk decode(byte[] bytes) {
+        HistoryChunk chunk = new HistoryChunk();
+        chunk.data = Arrays.copyOf(bytes, Math.max(bytes.length, 32));
+        chunk.length = bytes.length;
+        chunk.forEach((second, cents, status, priceChanged, statusChanged) -> {
+            if (chunk.count == 0) {
+                chunk.firstSecond = second;
+            } else {
+                chunk.lastDelta = second - chunk.lastSecond;
+            }
+            chunk.lastSecond = second;
+            chunk.priceCents = cents;
+            chunk.encodedPrice = cents == NO_PRICE ? 0 : cents;
+            chunk.status = status;
+            chunk.count++;
+        });
+        return chunk;
+    }
+    
+    /** An empty chunk that continues after {@code previous}, which is full. */
+    static HistoryChunk after(HistoryChunk previous) {
+        HistoryChunk chunk = new HistoryChunk();
+        chunk.priceCents = previous.priceCents;
+        chunk.status = previous.status;
+        return chunk;
+    }
+    
+    static long toCents(BigDecimal price) {
+        return price == null ? NO_PRICE : price.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+    
+    /**
+     * Appends a point if the price or status differs from the latest one; a null price or status
+     * counts as unchanged. Returns whether a point was written.
+     */
+    boolean append(long second, long cents, PropertyStatus newStatus) {
+        boolean priceChanged = cents != NO_PRICE && cents != priceCents;
+        boolean statusChanged = newStatus != null && newStatus != status;
+        if (!priceChanged && !statusChanged) {
+            return false;
+        }
+        boolean first = count == 0;
+        boolean writePrice = priceChanged || (first && priceCents != NO_PRICE);
+        boolean writeStatus = statusChanged || (first && status != null);
+        long price = priceChanged ? cents : priceCents;
+        PropertyStatus pointStatus = statusChanged ? newStatus : status;
+        
+        int unit = 0;
+        long priceDelta = 0;
+        if (writePrice) {
+            priceDelta = price - encodedPrice;
+            while (unit < UNITS.length - 1 && priceDelta % UNITS[unit + 1] == 0) {
+                unit++;
+            }
+        }
+        int header = (writePrice ? PRICE : 0) | (writeStatus ? STATUS : 0) | unit << UNIT_SHIFT
+                | (writePrice && !priceChanged ? PRICE_RESTATED : 0) | (writeStatus && !statusChanged ? STATUS_RESTATED : 0);
+        ensureCapacity(1 + 10 + 10 + 1);
+        data[length++] = (byte) header;
+        if (first) {
+            writeVarLong(zigZag(second));
+            firstSecond = second;
+        } else if (count == 1) {
+            lastDelta = second - lastSecond;
+            writeVarLong(zigZag(lastDelta));
+        } else {
+            long delta = second - lastSecond;
+            writeVarLong(zigZag(delta - lastDelta));
+            lastDelta = delta;
+        }
+        if (writePrice) {
+            writeVarLong(zigZag(priceDelta / UNITS[unit]));
+            encodedPrice = price;
+        }
+        if (writeStatus) {
+            data[length++] = (byte) (pointStatus.ordinal() + 1);
+        }
+        lastSecond = second;
+        priceCents = price;
+        status = pointStatus;
+        count++;
+        return true;
+    }
+    
+    void forEach(PointVisitor visitor) {
+        position = 0;
+        int index = 0;
+        long second = 0;
+        long delta = 0;
+        long cents = NO_PRICE;
+        long encoded = 0;
+        PropertyStatus pointStatus = null;
+        while (position < length) {
+            int header = data[position++] & 0xFF;
+            long value = unZigZag(readVarLong());
+            if (index == 0) {
+                second = value;
+            } else if (index == 1) {
+                delta = value;
+                second += delta;
+            } else {
+                delta += value;
+                second += delta;
+            }
+            boolean priceChanged = false;
+            if ((header & PRICE) != 0) {
+                encoded += unZigZag(readVarLong()) * UNITS[(header >>> UNIT_SHIFT) & 3];
+                cents = encoded;
+                priceChanged = (header & PRICE_RESTATED) == 0;
+            }
+            boolean statusChanged = false;
+            if ((header & STATUS) != 0) {
+                pointStatus = STATUSES[data[position++] - 1];
+                statusChanged = (header & STATUS_RESTATED) == 0;
+            }
+            visitor.visit(second, cents, pointStatus, priceChanged, statusChanged);
+            index++;
+        }
+    }
+    
+    List<HistoryPoint> points() {
+        List<HistoryPoint> points = new ArrayList<>(count);
+        forEach((second, cents, pointStatus, priceChanged, statusChanged) -> points.add(new HistoryPoint(
+                Instant.ofEpochSecond(second), cents == NO_PRICE ? null : BigDecimal.valueOf(cents, 2), pointStatus,
+                priceChanged, statusChanged)));
+        return points;
+    }
+    
+    byte[] toByteArray() {
+        return Arrays.copyOf(data, length);
+    }
+    
+    int size() { return count; }
+    
+    int byteLength() { return length; }
+    
+    long firstSecond() { return firstSecond; }
+    
+    long lastSecond() { return lastSecond; }
+    
+    private void ensureCapacity(int extra) {
+        if (length + extra > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + extra));
+        }
+    }
+    
+    private void writeVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            data[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[length++] = (byte) value;
+    }
+    
+    private long readVarLong() {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[position++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+    
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+    
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+    
+    @FunctionalInterface
+    interface PointVisitor {
+        void visit(long second, long priceCents, PropertyStatus status, boolean priceChanged, boolean statusChanged);
+    }
+}
@@ -0,0 +1,36 @@
+package com.realestate.history;
+
+import com.realestate.model.Property.PropertyStatus;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * A listing's price and status from {@code at} until its next point. {@code priceChanged} and
+ * {@code statusChanged} tell which of the two moved at this point; both are set on a listing's
+ * first point.
+ */
+public class HistoryPoint {
+    private final Instant at;
+    private final BigDecimal price;
+    private final PropertyStatus status;
+    private final boolean priceChanged;
+    private final boolean statusChanged;
+    
+    public HistoryPoint(Instant at, BigDecimal price, PropertyStatus status, boolean priceChanged, boolean statusChanged) {
+        this.at = at;
+        this.price = price;
+        this.status = status;
+        this.priceChanged = priceChanged;
+        this.statusChanged = statusChanged;
+    }
+    
+    public Instant getAt() { return at; }
+    
+    public BigDecimal getPrice() { return price; }
+    
+    public PropertyStatus getStatus() { return status; }
+    
+    public boolean isPriceChanged() { return priceChanged; }
+    
+    public boolean isStatusChanged() { return statusChanged; }
+}
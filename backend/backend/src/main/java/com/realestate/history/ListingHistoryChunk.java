@@ -0,0 +1,72 @@
+package com.realestate.history;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Row of the listing history table: up to {@code realestate.history.chunk-points} price and
+ * status points of one listing, encoded as described in {@link HistoryChunk}. Rows are written
+ * and read with JDBC by {@link ListingHistoryStore}; the mapping exists so the schema is
+ * generated with the rest of the entities.
+ *
+ * <p>Each listing has at most one open chunk, the one new points are appended to. The city is
+ * the listing's city when the chunk was opened, and the first and last times bound its points
+ * in epoch seconds so range queries skip chunks without decoding them.
+ */
+@Entity
+@Table(name = "listing_history_chunks", indexes = {
+        @Index(name = "idx_listing_history_property", columnList = "property_id, first_at"),
+        @Index(name = "idx_listing_history_city", columnList = "city, last_at"),
+        @Index(name = "idx_listing_history_open", columnList = "sealed, property_id")
+})
+public class ListingHistoryChunk {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "property_id", nullable = false)
+    private Long propertyId;
+    
+    @Column(length = 100)
+    private String city;
+    
+    @Column(name = "first_at", nullable = false)
+    private long firstAt;
+    
+    @Column(name = "last_at", nullable = false)
+    private long lastAt;
+    
+    @Column(name = "point_count", nullable = false)
+    private int pointCount;
+    
+    @Column(nullable = false)
+    private boolean sealed;
+    
+    @Column(nullable = false, length = 8192)
+    private byte[] data;
+    
+    protected ListingHistoryChunk() {
+    }
+    
+    public Long getId() { return id; }
+    
+    public Long getPropertyId() { return propertyId; }
+    
+    public String getCity() { return city; }
+    
+    public long getFirstAt() { return firstAt; }
+    
+    public long getLastAt() { return lastAt; }
+    
+    public int getPointCount() { return pointCount; }
+    
+    public boolean isSealed() { return sealed; }
+    
+    public byte[] getData() { return data; }
+}
@@ -0,0 +1,391 @@
+package com.realestate.history;
+
+import com.realestate.dto.ListingHistory;
+import com.realestate.dto.MarketHistoryBucket;
+import com.realestate.event.EntityChangeType;
+import com.realestate.model.Property.PropertyStatus;
+import com.realestate.outbox.AggregateType;
+import com.realestate.outbox.ChangeEvent;
+import com.realestate.routing.WorkloadClass;
+import com.realestate.shard.EntityShards;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Append-only price and status history of every listing, kept in {@code listing_history_chunks}
+ * in the encoding of {@link HistoryChunk}: a point costs a few bytes instead of a row, and a
+ * chunk row is shared by up to {@code realestate.history.chunk-points} points.
+ * <ul>
+ *   <li>Listing changes arrive from the outbox relay, at least once and in order per listing,
+ *       and each appends a point with the price and status the change wrote, stamped with when
+ *       it was written, in a transaction of its own. A change that leaves both price and status
+ *       as they were adds nothing, which also makes redeliveries harmless; a change that cannot
+ *       be recorded fails its delivery, so the relay retries it. Changes recorded before the
+ *       outbox carried listing state take the listing's current price and status.</li>
+ *   <li>On first start, with the table empty, every existing listing gets one point at its
+ *       listing date with its current price and status. Changes wait for that to finish.</li>
+ *   <li>With sharding the chunks stay on the primary, while listings are read where they live,
+ *       see {@link EntityShards}.</li>
+ *   <li>A listing's history reads its few chunks by listing id; a city roll-up decodes the
+ *       chunks of the city that overlap the window, without touching the listings table.</li>
+ * </ul>
+ */
+@Component
+public class ListingHistoryStore {
+    private static final Logger log = LoggerFactory.getLogger(ListingHistoryStore.class);
+    private static final String SELECT_OPEN_SQL = "SELECT id, property_id, city, data FROM listing_history_chunks "
+            + "WHERE sealed = FALSE AND property_id IN (%s) ORDER BY id FOR UPDATE";
+    private static final String INSERT_SQL = "INSERT INTO listing_history_chunks "
+            + "(property_id, city, first_at, last_at, point_count, sealed, data) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_SQL = "UPDATE listing_history_chunks "
+            + "SET last_at = ?, point_count = ?, sealed = ?, data = ? WHERE id = ?";
+    private static final String SELECT_PROPERTY_SQL = "SELECT data FROM listing_history_chunks "
+            + "WHERE property_id = ? AND first_at <= ? ORDER BY first_at, id";
+    private static final String SELECT_CITY_SQL = "SELECT data FROM listing_history_chunks "
+            + "WHERE city = ? AND last_at >= ? AND first_at < ?";
+    private static final String SELECT_LISTING_SQL = "SELECT city, price, status FROM properties WHERE id = ?";
+    private static final String BACKFILL_SQL = "SELECT id, city, price, status, listing_date, created_at "
+            + "FROM properties WHERE id > ? ORDER BY id LIMIT ?";
+    private static final int BACKFILL_BATCH_SIZE = 1000;
+    private static final int CITY_LENGTH = 100;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityShards shards;
+    private final TransactionTemplate transaction;
+    private final int chunkPoints;
+    private final LongAdder recorded = new LongAdder();
+    private final CountDownLatch backfilled = new CountDownLatch(1);
+    
+    public ListingHistoryStore(JdbcTemplate jdbcTemplate,
+                               EntityShards shards,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${realestate.history.chunk-points:128}") int chunkPoints) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shards = shards;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.chunkPoints = chunkPoints;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        try {
+            WorkloadClass.BULK.run(this::backfillIfEmpty);
+        } finally {
+            backfilled.countDown();
+        }
+    }
+    
+    @EventListener
+    public void onChange(ChangeEvent event) {
+        if (event.getAggregateType() != AggregateType.PROPERTY || event.getChangeType() == EntityChangeType.DELETED) {
+            return;
+        }
+        // A point written first would make the backfill take the table for already filled
+        try {
+            backfilled.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the history backfill", e);
+        }
+        long propertyId = event.getAggregateId();
+        long second = event.getOccurredAt().toEpochSecond(ZoneOffset.UTC);
+        WorkloadClass.BULK.run(() -> {
+            // Read before the transaction, which is on the primary, while the listing may be on a shard
+            List<Change> changes = event.hasListingState()
+                    ? List.of(new Change(propertyId, cityKey(event.getCity()), second,
+                            HistoryChunk.toCents(event.getPrice()), event.getStatus()))
+                    : current(propertyId, second);
+            if (!changes.isEmpty()) {
+                transaction.executeWithoutResult(status -> append(changes));
+            }
+        });
+    }
+    
+    /** The listing's points within {@code [from, to]}, or empty if it has no history. */
+    public Optional<ListingHistory> history(long propertyId, Instant from, Instant to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        List<HistoryPoint> all = new ArrayList<>();
+        jdbcTemplate.query(SELECT_PROPERTY_SQL,
+                rs -> {
+                    for (HistoryPoint point : HistoryChunk.wrap(rs.getBytes(1)).points()) {
+                        if (!point.getAt().isAfter(to)) {
+                            all.add(point);
+                        }
+                    }
+                },
+                propertyId, to.getEpochSecond());
+        if (all.isEmpty()) {
+            return Optional.empty();
+        }
+        Instant end = to.isAfter(Instant.now()) ? Instant.now() : to;
+        long activeSeconds = 0;
+        int priceChanges = 0;
+        int firstInWindow = 0;
+        for (int i = 0; i < all.size(); i++) {
+            HistoryPoint point = all.get(i);
+            if (point.getStatus() == PropertyStatus.ACTIVE) {
+                Instant until = i + 1 < all.size() ? all.get(i + 1).getAt() : end;
+                activeSeconds += Math.max(0, Duration.between(point.getAt(), until).toSeconds());
+            }
+            if (i > 0 && point.isPriceChanged()) {
+                priceChanges++;
+            }
+            if (!point.getAt().isAfter(from)) {
+                firstInWindow = i;
+            }
+        }
+        List<HistoryPoint> window = all.subList(firstInWindow, all.size());
+        return Optional.of(new ListingHistory(propertyId, List.copyOf(window), activeSeconds / 86_400, priceChanges));
+    }
+    
+    /** Price and status changes of the city's listings in {@code [from, to)}, one entry per period with changes. */
+    public List<MarketHistoryBucket> cityHistory(String city, Instant from, Instant to, HistoryBucket bucket) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        String key = cityKey(city);
+        if (key == null) {
+            throw new IllegalArgumentException("city is required");
+        }
+        long fromSecond = from.getEpochSecond();
+        long toSecond = to.getEpochSecond();
+        Map<Long, BucketTotals> totals = new TreeMap<>();
+        jdbcTemplate.query(SELECT_CITY_SQL, rs -> {
+            long[] previousPrice = {HistoryChunk.NO_PRICE};
+            HistoryChunk.wrap(rs.getBytes(1)).forEach((second, cents, status, priceChanged, statusChanged) -> {
+                long before = previousPrice[0];
+                previousPrice[0] = cents;
+                if (second < fromSecond || second >= toSecond || (!priceChanged && !statusChanged)) {
+                    return;
+                }
+                BucketTotals bucketTotals = totals.computeIfAbsent(bucket.start(second), start -> new BucketTotals());
+                if (priceChanged && before != HistoryChunk.NO_PRICE && cents != before) {
+                    bucketTotals.priceChanges++;
+                    if (cents < before && before > 0) {
+                        bucketTotals.priceDrops++;
+                        bucketTotals.dropPercentSum += (before - cents) * 100.0 / before;
+                    }
+                }
+                if (statusChanged) {
+                    bucketTotals.statusChanges.merge(status, 1L, Long::sum);
+                }
+            });
+        }, key, fromSecond, toSecond);
+        List<MarketHistoryBucket> buckets = new ArrayList<>(totals.size());
+        totals.forEach((start, bucketTotals) -> buckets.add(new MarketHistoryBucket(Instant.ofEpochSecond(start),
+                bucketTotals.priceChanges, bucketTotals.priceDrops,
+                bucketTotals.priceDrops == 0 ? null : bucketTotals.dropPercentSum / bucketTotals.priceDrops,
+                Collections.unmodifiableMap(bucketTotals.statusChanges))));
+        return buckets;
+    }
+    
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT COUNT(*), COALESCE(SUM(point_count), 0), COALESCE(SUM(OCTET_LENGTH(data)), 0) "
+                + "FROM listing_history_chunks", rs -> {
+            long points = rs.getLong(2);
+            stats.put("chunks", rs.getLong(1));
+            stats.put("points", points);
+            stats.put("encodedBytes", rs.getLong(3));
+            stats.put("bytesPerPoint", points == 0 ? null : rs.getLong(3) / (double) points);
+        });
+        stats.put("recorded", recorded.sum());
+        return stats;
+    }
+    
+    private void append(List<Change> batch) {
+        Map<Long, List<Change>> byProperty = new LinkedHashMap<>();
+        for (Change change : batch) {
+            byProperty.computeIfAbsent(change.propertyId, id -> new ArrayList<>()).add(change);
+        }
+        Map<Long, OpenChunk> open = new LinkedHashMap<>();
+        String placeholders = String.join(", ", Collections.nCopies(byProperty.size(), "?"));
+        jdbcTemplate.query(String.format(SELECT_OPEN_SQL, placeholders), rs -> {
+            // Ordered by id, so a later chunk left open by a concurrent writer wins
+            open.put(rs.getLong("property_id"), new OpenChunk(rs.getLong("id"), rs.getString("city"),
+                    HistoryChunk.decode(rs.getBytes("data"))));
+        }, byProperty.keySet().toArray());
+        
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        long points = 0;
+        for (Map.Entry<Long, List<Change>> entry : byProperty.entrySet()) {
+            long propertyId = entry.getKey();
+            OpenChunk chunk = open.get(propertyId);
+            if (chunk == null) {
+                chunk = new OpenChunk(null, entry.getValue().get(0).city, new HistoryChunk());
+            }
+            for (Change change : entry.getValue()) {
+                // Points stay in time order even if a change was stamped before the one it follows
+                long second = chunk.data.size() == 0 ? change.second : Math.max(change.second, chunk.data.lastSecond());
+                if (chunk.data.size() < chunkPoints) {
+                    if (chunk.data.append(second, change.priceCents, change.status)) {
+                        chunk.dirty = true;
+                        points++;
+                    }
+                    continue;
+                }
+                HistoryChunk next = HistoryChunk.after(chunk.data);
+                if (next.append(second, change.priceCents, change.status)) {
+                    save(propertyId, chunk, true, inserts, updates);
+                    chunk = new OpenChunk(null, change.city, next);
+                    chunk.dirty = true;
+                    points++;
+                }
+            }
+            if (chunk.dirty) {
+                save(propertyId, chunk, false, inserts, updates);
+            }
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+        }
+        recorded.add(points);
+    }
+    
+    private static void save(long propertyId, OpenChunk chunk, boolean sealed, List<Object[]> inserts,
+                             List<Object[]> updates) {
+        HistoryChunk data = chunk.data;
+        if (chunk.id == null) {
+            inserts.add(new Object[] {propertyId, chunk.city, data.firstSecond(), data.lastSecond(), data.size(),
+                    sealed, data.toByteArray()});
+        } else {
+            updates.add(new Object[] {data.lastSecond(), data.size(), sealed, data.toByteArray(), chunk.id});
+        }
+    }
+    
+    /** The listing's price and status as a change at {@code second}, or none if it no longer exists. */
+    private List<Change> current(long propertyId, long second) {
+        OptionalInt shard = shards.locate(AggregateType.PROPERTY, propertyId);
+        if (shard.isEmpty()) {
+            return List.of();
+        }
+        return shards.onShard(shard.getAsInt(), () -> jdbcTemplate.query(SELECT_LISTING_SQL, (rs, rowNum) -> {
+            String listingStatus = rs.getString("status");
+            return new Change(propertyId, cityKey(rs.getString("city")), second,
+                    HistoryChunk.toCents(rs.getBigDecimal("price")),
+                    listingStatus == null ? null : PropertyStatus.valueOf(listingStatus));
+        }, propertyId));
+    }
+    
+    private void backfillIfEmpty() {
+        Integer existing = jdbcTemplate.query("SELECT 1 FROM listing_history_chunks LIMIT 1",
+                rs -> rs.next() ? 1 : null);
+        if (existing != null) {
+            return;
+        }
+        long started = System.nanoTime();
+        long total = 0;
+        for (int shard = 0; shard < shards.getShardCount(); shard++) {
+            total += backfill(shard);
+        }
+        if (total > 0) {
+            log.info("Started the history of {} listings in {} ms", total, (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+    
+    /**
+     * Inserts the first point of every listing {@code shard} serves, reading it a batch at a
+     * time and inserting each batch on the primary.
+     */
+    private long backfill(int shard) {
+        long total = 0;
+        long afterId = Long.MIN_VALUE;
+        while (true) {
+            long after = afterId;
+            List<BackfillRow> batch = shards.onShard(shard, () -> jdbcTemplate.query(BACKFILL_SQL, (rs, rowNum) -> {
+                Date listingDate = rs.getDate("listing_date");
+                Timestamp createdAt = rs.getTimestamp("created_at");
+                long second = listingDate != null
+                        ? listingDate.toLocalDate().atStartOfDay().toEpochSecond(ZoneOffset.UTC)
+                        : createdAt != null ? createdAt.toInstant().getEpochSecond() : Instant.now().getEpochSecond();
+                String status = rs.getString("status");
+                HistoryChunk chunk = new HistoryChunk();
+                boolean appended = chunk.append(second, HistoryChunk.toCents(rs.getBigDecimal("price")),
+                        status == null ? null : PropertyStatus.valueOf(status));
+                return new BackfillRow(rs.getLong("id"), appended ? new Object[] {rs.getLong("id"),
+                        cityKey(rs.getString("city")), second, second, 1, false, chunk.toByteArray()} : null);
+            }, after, BACKFILL_BATCH_SIZE));
+            if (batch.isEmpty()) {
+                return total;
+            }
+            Set<Long> served = shards.servedBy(shard, AggregateType.PROPERTY,
+                    batch.stream().map(BackfillRow::id).toList());
+            List<Object[]> rows = batch.stream()
+                    .filter(row -> row.insert() != null && served.contains(row.id()))
+                    .map(BackfillRow::insert)
+                    .toList();
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+                total += rows.size();
+            }
+            if (batch.size() < BACKFILL_BATCH_SIZE) {
+                return total;
+            }
+            afterId = batch.get(batch.size() - 1).id();
+        }
+    }
+    
+    private static String cityKey(String city) {
+        if (city == null || city.isBlank()) {
+            return null;
+        }
+        String key = city.trim().toLowerCase(Locale.ROOT);
+        return key.length() > CITY_LENGTH ? key.substring(0, CITY_LENGTH) : key;
+    }
+    
+    private record Change(long propertyId, String city, long second, long priceCents, PropertyStatus status) {}
+    
+    /** A listing read by the backfill, with its insert, or none if it has neither price nor status. */
+    private record BackfillRow(long id, Object[] insert) {}
+    
+    private static final class OpenChunk {
+        final Long id;
+        final String city;
+        final HistoryChunk data;
+        boolean dirty;
+        
+        OpenChunk(Long id, String city, HistoryChunk data) {
+            this.id = id;
+            this.city = city;
+            this.data = data;
+        }
+    }
+    
+    private static final class BucketTotals {
+        long priceChanges;
+        long priceDrops;
+        double dropPercentSum;
+        final Map<PropertyStatus, Long> statusChanges = new EnumMap<>(PropertyStatus.class);
+    }
+}
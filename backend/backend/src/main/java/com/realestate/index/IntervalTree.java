@@ -0,0 +1,194 @@
+package com.realestate.index;
+
+import java.util.function.Consumer;
+
+/**
+ * Closed intervals {@code [low, high]} over {@code long} endpoints in a treap ordered by low
+ * endpoint, each node tracking the highest endpoint in its subtree. Point (stabbing) and
+ * overlap queries skip every subtree whose highest endpoint is below the query and every right
+ * subtree that starts after it, so they cost O(min(n, k log n)) for k results rather than a
+ * check of every interval.
+ *
+ * <p>{@link #add} returns the entry to pass to {@link #remove}; equal intervals may be added
+ * any number of times. Not thread-safe for writes; concurrent queries on a tree that is no
+ * longer modified are safe.
+ */
+public class IntervalTree<T> {
+    private Entry<T> root;
+    private int size;
+    private long nextSequence;
+    private long seed = 0x9E3779B97F4A7C15L;
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return root == null;
+    }
+    
+    public Entry<T> add(long low, long high, T value) {
+        if (low > high) {
+            throw new IllegalArgumentException("Interval start " + low + " is after its end " + high);
+        }
+        Entry<T> entry = new Entry<>(low, high, nextSequence++, nextPriority(), value);
+        root = insert(root, entry);
+        size++;
+        return entry;
+    }
+    
+    /** Removes an entry returned by {@link #add}; returns false if it is no longer in the tree. */
+    public boolean remove(Entry<T> entry) {
+        int before = size;
+        root = delete(root, entry);
+        return size < before;
+    }
+    
+    /** Passes every value whose interval contains {@code point} to {@code action}. */
+    public void stab(long point, Consumer<? super T> action) {
+        overlapping(point, point, action);
+    }
+    
+    /** Passes every value whose interval shares at least one point with {@code [low, high]}. */
+    public void overlapping(long low, long high, Consumer<? super T> action) {
+        visit(root, low, high, action);
+    }
+    
+    private static <T> void visit(Entry<T> node, long low, long high, Consumer<? super T> action) {
+        while (node != null && node.maxHigh >= low) {
+            visit(node.left, low, high, action);
+            if (node.low > high) {
+                return;
+            }
+            if (node.high >= low) {
+                action.accept(node.value);
+            }
+            node = node.right;
+        }
+    }
+    
+    private Entry<T> insert(Entry<T> node, Entry<T> entry) {
+        if (node == null) {
+            return entry;
+        }
+        if (entry.compareTo(node) < 0) {
+            node.left = insert(node.left, entry);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, entry);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        node.update();
+        return node;
+    }
+    
+    private Entry<T> delete(Entry<T> node, Entry<T> entry) {
+        if (node == null) {
+            return null;
+        }
+        int order = entry.compareTo(node);
+        if (order < 0) {
+            node.left = delete(node.left, entry);
+        } else if (order > 0) {
+            node.right = delete(node.right, entry);
+        } else if (node != entry) {
+            return node;
+        } else {
+            size--;
+            return merge(node.left, node.right);
+        }
+        node.update();
+        return node;
+    }
+    
+    /** Joins two treaps where every key in {@code left} precedes every key in {@code right}. */
+    private static <T> Entry<T> merge(Entry<T> left, Entry<T> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+    
+    private static <T> Entry<T> rotateRight(Entry<T> node) {
+        Entry<T> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+    
+    private static <T> Entry<T> rotateLeft(Entry<T> node) {
+        Entry<T> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+    
+    /** xorshift64; deterministic so that rebuilding from the same data yields the same shape. */
+    private long nextPriority() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return seed;
+    }
+    
+    public static final class Entry<T> implements Comparable<Entry<T>> {
+        private final long low;
+        private final long high;
+        private final long sequence;
+        private final long priority;
+        private final T value;
+        private long maxHigh;
+        private Entry<T> left;
+        private Entry<T> right;
+        
+        private Entry(long low, long high, long sequence, long priority, T value) {
+            this.low = low;
+            this.high = high;
+            this.sequence = sequence;
+            this.priority = priority;
+            this.value = value;
+            this.maxHigh = high;
+        }
+        
+        public long getLow() { return low; }
+        
+        public long getHigh() { return high; }
+        
+        public T getValue() { return value; }
+        
+        @Override
+        public int compareTo(Entry<T> other) {
+            int order = Long.compare(low, other.low);
+            return order != 0 ? order : Long.compare(sequence, other.sequence);
+        }
+        
+        private void update() {
+            long max = high;
+            if (left != null && left.maxHigh > max) {
+                max = left.maxHigh;
+            }
+            if (right != null && right.maxHigh > max) {
+                max = right.maxHigh;
+            }
+            maxHigh = max;
+        }
+    }
+}
@@ -0,0 +1,414 @@
+package com.realestate.ingest;
+
+import com.realestate.event.EntityChangeType;
+import com.realestate.event.PropertyChangedEvent;
+import com.realestate.geo.CachingGeocoder;
+import com.realestate.ingest.IngestionReport.RejectedRecord;
+import com.realestate.model.Agent;
+import com.realestate.model.Property;
+import com.realestate.outbox.AggregateType;
+import com.realestate.routing.WorkloadClass;
+import com.realestate.shard.EntityShards;
+import com.realestate.shard.RegionKey;
+import com.realestate.validation.EntityValidation;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Loads large listing feeds through a three-stage pipeline: the calling thread streams records
+ * from a {@link ListingRecordReader} into a bounded queue, which blocks the reader whenever the
+ * workers fall behind; a pool of workers validates each batch against the Jakarta constraints
+ * declared on {@link Property}, through {@link EntityValidation}, and writes the valid rows with
+ * one JDBC batch insert per transaction. Ids come from {@link PooledIdAllocator}, so no per-row
+ * round-trip is needed.
+ *
+ * <p>Each batch's transaction also records the range of source records it covered through
+ * {@link IngestionCheckpointStore}, so a restarted job with the same id skips exactly the records
+ * that are already loaded, also those of batches that committed ahead of earlier ones.
+ *
+ * <p>With sharding a batch is split by the home region of the listings' agents, see
+ * {@link EntityShards}: each part is inserted in a transaction of its own on the region's shard
+ * and records just its records, and records whose agent was never stored are rejected.
+ */
+@Service
+public class BulkIngestionService {
+    private static final Logger log = LoggerFactory.getLogger(BulkIngestionService.class);
+    private static final int MAX_REPORTED_REJECTIONS = 100;
+    private static final String INSERT_SQL = "INSERT INTO properties (id, title, description, address, city, state, "
+            + "postal_code, country, latitude, longitude, geocoded_address, property_type, listing_type, price, bedrooms, bathrooms, "
+            + "square_feet, lot_size, year_built, garage_spaces, parking_spaces, property_features, "
+            + "appliances_included, heating_type, cooling_type, flooring_type, property_condition, hoa_fee, "
+            + "property_taxes, listing_date, available_date, status, virtual_tour_url, main_image_url, agent_id, "
+            + "created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final CachingGeocoder geocoder;
+    private final ApplicationEventPublisher eventPublisher;
+    private final IngestionCheckpointStore checkpointStore;
+    private final PooledIdAllocator idAllocator;
+    private final EntityShards shards;
+    private final int batchSize;
+    private final int queueCapacity;
+    private final int workers;
+    private final boolean virtualThreads;
+    
+    public BulkIngestionService(JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                EntityValidation entityValidation,
+                                CachingGeocoder geocoder,
+                                ApplicationEventPublisher eventPublisher,
+                                IngestionCheckpointStore checkpointStore,
+                                PooledIdAllocator propertyIdAllocator,
+                                EntityShards shards,
+                                @Value("${realestate.ingest.batch-size:500}") int batchSize,
+                                @Value("${realestate.ingest.queue-capacity:8}") int queueCapacity,
+                                @Value("${realestate.ingest.workers:4}") int workers,
+                                @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = entityValidation.getValidator();
+        this.geocoder = geocoder;
+        this.eventPublisher = eventPublisher;
+        this.checkpointStore = checkpointStore;
+        this.idAllocator = propertyIdAllocator;
+        this.shards = shards;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+        this.workers = workers;
+        this.virtualThreads = virtualThreads;
+    }
+    
+    public IngestionReport ingest(String jobId, ListingRecordReader reader) throws IOException {
+        long started = System.nanoTime();
+        IngestionCheckpoint checkpoint = checkpointStore.load(jobId);
+        long resumedFrom = checkpoint.getCommittedPrefix();
+        if (resumedFrom > 0 && reader.skip(resumedFrom) < resumedFrom) {
+            throw new IllegalStateException("Input for job " + jobId + " is shorter than its checkpoint " + resumedFrom);
+        }
+        
+        Run run = new Run(jobId);
+        BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(queueCapacity);
+        ExecutorService pool = Executors.newFixedThreadPool(workers, workerThreads(jobId));
+        for (int i = 0; i < workers; i++) {
+            pool.execute(() -> WorkloadClass.BULK.run(() -> drain(queue, run)));
+        }
+        
+        try {
+            long sequence = 0;
+            List<IngestRecord> records = new ArrayList<>(batchSize);
+            IngestRecord record;
+            while (run.failure.get() == null && (record = reader.next()) != null) {
+                if (checkpoint.isCommitted(record.getIndex())) {
+                    continue;
+                }
+                records.add(record);
+                run.read.incrementAndGet();
+                if (records.size() == batchSize) {
+                    queue.put(new Batch(sequence++, records));
+                    records = new ArrayList<>(batchSize);
+                }
+            }
+            if (!records.isEmpty() && run.failure.get() == null) {
+                queue.put(new Batch(sequence, records));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.failure.compareAndSet(null, e);
+        } finally {
+            // Also reached when the reader throws on malformed input: the workers commit what
+            // is already queued and then stop, instead of waiting on the queue forever
+            try {
+                stopWorkers(queue, pool);
+            } finally {
+                reader.close();
+            }
+        }
+        
+        boolean completed = run.failure.get() == null;
+        if (completed) {
+            checkpointStore.clear(jobId);
+        }
+        IngestionReport report = new IngestionReport(jobId, resumedFrom, run.read.get(), run.inserted.get(),
+                run.rejected.get(), (System.nanoTime() - started) / 1_000_000, completed,
+                completed ? null : String.valueOf(run.failure.get().getMessage()), run.rejections);
+        log.info("Ingestion job {} {}: {} read, {} inserted, {} rejected, {} rows/s", jobId,
+                completed ? "completed" : "stopped", report.getRead(), report.getInserted(), report.getRejected(),
+                Math.round(report.getRowsPerSecond()));
+        return report;
+    }
+    
+    private void stopWorkers(BlockingQueue<Batch> queue, ExecutorService pool) {
+        try {
+            for (int i = 0; i < workers; i++) {
+                queue.put(Batch.END);
+            }
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void drain(BlockingQueue<Batch> queue, Run run) {
+        while (true) {
+            Batch batch;
+            try {
+                batch = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (batch == Batch.END) {
+                return;
+            }
+            if (run.failure.get() != null) {
+                continue;
+            }
+            try {
+                process(batch, run);
+            } catch (RuntimeException e) {
+                log.error("Ingestion job {} failed on batch {}", run.jobId, batch.sequence, e);
+                run.failure.compareAndSet(null, e);
+            }
+        }
+    }
+    
+    private void process(Batch batch, Run run) {
+        List<IngestRecord> valid = new ArrayList<>(batch.records.size());
+        for (IngestRecord record : batch.records) {
+            String reason = rejectionReason(record);
+            if (reason == null) {
+                valid.add(record);
+            } else {
+                run.reject(record.getIndex(), reason);
+            }
+        }
+        Map<Long, RegionKey> homes = shards.homes(AggregateType.AGENT,
+                valid.stream().map(IngestRecord::getAgentId).distinct().toList());
+        if (shards.isSharded()) {
+            // Without a home the agent's shard is unknown; unsharded, the foreign key catches it
+            valid.removeIf(record -> {
+                boolean unknown = !homes.containsKey(record.getAgentId());
+                if (unknown) {
+                    run.reject(record.getIndex(), "Agent " + record.getAgentId() + " does not exist");
+                }
+                return unknown;
+            });
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        for (IngestRecord record : valid) {
+            prepare(record, now);
+        }
+        if (!shards.isSharded()) {
+            // Batches without valid records are recorded too, so their rejections are not reported again
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!valid.isEmpty()) {
+                    insert(valid);
+                }
+                checkpointStore.record(run.jobId, batch.records.get(0).getIndex(),
+                        batch.records.get(batch.records.size() - 1).getIndex() + 1);
+            });
+            run.inserted.addAndGet(valid.size());
+            return;
+        }
+        // One transaction per region on its shard, each recording the records it inserted
+        Map<RegionKey, List<IngestRecord>> byRegion = new LinkedHashMap<>();
+        for (IngestRecord record : valid) {
+            byRegion.computeIfAbsent(homes.get(record.getAgentId()), region -> new ArrayList<>()).add(record);
+        }
+        for (Map.Entry<RegionKey, List<IngestRecord>> region : byRegion.entrySet()) {
+            List<IngestRecord> records = region.getValue();
+            shards.insertListings(region.getKey(), records.stream().map(record -> record.getProperty().getId()).toList(),
+                    () -> {
+                        insert(records);
+                        checkpointStore.record(run.jobId, indexes(records));
+                    });
+            run.inserted.addAndGet(records.size());
+        }
+        List<IngestRecord> rejected = new ArrayList<>(batch.records);
+        rejected.removeAll(valid);
+        if (!rejected.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> checkpointStore.record(run.jobId, indexes(rejected)));
+        }
+    }
+    
+    private void insert(List<IngestRecord> records) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, records, records.size(), BulkIngestionService::bind);
+        // Published inside the transaction so the outbox rows commit with the listings
+        for (IngestRecord record : records) {
+            eventPublisher.publishEvent(new PropertyChangedEvent(record.getProperty(), EntityChangeType.CREATED));
+        }
+    }
+    
+    private static List<Long> indexes(List<IngestRecord> records) {
+        return records.stream().map(IngestRecord::getIndex).toList();
+    }
+    
+    private String rejectionReason(IngestRecord record) {
+        if (record.getParseError() != null) {
+            return record.getParseError();
+        }
+        Set<ConstraintViolation<Property>> violations = validator.validate(record.getProperty());
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        if (record.getAgentId() == null) {
+            return "Agent id is required";
+        }
+        return null;
+    }
+    
+    // Mirrors Property#onCreate, which does not run for rows written over plain JDBC.
+    private void prepare(IngestRecord record, LocalDateTime now) {
+        Property property = record.getProperty();
+        property.setId(idAllocator.nextId());
+        property.setCreatedAt(now);
+        property.setUpdatedAt(now);
+        if (property.getStatus() == null) {
+            property.setStatus(Property.PropertyStatus.ACTIVE);
+        }
+        if (property.getListingDate() == null) {
+            property.setListingDate(LocalDate.now());
+        }
+        if (!property.hasCoordinates()) {
+            String address = property.getFullAddress();
+            geocoder.geocode(address).ifPresent(point -> {
+                property.setLatitude(point.getLatitude());
+                property.setLongitude(point.getLongitude());
+                property.setGeocodedAddress(address);
+            });
+        }
+        Agent agent = new Agent();
+        agent.setId(record.getAgentId());
+        property.setAgent(agent);
+    }
+    
+    private static void bind(PreparedStatement ps, IngestRecord record) throws SQLException {
+        Property p = record.getProperty();
+        int i = 1;
+        ps.setLong(i++, p.getId());
+        ps.setString(i++, p.getTitle());
+        ps.setString(i++, p.getDescription());
+        ps.setString(i++, p.getAddress());
+        ps.setString(i++, p.getCity());
+        ps.setString(i++, p.getState());
+        ps.setString(i++, p.getPostalCode());
+        ps.setString(i++, p.getCountry());
+        ps.setObject(i++, p.getLatitude(), Types.DOUBLE);
+        ps.setObject(i++, p.getLongitude(), Types.DOUBLE);
+        ps.setString(i++, p.getGeocodedAddress());
+        ps.setString(i++, name(p.getPropertyType()));
+        ps.setString(i++, name(p.getListingType()));
+        ps.setBigDecimal(i++, p.getPrice());
+        ps.setObject(i++, p.getBedrooms(), Types.INTEGER);
+        ps.setObject(i++, p.getBathrooms(), Types.INTEGER);
+        ps.setObject(i++, p.getSquareFeet(), Types.INTEGER);
+        ps.setObject(i++, p.getLotSize(), Types.DOUBLE);
+        ps.setObject(i++, p.getYearBuilt(), Types.INTEGER);
+        ps.setObject(i++, p.getGarageSpaces(), Types.INTEGER);
+        ps.setObject(i++, p.getParkingSpaces(), Types.INTEGER);
+        ps.setString(i++, p.getPropertyFeatures());
+        ps.setString(i++, p.getAppliancesIncluded());
+        ps.setString(i++, p.getHeatingType());
+        ps.setString(i++, p.getCoolingType());
+        ps.setString(i++, p.getFlooringType());
+        ps.setString(i++, name(p.getPropertyCondition()));
+        ps.setBigDecimal(i++, p.getHoaFee());
+        ps.setBigDecimal(i++, p.getPropertyTaxes());
+        ps.setDate(i++, p.getListingDate() == null ? null : Date.valueOf(p.getListingDate()));
+        ps.setDate(i++, p.getAvailableDate() == null ? null : Date.valueOf(p.getAvailableDate()));
+        ps.setString(i++, name(p.getStatus()));
+        ps.setString(i++, p.getVirtualTourUrl());
+        ps.setString(i++, p.getMainImageUrl());
+        ps.setLong(i++, record.getAgentId());
+        ps.setTimestamp(i++, Timestamp.valueOf(p.getCreatedAt()));
+        ps.setTimestamp(i, Timestamp.valueOf(p.getUpdatedAt()));
+    }
+    
+    private static String name(Enum<?> value) {
+        return value == null ? null : value.name();
+    }
+    
+    private ThreadFactory workerThreads(String jobId) {
+        if (virtualThreads) {
+            return Thread.ofVirtual().name("ingest-" + jobId + "-", 1).factory();
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "ingest-" + jobId + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    private static class Batch {
+        static final Batch END = new Batch(-1, Collections.emptyList());
+        
+        final long sequence;
+        final List<IngestRecord> records;
+        
+        Batch(long sequence, List<IngestRecord> records) {
+            this.sequence = sequence;
+            this.records = records;
+        }
+    }
+    
+    private static class Run {
+        final String jobId;
+        final AtomicLong read = new AtomicLong();
+        final AtomicLong inserted = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final List<RejectedRecord> rejections = Collections.synchronizedList(new ArrayList<>());
+        
+        Run(String jobId) {
+            this.jobId = jobId;
+        }
+        
+        void reject(long index, String reason) {
+            rejected.incrementAndGet();
+            if (rejections.size() < MAX_REPORTED_REJECTIONS) {
+                rejections.add(new RejectedRecord(index, reason));
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.realestate.ingest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming RFC 4180 reader: the first row is the header, quoted fields may contain commas,
+ * doubled quotes and line breaks.
+ */
+public class CsvListingReader implements ListingRecordReader {
+    private final BufferedReader reader;
+    private final String[] header;
+    private final StringBuilder field = new StringBuilder();
+    private long index;
+    
+    public CsvListingReader(InputStream input) throws IOException {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 1 << 16);
+        List<String> names = readRow();
+        if (names == null) {
+            throw new IOException("CSV input has no header row");
+        }
+        this.header = new String[names.size()];
+        for (int i = 0; i < names.size(); i++) {
+            header[i] = ListingFieldMapper.normalizeName(names.get(i));
+        }
+    }
+    
+    @Override
+    public IngestRecord next() throws IOException {
+        List<String> row = readRow();
+        while (row != null && row.size() == 1 && row.get(0).isEmpty()) {
+            row = readRow();
+        }
+        if (row == null) {
+            return null;
+        }
+        Map<String, String> fields = new HashMap<>(header.length * 2);
+        for (int i = 0; i < header.length && i < row.size(); i++) {
+            fields.put(header[i], row.get(i));
+        }
+        if (row.size() != header.length) {
+            return new IngestRecord(index++, null, null,
+                    "Expected " + header.length + " columns but found " + row.size());
+        }
+        return ListingFieldMapper.toRecord(index++, fields);
+    }
+    
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+    
+    private List<String> readRow() throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> row = new ArrayList<>(header == null ? 16 : header.length);
+        boolean quoted = false;
+        field.setLength(0);
+        while (c != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        reader.reset();
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                row.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                }
+                break;
+            } else {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+        row.add(field.toString());
+        return row;
+    }
+}
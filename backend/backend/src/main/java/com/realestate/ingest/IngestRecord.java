@@ -0,0 +1,25 @@
+package com.realestate.ingest;
+
+import com.realestate.model.Property;
+
+public class IngestRecord {
+    private final long index;
+    private final Property property;
+    private final Long agentId;
+    private final String parseError;
+    
+    public IngestRecord(long index, Property property, Long agentId, String parseError) {
+        this.index = index;
+        this.property = property;
+        this.agentId = agentId;
+        this.parseError = parseError;
+    }
+    
+    public long getIndex() { return index; }
+    
+    public Property getProperty() { return property; }
+    
+    public Long getAgentId() { return agentId; }
+    
+    public String getParseError() { return parseError; }
+}
@@ -0,0 +1,50 @@
+package com.realestate.ingest;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * A committed batch of an ingestion job: the source records from {@code first_index} up to,
+ * not including, {@code end_index}. Rows are written with JDBC by {@link IngestionCheckpointStore}
+ * in the transaction that inserts the batch's listings; the mapping exists so the schema is
+ * generated with the rest of the entities.
+ */
+@Entity
+@Table(name = "ingestion_batches", indexes = @Index(name = "idx_ingestion_batches_job", columnList = "job_id, first_index"))
+public class IngestionBatch {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "job_id", nullable = false, length = 100)
+    private String jobId;
+    
+    @Column(name = "first_index", nullable = false)
+    private long firstIndex;
+    
+    @Column(name = "end_index", nullable = false)
+    private long endIndex;
+    
+    @Column(name = "committed_at", nullable = false)
+    private LocalDateTime committedAt;
+    
+    protected IngestionBatch() {
+    }
+    
+    public Long getId() { return id; }
+    
+    public String getJobId() { return jobId; }
+    
+    public long getFirstIndex() { return firstIndex; }
+    
+    public long getEndIndex() { return endIndex; }
+    
+    public LocalDateTime getCommittedAt() { return committedAt; }
+}
@@ -0,0 +1,44 @@
+package com.realestate.ingest;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * The source records of a job that are already committed, as disjoint index ranges. Batches
+ * commit out of order, so besides a prefix that the reader can skip there may be committed
+ * ranges further on; {@link #isCommitted} tells the records of those apart.
+ */
+public class IngestionCheckpoint {
+    private final NavigableMap<Long, Long> ranges = new TreeMap<>();
+    
+    /** Adds the records from {@code firstIndex} up to, not including, {@code endIndex}. */
+    void add(long firstIndex, long endIndex) {
+        Map.Entry<Long, Long> before = ranges.floorEntry(firstIndex);
+        if (before != null && before.getValue() >= firstIndex) {
+            firstIndex = before.getKey();
+            endIndex = Math.max(endIndex, before.getValue());
+        }
+        Map.Entry<Long, Long> after;
+        while ((after = ranges.ceilingEntry(firstIndex)) != null && after.getKey() <= endIndex) {
+            endIndex = Math.max(endIndex, after.getValue());
+            ranges.remove(after.getKey());
+        }
+        ranges.put(firstIndex, endIndex);
+    }
+    
+    /** Index of the first record that is not committed; every record before it is. */
+    public long getCommittedPrefix() {
+        Long end = ranges.get(0L);
+        return end == null ? 0 : end;
+    }
+    
+    public boolean isCommitted(long index) {
+        Map.Entry<Long, Long> range = ranges.floorEntry(index);
+        return range != null && index < range.getValue();
+    }
+    
+    public boolean isEmpty() {
+        return ranges.isEmpty();
+    }
+}
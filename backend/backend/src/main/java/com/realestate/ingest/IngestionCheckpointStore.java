@@ -0,0 +1,78 @@
+package com.realestate.ingest;
+
+import com.realestate.shard.EntityShards;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps, per ingestion job, which source records are committed, in {@code ingestion_batches}
+ * on the same database as the listings. {@link #record} runs inside the transaction that inserts
+ * a batch, so a batch's range is stored if and only if its listings are, and a resumed job never
+ * inserts a record twice.
+ *
+ * <p>With sharding each shard keeps the ranges of the listings it was given, and the primary
+ * those of records that were rejected; a job's checkpoint is the union of all of them.
+ */
+@Component
+public class IngestionCheckpointStore {
+    private static final String SELECT_SQL = "SELECT first_index, end_index FROM ingestion_batches WHERE job_id = ? ORDER BY first_index";
+    private static final String INSERT_SQL = "INSERT INTO ingestion_batches (job_id, first_index, end_index, committed_at) VALUES (?, ?, ?, ?)";
+    private static final String DELETE_SQL = "DELETE FROM ingestion_batches WHERE job_id = ?";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityShards shards;
+    
+    public IngestionCheckpointStore(JdbcTemplate jdbcTemplate, EntityShards shards) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shards = shards;
+    }
+    
+    public IngestionCheckpoint load(String jobId) {
+        IngestionCheckpoint checkpoint = new IngestionCheckpoint();
+        String job = validated(jobId);
+        loadInto(checkpoint, job);
+        if (shards.isSharded()) {
+            shards.forEachShard(shard -> loadInto(checkpoint, job));
+        }
+        return checkpoint;
+    }
+    
+    /** Must be called in the transaction that writes the batch's listings. */
+    public void record(String jobId, long firstIndex, long endIndex) {
+        jdbcTemplate.update(INSERT_SQL, validated(jobId), firstIndex, endIndex, Timestamp.valueOf(LocalDateTime.now()));
+    }
+    
+    /** {@link #record} for ascending, not necessarily consecutive indexes: one range per run of consecutive ones. */
+    public void record(String jobId, List<Long> indexes) {
+        for (int start = 0, end = 1; start < indexes.size(); start = end++) {
+            while (end < indexes.size() && indexes.get(end) == indexes.get(end - 1) + 1) {
+                end++;
+            }
+            record(jobId, indexes.get(start), indexes.get(end - 1) + 1);
+        }
+    }
+    
+    public void clear(String jobId) {
+        String job = validated(jobId);
+        jdbcTemplate.update(DELETE_SQL, job);
+        if (shards.isSharded()) {
+            shards.forEachShard(shard -> jdbcTemplate.update(DELETE_SQL, job));
+        }
+    }
+    
+    private void loadInto(IngestionCheckpoint checkpoint, String jobId) {
+        jdbcTemplate.query(SELECT_SQL, rs -> {
+            checkpoint.add(rs.getLong(1), rs.getLong(2));
+        }, jobId);
+    }
+    
+    private static String validated(String jobId) {
+        if (!jobId.matches("[A-Za-z0-9._-]{1,100}")) {
+            throw new IllegalArgumentException("Job id may only contain letters, digits, '.', '_' and '-', up to 100 of them");
+        }
+        return jobId;
+    }
+}
@@ -0,0 +1,22 @@
+package com.realestate.ingest;
+
+import javax.sql.DataSource;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.support.incrementer.H2SequenceMaxValueIncrementer;
+
+@Configuration
+public class IngestionConfiguration {
+    
+    /**
+     * Must match the {@code allocationSize} of the {@code property_seq} generator on
+     * {@link com.realestate.model.Property}.
+     */
+    private static final int PROPERTY_SEQUENCE_INCREMENT = 50;
+    
+    @Bean
+    public PooledIdAllocator propertyIdAllocator(DataSource dataSource) {
+        return new PooledIdAllocator(new H2SequenceMaxValueIncrementer(dataSource, "property_seq"),
+                PROPERTY_SEQUENCE_INCREMENT);
+    }
+}
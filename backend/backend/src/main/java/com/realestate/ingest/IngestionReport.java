@@ -0,0 +1,64 @@
+package com.realestate.ingest;
+
+import java.util.List;
+
+public class IngestionReport {
+    private final String jobId;
+    private final long resumedFrom;
+    private final long read;
+    private final long inserted;
+    private final long rejected;
+    private final long elapsedMillis;
+    private final boolean completed;
+    private final String failure;
+    private final List<RejectedRecord> rejections;
+    
+    public IngestionReport(String jobId, long resumedFrom, long read, long inserted, long rejected,
+                           long elapsedMillis, boolean completed, String failure, List<RejectedRecord> rejections) {
+        this.jobId = jobId;
+        this.resumedFrom = resumedFrom;
+        this.read = read;
+        this.inserted = inserted;
+        this.rejected = rejected;
+        this.elapsedMillis = elapsedMillis;
+        this.completed = completed;
+        this.failure = failure;
+        this.rejections = rejections;
+    }
+    
+    public String getJobId() { return jobId; }
+    
+    public long getResumedFrom() { return resumedFrom; }
+    
+    public long getRead() { return read; }
+    
+    public long getInserted() { return inserted; }
+    
+    public long getRejected() { return rejected; }
+    
+    public long getElapsedMillis() { return elapsedMillis; }
+    
+    public boolean isCompleted() { return completed; }
+    
+    public String getFailure() { return failure; }
+    
+    public List<RejectedRecord> getRejections() { return rejections; }
+    
+    public double getRowsPerSecond() {
+        return elapsedMillis == 0 ? read : read * 1000.0 / elapsedMillis;
+    }
+    
+    public static class RejectedRecord {
+        private final long index;
+        private final String reason;
+        
+        public RejectedRecord(long index, String reason) {
+            this.index = index;
+            this.reason = reason;
+        }
+        
+        public long getIndex() { return index; }
+        
+        public String getReason() { return reason; }
+    }
+}
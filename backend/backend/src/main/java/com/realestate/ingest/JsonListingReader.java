@@ -0,0 +1,58 @@
+package com.realestate.ingest;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Streaming reader for either a top-level JSON array of listing objects or newline-delimited
+ * JSON. Only one object is materialized at a time.
+ */
+public class JsonListingReader implements ListingRecordReader {
+    private final ObjectMapper objectMapper;
+    private final JsonParser parser;
+    private JsonToken token;
+    private long index;
+    
+    public JsonListingReader(ObjectMapper objectMapper, InputStream input) throws IOException {
+        this.objectMapper = objectMapper;
+        this.parser = objectMapper.getFactory().createParser(input);
+        this.token = parser.nextToken();
+        if (token == JsonToken.START_ARRAY) {
+            token = parser.nextToken();
+        }
+    }
+    
+    @Override
+    public IngestRecord next() throws IOException {
+        if (token == null || token == JsonToken.END_ARRAY) {
+            return null;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new IOException("Expected a JSON object at " + parser.getCurrentLocation());
+        }
+        JsonNode node = objectMapper.readTree(parser);
+        token = parser.nextToken();
+        
+        Map<String, String> fields = new HashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> entries = node.fields();
+        while (entries.hasNext()) {
+            Map.Entry<String, JsonNode> entry = entries.next();
+            if (!entry.getValue().isNull()) {
+                fields.put(ListingFieldMapper.normalizeName(entry.getKey()), entry.getValue().asText());
+            }
+        }
+        return ListingFieldMapper.toRecord(index++, fields);
+    }
+    
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
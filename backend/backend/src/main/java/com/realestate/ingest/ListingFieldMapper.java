@@ -0,0 +1,125 @@
+package com.realestate.ingest;
+
+import com.realestate.model.Property;
+import com.realestate.model.Property.ListingType;
+import com.realestate.model.Property.PropertyCondition;
+import com.realestate.model.Property.PropertyStatus;
+import com.realestate.model.Property.PropertyType;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Maps the raw string fields of one feed row onto a {@link Property}. Field names are matched
+ * case-insensitively and ignoring underscores, so {@code postal_code} and {@code postalCode}
+ * are equivalent across the CSV and JSON readers.
+ */
+final class ListingFieldMapper {
+    
+    private ListingFieldMapper() {}
+    
+    static String normalizeName(String name) {
+        return name.replace("_", "").replace("-", "").trim().toLowerCase(Locale.ROOT);
+    }
+    
+    static IngestRecord toRecord(long index, Map<String, String> fields) {
+        Property property = new Property();
+        try {
+            property.setTitle(text(fields, "title"));
+            property.setDescription(text(fields, "description"));
+            property.setAddress(text(fields, "address"));
+            property.setCity(text(fields, "city"));
+            property.setState(text(fields, "state"));
+            property.setPostalCode(text(fields, "postalcode"));
+            property.setCountry(text(fields, "country"));
+            property.setLatitude(decimal(fields, "latitude"));
+            property.setLongitude(decimal(fields, "longitude"));
+            property.setPropertyType(enumValue(fields, "propertytype", PropertyType.class));
+            property.setListingType(enumValue(fields, "listingtype", ListingType.class));
+            property.setPrice(money(fields, "price"));
+            property.setBedrooms(integer(fields, "bedrooms"));
+            property.setBathrooms(integer(fields, "bathrooms"));
+            property.setSquareFeet(integer(fields, "squarefeet"));
+            property.setLotSize(decimal(fields, "lotsize"));
+            property.setYearBuilt(integer(fields, "yearbuilt"));
+            property.setGarageSpaces(integer(fields, "garagespaces"));
+            property.setParkingSpaces(integer(fields, "parkingspaces"));
+            property.setPropertyFeatures(text(fields, "propertyfeatures"));
+            property.setAppliancesIncluded(text(fields, "appliancesincluded"));
+            property.setHeatingType(text(fields, "heatingtype"));
+            property.setCoolingType(text(fields, "coolingtype"));
+            property.setFlooringType(text(fields, "flooringtype"));
+            property.setPropertyCondition(enumValue(fields, "propertycondition", PropertyCondition.class));
+            property.setHoaFee(money(fields, "hoafee"));
+            property.setPropertyTaxes(money(fields, "propertytaxes"));
+            property.setListingDate(date(fields, "listingdate"));
+            property.setAvailableDate(date(fields, "availabledate"));
+            property.setStatus(enumValue(fields, "status", PropertyStatus.class));
+            property.setVirtualTourUrl(text(fields, "virtualtoururl"));
+            property.setMainImageUrl(text(fields, "mainimageurl"));
+            return new IngestRecord(index, property, longInteger(fields, "agentid"), null);
+        } catch (IllegalArgumentException e) {
+            return new IngestRecord(index, property, null, e.getMessage());
+        }
+    }
+    
+    private static String text(Map<String, String> fields, String name) {
+        String value = fields.get(name);
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+    
+    private static Integer integer(Map<String, String> fields, String name) {
+        String value = text(fields, name);
+        try {
+            return value == null ? null : Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+    
+    private static Long longInteger(Map<String, String> fields, String name) {
+        String value = text(fields, name);
+        try {
+            return value == null ? null : Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+    
+    private static Double decimal(Map<String, String> fields, String name) {
+        String value = text(fields, name);
+        try {
+            return value == null ? null : Double.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+    
+    private static BigDecimal money(Map<String, String> fields, String name) {
+        String value = text(fields, name);
+        try {
+            return value == null ? null : new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+    
+    private static LocalDate date(Map<String, String> fields, String name) {
+        String value = text(fields, name);
+        try {
+            return value == null ? null : LocalDate.parse(value);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+    
+    private static <E extends Enum<E>> E enumValue(Map<String, String> fields, String name, Class<E> type) {
+        String value = text(fields, name);
+        try {
+            return value == null ? null : Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+}
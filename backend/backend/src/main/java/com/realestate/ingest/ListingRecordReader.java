@@ -0,0 +1,28 @@
+package com.realestate.ingest;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Forward-only source of listing records. Implementations read lazily so arbitrarily large
+ * feeds can be ingested without holding them in memory.
+ */
+public interface ListingRecordReader extends Closeable {
+    
+    /**
+     * Returns the next record, or {@code null} once the input is exhausted.
+     */
+    IngestRecord next() throws IOException;
+    
+    /**
+     * Skips up to {@code count} records, used to resume from a checkpoint. Returns the number
+     * of records actually skipped.
+     */
+    default long skip(long count) throws IOException {
+        long skipped = 0;
+        while (skipped < count && next() != null) {
+            skipped++;
+        }
+        return skipped;
+    }
+}
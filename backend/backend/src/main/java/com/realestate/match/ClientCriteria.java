@@ -0,0 +1,191 @@
+package com.realestate.match;
+
+import com.realestate.model.Client;
+import com.realestate.model.Client.ClientStatus;
+import com.realestate.model.Property;
+import com.realestate.model.Property.ListingType;
+import com.realestate.model.Property.PropertyStatus;
+import com.realestate.model.Property.PropertyType;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A client's search criteria parsed out of the free-form {@link Client} columns:
+ * <ul>
+ *   <li>{@code budgetMin}/{@code budgetMax} as a closed price range in cents, open-ended where
+ *       either side is missing;</li>
+ *   <li>{@code preferredLocations} as a comma or semicolon separated list of cities, states or
+ *       postal codes, any of which the listing may be in;</li>
+ *   <li>{@code propertyPreferences} scanned for property type names ("condo", "townhouses") and
+ *       minimum bedroom and bathroom counts ("3+ bed", "2 baths");</li>
+ *   <li>the client type, which selects the listing types the client is in the market for.</li>
+ * </ul>
+ * An empty location or type set matches any listing.
+ */
+public final class ClientCriteria {
+    private static final Pattern LIST_SEPARATOR = Pattern.compile("[,;|\\n]");
+    private static final Pattern WORD = Pattern.compile("[A-Za-z]+");
+    private static final Pattern MIN_BEDROOMS = Pattern.compile("(\\d{1,2})\\s*\\+?\\s*(?:bed|br\\b)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern MIN_BATHROOMS = Pattern.compile("(\\d{1,2})\\s*\\+?\\s*(?:bath|ba\\b)", Pattern.CASE_INSENSITIVE);
+    
+    private final long clientId;
+    private final long minPriceCents;
+    private final long maxPriceCents;
+    private final Set<String> locations;
+    private final Set<PropertyType> propertyTypes;
+    private final Set<ListingType> listingTypes;
+    private final int minBedrooms;
+    private final int minBathrooms;
+    
+    ClientCriteria(long clientId, long minPriceCents, long maxPriceCents, Set<String> locations,
+                   Set<PropertyType> propertyTypes, Set<ListingType> listingTypes, int minBedrooms, int minBathrooms) {
+        this.clientId = clientId;
+        this.minPriceCents = minPriceCents;
+        this.maxPriceCents = maxPriceCents;
+        this.locations = locations;
+        this.propertyTypes = propertyTypes;
+        this.listingTypes = listingTypes;
+        this.minBedrooms = minBedrooms;
+        this.minBathrooms = minBathrooms;
+    }
+    
+    /**
+     * Compiles the client's criteria, or returns empty for clients that should not receive
+     * listing alerts: inactive clients, sellers and landlords, and budgets whose minimum is
+     * above their maximum.
+     */
+    public static Optional<ClientCriteria> compile(Client client) {
+        if (client.getId() == null || (client.getStatus() != null && client.getStatus() != ClientStatus.ACTIVE)) {
+            return Optional.empty();
+        }
+        Set<ListingType> listingTypes = listingTypes(client.getClientType());
+        if (listingTypes.isEmpty()) {
+            return Optional.empty();
+        }
+        long min = client.getBudgetMin() == null ? Long.MIN_VALUE : Math.round(client.getBudgetMin() * 100);
+        long max = client.getBudgetMax() == null ? Long.MAX_VALUE : Math.round(client.getBudgetMax() * 100);
+        if (min > max) {
+            return Optional.empty();
+        }
+        String preferences = client.getPropertyPreferences() == null ? "" : client.getPropertyPreferences();
+        return Optional.of(new ClientCriteria(client.getId(), min, max, locations(client.getPreferredLocations()),
+                propertyTypes(preferences), listingTypes, firstNumber(MIN_BEDROOMS, preferences),
+                firstNumber(MIN_BATHROOMS, preferences)));
+    }
+    
+    public long getClientId() { return clientId; }
+    
+    public long getMinPriceCents() { return minPriceCents; }
+    
+    public long getMaxPriceCents() { return maxPriceCents; }
+    
+    public Set<String> getLocations() { return locations; }
+    
+    public Set<PropertyType> getPropertyTypes() { return propertyTypes; }
+    
+    /**
+     * Full check of a listing against every criterion. The index only uses it for the
+     * criteria it does not partition on; it is also the reference a linear scan would apply.
+     */
+    public boolean accepts(Property listing) {
+        long price = priceCents(listing);
+        if (listing.getStatus() != PropertyStatus.ACTIVE || price < minPriceCents || price > maxPriceCents) {
+            return false;
+        }
+        if (!propertyTypes.isEmpty() && !propertyTypes.contains(listing.getPropertyType())) {
+            return false;
+        }
+        if (!locations.isEmpty() && !locations.contains(normalizeLocation(listing.getCity()))
+                && !locations.contains(normalizeLocation(listing.getState()))
+                && !locations.contains(normalizeLocation(listing.getPostalCode()))) {
+            return false;
+        }
+        return acceptsRemaining(listing);
+    }
+    
+    /** The criteria that are not part of the index partition or the budget interval. */
+    boolean acceptsRemaining(Property listing) {
+        if (!listingTypes.contains(listing.getListingType())) {
+            return false;
+        }
+        if (minBedrooms > 0 && (listing.getBedrooms() == null || listing.getBedrooms() < minBedrooms)) {
+            return false;
+        }
+        return minBathrooms <= 0 || (listing.getBathrooms() != null && listing.getBathrooms() >= minBathrooms);
+    }
+    
+    /** Listing price in cents, or {@link Long#MIN_VALUE} when the listing has none. */
+    static long priceCents(Property listing) {
+        BigDecimal price = listing.getPrice();
+        return price == null ? Long.MIN_VALUE : price.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+    
+    static String normalizeLocation(String location) {
+        if (location == null) {
+            return null;
+        }
+        String normalized = location.trim().toLowerCase(Locale.ROOT);
+        return normalized.isEmpty() ? null : normalized;
+    }
+    
+    private static Set<ListingType> listingTypes(Client.ClientType clientType) {
+        if (clientType == null) {
+            return EnumSet.allOf(ListingType.class);
+        }
+        return switch (clientType) {
+            case BUYER, INVESTOR -> EnumSet.of(ListingType.SALE);
+            case TENANT -> EnumSet.of(ListingType.RENT, ListingType.LEASE);
+            case SELLER, LANDLORD -> EnumSet.noneOf(ListingType.class);
+        };
+    }
+    
+    private static Set<String> locations(String preferredLocations) {
+        if (preferredLocations == null) {
+            return Collections.emptySet();
+        }
+        Set<String> locations = new LinkedHashSet<>();
+        for (String location : LIST_SEPARATOR.split(preferredLocations)) {
+            String normalized = normalizeLocation(location);
+            if (normalized != null) {
+                locations.add(normalized);
+            }
+        }
+        return Collections.unmodifiableSet(locations);
+    }
+    
+    private static Set<PropertyType> propertyTypes(String preferences) {
+        Set<PropertyType> types = EnumSet.noneOf(PropertyType.class);
+        Matcher words = WORD.matcher(preferences);
+        while (words.find()) {
+            PropertyType type = propertyType(words.group().toUpperCase(Locale.ROOT));
+            if (type != null) {
+                types.add(type);
+            }
+        }
+        return Collections.unmodifiableSet(types);
+    }
+    
+    /** Matches a word against the type names, accepting plurals such as "condos" and "duplexes". */
+    private static PropertyType propertyType(String word) {
+        for (PropertyType type : PropertyType.values()) {
+            String name = type.name();
+            if (word.equals(name) || word.equals(name + "S") || word.equals(name + "ES")) {
+                return type;
+            }
+        }
+        return null;
+    }
+    
+    private static int firstNumber(Pattern pattern, String text) {
+        Matcher matcher = pattern.matcher(text);
+        return matcher.find() ? Integer.parseInt(matcher.group(1)) : 0;
+    }
+}
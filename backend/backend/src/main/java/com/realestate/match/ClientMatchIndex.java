@@ -0,0 +1,145 @@
+package com.realestate.match;
+
+import com.realestate.index.IntervalTree;
+import com.realestate.model.Property;
+import com.realestate.model.Property.PropertyStatus;
+import com.realestate.model.Property.PropertyType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled {@link ClientCriteria} of every client that receives listing alerts. Clients are
+ * partitioned by (location, property type) with a wildcard on either axis for clients without
+ * that preference, which makes the partitions an inverted index on both. Each partition holds
+ * its clients' budgets in an {@link IntervalTree}. A listing therefore looks up at most eight
+ * partitions (city, state, postal code or any; its type or any) and stabs each tree with its
+ * price, touching only clients whose location, type and budget already match; listing type and
+ * room counts are checked on those.
+ *
+ * <p>Not thread-safe for writes; {@link ListingMatchService} guards access with a read/write
+ * lock.
+ */
+public class ClientMatchIndex {
+    private final Map<Partition, IntervalTree<ClientCriteria>> partitions = new HashMap<>();
+    private final Map<Long, List<Placement>> placementsByClient = new HashMap<>();
+    
+    public int size() {
+        return placementsByClient.size();
+    }
+    
+    public int partitionCount() {
+        return partitions.size();
+    }
+    
+    /** Adds the client's criteria, replacing any criteria previously added for the same client. */
+    public void add(ClientCriteria criteria) {
+        remove(criteria.getClientId());
+        List<String> locations = criteria.getLocations().isEmpty()
+                ? wildcard() : new ArrayList<>(criteria.getLocations());
+        List<PropertyType> types = criteria.getPropertyTypes().isEmpty()
+                ? wildcard() : new ArrayList<>(criteria.getPropertyTypes());
+        List<Placement> placements = new ArrayList<>(locations.size() * types.size());
+        for (String location : locations) {
+            for (PropertyType type : types) {
+                Partition partition = new Partition(location, type);
+                IntervalTree.Entry<ClientCriteria> entry = partitions
+                        .computeIfAbsent(partition, p -> new IntervalTree<>())
+                        .add(criteria.getMinPriceCents(), criteria.getMaxPriceCents(), criteria);
+                placements.add(new Placement(partition, entry));
+            }
+        }
+        placementsByClient.put(criteria.getClientId(), placements);
+    }
+    
+    public void remove(long clientId) {
+        List<Placement> placements = placementsByClient.remove(clientId);
+        if (placements == null) {
+            return;
+        }
+        for (Placement placement : placements) {
+            IntervalTree<ClientCriteria> tree = partitions.get(placement.partition());
+            tree.remove(placement.entry());
+            if (tree.isEmpty()) {
+                partitions.remove(placement.partition());
+            }
+        }
+    }
+    
+    /** Ids of the clients whose criteria accept {@code listing}, ascending. */
+    public long[] match(Property listing) {
+        long price = ClientCriteria.priceCents(listing);
+        if (listing.getStatus() != PropertyStatus.ACTIVE || price == Long.MIN_VALUE) {
+            return new long[0];
+        }
+        List<String> locations = wildcard();
+        addLocation(locations, listing.getCity());
+        addLocation(locations, listing.getState());
+        addLocation(locations, listing.getPostalCode());
+        List<PropertyType> types = wildcard();
+        if (listing.getPropertyType() != null) {
+            types.add(listing.getPropertyType());
+        }
+        
+        Matches matches = new Matches();
+        for (String location : locations) {
+            for (PropertyType type : types) {
+                IntervalTree<ClientCriteria> tree = partitions.get(new Partition(location, type));
+                if (tree != null) {
+                    tree.stab(price, criteria -> {
+                        if (criteria.acceptsRemaining(listing)) {
+                            matches.add(criteria.getClientId());
+                        }
+                    });
+                }
+            }
+        }
+        return matches.toSortedDistinct();
+    }
+    
+    private static void addLocation(List<String> locations, String location) {
+        String normalized = ClientCriteria.normalizeLocation(location);
+        if (normalized != null && !locations.contains(normalized)) {
+            locations.add(normalized);
+        }
+    }
+    
+    private static <T> List<T> wildcard() {
+        List<T> values = new ArrayList<>(4);
+        values.add(null);
+        return values;
+    }
+    
+    /** A location and property type, either of which is null for clients without that preference. */
+    private record Partition(String location, PropertyType type) {
+    }
+    
+    private record Placement(Partition partition, IntervalTree.Entry<ClientCriteria> entry) {
+    }
+    
+    private static final class Matches {
+        private long[] ids = new long[16];
+        private int count;
+        
+        void add(long id) {
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+            }
+            ids[count++] = id;
+        }
+        
+        /** A client listing both the city and the state of a listing is found in two partitions. */
+        long[] toSortedDistinct() {
+            Arrays.sort(ids, 0, count);
+            int distinct = 0;
+            for (int i = 0; i < count; i++) {
+                if (distinct == 0 || ids[i] != ids[distinct - 1]) {
+                    ids[distinct++] = ids[i];
+                }
+            }
+            return Arrays.copyOf(ids, distinct);
+        }
+    }
+}
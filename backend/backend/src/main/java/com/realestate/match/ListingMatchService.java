@@ -0,0 +1,230 @@
+package com.realestate.match;
+
+import com.realestate.dto.RematchReport;
+import com.realestate.event.ClientChangedEvent;
+import com.realestate.event.EntityChangeType;
+import com.realestate.event.ListingMatchedEvent;
+import com.realestate.event.ListingMatchedEvent.Trigger;
+import com.realestate.model.Client;
+import com.realestate.model.Property;
+import com.realestate.model.Property.PropertyStatus;
+import com.realestate.outbox.AggregateType;
+import com.realestate.outbox.ChangeEvent;
+import com.realestate.repository.ClientRepository;
+import com.realestate.repository.PropertyRepository;
+import com.realestate.shard.EntityShards;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Matches listings to the clients whose criteria they meet. Client criteria are compiled into a
+ * {@link ClientMatchIndex} at startup and kept current from committed client changes; every
+ * new or updated active listing delivered by the outbox relay is matched against it and
+ * announced with a {@link ListingMatchedEvent}. {@link #rematchAll()} recompiles every client
+ * and matches every active listing, spreading each page of listings across the common fork-join
+ * pool. Client changes that arrive while the criteria are recompiled are applied to the live
+ * index and replayed into the new one before it replaces it.
+ */
+@Service
+public class ListingMatchService {
+    private static final Logger log = LoggerFactory.getLogger(ListingMatchService.class);
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    
+    private final ClientRepository clientRepository;
+    private final PropertyRepository propertyRepository;
+    private final EntityShards shards;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private ClientMatchIndex index = new ClientMatchIndex();
+    /** Client changes applied since the running rebuild started, or {@code null} when none runs. */
+    private List<ClientChange> changedDuringRebuild;
+    
+    public ListingMatchService(ClientRepository clientRepository,
+                               PropertyRepository propertyRepository,
+                               EntityShards shards,
+                               ApplicationEventPublisher eventPublisher) {
+        this.clientRepository = clientRepository;
+        this.propertyRepository = propertyRepository;
+        this.shards = shards;
+        this.eventPublisher = eventPublisher;
+    }
+    
+    /** Recompiles every client's criteria; runs of it, at startup and by rematches, take turns. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            rebuildIndex();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+    
+    private void rebuildIndex() {
+        long started = System.nanoTime();
+        ClientMatchIndex rebuilt = new ClientMatchIndex();
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        boolean loaded = false;
+        try {
+            shards.forEachPage(AggregateType.CLIENT, pageable -> clientRepository.findAll(pageable), Client::getId,
+                    REBUILD_BATCH_SIZE, page -> {
+                        for (Client client : page) {
+                            ClientCriteria.compile(client).ifPresent(rebuilt::add);
+                        }
+                    });
+            loaded = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (loaded) {
+                    for (ClientChange change : changedDuringRebuild) {
+                        change.applyTo(rebuilt);
+                    }
+                    index = rebuilt;
+                }
+                changedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Compiled match criteria for {} clients into {} partitions in {} ms",
+                rebuilt.size(), rebuilt.partitionCount(), (System.nanoTime() - started) / 1_000_000);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onClientChanged(ClientChangedEvent event) {
+        Client client = event.getClient();
+        Optional<ClientCriteria> criteria = event.getChangeType() == EntityChangeType.DELETED
+                ? Optional.empty() : ClientCriteria.compile(client);
+        ClientChange change = new ClientChange(client.getId(), criteria.orElse(null));
+        lock.writeLock().lock();
+        try {
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.add(change);
+            }
+            change.applyTo(index);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Matches new and updated listings as the outbox relay delivers them, so matching and the
+     * alerts it triggers stay off the thread that saved the listing. Redelivered changes are
+     * matched again.
+     */
+    @EventListener
+    public void onChange(ChangeEvent event) {
+        if (event.getAggregateType() != AggregateType.PROPERTY || event.getChangeType() == EntityChangeType.DELETED) {
+            return;
+        }
+        shards.find(AggregateType.PROPERTY, event.getAggregateId(), () -> propertyRepository.findById(event.getAggregateId()))
+                .filter(property -> property.getStatus() == PropertyStatus.ACTIVE)
+                .ifPresent(property -> {
+                    long[] clientIds = match(property);
+                    if (clientIds.length > 0) {
+                        log.debug("Listing {} matches {} clients", property.getId(), clientIds.length);
+                        eventPublisher.publishEvent(new ListingMatchedEvent(property, boxed(clientIds),
+                                event.getChangeType() == EntityChangeType.CREATED ? Trigger.CREATED : Trigger.UPDATED));
+                    }
+                });
+    }
+    
+    /** Ids of the clients whose criteria the listing currently meets, ascending. */
+    public Optional<List<Long>> matchingClients(Long propertyId) {
+        return shards.find(AggregateType.PROPERTY, propertyId, () -> propertyRepository.findById(propertyId))
+                .map(property -> boxed(match(property)));
+    }
+    
+    /**
+     * Recompiles every client's criteria and matches every active listing, publishing a
+     * {@link ListingMatchedEvent} per matched listing. Use after criteria changed outside JPA,
+     * such as a bulk client import, or to resend alerts.
+     */
+    public RematchReport rematchAll() {
+        long started = System.nanoTime();
+        rebuild();
+        // Listings, matched listings and pairs
+        long[] totals = new long[3];
+        int clients;
+        shards.forEachPage(AggregateType.PROPERTY, pageable -> propertyRepository.findAll(pageable), Property::getId,
+                REBUILD_BATCH_SIZE, page -> {
+                    List<Property> active = page.stream()
+                            .filter(property -> property.getStatus() == PropertyStatus.ACTIVE)
+                            .toList();
+                    long[][] matches = new long[active.size()][];
+                    lock.readLock().lock();
+                    try {
+                        // Holding the read lock keeps writers out while the pool's threads read the index
+                        ClientMatchIndex current = index;
+                        Arrays.parallelSetAll(matches, i -> current.match(active.get(i)));
+                    } finally {
+                        lock.readLock().unlock();
+                    }
+                    for (int i = 0; i < matches.length; i++) {
+                        if (matches[i].length > 0) {
+                            totals[1]++;
+                            totals[2] += matches[i].length;
+                            eventPublisher.publishEvent(new ListingMatchedEvent(active.get(i), boxed(matches[i]),
+                                    Trigger.REMATCH));
+                        }
+                    }
+                    totals[0] += active.size();
+                });
+        long listings = totals[0];
+        long matchedListings = totals[1];
+        long pairs = totals[2];
+        
+        lock.readLock().lock();
+        try {
+            clients = index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+        long elapsed = (System.nanoTime() - started) / 1_000_000;
+        log.info("Rematched {} active listings against {} clients: {} pairs in {} ms", listings, clients, pairs, elapsed);
+        return new RematchReport(clients, listings, matchedListings, pairs, elapsed);
+    }
+    
+    private long[] match(Property property) {
+        lock.readLock().lock();
+        try {
+            return index.match(property);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private static List<Long> boxed(long[] ids) {
+        return Arrays.stream(ids).boxed().toList();
+    }
+    
+    /** A client's compiled criteria, or {@code null} when the client no longer matches anything. */
+    private record ClientChange(long clientId, ClientCriteria criteria) {
+        
+        void applyTo(ClientMatchIndex target) {
+            if (criteria != null) {
+                target.add(criteria);
+            } else {
+                target.remove(clientId);
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.realestate.media;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageInputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Original images and their rendered thumbnails in a local directory, one subdirectory per
+ * image. Images are content-addressed: the id is the SHA-256 of the original's bytes, so
+ * uploading the same image twice stores it once, and a URL naming an id never changes content.
+ * Files are written to a temporary name and moved into place, so readers never see a partial
+ * file.
+ */
+@Component
+public class ImageStore {
+    private static final Pattern ID = Pattern.compile("[0-9a-f]{64}");
+    private static final String ORIGINAL = "original";
+    
+    private final Path directory;
+    private final long maxImageSize;
+    
+    public ImageStore(@Value("${realestate.media.image-dir:${java.io.tmpdir}/realestate-images}") Path directory,
+                      @Value("${realestate.media.max-image-size:25MB}") DataSize maxImageSize) {
+        this.directory = directory;
+        this.maxImageSize = maxImageSize.toBytes();
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create image directory " + directory, e);
+        }
+    }
+    
+    /**
+     * Stores an original image and returns its id.
+     *
+     * @throws IllegalArgumentException if the upload exceeds {@code realestate.media.max-image-size}
+     *         or is not in an image format ImageIO can read
+     */
+    public String save(InputStream content) throws IOException {
+        Path temp = Files.createTempFile(directory, "upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(temp), digest)) {
+                byte[] buffer = new byte[64 * 1024];
+                long total = 0;
+                int read;
+                while ((read = content.read(buffer)) >= 0) {
+                    total += read;
+                    if (total > maxImageSize) {
+                        throw new IllegalArgumentException("Image exceeds " + maxImageSize + " bytes");
+                    }
+                    out.write(buffer, 0, read);
+                }
+            }
+            if (!isReadableImage(temp)) {
+                throw new IllegalArgumentException("Upload is not in a supported image format");
+            }
+            String id = HexFormat.of().formatHex(digest.digest());
+            Path original = originalPath(id);
+            if (!Files.exists(original)) {
+                Files.createDirectories(original.getParent());
+                Files.move(temp, original, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return id;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+    
+    public boolean exists(String id) {
+        return isValidId(id) && Files.exists(originalPath(id));
+    }
+    
+    public Path originalPath(String id) {
+        return imageDirectory(id).resolve(ORIGINAL);
+    }
+    
+    public Path thumbnailPath(String id, ThumbnailSize size) {
+        return imageDirectory(id).resolve(size.getFileName());
+    }
+    
+    /** Temporary file next to the image's files, to be moved over one of them once written. */
+    Path newTempFile(String id) throws IOException {
+        return Files.createTempFile(imageDirectory(id), "render-", ".tmp");
+    }
+    
+    public static boolean isValidId(String id) {
+        return id != null && ID.matcher(id).matches();
+    }
+    
+    private Path imageDirectory(String id) {
+        if (!isValidId(id)) {
+            throw new IllegalArgumentException("Not an image id: " + id);
+        }
+        // Two-character fan-out keeps directories small with many images
+        return directory.resolve(id.substring(0, 2)).resolve(id);
+    }
+    
+    private static boolean isReadableImage(Path file) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            return in != null && ImageIO.getImageReaders(in).hasNext();
+        }
+    }
+    
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.realestate.media;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Byte-array cache kept outside the Java heap, in fixed-size files under {@code directory}
+ * that are memory-mapped once and filled append-only. Only the index (key to segment, offset
+ * and length) lives on the heap, so a large cache adds nothing to GC work.
+ *
+ * <p>Eviction is LRU by segment: when every segment is full, the one whose entries were read
+ * least recently is dropped as a whole and refilled. Values are copied in from a file channel
+ * and out to a channel with {@link FileChannel#transferTo}, without passing through heap
+ * buffers of their own. A segment being read is never recycled underneath its reader; if every
+ * segment is being read, a new value is simply not cached.
+ *
+ * <p>The index is not persisted: segment files are truncated on start.
+ */
+public class MappedSegmentCache<K> implements Closeable {
+    private final Path directory;
+    private final int segmentSize;
+    private final Segment[] segments;
+    private final Map<K, Slot> index = new ConcurrentHashMap<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final AtomicLong clock = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    /** Segment currently appended to; guarded by {@link #appendLock}. */
+    private Segment active;
+    
+    public MappedSegmentCache(Path directory, int segmentSize, int maxSegments) {
+        if (segmentSize <= 0 || maxSegments <= 0) {
+            throw new IllegalArgumentException("Segment size and count must be positive");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.segments = new Segment[maxSegments];
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create cache directory " + directory, e);
+        }
+    }
+    
+    public boolean contains(K key) {
+        return index.containsKey(key);
+    }
+    
+    /** Length of the cached value, or -1 if {@code key} is not cached. */
+    public long length(K key) {
+        Slot slot = index.get(key);
+        return slot == null ? -1 : slot.length;
+    }
+    
+    /**
+     * Copies {@code length} bytes from the start of {@code source} into the cache. Returns false
+     * if the value is larger than a segment or no segment could be freed for it.
+     */
+    public boolean put(K key, FileChannel source, int length) throws IOException {
+        if (length > segmentSize) {
+            rejected.increment();
+            return false;
+        }
+        appendLock.lock();
+        try {
+            Segment segment = segmentWithRoom(length);
+            if (segment == null) {
+                rejected.increment();
+                return false;
+            }
+            int offset = segment.position;
+            MappedByteBuffer target = segment.buffer.slice(offset, length);
+            long position = 0;
+            while (target.hasRemaining()) {
+                int read = source.read(target, position);
+                if (read < 0) {
+                    throw new IOException("Source ended after " + position + " of " + length + " bytes");
+                }
+                position += read;
+            }
+            segment.position += length;
+            segment.keys.add(key);
+            segment.lastAccess = clock.incrementAndGet();
+            index.put(key, new Slot(segment, segment.generation, offset, length));
+            return true;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+    
+    /**
+     * Writes the cached value to {@code target}. Returns false, writing nothing, if {@code key}
+     * is not cached.
+     */
+    public boolean transferTo(K key, WritableByteChannel target) throws IOException {
+        Slot slot = index.get(key);
+        if (slot == null) {
+            misses.increment();
+            return false;
+        }
+        Segment segment = slot.segment;
+        segment.lock.readLock().lock();
+        try {
+            if (segment.generation != slot.generation) {
+                misses.increment();
+                return false;
+            }
+            segment.lastAccess = clock.incrementAndGet();
+            hits.increment();
+            long position = slot.offset;
+            long end = slot.offset + slot.length;
+            while (position < end) {
+                position += segment.channel.transferTo(position, end - position, target);
+            }
+            return true;
+        } finally {
+            segment.lock.readLock().unlock();
+        }
+    }
+    
+    public void invalidate(K key) {
+        index.remove(key);
+    }
+    
+    public Map<String, Object> stats() {
+        int used = 0;
+        for (Segment segment : segments) {
+            if (segment != null) {
+                used++;
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", index.size());
+        stats.put("segments", used);
+        stats.put("maxSegments", segments.length);
+        stats.put("segmentSize", segmentSize);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("segmentEvictions", evictions.sum());
+        stats.put("rejected", rejected.sum());
+        return stats;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        appendLock.lock();
+        try {
+            index.clear();
+            for (Segment segment : segments) {
+                if (segment != null) {
+                    segment.channel.close();
+                }
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+    
+    // Called with appendLock held
+    private Segment segmentWithRoom(int length) throws IOException {
+        if (active != null && segmentSize - active.position >= length) {
+            return active;
+        }
+        for (int i = 0; i < segments.length; i++) {
+            if (segments[i] == null) {
+                segments[i] = new Segment(directory.resolve("segment-" + i + ".bin"), segmentSize);
+                return active = segments[i];
+            }
+        }
+        // Least recently read segment that nobody is reading right now
+        boolean[] tried = new boolean[segments.length];
+        for (int attempt = 0; attempt < segments.length; attempt++) {
+            int oldest = -1;
+            for (int i = 0; i < segments.length; i++) {
+                if (!tried[i] && (oldest < 0 || segments[i].lastAccess < segments[oldest].lastAccess)) {
+                    oldest = i;
+                }
+            }
+            tried[oldest] = true;
+            Segment candidate = segments[oldest];
+            if (candidate.lock.writeLock().tryLock()) {
+                try {
+                    recycle(candidate);
+                } finally {
+                    candidate.lock.writeLock().unlock();
+                }
+                return active = candidate;
+            }
+        }
+        return null;
+    }
+    
+    private void recycle(Segment segment) {
+        for (Object key : segment.keys) {
+            Slot slot = index.get(key);
+            if (slot != null && slot.segment == segment) {
+                index.remove(key, slot);
+            }
+        }
+        segment.keys.clear();
+        segment.position = 0;
+        segment.generation++;
+        evictions.increment();
+    }
+    
+    private record Slot(Segment segment, int generation, int offset, int length) {
+    }
+    
+    private static final class Segment {
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        /** Keys appended to this segment; guarded by the cache's append lock. */
+        final List<Object> keys = new ArrayList<>();
+        int position;
+        /** Bumped on recycling so slots read before it are recognized as stale. */
+        volatile int generation;
+        volatile long lastAccess;
+        
+        Segment(Path file, int size) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.realestate.media;
+
+import com.realestate.dto.MediaLinkStatus;
+import com.realestate.dto.PropertyDetail;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Checks that a listing's main image and virtual tour links still resolve, using a {@code HEAD}
+ * request per link. Calls block for up to the configured timeout each, which is cheap on
+ * virtual threads and holds a request thread for that long in the platform-thread mode.
+ */
+@Service
+public class MediaLinkChecker {
+    public static final String MAIN_IMAGE = "main-image";
+    public static final String VIRTUAL_TOUR = "virtual-tour";
+    
+    private final HttpClient httpClient;
+    private final Duration timeout;
+    
+    public MediaLinkChecker(@Value("${realestate.media.check-timeout:3s}") Duration timeout) {
+        this.timeout = timeout;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+    
+    public List<MediaLinkStatus> check(PropertyDetail listing) {
+        List<MediaLinkStatus> statuses = new ArrayList<>(2);
+        if (listing.getMainImageUrl() != null && !listing.getMainImageUrl().isBlank()) {
+            statuses.add(check(MAIN_IMAGE, listing.getMainImageUrl()));
+        }
+        if (listing.getVirtualTourUrl() != null && !listing.getVirtualTourUrl().isBlank()) {
+            statuses.add(check(VIRTUAL_TOUR, listing.getVirtualTourUrl()));
+        }
+        return statuses;
+    }
+    
+    public MediaLinkStatus check(String kind, String url) {
+        URI uri;
+        try {
+            uri = URI.create(url.trim());
+        } catch (IllegalArgumentException e) {
+            return new MediaLinkStatus(kind, url, false, 0, 0, "Malformed URL");
+        }
+        String scheme = uri.getScheme() == null ? "" : uri.getScheme().toLowerCase(Locale.ROOT);
+        if (!scheme.equals("http") && !scheme.equals("https")) {
+            return new MediaLinkStatus(kind, url, false, 0, 0, "Only http and https links can be checked");
+        }
+        
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .timeout(timeout)
+                .build();
+        long started = System.nanoTime();
+        try {
+            int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            return new MediaLinkStatus(kind, url, status < 400, status, elapsedMillis(started), null);
+        } catch (IOException e) {
+            return new MediaLinkStatus(kind, url, false, 0, elapsedMillis(started), e.toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new MediaLinkStatus(kind, url, false, 0, elapsedMillis(started), "Interrupted");
+        }
+    }
+    
+    private static long elapsedMillis(long started) {
+        return (System.nanoTime() - started) / 1_000_000;
+    }
+}
@@ -0,0 +1,274 @@
+package com.realestate.media;
+
+import jakarta.annotation.PreDestroy;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Renders every {@link ThumbnailSize} of an image once, when it is uploaded or when a thumbnail
+ * of it is first requested, and serves thumbnails from a {@link MappedSegmentCache}.
+ * <ul>
+ *   <li>Rendering runs on a fixed pool of {@code thumbnail-workers} threads. All sizes of an
+ *       image are rendered by one task that decodes the original once, largest size first, each
+ *       size scaled down from the previous one; concurrent requests for an image that is being
+ *       rendered wait for that task instead of starting another.</li>
+ *   <li>Rendered thumbnails are kept next to the original in the {@link ImageStore}, so a
+ *       thumbnail evicted from the cache is reloaded from disk rather than rendered again.</li>
+ *   <li>The cache holds thumbnail bytes in memory-mapped files outside the heap; only decoding
+ *       and scaling allocate heap memory, and only while a task runs.</li>
+ * </ul>
+ */
+@Service
+public class ThumbnailService {
+    private static final Logger log = LoggerFactory.getLogger(ThumbnailService.class);
+    
+    private final ImageStore store;
+    private final MappedSegmentCache<ThumbnailKey> cache;
+    private final ExecutorService workers;
+    private final float quality;
+    private final long renderTimeoutMillis;
+    private final Map<String, CompletableFuture<Void>> rendering = new ConcurrentHashMap<>();
+    
+    public ThumbnailService(ImageStore store,
+                            @Value("${realestate.media.thumbnail-cache.dir:${java.io.tmpdir}/realestate-thumbnails}") Path cacheDir,
+                            @Value("${realestate.media.thumbnail-cache.segment-size:32MB}") DataSize segmentSize,
+                            @Value("${realestate.media.thumbnail-cache.max-segments:16}") int maxSegments,
+                            @Value("${realestate.media.thumbnail-workers:0}") int workers,
+                            @Value("${realestate.media.thumbnail-quality:0.85}") float quality,
+                            @Value("${realestate.media.render-timeout:30s}") Duration renderTimeout) {
+        this.store = store;
+        this.cache = new MappedSegmentCache<>(cacheDir, Math.toIntExact(segmentSize.toBytes()), maxSegments);
+        int threads = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        this.workers = Executors.newFixedThreadPool(threads, workerThreads());
+        this.quality = quality;
+        this.renderTimeoutMillis = renderTimeout.toMillis();
+    }
+    
+    @PreDestroy
+    public void close() throws IOException {
+        workers.shutdownNow();
+        cache.close();
+    }
+    
+    /** Stores an uploaded original and starts rendering its thumbnails in the background. */
+    public String upload(InputStream content) throws IOException {
+        String id = store.save(content);
+        render(id).whenComplete((done, e) -> {
+            if (e != null) {
+                log.warn("Rendering thumbnails of {} failed", id, e);
+            }
+        });
+        return id;
+    }
+    
+    /** Starts rendering the thumbnails of a stored image unless they exist or are being rendered. */
+    public CompletableFuture<Void> render(String id) {
+        if (allRendered(id)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> task = new CompletableFuture<>();
+        CompletableFuture<Void> running = rendering.putIfAbsent(id, task);
+        if (running != null) {
+            return running;
+        }
+        workers.execute(() -> {
+            try {
+                renderAll(id);
+                task.complete(null);
+            } catch (Throwable e) {
+                task.completeExceptionally(e);
+            } finally {
+                rendering.remove(id, task);
+            }
+        });
+        return task;
+    }
+    
+    /**
+     * Looks up a thumbnail, rendering the image's thumbnails first if needed. Empty if there is
+     * no image with that id.
+     *
+     * @throws IllegalArgumentException if the original cannot be decoded as an image
+     */
+    public Optional<Thumbnail> thumbnail(String id, ThumbnailSize size) throws IOException {
+        if (!store.exists(id)) {
+            return Optional.empty();
+        }
+        ThumbnailKey key = new ThumbnailKey(id, size);
+        Path file = store.thumbnailPath(id, size);
+        if (!cache.contains(key)) {
+            if (!Files.exists(file)) {
+                awaitRendering(id);
+            }
+            try (FileChannel channel = FileChannel.open(file)) {
+                cache.put(key, channel, Math.toIntExact(channel.size()));
+            }
+        }
+        long length = cache.length(key);
+        return Optional.of(new Thumbnail(key, file, length >= 0 ? length : Files.size(file)));
+    }
+    
+    public Map<String, Object> cacheStats() {
+        return cache.stats();
+    }
+    
+    private void awaitRendering(String id) throws IOException {
+        try {
+            render(id).get(renderTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IllegalArgumentException invalid) {
+                throw invalid;
+            }
+            throw new IOException("Rendering thumbnails of " + id + " failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IOException("Rendering thumbnails of " + id + " timed out", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while rendering thumbnails of " + id, e);
+        }
+    }
+    
+    private boolean allRendered(String id) {
+        for (ThumbnailSize size : ThumbnailSize.values()) {
+            if (!Files.exists(store.thumbnailPath(id, size))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private void renderAll(String id) throws IOException {
+        long started = System.nanoTime();
+        BufferedImage source = ImageIO.read(store.originalPath(id).toFile());
+        if (source == null) {
+            throw new IllegalArgumentException("Image " + id + " is not in a supported format");
+        }
+        ThumbnailSize[] sizes = ThumbnailSize.values();
+        for (int i = sizes.length - 1; i >= 0; i--) {
+            source = scale(source, sizes[i].getWidth());
+            write(id, sizes[i], source);
+        }
+        log.debug("Rendered thumbnails of {} in {} ms", id, (System.nanoTime() - started) / 1_000_000);
+    }
+    
+    /** Scales to {@code width} (never up) in halving steps, which keeps bilinear filtering sharp. */
+    private static BufferedImage scale(BufferedImage source, int width) {
+        int targetWidth = Math.min(width, source.getWidth());
+        BufferedImage current = source;
+        do {
+            int stepWidth = Math.max(targetWidth, current.getWidth() / 2);
+            int stepHeight = Math.max(1, (int) Math.round((double) current.getHeight() * stepWidth / current.getWidth()));
+            BufferedImage next = new BufferedImage(stepWidth, stepHeight, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                // JPEG has no alpha; transparent areas become white
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, stepWidth, stepHeight);
+                graphics.drawImage(current, 0, 0, stepWidth, stepHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (current.getWidth() > targetWidth);
+        return current;
+    }
+    
+    private void write(String id, ThumbnailSize size, BufferedImage image) throws IOException {
+        Path temp = store.newTempFile(id);
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(temp.toFile())) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(quality);
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Files.move(temp, store.thumbnailPath(id, size), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+    
+    private static ThreadFactory workerThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "thumbnail-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    private record ThumbnailKey(String id, ThumbnailSize size) {
+    }
+    
+    /** A rendered thumbnail, written from the cache or, if it was evicted meanwhile, from its file. */
+    public final class Thumbnail {
+        private final ThumbnailKey key;
+        private final Path file;
+        private final long length;
+        
+        private Thumbnail(ThumbnailKey key, Path file, long length) {
+            this.key = key;
+            this.file = file;
+            this.length = length;
+        }
+        
+        public long getLength() { return length; }
+        
+        /** Stable for a given image and size, as images never change under their id. */
+        public String getETag() {
+            return "\"" + key.id() + "-" + key.size().name().toLowerCase(Locale.ROOT) + "\"";
+        }
+        
+        public void writeTo(WritableByteChannel target) throws IOException {
+            if (cache.transferTo(key, target)) {
+                return;
+            }
+            try (FileChannel channel = FileChannel.open(file)) {
+                long position = 0;
+                long size = channel.size();
+                while (position < size) {
+                    position += channel.transferTo(position, size - position, target);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.realestate.media;
+
+import java.util.Locale;
+
+/** Widths thumbnails are rendered at; heights keep the original aspect ratio. */
+public enum ThumbnailSize {
+    SMALL(160),
+    MEDIUM(480),
+    LARGE(1024);
+    
+    private final int width;
+    
+    ThumbnailSize(int width) {
+        this.width = width;
+    }
+    
+    public int getWidth() { return width; }
+    
+    String getFileName() {
+        return name().toLowerCase(Locale.ROOT) + ".jpg";
+    }
+}
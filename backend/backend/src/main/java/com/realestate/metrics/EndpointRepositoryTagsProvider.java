@@ -0,0 +1,18 @@
+package com.realestate.metrics;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.boot.actuate.metrics.data.DefaultRepositoryTagsProvider;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener.RepositoryMethodInvocation;
+
+/**
+ * Adds the endpoint of the current request to Spring Boot's {@code spring.data.repository.invocations}
+ * tags, so repository time can be broken down per endpoint and per query method.
+ */
+public class EndpointRepositoryTagsProvider extends DefaultRepositoryTagsProvider {
+    
+    @Override
+    public Iterable<Tag> repositoryTags(RepositoryMethodInvocation invocation) {
+        return Tags.of(super.repositoryTags(invocation)).and("endpoint", HotPathTimers.currentEndpoint());
+    }
+}
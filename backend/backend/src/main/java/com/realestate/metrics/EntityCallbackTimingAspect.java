@@ -0,0 +1,37 @@
+package com.realestate.metrics;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Times the JPA lifecycle callbacks of the entity listener beans (geocoding, change events and
+ * through them the synchronous listeners such as cache eviction and the outbox writer) as
+ * {@code realestate.entity.callbacks}, tagged with {@code Listener.method}. Hibernate obtains
+ * the listeners from the application context, so it calls them through the proxy. Callback
+ * methods declared on the entities themselves are not beans and are not timed.
+ */
+@Aspect
+public class EntityCallbackTimingAspect {
+    static final String TIMER = "realestate.entity.callbacks";
+    
+    private final HotPathTimers timers;
+    
+    public EntityCallbackTimingAspect(HotPathTimers timers) {
+        this.timers = timers;
+    }
+    
+    @Around("within(com.realestate..*) && (@annotation(jakarta.persistence.PrePersist)"
+            + " || @annotation(jakarta.persistence.PostPersist) || @annotation(jakarta.persistence.PreUpdate)"
+            + " || @annotation(jakarta.persistence.PostUpdate) || @annotation(jakarta.persistence.PreRemove)"
+            + " || @annotation(jakarta.persistence.PostRemove) || @annotation(jakarta.persistence.PostLoad))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        long started = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            timers.record(TIMER, "callback", joinPoint.getSignature().getDeclaringType().getSimpleName() + "."
+                    + joinPoint.getSignature().getName(), System.nanoTime() - started);
+        }
+    }
+}
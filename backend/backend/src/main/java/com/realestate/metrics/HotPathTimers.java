@@ -0,0 +1,57 @@
+package com.realestate.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Timers for the instrumented hot paths, each tagged with the endpoint of the request being
+ * served plus one detail tag. Registered timers are cached by name and tag values, so recording
+ * costs a map lookup and the histogram update rather than building tags and consulting the
+ * registry on every call. Percentile histograms for these timers are configured with the
+ * {@code management.metrics.distribution} properties like any other meter.
+ */
+public class HotPathTimers {
+    /** Endpoint tag value outside a web request, such as on relay or ingestion threads. */
+    public static final String NO_ENDPOINT = "none";
+    
+    private final MeterRegistry registry;
+    private final Map<Key, Timer> timers = new ConcurrentHashMap<>();
+    
+    public HotPathTimers(MeterRegistry registry) {
+        this.registry = registry;
+    }
+    
+    public void record(String name, String detailTag, String detail, long nanos) {
+        String endpoint = currentEndpoint();
+        Timer timer = timers.get(new Key(name, endpoint, detail));
+        if (timer == null) {
+            timer = timers.computeIfAbsent(new Key(name, endpoint, detail), key -> Timer.builder(name)
+                    .tag("endpoint", endpoint)
+                    .tag(detailTag, detail)
+                    .register(registry));
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * The matched handler mapping pattern of the current request, e.g. {@code /api/listings/{id}},
+     * the same value Spring uses for the {@code uri} tag of {@code http.server.requests}.
+     */
+    public static String currentEndpoint() {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request == null) {
+            return NO_ENDPOINT;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        return pattern == null ? NO_ENDPOINT : pattern.toString();
+    }
+    
+    private record Key(String name, String endpoint, String detail) {
+    }
+}
@@ -0,0 +1,76 @@
+package com.realestate.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.realestate.validation.EntityValidation;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Hot-path timers on top of Spring Boot's request and repository metrics, all tagged with the
+ * endpoint being served and exported through the actuator {@code metrics} endpoint:
+ * <ul>
+ *   <li>{@code realestate.jdbc.statements} per statement kind, with a slow-query log;</li>
+ *   <li>{@code realestate.validation} per entity class, on Hibernate's pre-write validation in
+ *   either validation mode;</li>
+ *   <li>{@code realestate.entity.callbacks} per lifecycle listener method;</li>
+ *   <li>{@code realestate.http.serialization} per response body class;</li>
+ *   <li>{@code spring.data.repository.invocations} per repository method, with an endpoint tag.</li>
+ * </ul>
+ * Turned off with {@code realestate.instrumentation.enabled=false}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "realestate.instrumentation.enabled", matchIfMissing = true)
+public class InstrumentationConfiguration {
+    
+    @Bean
+    public HotPathTimers hotPathTimers(MeterRegistry registry) {
+        return new HotPathTimers(registry);
+    }
+    
+    @Bean
+    public static BeanPostProcessor instrumentedDataSourcePostProcessor(
+            ObjectProvider<HotPathTimers> timers,
+            @Value("${realestate.instrumentation.slow-query-threshold:200ms}") Duration slowQueryThreshold) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof InstrumentedDataSource)) {
+                    return new InstrumentedDataSource(dataSource, timers.getObject(), slowQueryThreshold);
+                }
+                return bean;
+            }
+        };
+    }
+    
+    /** Unordered, so it runs after and wraps the entity validation customizer. */
+    @Bean
+    public HibernatePropertiesCustomizer timedValidationHibernatePropertiesCustomizer(
+            EntityValidation entityValidation, HotPathTimers timers) {
+        return properties -> properties.put(AvailableSettings.JAKARTA_VALIDATION_FACTORY,
+                new TimedValidatorFactory(entityValidation.getValidatorFactory(), timers));
+    }
+    
+    @Bean
+    public EntityCallbackTimingAspect entityCallbackTimingAspect(HotPathTimers timers) {
+        return new EntityCallbackTimingAspect(timers);
+    }
+    
+    @Bean
+    public TimedJacksonHttpMessageConverter timedJacksonHttpMessageConverter(ObjectMapper objectMapper, HotPathTimers timers) {
+        return new TimedJacksonHttpMessageConverter(objectMapper, timers);
+    }
+    
+    @Bean
+    public EndpointRepositoryTagsProvider endpointRepositoryTagsProvider() {
+        return new EndpointRepositoryTagsProvider();
+    }
+}
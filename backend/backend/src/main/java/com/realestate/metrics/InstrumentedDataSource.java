@@ -0,0 +1,225 @@
+package com.realestate.metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Arrays;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Times every statement execution as {@code realestate.jdbc.statements}, tagged with the
+ * endpoint and the kind of execution ({@code query}, {@code update}, {@code batch} or
+ * {@code execute}), and logs statements slower than a threshold at WARN together with their
+ * bind parameters. Binds are captured as they are set, which is an array store per parameter;
+ * they are only formatted when a statement is logged. Large values are abbreviated in the log.
+ */
+public class InstrumentedDataSource extends DelegatingDataSource {
+    static final String TIMER = "realestate.jdbc.statements";
+    private static final Logger slowQueryLog = LoggerFactory.getLogger("com.realestate.metrics.SlowQueryLog");
+    private static final int MAX_LOGGED_VALUE_LENGTH = 100;
+    
+    private final HotPathTimers timers;
+    private final long slowQueryThresholdNanos;
+    
+    public InstrumentedDataSource(DataSource target, HotPathTimers timers, Duration slowQueryThreshold) {
+        super(target);
+        this.timers = timers;
+        this.slowQueryThresholdNanos = slowQueryThreshold.toNanos();
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        return instrumented(super.getConnection());
+    }
+    
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return instrumented(super.getConnection(username, password));
+    }
+    
+    private Connection instrumented(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, new ConnectionHandler(connection));
+    }
+    
+    private void recordExecution(String operation, String sql, Object[] binds, int bindCount, int batchSize, long nanos) {
+        timers.record(TIMER, "operation", operation, nanos);
+        if (nanos >= slowQueryThresholdNanos) {
+            slowQueryLog.warn("Slow {} ({} ms, endpoint {}{}): {} binds {}", operation, nanos / 1_000_000,
+                    HotPathTimers.currentEndpoint(), batchSize > 0 ? ", " + batchSize + " rows" : "",
+                    sql, formatBinds(binds, bindCount));
+        }
+    }
+    
+    private static String formatBinds(Object[] binds, int bindCount) {
+        if (binds == null) {
+            return "[]";
+        }
+        StringBuilder formatted = new StringBuilder("[");
+        for (int i = 1; i <= bindCount; i++) {
+            if (i > 1) {
+                formatted.append(", ");
+            }
+            String value = binds[i] instanceof byte[] bytes ? "<" + bytes.length + " bytes>" : String.valueOf(binds[i]);
+            if (value.length() > MAX_LOGGED_VALUE_LENGTH) {
+                value = value.substring(0, MAX_LOGGED_VALUE_LENGTH) + "...";
+            }
+            formatted.append(value);
+        }
+        return formatted.append(']').toString();
+    }
+    
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+    
+    private class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+        
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Instrumented[" + target + "]";
+                }
+                case "createStatement", "prepareStatement", "prepareCall" -> {
+                    Object statement = invokeTarget(target, method, args);
+                    String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                    Class<?> type = method.getReturnType();
+                    return Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(), new Class<?>[] {type},
+                            new StatementHandler((Statement) statement, sql, type != Statement.class));
+                }
+                default -> {
+                    return invokeTarget(target, method, args);
+                }
+            }
+        }
+    }
+    
+    private class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final String sql;
+        private final boolean prepared;
+        /** Bind values by parameter index; index 0 is unused. */
+        private Object[] binds;
+        private int bindCount;
+        private Object[] firstBatchBinds;
+        private int firstBatchBindCount;
+        private String batchSql;
+        private int batchSize;
+        
+        StatementHandler(Statement target, String sql, boolean prepared) {
+            this.target = target;
+            this.sql = sql;
+            this.prepared = prepared;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (prepared && name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                bind(index, name.equals("setNull") ? null : args[1]);
+                return invokeTarget(target, method, args);
+            }
+            switch (name) {
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Instrumented[" + target + "]";
+                }
+                case "getConnection" -> {
+                    return target.getConnection();
+                }
+                case "clearParameters" -> {
+                    binds = null;
+                    bindCount = 0;
+                    return invokeTarget(target, method, args);
+                }
+                case "addBatch" -> {
+                    if (batchSize++ == 0) {
+                        firstBatchBinds = binds == null ? null : binds.clone();
+                        firstBatchBindCount = bindCount;
+                        batchSql = args != null && args.length == 1 ? (String) args[0] : sql;
+                    }
+                    return invokeTarget(target, method, args);
+                }
+                case "clearBatch" -> {
+                    resetBatch();
+                    return invokeTarget(target, method, args);
+                }
+                case "executeBatch", "executeLargeBatch" -> {
+                    long started = System.nanoTime();
+                    try {
+                        return invokeTarget(target, method, args);
+                    } finally {
+                        recordExecution("batch", batchSql, firstBatchBinds, firstBatchBindCount, batchSize, System.nanoTime() - started);
+                        resetBatch();
+                    }
+                }
+                case "executeQuery", "executeUpdate", "executeLargeUpdate", "execute" -> {
+                    long started = System.nanoTime();
+                    try {
+                        return invokeTarget(target, method, args);
+                    } finally {
+                        String statementSql = args != null && args.length > 0 && args[0] instanceof String text ? text : sql;
+                        recordExecution(operation(name), statementSql, binds, bindCount, 0, System.nanoTime() - started);
+                    }
+                }
+                default -> {
+                    return invokeTarget(target, method, args);
+                }
+            }
+        }
+        
+        private void bind(int index, Object value) {
+            if (binds == null) {
+                binds = new Object[Math.max(index + 1, 8)];
+            } else if (index >= binds.length) {
+                binds = Arrays.copyOf(binds, Math.max(index + 1, binds.length * 2));
+            }
+            binds[index] = value;
+            bindCount = Math.max(bindCount, index);
+        }
+        
+        private void resetBatch() {
+            batchSize = 0;
+            firstBatchBinds = null;
+            firstBatchBindCount = 0;
+            batchSql = null;
+        }
+        
+        private static String operation(String method) {
+            return switch (method) {
+                case "executeQuery" -> "query";
+                case "execute" -> "execute";
+                default -> "update";
+            };
+        }
+    }
+}
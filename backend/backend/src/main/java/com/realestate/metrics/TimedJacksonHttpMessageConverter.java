@@ -0,0 +1,35 @@
+package com.realestate.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+/**
+ * JSON converter that times writing each response body as {@code realestate.http.serialization},
+ * tagged with the endpoint and the body's class. The time includes handing the bytes to the
+ * servlet output buffer, and for bodies larger than that buffer also some socket writes.
+ */
+public class TimedJacksonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+    static final String TIMER = "realestate.http.serialization";
+    
+    private final HotPathTimers timers;
+    
+    public TimedJacksonHttpMessageConverter(ObjectMapper objectMapper, HotPathTimers timers) {
+        super(objectMapper);
+        this.timers = timers;
+    }
+    
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        long started = System.nanoTime();
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            timers.record(TIMER, "type", object.getClass().getSimpleName(), System.nanoTime() - started);
+        }
+    }
+}
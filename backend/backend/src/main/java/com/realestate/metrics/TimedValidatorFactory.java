@@ -0,0 +1,156 @@
+package com.realestate.metrics;
+
+import jakarta.validation.ClockProvider;
+import jakarta.validation.ConstraintValidatorFactory;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.MessageInterpolator;
+import jakarta.validation.ParameterNameProvider;
+import jakarta.validation.TraversableResolver;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorContext;
+import jakarta.validation.ValidatorFactory;
+import jakarta.validation.executable.ExecutableValidator;
+import jakarta.validation.metadata.BeanDescriptor;
+import jakarta.validation.valueextraction.ValueExtractor;
+import java.util.Set;
+
+/**
+ * Validator factory whose validators time {@code validate} calls as {@code realestate.validation},
+ * tagged with the endpoint and the validated class. Handed to Hibernate as its validation factory,
+ * it times the bean validation of entities before they are inserted or updated. Closing it is
+ * left to the owner of the wrapped factory.
+ */
+public class TimedValidatorFactory implements ValidatorFactory {
+    static final String TIMER = "realestate.validation";
+    
+    private final ValidatorFactory target;
+    private final HotPathTimers timers;
+    
+    public TimedValidatorFactory(ValidatorFactory target, HotPathTimers timers) {
+        this.target = target;
+        this.timers = timers;
+    }
+    
+    @Override
+    public Validator getValidator() {
+        return new TimedValidator(target.getValidator());
+    }
+    
+    @Override
+    public ValidatorContext usingContext() {
+        return new TimedValidatorContext(target.usingContext());
+    }
+    
+    @Override
+    public MessageInterpolator getMessageInterpolator() { return target.getMessageInterpolator(); }
+    
+    @Override
+    public TraversableResolver getTraversableResolver() { return target.getTraversableResolver(); }
+    
+    @Override
+    public ConstraintValidatorFactory getConstraintValidatorFactory() { return target.getConstraintValidatorFactory(); }
+    
+    @Override
+    public ParameterNameProvider getParameterNameProvider() { return target.getParameterNameProvider(); }
+    
+    @Override
+    public ClockProvider getClockProvider() { return target.getClockProvider(); }
+    
+    @Override
+    public <T> T unwrap(Class<T> type) {
+        return type.isInstance(this) ? type.cast(this) : target.unwrap(type);
+    }
+    
+    @Override
+    public void close() {
+    }
+    
+    private class TimedValidatorContext implements ValidatorContext {
+        private final ValidatorContext target;
+        
+        TimedValidatorContext(ValidatorContext target) {
+            this.target = target;
+        }
+        
+        @Override
+        public ValidatorContext messageInterpolator(MessageInterpolator messageInterpolator) {
+            target.messageInterpolator(messageInterpolator);
+            return this;
+        }
+        
+        @Override
+        public ValidatorContext traversableResolver(TraversableResolver traversableResolver) {
+            target.traversableResolver(traversableResolver);
+            return this;
+        }
+        
+        @Override
+        public ValidatorContext constraintValidatorFactory(ConstraintValidatorFactory factory) {
+            target.constraintValidatorFactory(factory);
+            return this;
+        }
+        
+        @Override
+        public ValidatorContext parameterNameProvider(ParameterNameProvider parameterNameProvider) {
+            target.parameterNameProvider(parameterNameProvider);
+            return this;
+        }
+        
+        @Override
+        public ValidatorContext clockProvider(ClockProvider clockProvider) {
+            target.clockProvider(clockProvider);
+            return this;
+        }
+        
+        @Override
+        public ValidatorContext addValueExtractor(ValueExtractor<?> extractor) {
+            target.addValueExtractor(extractor);
+            return this;
+        }
+        
+        @Override
+        public Validator getValidator() {
+            return new TimedValidator(target.getValidator());
+        }
+    }
+    
+    private class TimedValidator implements Validator {
+        private final Validator target;
+        
+        TimedValidator(Validator target) {
+            this.target = target;
+        }
+        
+        @Override
+        public <T> Set<ConstraintViolation<T>> validate(T object, Class<?>... groups) {
+            long started = System.nanoTime();
+            try {
+                return target.validate(object, groups);
+            } finally {
+                timers.record(TIMER, "entity", object.getClass().getSimpleName(), System.nanoTime() - started);
+            }
+        }
+        
+        @Override
+        public <T> Set<ConstraintViolation<T>> validateProperty(T object, String propertyName, Class<?>... groups) {
+            return target.validateProperty(object, propertyName, groups);
+        }
+        
+        @Override
+        public <T> Set<ConstraintViolation<T>> validateValue(Class<T> beanType, String propertyName, Object value,
+                                                             Class<?>... groups) {
+            return target.validateValue(beanType, propertyName, value, groups);
+        }
+        
+        @Override
+        public BeanDescriptor getConstraintsForClass(Class<?> type) { return target.getConstraintsForClass(type); }
+        
+        @Override
+        public <T> T unwrap(Class<T> type) {
+            return type.isInstance(this) ? type.cast(this) : target.unwrap(type);
+        }
+        
+        @Override
+        public ExecutableValidator forExecutables() { return target.forExecutables(); }
+    }
+}
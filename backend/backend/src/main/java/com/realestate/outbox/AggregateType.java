@@ -0,0 +1,5 @@
+package com.realestate.outbox;
+
+public enum AggregateType {
+    PROPERTY, AGENT, CLIENT
+}
@@ -0,0 +1,65 @@
+package com.realestate.outbox;
+
+import com.realestate.event.EntityChangeType;
+import com.realestate.model.Property.PropertyStatus;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A committed entity change as delivered by {@link OutboxRelay}, both to the
+ * {@link ChangeEventSink} and to {@code @EventListener} methods in the application. Delivery is
+ * at least once and in order per entity; the id is unique per change, so consumers can drop
+ * repeats. The time is UTC.
+ *
+ * <p>Listing changes carry the city, price and status the change wrote, so consumers that keep
+ * a history need not read the row, which may already reflect later changes. Other events, and
+ * listing changes recorded before the outbox had those columns, carry none of them.
+ */
+public class ChangeEvent {
+    private final long id;
+    private final AggregateType aggregateType;
+    private final long aggregateId;
+    private final EntityChangeType changeType;
+    private final LocalDateTime occurredAt;
+    private final String city;
+    private final BigDecimal price;
+    private final PropertyStatus status;
+    
+    public ChangeEvent(long id, AggregateType aggregateType, long aggregateId, EntityChangeType changeType,
+                       LocalDateTime occurredAt) {
+        this(id, aggregateType, aggregateId, changeType, occurredAt, null, null, null);
+    }
+    
+    public ChangeEvent(long id, AggregateType aggregateType, long aggregateId, EntityChangeType changeType,
+                       LocalDateTime occurredAt, String city, BigDecimal price, PropertyStatus status) {
+        this.id = id;
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.changeType = changeType;
+        this.occurredAt = occurredAt;
+        this.city = city;
+        this.price = price;
+        this.status = status;
+    }
+    
+    public long getId() { return id; }
+    
+    public AggregateType getAggregateType() { return aggregateType; }
+    
+    public long getAggregateId() { return aggregateId; }
+    
+    public EntityChangeType getChangeType() { return changeType; }
+    
+    public LocalDateTime getOccurredAt() { return occurredAt; }
+    
+    public String getCity() { return city; }
+    
+    public BigDecimal getPrice() { return price; }
+    
+    public PropertyStatus getStatus() { return status; }
+    
+    /** Whether the event carries the listing state its change wrote. */
+    public boolean hasListingState() {
+        return aggregateType == AggregateType.PROPERTY && (price != null || status != null);
+    }
+}
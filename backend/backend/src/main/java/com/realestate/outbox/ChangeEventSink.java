@@ -0,0 +1,17 @@
+package com.realestate.outbox;
+
+import java.util.List;
+
+/**
+ * Declares a bean of this type to forward committed changes to a broker or another external
+ * system. Without one the relay only delivers to in-process listeners.
+ */
+public interface ChangeEventSink {
+    
+    /**
+     * Publishes a batch of events, all of which belong to entities of one relay partition and
+     * are in order. Throwing makes the relay retry the whole batch, so implementations must
+     * tolerate repeats.
+     */
+    void publish(List<ChangeEvent> events) throws Exception;
+}
@@ -0,0 +1,19 @@
+package com.realestate.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.file.Path;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class OutboxConfiguration {
+    
+    @Bean
+    @ConditionalOnProperty("realestate.outbox.sink-file")
+    public FileChangeEventSink fileChangeEventSink(@Value("${realestate.outbox.sink-file}") Path file,
+                                                   ObjectMapper objectMapper) {
+        return new FileChangeEventSink(file, objectMapper);
+    }
+}
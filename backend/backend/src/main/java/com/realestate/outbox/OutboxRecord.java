@@ -0,0 +1,99 @@
+package com.realestate.outbox;
+
+import com.realestate.event.EntityChangeType;
+import com.realestate.model.Property.PropertyStatus;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Row of the transactional outbox. Rows are written with JDBC by {@link OutboxWriter} and
+ * read and acknowledged by {@link OutboxRelay}; the mapping exists so the schema is generated
+ * with the rest of the entities.
+ *
+ * <p>The id is an identity column assigned at insert time, which happens just before commit,
+ * after the changed entity's row lock was taken. Two changes to the same entity therefore get
+ * ids in commit order.
+ *
+ * <p>{@code occurred_at} is UTC. Listing changes also keep the city, price and status they
+ * wrote; the columns are null for other aggregates.
+ */
+@Entity
+@Table(name = "outbox_events", indexes = @Index(name = "idx_outbox_events_pending", columnList = "published_at, failed_at, id"))
+public class OutboxRecord {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "aggregate_type", nullable = false, length = 20)
+    private AggregateType aggregateType;
+    
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "change_type", nullable = false, length = 20)
+    private EntityChangeType changeType;
+    
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+    
+    private String city;
+    
+    @Column(precision = 15, scale = 2)
+    private BigDecimal price;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private PropertyStatus status;
+    
+    @Column(nullable = false)
+    private int attempts;
+    
+    @Column(name = "published_at")
+    private LocalDateTime publishedAt;
+    
+    /** Set once delivery was given up after the configured number of attempts. */
+    @Column(name = "failed_at")
+    private LocalDateTime failedAt;
+    
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+    
+    protected OutboxRecord() {
+    }
+    
+    public Long getId() { return id; }
+    
+    public AggregateType getAggregateType() { return aggregateType; }
+    
+    public Long getAggregateId() { return aggregateId; }
+    
+    public EntityChangeType getChangeType() { return changeType; }
+    
+    public LocalDateTime getOccurredAt() { return occurredAt; }
+    
+    public String getCity() { return city; }
+    
+    public BigDecimal getPrice() { return price; }
+    
+    public PropertyStatus getStatus() { return status; }
+    
+    public int getAttempts() { return attempts; }
+    
+    public LocalDateTime getPublishedAt() { return publishedAt; }
+    
+    public LocalDateTime getFailedAt() { return failedAt; }
+    
+    public String getLastError() { return lastError; }
+}
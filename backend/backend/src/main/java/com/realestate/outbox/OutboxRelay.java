@@ -0,0 +1,552 @@
+package com.realestate.outbox;
+
+import com.realestate.event.EntityChangeType;
+import com.realestate.model.Property.PropertyStatus;
+import com.realestate.routing.ReadConsistency;
+import jakarta.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Delivers outbox rows to the {@link ChangeEventSink}, if one is declared, and then to
+ * in-process {@code @EventListener} methods for {@link ChangeEvent}, off the threads that made
+ * the changes.
+ * <ul>
+ *   <li>A poller thread reads pending rows in id order and hands each to one of
+ *       {@code workers} partitions chosen by entity, so changes to one entity are delivered in
+ *       order while different entities proceed in parallel.</li>
+ *   <li>At most {@code max-in-flight} rows are dispatched and not yet acknowledged; beyond that
+ *       the poller stops reading until workers catch up, so a slow consumer holds rows in the
+ *       table rather than in memory.</li>
+ *   <li>Each worker delivers up to {@code batch-size} events at a time. A row is marked published
+ *       only after its batch was delivered, so a crash or a failing consumer leads to
+ *       redelivery, never to loss. A failing batch is retried with exponential backoff, holding
+ *       back its partition. The last attempt delivers the events one at a time, and only those
+ *       that still fail are marked failed and left in the table for inspection.</li>
+ *   <li>Every instance runs a relay, but only the holder of the lease in
+ *       {@code outbox_relay_lease} delivers; the others wait to take over once it expires, so
+ *       rows are not delivered by several instances at once. The holder renews the lease every
+ *       third of {@code lease} and stops delivering, dropping what it had dispatched, once it
+ *       could not renew for two thirds of it, ahead of any takeover as long as the instances'
+ *       clocks agree to within the remaining third.</li>
+ *   <li>Consumers run as {@link ReadConsistency#PRIMARY}: an event is delivered as soon as its
+ *       change committed, before a replica may have it.</li>
+ *   <li>Databases with an outbox of their own, such as the shards, get a relay of their own from
+ *       {@link #relayFor}, with the same settings, which is started, woken and stopped with this
+ *       one.</li>
+ * </ul>
+ */
+@Component
+public class OutboxRelay {
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+    private static final String SELECT_PENDING_SQL = "SELECT id, aggregate_type, aggregate_id, change_type, occurred_at, "
+            + "city, price, status FROM outbox_events WHERE published_at IS NULL AND failed_at IS NULL "
+            + "ORDER BY id LIMIT ?";
+    private static final String MARK_PUBLISHED_SQL = "UPDATE outbox_events SET published_at = ?, attempts = attempts + 1 "
+            + "WHERE id = ?";
+    private static final String MARK_FAILED_SQL = "UPDATE outbox_events SET failed_at = ?, attempts = ?, last_error = ? "
+            + "WHERE id = ?";
+    private static final String PURGE_SQL = "DELETE FROM outbox_events WHERE published_at < ?";
+    private static final String RENEW_LEASE_SQL = "UPDATE outbox_relay_lease SET owner = ?, expires_at = ?, "
+            + "epoch = CASE WHEN owner = ? THEN epoch ELSE epoch + 1 END WHERE name = ? AND (owner = ? OR expires_at < ?)";
+    private static final String INSERT_LEASE_SQL = "INSERT INTO outbox_relay_lease (name, owner, expires_at, epoch) "
+            + "VALUES (?, ?, ?, 1)";
+    private static final String RELEASE_LEASE_SQL = "UPDATE outbox_relay_lease SET expires_at = ? "
+            + "WHERE name = ? AND owner = ?";
+    private static final String LEASE_NAME = "relay";
+    private static final Duration PURGE_INTERVAL = Duration.ofMinutes(10);
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectProvider<ChangeEventSink> sinkProvider;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration pollInterval;
+    private final Duration retryBackoff;
+    private final Duration retention;
+    private final Duration lease;
+    private final String instanceId;
+    private final String name;
+    private final int maxInFlight;
+    private final List<OutboxRelay> relays = new CopyOnWriteArrayList<>();
+    private final Partition[] partitions;
+    private final Semaphore inFlight;
+    /** Ids dispatched but not yet marked; only touched by the poller thread. */
+    private final Set<Long> dispatched = new HashSet<>();
+    private final ConcurrentLinkedQueue<Long> published = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Failure> failed = new ConcurrentLinkedQueue<>();
+    /** Dispatched ids dropped undelivered after the lease was lost. */
+    private final ConcurrentLinkedQueue<Long> abandoned = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock signalLock = new ReentrantLock();
+    private final Condition signal = signalLock.newCondition();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private boolean signalled;
+    private volatile boolean running;
+    private ChangeEventSink sink;
+    private Thread poller;
+    private long lastPurge;
+    /** {@link System#nanoTime} until which this instance may deliver; only written by the poller. */
+    private volatile long leaseValidUntil = System.nanoTime();
+    private long leaseRenewAt;
+    private volatile boolean leader;
+    
+    public OutboxRelay(JdbcTemplate jdbcTemplate,
+                       ApplicationEventPublisher eventPublisher,
+                       ObjectProvider<ChangeEventSink> sinkProvider,
+                       @Value("${realestate.outbox.relay.enabled:true}") boolean enabled,
+                       @Value("${realestate.outbox.relay.workers:4}") int workers,
+                       @Value("${realestate.outbox.relay.batch-size:100}") int batchSize,
+                       @Value("${realestate.outbox.relay.max-in-flight:2000}") int maxInFlight,
+                       @Value("${realestate.outbox.relay.max-attempts:10}") int maxAttempts,
+                       @Value("${realestate.outbox.relay.poll-interval:500ms}") Duration pollInterval,
+                       @Value("${realestate.outbox.relay.retry-backoff:200ms}") Duration retryBackoff,
+                       @Value("${realestate.outbox.retention:1d}") Duration retention,
+                       @Value("${realestate.outbox.relay.lease:15s}") Duration lease,
+                       @Value("${realestate.outbox.relay.instance-id:}") String instanceId) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.sinkProvider = sinkProvider;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.pollInterval = pollInterval;
+        this.retryBackoff = retryBackoff;
+        this.retention = retention;
+        this.lease = lease;
+        this.instanceId = instanceId.isBlank() ? UUID.randomUUID().toString() : instanceId;
+        this.name = "outbox-relay";
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.partitions = new Partition[workers];
+        for (int i = 0; i < workers; i++) {
+            partitions[i] = new Partition(i);
+        }
+    }
+    
+    private OutboxRelay(OutboxRelay settings, String name, JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = settings.eventPublisher;
+        this.sinkProvider = settings.sinkProvider;
+        this.enabled = settings.enabled;
+        this.batchSize = settings.batchSize;
+        this.maxAttempts = settings.maxAttempts;
+        this.pollInterval = settings.pollInterval;
+        this.retryBackoff = settings.retryBackoff;
+        this.retention = settings.retention;
+        this.lease = settings.lease;
+        this.instanceId = settings.instanceId;
+        this.name = settings.name + "-" + name;
+        this.maxInFlight = settings.maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.partitions = new Partition[settings.partitions.length];
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new Partition(i);
+        }
+    }
+    
+    /**
+     * A relay for the outbox in the database of {@code jdbcTemplate}, named {@code name} in
+     * thread names and logs. It starts now if this relay is running already.
+     */
+    public OutboxRelay relayFor(String name, JdbcTemplate jdbcTemplate) {
+        OutboxRelay relay = new OutboxRelay(this, name, jdbcTemplate);
+        relays.add(relay);
+        if (running) {
+            relay.start();
+        }
+        return relay;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        sink = sinkProvider.getIfAvailable();
+        running = true;
+        for (Partition partition : partitions) {
+            partition.thread = daemon(name + "-" + partition.index, partition::run);
+        }
+        poller = daemon(name + "-poller", this::poll);
+        log.info("Outbox relay {} started {} with {} partitions{}", instanceId, name, partitions.length,
+                sink == null ? "" : " and sink " + sink.getClass().getSimpleName());
+        relays.forEach(OutboxRelay::start);
+    }
+    
+    @PreDestroy
+    public void stop() {
+        relays.forEach(OutboxRelay::stop);
+        if (!running) {
+            return;
+        }
+        running = false;
+        wake();
+        join(poller);
+        for (Partition partition : partitions) {
+            partition.thread.interrupt();
+            join(partition.thread);
+        }
+        markCompleted();
+        if (leader) {
+            try {
+                // Lets a standby take over without waiting for the lease to run out
+                jdbcTemplate.update(RELEASE_LEASE_SQL, Timestamp.valueOf(LocalDateTime.now()), LEASE_NAME, instanceId);
+            } catch (RuntimeException e) {
+                log.warn("Could not release the outbox relay lease", e);
+            }
+            leader = false;
+        }
+    }
+    
+    /** Asks the poller to look for new rows now instead of at the next poll interval. */
+    public void wakeUp() {
+        wake();
+        relays.forEach(OutboxRelay::wakeUp);
+    }
+    
+    /** Events delivered and acknowledged since startup. */
+    public long deliveredCount() {
+        return delivered.sum();
+    }
+    
+    /** Failed delivery attempts since startup, including the final attempt of failed rows. */
+    public long retryCount() {
+        return retries.sum();
+    }
+    
+    public long pendingCount() {
+        return Objects.requireNonNull(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM outbox_events WHERE published_at IS NULL AND failed_at IS NULL", Long.class));
+    }
+    
+    /** Whether this instance currently holds the relay lease. */
+    public boolean isLeader() {
+        return leader && leaseValid();
+    }
+    
+    private void poll() {
+        while (running) {
+            try {
+                markCompleted();
+                if (!holdLease()) {
+                    awaitSignal();
+                    continue;
+                }
+                purgeIfDue();
+                int dispatchedNow = dispatchPending();
+                if (dispatchedNow == 0 || inFlight.availablePermits() == 0) {
+                    awaitSignal();
+                }
+            } catch (RuntimeException e) {
+                log.warn("Outbox relay poll failed; retrying in {}", pollInterval, e);
+                awaitSignal();
+            }
+        }
+    }
+    
+    /**
+     * Reads pending rows past the ones still in flight and dispatches as many as the in-flight
+     * limit allows. Rows are read in id order every time rather than from a cursor, because a
+     * transaction that took an id earlier may commit after a later one.
+     */
+    private int dispatchPending() {
+        int capacity = inFlight.availablePermits();
+        if (capacity == 0) {
+            return 0;
+        }
+        List<ChangeEvent> rows = jdbcTemplate.query(SELECT_PENDING_SQL, (rs, rowNum) -> new ChangeEvent(
+                rs.getLong("id"),
+                AggregateType.valueOf(rs.getString("aggregate_type")),
+                rs.getLong("aggregate_id"),
+                EntityChangeType.valueOf(rs.getString("change_type")),
+                rs.getTimestamp("occurred_at").toLocalDateTime(),
+                rs.getString("city"),
+                rs.getBigDecimal("price"),
+                rs.getString("status") == null ? null : PropertyStatus.valueOf(rs.getString("status"))),
+                dispatched.size() + capacity);
+        int count = 0;
+        for (ChangeEvent event : rows) {
+            if (dispatched.contains(event.getId())) {
+                continue;
+            }
+            if (!inFlight.tryAcquire()) {
+                break;
+            }
+            dispatched.add(event.getId());
+            partitionOf(event).queue.add(event);
+            count++;
+        }
+        return count;
+    }
+    
+    private void markCompleted() {
+        List<Long> ids = new ArrayList<>();
+        for (Long id; (id = published.poll()) != null; ) {
+            ids.add(id);
+        }
+        if (!ids.isEmpty()) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            jdbcTemplate.batchUpdate(MARK_PUBLISHED_SQL, ids, ids.size(), (statement, id) -> {
+                statement.setTimestamp(1, now);
+                statement.setLong(2, id);
+            });
+            release(ids);
+        }
+        List<Failure> failures = new ArrayList<>();
+        for (Failure failure; (failure = failed.poll()) != null; ) {
+            failures.add(failure);
+        }
+        if (!failures.isEmpty()) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            jdbcTemplate.batchUpdate(MARK_FAILED_SQL, failures, failures.size(), (statement, failure) -> {
+                statement.setTimestamp(1, now);
+                statement.setInt(2, failure.attempts());
+                statement.setString(3, failure.error());
+                statement.setLong(4, failure.id());
+            });
+            release(failures.stream().map(Failure::id).toList());
+        }
+        List<Long> dropped = new ArrayList<>();
+        for (Long id; (id = abandoned.poll()) != null; ) {
+            dropped.add(id);
+        }
+        release(dropped);
+    }
+    
+    /** Takes or renews the lease when due; returns whether this instance may dispatch. */
+    private boolean holdLease() {
+        long now = System.nanoTime();
+        if (leader && now - leaseRenewAt < 0) {
+            return true;
+        }
+        boolean held = renewLease();
+        if (held) {
+            leaseRenewAt = now + lease.toNanos() / 3;
+            leaseValidUntil = now + lease.toNanos() * 2 / 3;
+            if (!leader) {
+                log.info("Outbox relay {} took the lease", instanceId);
+            }
+        } else if (leader) {
+            leaseValidUntil = now;
+            log.warn("Outbox relay {} lost the lease; another instance relays now", instanceId);
+            for (Partition partition : partitions) {
+                List<ChangeEvent> queued = new ArrayList<>();
+                partition.queue.drainTo(queued);
+                queued.forEach(event -> abandoned.add(event.getId()));
+            }
+        }
+        leader = held;
+        return held;
+    }
+    
+    private boolean renewLease() {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp expires = Timestamp.valueOf(now.plus(lease));
+        if (jdbcTemplate.update(RENEW_LEASE_SQL, instanceId, expires, instanceId, LEASE_NAME, instanceId,
+                Timestamp.valueOf(now)) > 0) {
+            return true;
+        }
+        try {
+            jdbcTemplate.update(INSERT_LEASE_SQL, LEASE_NAME, instanceId, expires);
+            return true;
+        } catch (DuplicateKeyException e) {
+            // Held by another instance
+            return false;
+        }
+    }
+    
+    private boolean leaseValid() {
+        return System.nanoTime() - leaseValidUntil < 0;
+    }
+    
+    /** Permits come back only once the rows are marked, so an unmarked row is never read as new. */
+    private void release(List<Long> ids) {
+        dispatched.removeAll(ids);
+        inFlight.release(ids.size());
+    }
+    
+    private void purgeIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - lastPurge < PURGE_INTERVAL.toMillis()) {
+            return;
+        }
+        lastPurge = now;
+        int purged = jdbcTemplate.update(PURGE_SQL, Timestamp.valueOf(LocalDateTime.now().minus(retention)));
+        if (purged > 0) {
+            log.debug("Purged {} published outbox rows older than {}", purged, retention);
+        }
+    }
+    
+    private void wake() {
+        signalLock.lock();
+        try {
+            signalled = true;
+            signal.signal();
+        } finally {
+            signalLock.unlock();
+        }
+    }
+    
+    private void awaitSignal() {
+        signalLock.lock();
+        try {
+            if (!signalled && running) {
+                signal.await(pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+            }
+            signalled = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        } finally {
+            signalLock.unlock();
+        }
+    }
+    
+    private Partition partitionOf(ChangeEvent event) {
+        int hash = 31 * event.getAggregateType().hashCode() + Long.hashCode(event.getAggregateId());
+        return partitions[Math.floorMod(hash, partitions.length)];
+    }
+    
+    private static Thread daemon(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+    
+    private static String error(Exception e) {
+        String error = String.valueOf(e);
+        return error.length() > 1000 ? error.substring(0, 1000) : error;
+    }
+    
+    private static void join(Thread thread) {
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private record Failure(long id, int attempts, String error) {
+    }
+    
+    private final class Partition {
+        final int index;
+        final BlockingQueue<ChangeEvent> queue = new LinkedBlockingQueue<>();
+        Thread thread;
+        
+        Partition(int index) {
+            this.index = index;
+        }
+        
+        void run() {
+            List<ChangeEvent> batch = new ArrayList<>(batchSize);
+            while (running) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    return;
+                }
+                queue.drainTo(batch, batchSize - 1);
+                deliver(batch);
+                batch.clear();
+                wake();
+            }
+        }
+        
+        private void deliver(List<ChangeEvent> batch) {
+            for (int attempt = 1; ; attempt++) {
+                if (!leaseValid()) {
+                    // Pending again for whichever instance holds the lease now
+                    batch.forEach(event -> abandoned.add(event.getId()));
+                    return;
+                }
+                if (attempt == maxAttempts && batch.size() > 1) {
+                    deliverEach(batch, attempt);
+                    return;
+                }
+                try {
+                    publish(batch);
+                    return;
+                } catch (Exception e) {
+                    retries.increment();
+                    if (!running) {
+                        // Left pending; delivered again after the restart
+                        return;
+                    }
+                    if (attempt >= maxAttempts) {
+                        log.error("Giving up on outbox event {} after {} attempts", batch.get(0).getId(), attempt, e);
+                        failed.add(new Failure(batch.get(0).getId(), attempt, error(e)));
+                        return;
+                    }
+                    log.warn("Delivery of {} outbox events failed (attempt {}), retrying", batch.size(), attempt, e);
+                    try {
+                        Thread.sleep(retryBackoff.multipliedBy(1L << Math.min(attempt - 1, 6)));
+                    } catch (InterruptedException interrupted) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+        
+        /** The last attempt of a batch: events go one at a time, so only those that still fail are parked. */
+        private void deliverEach(List<ChangeEvent> batch, int attempt) {
+            for (ChangeEvent event : batch) {
+                try {
+                    publish(List.of(event));
+                } catch (Exception e) {
+                    retries.increment();
+                    if (!running) {
+                        return;
+                    }
+                    log.error("Giving up on outbox event {} after {} attempts", event.getId(), attempt, e);
+                    failed.add(new Failure(event.getId(), attempt, error(e)));
+                }
+            }
+        }
+        
+        private void publish(List<ChangeEvent> events) throws Exception {
+            if (sink != null) {
+                sink.publish(events);
+            }
+            ReadConsistency.PRIMARY.run(() -> {
+                for (ChangeEvent event : events) {
+                    eventPublisher.publishEvent(event);
+                }
+            });
+            for (ChangeEvent event : events) {
+                published.add(event.getId());
+            }
+            delivered.add(events.size());
+        }
+    }
+}
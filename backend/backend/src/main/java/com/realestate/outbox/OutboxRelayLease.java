@@ -0,0 +1,44 @@
+package com.realestate.outbox;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * The lease that makes one instance the outbox relay. Rows are written with JDBC by
+ * {@link OutboxRelay}; the mapping exists so the schema is generated with the rest of the
+ * entities.
+ *
+ * <p>The holder renews {@code expires_at} while it runs; another instance takes the lease over
+ * once it has expired, which bumps {@code epoch}.
+ */
+@Entity
+@Table(name = "outbox_relay_lease")
+public class OutboxRelayLease {
+    
+    @Id
+    @Column(length = 50)
+    private String name;
+    
+    @Column(nullable = false, length = 100)
+    private String owner;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    @Column(nullable = false)
+    private long epoch;
+    
+    protected OutboxRelayLease() {
+    }
+    
+    public String getName() { return name; }
+    
+    public String getOwner() { return owner; }
+    
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    
+    public long getEpoch() { return epoch; }
+}
@@ -0,0 +1,132 @@
+package com.realestate.outbox;
+
+import com.realestate.event.AgentChangedEvent;
+import com.realestate.event.ClientChangedEvent;
+import com.realestate.event.EntityChangeType;
+import com.realestate.event.PropertyChangedEvent;
+import com.realestate.model.Property;
+import com.realestate.model.Property.PropertyStatus;
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Records every entity change announced by the JPA lifecycle listeners (and by bulk ingestion)
+ * in the outbox table, in the transaction that made the change. Changes are buffered per
+ * transaction and written with one JDBC batch by a Hibernate before-completion process, which
+ * runs after the commit-time flush, so changes that only reach the database at commit are
+ * recorded too. A change announced outside a transaction is written on its own.
+ *
+ * <p>A listing change keeps the city, price and status of the entity as it was announced, which
+ * is what the flush wrote, so consumers see each intermediate state even when several changes
+ * are delivered after the row moved on.
+ */
+@Component
+public class OutboxWriter {
+    static final String INSERT_SQL = "INSERT INTO outbox_events (aggregate_type, aggregate_id, change_type, "
+            + "occurred_at, city, price, status, attempts) VALUES (?, ?, ?, ?, ?, ?, ?, 0)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final OutboxRelay relay;
+    
+    public OutboxWriter(JdbcTemplate jdbcTemplate, EntityManager entityManager, OutboxRelay relay) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.relay = relay;
+    }
+    
+    @EventListener
+    public void onPropertyChanged(PropertyChangedEvent event) {
+        Property property = event.getProperty();
+        record(new Pending(AggregateType.PROPERTY, property.getId(), event.getChangeType(), now(),
+                property.getCity(), property.getPrice(), property.getStatus()));
+    }
+    
+    @EventListener
+    public void onAgentChanged(AgentChangedEvent event) {
+        record(new Pending(AggregateType.AGENT, event.getAgent().getId(), event.getChangeType(), now(),
+                null, null, null));
+    }
+    
+    @EventListener
+    public void onClientChanged(ClientChangedEvent event) {
+        record(new Pending(AggregateType.CLIENT, event.getClient().getId(), event.getChangeType(), now(),
+                null, null, null));
+    }
+    
+    private void record(Pending change) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            insert(List.of(change));
+            relay.wakeUp();
+            return;
+        }
+        Buffer buffer = (Buffer) TransactionSynchronizationManager.getResource(this);
+        if (buffer == null) {
+            buffer = new Buffer();
+            TransactionSynchronizationManager.bindResource(this, buffer);
+            TransactionSynchronizationManager.registerSynchronization(buffer);
+            entityManager.unwrap(SessionImplementor.class).getActionQueue().registerProcess(buffer);
+        }
+        if (buffer.written) {
+            // Announced after the batch went out, by another before-completion process; still inside the transaction
+            insert(List.of(change));
+        } else {
+            buffer.changes.add(change);
+        }
+    }
+    
+    private void insert(List<Pending> changes) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, changes, changes.size(), (statement, change) -> {
+            statement.setString(1, change.type().name());
+            statement.setLong(2, change.id());
+            statement.setString(3, change.changeType().name());
+            statement.setTimestamp(4, Timestamp.valueOf(change.occurredAt()));
+            statement.setString(5, change.city());
+            statement.setBigDecimal(6, change.price());
+            statement.setString(7, change.status() == null ? null : change.status().name());
+        });
+    }
+    
+    private static LocalDateTime now() {
+        return LocalDateTime.now(ZoneOffset.UTC);
+    }
+    
+    private record Pending(AggregateType type, Long id, EntityChangeType changeType, LocalDateTime occurredAt,
+                           String city, BigDecimal price, PropertyStatus status) {
+    }
+    
+    private final class Buffer implements BeforeTransactionCompletionProcess, TransactionSynchronization {
+        final List<Pending> changes = new ArrayList<>();
+        boolean written;
+        
+        @Override
+        public void doBeforeTransactionCompletion(SessionImplementor session) {
+            if (!changes.isEmpty()) {
+                insert(changes);
+            }
+            written = true;
+        }
+        
+        @Override
+        public void afterCommit() {
+            relay.wakeUp();
+        }
+        
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(OutboxWriter.this);
+        }
+    }
+}
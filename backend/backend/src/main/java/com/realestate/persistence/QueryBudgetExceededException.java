@@ -0,0 +1,22 @@
+package com.realestate.persistence;
+
+import java.util.List;
+
+public class QueryBudgetExceededException extends RuntimeException {
+    private final String view;
+    private final int budget;
+    private final List<String> statements;
+    
+    public QueryBudgetExceededException(String view, int budget, List<String> statements) {
+        super("View " + view + " issued " + statements.size() + " queries, budget is " + budget + ": " + statements);
+        this.view = view;
+        this.budget = budget;
+        this.statements = statements;
+    }
+    
+    public String getView() { return view; }
+    
+    public int getBudget() { return budget; }
+    
+    public List<String> getStatements() { return statements; }
+}
@@ -0,0 +1,41 @@
+package com.realestate.persistence;
+
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs a view's data loading against a maximum number of SQL statements. With
+ * {@code realestate.query-budget.enforce=true}, which tests should set, going over the budget
+ * throws {@link QueryBudgetExceededException}; otherwise it is logged as a warning so an N+1
+ * regression shows up in production logs without failing requests.
+ */
+@Component
+public class QueryBudgetGuard {
+    private static final Logger log = LoggerFactory.getLogger(QueryBudgetGuard.class);
+    
+    private final boolean enforce;
+    
+    public QueryBudgetGuard(@Value("${realestate.query-budget.enforce:false}") boolean enforce) {
+        this.enforce = enforce;
+    }
+    
+    public <T> T run(String view, int budget, Supplier<T> action) {
+        T result;
+        QueryCounter.Scope scope = QueryCounter.start();
+        try {
+            result = action.get();
+        } finally {
+            scope.close();
+        }
+        if (scope.getCount() > budget) {
+            if (enforce) {
+                throw new QueryBudgetExceededException(view, budget, scope.getStatements());
+            }
+            log.warn("View {} issued {} queries, budget is {}", view, scope.getCount(), budget);
+        }
+        return result;
+    }
+}
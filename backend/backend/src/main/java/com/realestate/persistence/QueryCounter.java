@@ -0,0 +1,56 @@
+package com.realestate.persistence;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate statement inspector that records the SQL issued on the current thread while a
+ * {@link Scope} is open. Scopes nest; a statement counts towards every open scope.
+ *
+ * <pre>
+ * try (QueryCounter.Scope scope = QueryCounter.start()) {
+ *     service.agentDashboard(id);
+ *     assertEquals(2, scope.getCount(), scope.getStatements().toString());
+ * }
+ * </pre>
+ */
+public class QueryCounter implements StatementInspector {
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+    
+    public static Scope start() {
+        Scope scope = new Scope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+    
+    @Override
+    public String inspect(String sql) {
+        for (Scope scope = CURRENT.get(); scope != null; scope = scope.parent) {
+            scope.statements.add(sql);
+        }
+        return sql;
+    }
+    
+    public static final class Scope implements AutoCloseable {
+        private final Scope parent;
+        private final List<String> statements = new ArrayList<>();
+        
+        private Scope(Scope parent) {
+            this.parent = parent;
+        }
+        
+        public int getCount() { return statements.size(); }
+        
+        public List<String> getStatements() { return List.copyOf(statements); }
+        
+        @Override
+        public void close() {
+            if (parent == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(parent);
+            }
+        }
+    }
+}
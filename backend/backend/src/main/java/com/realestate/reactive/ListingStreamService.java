@@ -0,0 +1,142 @@
+package com.realestate.reactive;
+
+import com.realestate.browse.ListingBrowseService;
+import com.realestate.dto.CursorPage;
+import com.realestate.dto.ListingCard;
+import com.realestate.dto.ListingSummary;
+import com.realestate.event.ListingStatusChangedEvent;
+import com.realestate.model.Property.PropertyStatus;
+import com.realestate.search.ListingQuery;
+import com.realestate.search.ListingSearchEngine;
+import com.realestate.search.ListingSort;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Listing results and status changes as {@link Flux}es, for the streaming endpoints of both the
+ * servlet stack and the reactive server. Results are produced chunk by chunk as the client
+ * reads them: a chunk is only fetched once the previous one has been written, so a slow client
+ * holds at most a couple of chunks in memory whatever the size of the result.
+ * <ul>
+ *   <li>Search results come from the in-memory index: the matching ids are taken once and their
+ *       summaries looked up a chunk at a time.</li>
+ *   <li>Browse results page through the database with the keyset cursors of
+ *       {@link ListingBrowseService}. The blocking JPA calls run on a bounded scheduler of
+ *       {@code realestate.streaming.offload-threads} threads with at most
+ *       {@code offload-queue} waiting tasks, never on the server's event loop.</li>
+ *   <li>Status changes are pushed to every subscriber. Each subscriber buffers up to
+ *       {@code feed-buffer} changes; a client that falls further behind loses the oldest
+ *       ones instead of holding memory or slowing the others down.</li>
+ * </ul>
+ */
+@Service
+public class ListingStreamService {
+    private final ListingSearchEngine searchEngine;
+    private final ListingBrowseService browseService;
+    private final Scheduler offload;
+    private final int chunkSize;
+    private final int maxResults;
+    private final int feedBuffer;
+    private final Duration heartbeatInterval;
+    private final Sinks.Many<ListingStatusChangedEvent> statusChanges = Sinks.many().multicast().directBestEffort();
+    private final LongAdder droppedChanges = new LongAdder();
+    
+    public ListingStreamService(ListingSearchEngine searchEngine,
+                                ListingBrowseService browseService,
+                                @Value("${realestate.streaming.offload-threads:8}") int offloadThreads,
+                                @Value("${realestate.streaming.offload-queue:1000}") int offloadQueue,
+                                @Value("${realestate.streaming.chunk-size:100}") int chunkSize,
+                                @Value("${realestate.streaming.max-results:100000}") int maxResults,
+                                @Value("${realestate.streaming.feed-buffer:256}") int feedBuffer,
+                                @Value("${realestate.streaming.heartbeat-interval:15s}") Duration heartbeatInterval) {
+        this.searchEngine = searchEngine;
+        this.browseService = browseService;
+        this.offload = Schedulers.newBoundedElastic(offloadThreads, offloadQueue, "listing-offload");
+        this.chunkSize = Math.min(chunkSize, ListingBrowseService.MAX_PAGE_SIZE);
+        this.maxResults = maxResults;
+        this.feedBuffer = feedBuffer;
+        this.heartbeatInterval = heartbeatInterval;
+    }
+    
+    @PreDestroy
+    public void close() {
+        offload.dispose();
+    }
+    
+    /** All listings matching the query in its sort order, up to {@code realestate.streaming.max-results}. */
+    public Flux<ListingSummary> search(ListingQuery query) {
+        return Mono.fromCallable(() -> searchEngine.matchingIds(query, maxResults))
+                .subscribeOn(offload)
+                .flatMapMany(ids -> Flux.range(0, (ids.length + chunkSize - 1) / chunkSize)
+                        .concatMap(chunk -> Mono.fromCallable(() -> searchEngine.summaries(ids,
+                                chunk * chunkSize, Math.min(ids.length, (chunk + 1) * chunkSize))).subscribeOn(offload), 1))
+                .flatMapIterable(summaries -> summaries);
+    }
+    
+    /** Every listing with the status, in browse order, read from the database a page at a time. */
+    public Flux<ListingCard> browse(ListingSort sort, PropertyStatus status) {
+        return page(sort, status, null)
+                .expand(page -> page.getNextCursor() == null ? Mono.empty() : page(sort, status, page.getNextCursor()))
+                .concatMapIterable(CursorPage::getItems);
+    }
+    
+    /**
+     * Status changes from now on, optionally only those into one of {@code statuses} or in
+     * {@code city}. The flux never completes; clients end it by disconnecting.
+     */
+    public Flux<ListingStatusChangedEvent> statusChanges(Set<PropertyStatus> statuses, String city) {
+        String cityKey = city == null || city.isBlank() ? null : city.trim().toLowerCase(Locale.ROOT);
+        return statusChanges.asFlux()
+                .filter(change -> statuses == null || statuses.isEmpty() || statuses.contains(change.getStatus()))
+                .filter(change -> cityKey == null || (change.getListing().getCity() != null
+                        && change.getListing().getCity().trim().toLowerCase(Locale.ROOT).equals(cityKey)))
+                .onBackpressureBuffer(feedBuffer, dropped -> droppedChanges.increment(), BufferOverflowStrategy.DROP_OLDEST);
+    }
+    
+    public long getDroppedChanges() {
+        return droppedChanges.sum();
+    }
+    
+    public int getFeedSubscribers() {
+        return statusChanges.currentSubscriberCount();
+    }
+    
+    /**
+     * {@link #statusChanges} as server-sent events, with a comment every
+     * {@code realestate.streaming.heartbeat-interval} so proxies keep idle streams open.
+     */
+    public Flux<ServerSentEvent<ListingStatusChangedEvent>> statusChangeEvents(Set<PropertyStatus> statuses, String city) {
+        Flux<ServerSentEvent<ListingStatusChangedEvent>> changes = statusChanges(statuses, city)
+                .map(change -> ServerSentEvent.builder(change)
+                        .event("status-change")
+                        .id(change.getListing().getId() + "-" + change.getChangedAt().toEpochMilli())
+                        .build());
+        Flux<ServerSentEvent<ListingStatusChangedEvent>> heartbeats = Flux.interval(heartbeatInterval)
+                .onBackpressureDrop()
+                .map(tick -> ServerSentEvent.<ListingStatusChangedEvent>builder().comment("keep-alive").build());
+        return Flux.merge(changes, heartbeats);
+    }
+    
+    // Emission must be serialized; changes are rare enough that a monitor is cheap
+    @EventListener
+    public synchronized void onStatusChanged(ListingStatusChangedEvent event) {
+        statusChanges.tryEmitNext(event);
+    }
+    
+    private Mono<CursorPage<ListingCard>> page(ListingSort sort, PropertyStatus status, String cursor) {
+        return Mono.fromCallable(() -> browseService.browse(sort, status, cursor, chunkSize)).subscribeOn(offload);
+    }
+}
@@ -0,0 +1,159 @@
+package com.realestate.reactive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.realestate.dto.ListingCard;
+import com.realestate.dto.ListingSummary;
+import com.realestate.event.ListingStatusChangedEvent;
+import com.realestate.model.Property.PropertyStatus;
+import com.realestate.search.ListingQuery;
+import com.realestate.search.ListingSort;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * The streaming endpoints on a non-blocking server of their own, enabled with
+ * {@code realestate.reactive.enabled=true}. The application keeps its servlet container for
+ * everything else; this server listens on {@code realestate.reactive.port} and answers under
+ * {@code /api/reactive/listings} from a few event-loop threads, so an open stream costs a
+ * connection and its buffers rather than a blocked request thread:
+ * <ul>
+ *   <li>{@code GET /search} takes the same parameters as {@code /api/listings/search}</li>
+ *   <li>{@code GET /browse?sort=&status=}</li>
+ *   <li>{@code GET /status-changes?status=&city=}, always server-sent events</li>
+ * </ul>
+ * Search and browse answer with newline-delimited JSON, or server-sent events when the client
+ * accepts {@code text/event-stream}.
+ */
+@Component
+@ConditionalOnProperty(name = "realestate.reactive.enabled", havingValue = "true")
+public class ReactiveListingServer implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(ReactiveListingServer.class);
+    private static final ParameterizedTypeReference<ServerSentEvent<ListingStatusChangedEvent>> STATUS_EVENT =
+            new ParameterizedTypeReference<>() {};
+    
+    private final ListingStreamService streams;
+    private final ObjectMapper objectMapper;
+    private final int port;
+    private volatile DisposableServer server;
+    
+    public ReactiveListingServer(ListingStreamService streams,
+                                 ObjectMapper objectMapper,
+                                 @Value("${realestate.reactive.port:8081}") int port) {
+        this.streams = streams;
+        this.objectMapper = objectMapper;
+        this.port = port;
+    }
+    
+    @Override
+    public void start() {
+        RouterFunction<ServerResponse> routes = RouterFunctions.route()
+                .path("/api/reactive/listings", builder -> builder
+                        .GET("/search", this::search)
+                        .GET("/browse", this::browse)
+                        .GET("/status-changes", this::statusChanges))
+                .build();
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .build();
+        HttpHandler handler = RouterFunctions.toHttpHandler(routes, strategies);
+        server = HttpServer.create()
+                .port(port)
+                .handle(new ReactorHttpHandlerAdapter(handler))
+                .bindNow();
+        log.info("Reactive listing streams on port {}", server.port());
+    }
+    
+    @Override
+    public void stop() {
+        DisposableServer running = server;
+        if (running != null) {
+            running.disposeNow();
+            server = null;
+        }
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return server != null;
+    }
+    
+    /** The port the server is bound to, which differs from the configured one when that is 0. */
+    public int getPort() {
+        DisposableServer running = server;
+        if (running == null) {
+            throw new IllegalStateException("Reactive listing server is not running");
+        }
+        return running.port();
+    }
+    
+    private Mono<ServerResponse> search(ServerRequest request) {
+        return request.bind(ListingQuery.class)
+                .onErrorMap(e -> new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e))
+                .flatMap(query -> stream(request, streams.search(query), ListingSummary.class));
+    }
+    
+    private Mono<ServerResponse> browse(ServerRequest request) {
+        ListingSort sort = parse(ListingSort.class, request.queryParam("sort").orElse("NEWEST"));
+        PropertyStatus status = parse(PropertyStatus.class, request.queryParam("status").orElse("ACTIVE"));
+        return stream(request, streams.browse(sort, status), ListingCard.class);
+    }
+    
+    private Mono<ServerResponse> statusChanges(ServerRequest request) {
+        Set<PropertyStatus> statuses = EnumSet.noneOf(PropertyStatus.class);
+        for (String value : request.queryParams().getOrDefault("status", List.of())) {
+            for (String status : value.split(",")) {
+                if (!status.isBlank()) {
+                    statuses.add(parse(PropertyStatus.class, status));
+                }
+            }
+        }
+        String city = request.queryParam("city").orElse(null);
+        return ServerResponse.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(streams.statusChangeEvents(statuses, city), STATUS_EVENT);
+    }
+    
+    private static <T> Mono<ServerResponse> stream(ServerRequest request, Flux<T> body, Class<T> type) {
+        MediaType contentType = request.headers().accept().contains(MediaType.TEXT_EVENT_STREAM)
+                ? MediaType.TEXT_EVENT_STREAM
+                : MediaType.APPLICATION_NDJSON;
+        return ServerResponse.ok().contentType(contentType).body(body, type);
+    }
+    
+    private static <E extends Enum<E>> E parse(Class<E> type, String value) {
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown " + type.getSimpleName() + ": " + value);
+        }
+    }
+}
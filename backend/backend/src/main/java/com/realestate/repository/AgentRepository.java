@@ -0,0 +1,14 @@
+package com.realestate.repository;
+
+import com.realestate.model.Agent;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AgentRepository extends JpaRepository<Agent, Long> {
+    
+    @EntityGraph(Agent.DASHBOARD_GRAPH)
+    Optional<Agent> findDashboardById(Long id);
+}
@@ -0,0 +1,14 @@
+package com.realestate.repository;
+
+import com.realestate.model.Client;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ClientRepository extends JpaRepository<Client, Long> {
+    
+    @EntityGraph(Client.PORTFOLIO_GRAPH)
+    Optional<Client> findPortfolioById(Long id);
+}
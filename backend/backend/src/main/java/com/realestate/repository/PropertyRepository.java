@@ -0,0 +1,72 @@
+package com.realestate.repository;
+
+import com.realestate.dto.ListingCard;
+import com.realestate.model.Property;
+import com.realestate.model.Property.PropertyStatus;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PropertyRepository extends JpaRepository<Property, Long> {
+    
+    @Query("select p.id from Property p where p.agent.id = :agentId order by p.id")
+    List<Long> findIdsByAgentId(@Param("agentId") Long agentId);
+    
+    /** Listings written at or after {@code since}, or never stamped, in id order after {@code afterId}. */
+    @Query("select p from Property p where (p.updatedAt >= :since or p.updatedAt is null) and p.id > :afterId"
+            + " order by p.id")
+    List<Property> findChangedSince(@Param("since") LocalDateTime since, @Param("afterId") Long afterId, Limit limit);
+    
+    @EntityGraph(Property.WITH_AGENT_AND_OWNER_GRAPH)
+    Page<Property> findByStatus(PropertyStatus status, Pageable pageable);
+    
+    /** {@link #findByStatus} leaving out the listings of {@code agentIds}. */
+    @EntityGraph(Property.WITH_AGENT_AND_OWNER_GRAPH)
+    Page<Property> findByStatusAndAgentIdNotIn(PropertyStatus status, Collection<Long> agentIds, Pageable pageable);
+    
+    // Keyset browse queries. Each pair reads the first page and the page after a (sort key, id)
+    // cursor in the order of one of the composite status indexes on the properties table. The
+    // leading "<=" / ">=" bound on the sort key lets the database range-scan that index; the
+    // second condition breaks ties on id.
+    
+    String LISTING_CARD = "select new com.realestate.dto.ListingCard(p.id, p.title, p.price, p.bedrooms, "
+            + "p.bathrooms, p.city, p.mainImageUrl, p.listingDate) from Property p where p.status = :status";
+    
+    @Query(LISTING_CARD + " order by p.listingDate desc, p.id desc")
+    List<ListingCard> browseNewest(@Param("status") PropertyStatus status, Limit limit);
+    
+    @Query(LISTING_CARD + " and p.listingDate <= :listingDate and (p.listingDate < :listingDate or p.id < :id)"
+            + " order by p.listingDate desc, p.id desc")
+    List<ListingCard> browseNewestAfter(@Param("status") PropertyStatus status,
+                                        @Param("listingDate") LocalDate listingDate,
+                                        @Param("id") Long id, Limit limit);
+    
+    @Query(LISTING_CARD + " order by p.price asc, p.id asc")
+    List<ListingCard> browseCheapest(@Param("status") PropertyStatus status, Limit limit);
+    
+    @Query(LISTING_CARD + " and p.price >= :price and (p.price > :price or p.id > :id)"
+            + " order by p.price asc, p.id asc")
+    List<ListingCard> browseCheapestAfter(@Param("status") PropertyStatus status,
+                                          @Param("price") BigDecimal price,
+                                          @Param("id") Long id, Limit limit);
+    
+    @Query(LISTING_CARD + " order by p.price desc, p.id desc")
+    List<ListingCard> browseMostExpensive(@Param("status") PropertyStatus status, Limit limit);
+    
+    @Query(LISTING_CARD + " and p.price <= :price and (p.price < :price or p.id < :id)"
+            + " order by p.price desc, p.id desc")
+    List<ListingCard> browseMostExpensiveAfter(@Param("status") PropertyStatus status,
+                                               @Param("price") BigDecimal price,
+                                               @Param("id") Long id, Limit limit);
+}
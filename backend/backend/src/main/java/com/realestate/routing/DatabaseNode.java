@@ -0,0 +1,109 @@
+package com.realestate.routing;
+
+import com.realestate.execution.ConnectionLimitingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+/**
+ * One database, primary, replica or shard, with a separate Hikari pool per {@link WorkloadClass}.
+ * Connections come from the pool of the calling thread's current workload class.
+ *
+ * <p>On virtual threads each pool can be fronted by its own {@link ConnectionLimitingDataSource}
+ * sized to the pool, see {@link #limitConnections}, so waiting bulk work never holds a permit
+ * that interactive work on the same node, or work on another node, needs.
+ */
+public class DatabaseNode extends AbstractDataSource implements AutoCloseable {
+    private final String name;
+    private final Map<WorkloadClass, HikariDataSource> pools = new EnumMap<>(WorkloadClass.class);
+    private final Map<WorkloadClass, DataSource> sources = new EnumMap<>(WorkloadClass.class);
+    
+    public DatabaseNode(String name, ConnectionSettings connection, Map<WorkloadClass, PoolSettings> poolSettings, boolean readOnly) {
+        this.name = name;
+        for (WorkloadClass workload : WorkloadClass.values()) {
+            PoolSettings settings = poolSettings.get(workload);
+            HikariConfig config = new HikariConfig();
+            config.setPoolName(name + "-" + workload.name().toLowerCase(Locale.ROOT));
+            config.setJdbcUrl(connection.url());
+            config.setUsername(connection.username());
+            config.setPassword(connection.password());
+            if (connection.driverClassName() != null) {
+                config.setDriverClassName(connection.driverClassName());
+            }
+            config.setMaximumPoolSize(settings.maximumPoolSize());
+            config.setMinimumIdle(Math.min(settings.maximumPoolSize(), 2));
+            config.setConnectionTimeout(settings.connectionTimeout().toMillis());
+            config.setReadOnly(readOnly);
+            pools.put(workload, new HikariDataSource(config));
+        }
+        sources.putAll(pools);
+    }
+    
+    public String getName() { return name; }
+    
+    /**
+     * Puts a connection limit as large as the pool in front of every workload pool. Callers
+     * beyond it park until a connection is closed, failing after {@code acquireTimeout}.
+     * Connections handed out before the call are not counted.
+     */
+    public void limitConnections(Duration acquireTimeout) {
+        pools.forEach((workload, pool) -> sources.put(workload,
+                new ConnectionLimitingDataSource(pool, pool.getMaximumPoolSize(), acquireTimeout)));
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        return sources.get(WorkloadClass.current()).getConnection();
+    }
+    
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Connections use the node's configured credentials");
+    }
+    
+    /** Active, idle and waiting counts per workload pool, and callers parked on its limit. */
+    public Map<String, Object> poolStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        pools.forEach((workload, pool) -> {
+            HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+            Map<String, Object> poolStats = new LinkedHashMap<>();
+            poolStats.put("maximum", pool.getMaximumPoolSize());
+            if (bean != null) {
+                poolStats.put("active", bean.getActiveConnections());
+                poolStats.put("idle", bean.getIdleConnections());
+                poolStats.put("waiting", bean.getThreadsAwaitingConnection());
+            }
+            if (sources.get(workload) instanceof ConnectionLimitingDataSource limited) {
+                poolStats.put("parked", limited.getQueueLength());
+            }
+            stats.put(workload.name().toLowerCase(Locale.ROOT), poolStats);
+        });
+        return stats;
+    }
+    
+    @Override
+    public void close() {
+        pools.values().forEach(HikariDataSource::close);
+    }
+    
+    @Override
+    public String toString() {
+        return name;
+    }
+    
+    public record ConnectionSettings(String url, String username, String password, String driverClassName) {
+    }
+    
+    public record PoolSettings(int maximumPoolSize, Duration connectionTimeout) {
+    }
+}
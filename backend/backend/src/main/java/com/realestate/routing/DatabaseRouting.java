@@ -0,0 +1,55 @@
+package com.realestate.routing;
+
+import com.realestate.routing.DatabaseNode.ConnectionSettings;
+import com.realestate.routing.DatabaseNode.PoolSettings;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The primary and replica nodes with their pools, and the read router over them. Deliberately
+ * not a {@code DataSource} bean itself, so the per-node pools are neither wrapped by data
+ * source post-processors nor mistaken for the application's data source.
+ */
+public class DatabaseRouting implements AutoCloseable {
+    private final DatabaseNode primary;
+    private final List<DatabaseNode> replicas = new ArrayList<>();
+    private final ReplicaRoutingDataSource reads;
+    
+    DatabaseRouting(ConnectionSettings primary, List<String> replicaUrls, Map<WorkloadClass, PoolSettings> pools,
+                    Duration maxLag) {
+        this.primary = new DatabaseNode("primary", primary, pools, false);
+        for (String url : replicaUrls) {
+            ConnectionSettings replica = new ConnectionSettings(url.trim(), primary.username(), primary.password(), null);
+            replicas.add(new DatabaseNode("replica-" + (replicas.size() + 1), replica, pools, true));
+        }
+        this.reads = new ReplicaRoutingDataSource(this.primary, replicas, maxLag);
+    }
+    
+    public DatabaseNode getPrimary() { return primary; }
+    
+    public ReplicaRoutingDataSource getReads() { return reads; }
+    
+    /** The primary followed by the replicas. */
+    public List<DatabaseNode> getNodes() {
+        List<DatabaseNode> nodes = new ArrayList<>(replicas.size() + 1);
+        nodes.add(primary);
+        nodes.addAll(replicas);
+        return nodes;
+    }
+    
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("primary", primary.poolStats());
+        stats.put("reads", reads.stats());
+        return stats;
+    }
+    
+    @Override
+    public void close() {
+        primary.close();
+        replicas.forEach(DatabaseNode::close);
+    }
+}
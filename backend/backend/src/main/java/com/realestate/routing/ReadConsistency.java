@@ -0,0 +1,40 @@
+package com.realestate.routing;
+
+/**
+ * How fresh the reads of a thread must be when {@code realestate.routing.enabled=true}. A
+ * replica within {@code max-replica-lag} may still miss the latest commits, which request
+ * handling tolerates but code reacting to a change does not: a cache fill would keep the stale
+ * row for its time to live, and an outbox consumer could find a new listing missing. Threads
+ * read {@link #REPLICA} unless code runs inside {@link #run}; without routing there is only the
+ * primary and the hint has no effect.
+ */
+public enum ReadConsistency {
+    /** Read-only transactions may run on a replica within the lag bound. */
+    REPLICA,
+    /** Read-only transactions run on the primary and see every commit. */
+    PRIMARY;
+    
+    private static final ThreadLocal<ReadConsistency> CURRENT = ThreadLocal.withInitial(() -> REPLICA);
+    
+    public static ReadConsistency current() {
+        return CURRENT.get();
+    }
+    
+    /** Runs {@code task} on the current thread with this consistency. */
+    public <T, E extends Exception> T run(WorkloadClass.Task<T, E> task) throws E {
+        ReadConsistency previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return task.run();
+        } finally {
+            CURRENT.set(previous);
+        }
+    }
+    
+    public void run(Runnable task) {
+        run(() -> {
+            task.run();
+            return null;
+        });
+    }
+}
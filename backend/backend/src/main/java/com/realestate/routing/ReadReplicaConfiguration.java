@@ -0,0 +1,67 @@
+package com.realestate.routing;
+
+import com.realestate.routing.DatabaseNode.ConnectionSettings;
+import com.realestate.routing.DatabaseNode.PoolSettings;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Replaces the single auto-configured pool when {@code realestate.routing.enabled=true}:
+ * <ul>
+ *   <li>The primary is the {@code spring.datasource} database; replicas are listed in
+ *       {@code realestate.routing.replica-urls} and use the same credentials.</li>
+ *   <li>Read-only transactions ({@code @Transactional(readOnly = true)}, read-only transaction
+ *       templates) run on a replica within {@code max-replica-lag}, or on the primary if none
+ *       is, unless the thread asks for {@link ReadConsistency#PRIMARY}, as cache fills and
+ *       outbox consumers do. Everything else, including work outside a transaction, runs on
+ *       the primary.</li>
+ *   <li>Every node has an interactive and a bulk pool, sized by {@code realestate.routing.pool.*};
+ *       imports and exports use the bulk pools.</li>
+ * </ul>
+ * Connections are fetched lazily, on the first statement, because the read-only flag of a
+ * transaction is only known once it has begun.
+ */
+@Configuration
+@ConditionalOnProperty(name = "realestate.routing.enabled", havingValue = "true")
+public class ReadReplicaConfiguration {
+    
+    @Bean(destroyMethod = "close")
+    public DatabaseRouting databaseRouting(
+            DataSourceProperties properties,
+            @Value("${realestate.routing.replica-urls:}") List<String> replicaUrls,
+            @Value("${realestate.routing.max-replica-lag:5s}") Duration maxLag,
+            @Value("${realestate.routing.pool.interactive.maximum-pool-size:10}") int interactiveSize,
+            @Value("${realestate.routing.pool.interactive.connection-timeout:5s}") Duration interactiveTimeout,
+            @Value("${realestate.routing.pool.bulk.maximum-pool-size:4}") int bulkSize,
+            @Value("${realestate.routing.pool.bulk.connection-timeout:60s}") Duration bulkTimeout) {
+        Map<WorkloadClass, PoolSettings> pools = new EnumMap<>(WorkloadClass.class);
+        pools.put(WorkloadClass.INTERACTIVE, new PoolSettings(interactiveSize, interactiveTimeout));
+        pools.put(WorkloadClass.BULK, new PoolSettings(bulkSize, bulkTimeout));
+        ConnectionSettings primary = new ConnectionSettings(properties.determineUrl(), properties.determineUsername(),
+                properties.determinePassword(), properties.determineDriverClassName());
+        return new DatabaseRouting(primary, replicaUrls, pools, maxLag);
+    }
+    
+    @Bean(destroyMethod = "stop")
+    public ReplicaLagMonitor replicaLagMonitor(DatabaseRouting databaseRouting,
+                                               @Value("${realestate.routing.lag-check-interval:1s}") Duration interval) {
+        return new ReplicaLagMonitor(databaseRouting.getPrimary(), databaseRouting.getReads(), interval);
+    }
+    
+    /** The application's data source: the primary, or the read router for read-only transactions. */
+    @Bean
+    public DataSource dataSource(DatabaseRouting databaseRouting) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(databaseRouting.getPrimary());
+        dataSource.setReadOnlyDataSource(databaseRouting.getReads());
+        return dataSource;
+    }
+}
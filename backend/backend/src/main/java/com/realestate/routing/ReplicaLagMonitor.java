@@ -0,0 +1,88 @@
+package com.realestate.routing;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Measures replica lag with a heartbeat row: every {@code interval} the primary's row is set to
+ * the current time, and each replica's lag is the age of the value it returns. A replica that
+ * is not replicating, or cannot be reached, falls behind or fails the read and is taken out of
+ * rotation until it catches up. Heartbeats run on the bulk pools so they never wait behind
+ * request traffic.
+ */
+public class ReplicaLagMonitor {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+    private static final String CREATE_SQL = "CREATE TABLE IF NOT EXISTS replication_heartbeat "
+            + "(id INT PRIMARY KEY, beat_millis BIGINT NOT NULL)";
+    private static final String UPDATE_SQL = "UPDATE replication_heartbeat SET beat_millis = ? WHERE id = 1";
+    private static final String INSERT_SQL = "INSERT INTO replication_heartbeat (id, beat_millis) VALUES (1, ?)";
+    private static final String SELECT_SQL = "SELECT beat_millis FROM replication_heartbeat WHERE id = 1";
+    
+    private final JdbcTemplate primary;
+    private final ReplicaRoutingDataSource routing;
+    private final List<DatabaseNode> replicas;
+    private final Duration interval;
+    private ScheduledExecutorService scheduler;
+    
+    public ReplicaLagMonitor(DatabaseNode primary, ReplicaRoutingDataSource routing, Duration interval) {
+        this.primary = new JdbcTemplate(primary);
+        this.routing = routing;
+        this.replicas = routing.replicaNodes();
+        this.interval = interval;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (replicas.isEmpty()) {
+            return;
+        }
+        WorkloadClass.BULK.run(() -> primary.execute(CREATE_SQL));
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> WorkloadClass.BULK.run(this::check), 0, interval.toMillis(),
+                TimeUnit.MILLISECONDS);
+        log.info("Routing read-only transactions to {} replicas", replicas.size());
+    }
+    
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+    
+    private void check() {
+        try {
+            long now = System.currentTimeMillis();
+            if (primary.update(UPDATE_SQL, now) == 0) {
+                primary.update(INSERT_SQL, now);
+            }
+        } catch (DataAccessException e) {
+            // Without a fresh heartbeat every replica looks increasingly behind, which is the safe side
+            log.warn("Could not write the replication heartbeat: {}", e.getMessage());
+        }
+        for (DatabaseNode replica : replicas) {
+            try {
+                Long beat = new JdbcTemplate(replica).query(SELECT_SQL, rs -> rs.next() ? rs.getLong(1) : null);
+                if (beat == null) {
+                    routing.lagUnknown(replica, "no heartbeat replicated yet");
+                } else {
+                    routing.lagMeasured(replica, Duration.ofMillis(Math.max(0, System.currentTimeMillis() - beat)));
+                }
+            } catch (DataAccessException e) {
+                routing.lagUnknown(replica, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.realestate.routing;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+/**
+ * Data source for read-only transactions: hands out connections from the replicas in turn,
+ * skipping any whose last measured lag exceeds {@code maxLag}, whose lag could not be measured,
+ * or which just failed to give a connection. With no replica usable, reads go to the primary.
+ * Replicas start out unusable until {@link ReplicaLagMonitor} first measures them. Threads
+ * running as {@link ReadConsistency#PRIMARY} always read from the primary.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    
+    private final DatabaseNode primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Duration maxLag;
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder primaryReads = new LongAdder();
+    
+    public ReplicaRoutingDataSource(DatabaseNode primary, List<DatabaseNode> replicas, Duration maxLag) {
+        this.primary = primary;
+        for (DatabaseNode node : replicas) {
+            this.replicas.add(new Replica(node));
+        }
+        this.maxLag = maxLag;
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (ReadConsistency.current() == ReadConsistency.PRIMARY) {
+            primaryReads.increment();
+            return primary.getConnection();
+        }
+        int count = replicas.size();
+        int start = count == 0 ? 0 : Math.floorMod(next.getAndIncrement(), count);
+        for (int i = 0; i < count; i++) {
+            Replica replica = replicas.get((start + i) % count);
+            if (!replica.usable) {
+                continue;
+            }
+            try {
+                Connection connection = replica.node.getConnection();
+                replicaReads.increment();
+                return connection;
+            } catch (SQLException e) {
+                markDown(replica, "connection failed: " + e.getMessage());
+            }
+        }
+        primaryReads.increment();
+        return primary.getConnection();
+    }
+    
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Connections use the nodes' configured credentials");
+    }
+    
+    List<DatabaseNode> replicaNodes() {
+        return replicas.stream().map(replica -> replica.node).toList();
+    }
+    
+    /** Records a lag measurement; the replica serves reads only while it is within {@code maxLag}. */
+    void lagMeasured(DatabaseNode node, Duration lag) {
+        Replica replica = replica(node);
+        replica.lag = lag;
+        replica.error = null;
+        boolean usable = lag.compareTo(maxLag) <= 0;
+        if (usable != replica.usable) {
+            log.info("Replica {} {} (lag {} ms)", node, usable ? "back in rotation" : "lagging, reads go elsewhere",
+                    lag.toMillis());
+        }
+        replica.usable = usable;
+    }
+    
+    void lagUnknown(DatabaseNode node, String error) {
+        markDown(replica(node), error);
+    }
+    
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxLagMillis", maxLag.toMillis());
+        stats.put("replicaReads", replicaReads.sum());
+        stats.put("primaryReads", primaryReads.sum());
+        Map<String, Object> replicaStats = new LinkedHashMap<>();
+        for (Replica replica : replicas) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("usable", replica.usable);
+            entry.put("lagMillis", replica.lag == null ? null : replica.lag.toMillis());
+            entry.put("error", replica.error);
+            entry.put("pools", replica.node.poolStats());
+            replicaStats.put(replica.node.getName(), entry);
+        }
+        stats.put("replicas", replicaStats);
+        return stats;
+    }
+    
+    private void markDown(Replica replica, String error) {
+        if (replica.usable) {
+            log.warn("Replica {} taken out of rotation: {}", replica.node, error);
+        }
+        replica.usable = false;
+        replica.error = error;
+    }
+    
+    private Replica replica(DatabaseNode node) {
+        for (Replica replica : replicas) {
+            if (replica.node == node) {
+                return replica;
+            }
+        }
+        throw new IllegalArgumentException("Not a replica of this data source: " + node);
+    }
+    
+    private static final class Replica {
+        final DatabaseNode node;
+        volatile boolean usable;
+        volatile Duration lag;
+        volatile String error;
+        
+        Replica(DatabaseNode node) {
+            this.node = node;
+        }
+    }
+}
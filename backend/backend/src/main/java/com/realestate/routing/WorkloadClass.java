@@ -0,0 +1,43 @@
+package com.realestate.routing;
+
+/**
+ * Kind of work a thread is doing, which selects the connection pool it draws from when
+ * {@code realestate.routing.enabled=true}: every database node has one pool per class, so a
+ * burst of bulk work exhausts only the bulk pools. Threads are {@link #INTERACTIVE} unless code
+ * runs inside {@link #run}.
+ */
+public enum WorkloadClass {
+    /** Request handling: browsing, search, profiles and single-entity writes. */
+    INTERACTIVE,
+    /** Imports, exports and other long scans or batch writes. */
+    BULK;
+    
+    private static final ThreadLocal<WorkloadClass> CURRENT = ThreadLocal.withInitial(() -> INTERACTIVE);
+    
+    public static WorkloadClass current() {
+        return CURRENT.get();
+    }
+    
+    /** Runs {@code task} on the current thread as this class of work. */
+    public <T, E extends Exception> T run(Task<T, E> task) throws E {
+        WorkloadClass previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return task.run();
+        } finally {
+            CURRENT.set(previous);
+        }
+    }
+    
+    public void run(Runnable task) {
+        run(() -> {
+            task.run();
+            return null;
+        });
+    }
+    
+    @FunctionalInterface
+    public interface Task<T, E extends Exception> {
+        T run() throws E;
+    }
+}
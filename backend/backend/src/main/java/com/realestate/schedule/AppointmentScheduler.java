@@ -0,0 +1,341 @@
+package com.realestate.schedule;
+
+import com.realestate.event.AgentChangedEvent;
+import com.realestate.event.EntityChangeType;
+import com.realestate.index.IntervalTree;
+import com.realestate.model.Agent;
+import com.realestate.outbox.AggregateType;
+import com.realestate.repository.AgentRepository;
+import com.realestate.shard.EntityShards;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Keeps every booking in two {@link IntervalTree}s, one per agent and one per property, keyed by
+ * epoch second, so a conflict check visits only the bookings overlapping the requested time
+ * instead of the whole calendar.
+ *
+ * <p>Calendars are guarded by a fixed set of lock stripes chosen by agent and by property id.
+ * Booking locks the two stripes in index order, so bookings for different agents and
+ * properties proceed in parallel and two bookings can never deadlock.
+ *
+ * <p>Free-slot searches cover the agents whose city matches, from the agent table at startup
+ * and committed agent changes afterwards. Each agent's next free slot comes from stepping over
+ * the bookings overlapping a candidate, and a priority queue merges the agents' slots in start
+ * order. Slot starts are aligned to {@code realestate.scheduling.slot-granularity}; searches
+ * stop at {@code realestate.scheduling.search-horizon} after their start.
+ *
+ * <p>The schedule lives in memory. {@link #load} replaces it with the bookings of the owning
+ * store, e.g. at startup.
+ */
+@Service
+public class AppointmentScheduler {
+    private static final Logger log = LoggerFactory.getLogger(AppointmentScheduler.class);
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    
+    private final AgentRepository agentRepository;
+    private final EntityShards shards;
+    private final ReentrantLock[] stripes;
+    private final long granularitySeconds;
+    private final Duration searchHorizon;
+    private final Map<Long, IntervalTree<Booking>> agentCalendars = new ConcurrentHashMap<>();
+    private final Map<Long, IntervalTree<Booking>> propertyCalendars = new ConcurrentHashMap<>();
+    private final Map<Long, Placement> bookings = new ConcurrentHashMap<>();
+    private final Map<Long, String> agentCities = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> agentsByCity = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    
+    public AppointmentScheduler(AgentRepository agentRepository,
+                                EntityShards shards,
+                                @Value("${realestate.scheduling.lock-stripes:64}") int lockStripes,
+                                @Value("${realestate.scheduling.slot-granularity:15m}") Duration slotGranularity,
+                                @Value("${realestate.scheduling.search-horizon:14d}") Duration searchHorizon) {
+        this.agentRepository = agentRepository;
+        this.shards = shards;
+        this.stripes = new ReentrantLock[Integer.highestOneBit(Math.max(1, lockStripes - 1)) << 1];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.granularitySeconds = Math.max(1, slotGranularity.toSeconds());
+        this.searchHorizon = searchHorizon;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadAgents() {
+        shards.forEachPage(AggregateType.AGENT, pageable -> agentRepository.findAll(pageable), Agent::getId,
+                REBUILD_BATCH_SIZE, page -> {
+                    for (Agent agent : page) {
+                        placeAgent(agent.getId(), agent.getCity());
+                    }
+                });
+        log.info("Scheduling across {} agents in {} cities", agentCities.size(), agentsByCity.size());
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAgentChanged(AgentChangedEvent event) {
+        Agent agent = event.getAgent();
+        placeAgent(agent.getId(), event.getChangeType() == EntityChangeType.DELETED ? null : agent.getCity());
+    }
+    
+    /** Replaces the whole schedule; bookings that conflict with each other are all kept. */
+    public void load(Collection<Booking> all) {
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+        try {
+            agentCalendars.clear();
+            propertyCalendars.clear();
+            bookings.clear();
+            long maxId = 0;
+            for (Booking booking : all) {
+                place(booking);
+                maxId = Math.max(maxId, booking.getId());
+            }
+            nextId.set(maxId + 1);
+        } finally {
+            for (ReentrantLock stripe : stripes) {
+                stripe.unlock();
+            }
+        }
+        log.info("Loaded {} bookings", all.size());
+    }
+    
+    /**
+     * Books the agent and the property for {@code [start, end)}.
+     *
+     * @throws SchedulingConflictException if either is already booked for part of that time
+     */
+    public Booking book(long agentId, long propertyId, Instant start, Instant end) {
+        Booking booking = new Booking(nextId.getAndIncrement(), agentId, propertyId, start, end);
+        int first = agentStripe(agentId);
+        int second = propertyStripe(propertyId);
+        lockBoth(first, second);
+        try {
+            List<Booking> conflicts = collectConflicts(agentId, propertyId, first(booking), last(booking));
+            if (!conflicts.isEmpty()) {
+                throw new SchedulingConflictException(conflicts);
+            }
+            place(booking);
+            return booking;
+        } finally {
+            unlockBoth(first, second);
+        }
+    }
+    
+    /** Removes a booking; returns false if there is none with that id. */
+    public boolean cancel(long bookingId) {
+        Placement placement = bookings.get(bookingId);
+        if (placement == null) {
+            return false;
+        }
+        Booking booking = placement.booking();
+        int first = agentStripe(booking.getAgentId());
+        int second = propertyStripe(booking.getPropertyId());
+        lockBoth(first, second);
+        try {
+            if (!bookings.remove(bookingId, placement)) {
+                return false;
+            }
+            agentCalendars.get(booking.getAgentId()).remove(placement.agentEntry());
+            propertyCalendars.get(booking.getPropertyId()).remove(placement.propertyEntry());
+            return true;
+        } finally {
+            unlockBoth(first, second);
+        }
+    }
+    
+    /** Bookings of the agent or of the property overlapping {@code [start, end)}. */
+    public List<Booking> conflicts(long agentId, long propertyId, Instant start, Instant end) {
+        int first = agentStripe(agentId);
+        int second = propertyStripe(propertyId);
+        lockBoth(first, second);
+        try {
+            return collectConflicts(agentId, propertyId, start.getEpochSecond(), end.getEpochSecond() - 1);
+        } finally {
+            unlockBoth(first, second);
+        }
+    }
+    
+    /** The agent's bookings overlapping {@code [start, end)}, by start time. */
+    public List<Booking> agentSchedule(long agentId, Instant start, Instant end) {
+        List<Booking> found = new ArrayList<>();
+        ReentrantLock stripe = stripes[agentStripe(agentId)];
+        stripe.lock();
+        try {
+            IntervalTree<Booking> calendar = agentCalendars.get(agentId);
+            if (calendar != null) {
+                calendar.overlapping(start.getEpochSecond(), end.getEpochSecond() - 1, found::add);
+            }
+        } finally {
+            stripe.unlock();
+        }
+        return found;
+    }
+    
+    /**
+     * The earliest {@code count} free slots of {@code duration} at or after {@code from} across
+     * all agents in {@code city}, by start time and then agent id. Slots of one agent do not
+     * overlap each other.
+     */
+    public List<FreeSlot> freeSlots(String city, Instant from, Duration duration, int count) {
+        Set<Long> agents = agentsByCity.get(cityKey(city));
+        if (agents == null || count <= 0) {
+            return List.of();
+        }
+        long length = duration.toSeconds();
+        if (length <= 0) {
+            throw new IllegalArgumentException("Slot duration must be at least one second");
+        }
+        long horizon = from.plus(searchHorizon).getEpochSecond();
+        PriorityQueue<FreeSlot> queue = new PriorityQueue<>(Comparator.comparing(FreeSlot::getStart)
+                .thenComparingLong(FreeSlot::getAgentId));
+        for (long agentId : agents) {
+            offerNextSlot(queue, agentId, from.getEpochSecond(), length, horizon);
+        }
+        List<FreeSlot> slots = new ArrayList<>(Math.min(count, queue.size()));
+        while (slots.size() < count && !queue.isEmpty()) {
+            FreeSlot slot = queue.poll();
+            slots.add(slot);
+            offerNextSlot(queue, slot.getAgentId(), slot.getEnd().getEpochSecond(), length, horizon);
+        }
+        return slots;
+    }
+    
+    private void offerNextSlot(PriorityQueue<FreeSlot> queue, long agentId, long from, long length, long horizon) {
+        long start = nextFreeStart(agentId, from, length, horizon);
+        if (start >= 0) {
+            queue.add(new FreeSlot(agentId, Instant.ofEpochSecond(start), Instant.ofEpochSecond(start + length)));
+        }
+    }
+    
+    /** Earliest aligned start at or after {@code from} with {@code length} seconds free, or -1 past the horizon. */
+    private long nextFreeStart(long agentId, long from, long length, long horizon) {
+        long start = align(from);
+        ReentrantLock stripe = stripes[agentStripe(agentId)];
+        stripe.lock();
+        try {
+            IntervalTree<Booking> calendar = agentCalendars.get(agentId);
+            long[] latestEnd = new long[1];
+            while (start + length <= horizon) {
+                if (calendar == null) {
+                    return start;
+                }
+                latestEnd[0] = Long.MIN_VALUE;
+                calendar.overlapping(start, start + length - 1,
+                        booking -> latestEnd[0] = Math.max(latestEnd[0], booking.getEnd().getEpochSecond()));
+                if (latestEnd[0] == Long.MIN_VALUE) {
+                    return start;
+                }
+                start = align(latestEnd[0]);
+            }
+            return -1;
+        } finally {
+            stripe.unlock();
+        }
+    }
+    
+    private long align(long epochSecond) {
+        return Math.ceilDiv(epochSecond, granularitySeconds) * granularitySeconds;
+    }
+    
+    private List<Booking> collectConflicts(long agentId, long propertyId, long first, long last) {
+        Set<Booking> found = new LinkedHashSet<>();
+        IntervalTree<Booking> agentCalendar = agentCalendars.get(agentId);
+        if (agentCalendar != null) {
+            agentCalendar.overlapping(first, last, found::add);
+        }
+        IntervalTree<Booking> propertyCalendar = propertyCalendars.get(propertyId);
+        if (propertyCalendar != null) {
+            propertyCalendar.overlapping(first, last, found::add);
+        }
+        return new ArrayList<>(found);
+    }
+    
+    // Callers hold the stripes of the booking's agent and property.
+    private void place(Booking booking) {
+        IntervalTree.Entry<Booking> agentEntry = agentCalendars
+                .computeIfAbsent(booking.getAgentId(), id -> new IntervalTree<>())
+                .add(first(booking), last(booking), booking);
+        IntervalTree.Entry<Booking> propertyEntry = propertyCalendars
+                .computeIfAbsent(booking.getPropertyId(), id -> new IntervalTree<>())
+                .add(first(booking), last(booking), booking);
+        bookings.put(booking.getId(), new Placement(booking, agentEntry, propertyEntry));
+    }
+    
+    private void placeAgent(Long agentId, String city) {
+        String previous = city == null ? agentCities.remove(agentId) : agentCities.put(agentId, cityKey(city));
+        if (previous != null) {
+            agentsByCity.computeIfPresent(previous, (key, agents) -> {
+                agents.remove(agentId);
+                return agents.isEmpty() ? null : agents;
+            });
+        }
+        if (city != null) {
+            agentsByCity.computeIfAbsent(cityKey(city), key -> ConcurrentHashMap.newKeySet()).add(agentId);
+        }
+    }
+    
+    private static String cityKey(String city) {
+        return city.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    // Closed interval of epoch seconds covered by the half-open booking
+    private static long first(Booking booking) {
+        return booking.getStart().getEpochSecond();
+    }
+    
+    private static long last(Booking booking) {
+        return booking.getEnd().getEpochSecond() - 1;
+    }
+    
+    private int agentStripe(long agentId) {
+        return spread(agentId) & (stripes.length - 1);
+    }
+    
+    private int propertyStripe(long propertyId) {
+        return spread(~propertyId) & (stripes.length - 1);
+    }
+    
+    private static int spread(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+    
+    // Lower stripe first, so two threads locking the same pair cannot deadlock
+    private void lockBoth(int a, int b) {
+        stripes[Math.min(a, b)].lock();
+        if (a != b) {
+            stripes[Math.max(a, b)].lock();
+        }
+    }
+    
+    private void unlockBoth(int a, int b) {
+        stripes[a].unlock();
+        if (a != b) {
+            stripes[b].unlock();
+        }
+    }
+    
+    private record Placement(Booking booking, IntervalTree.Entry<Booking> agentEntry,
+                             IntervalTree.Entry<Booking> propertyEntry) {
+    }
+}
@@ -0,0 +1,33 @@
+package com.realestate.schedule;
+
+import java.time.Instant;
+
+/** A viewing of one property by one agent over the half-open interval {@code [start, end)}. */
+public class Booking {
+    private final long id;
+    private final long agentId;
+    private final long propertyId;
+    private final Instant start;
+    private final Instant end;
+    
+    public Booking(long id, long agentId, long propertyId, Instant start, Instant end) {
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("Booking start " + start + " is not before its end " + end);
+        }
+        this.id = id;
+        this.agentId = agentId;
+        this.propertyId = propertyId;
+        this.start = start;
+        this.end = end;
+    }
+    
+    public long getId() { return id; }
+    
+    public long getAgentId() { return agentId; }
+    
+    public long getPropertyId() { return propertyId; }
+    
+    public Instant getStart() { return start; }
+    
+    public Instant getEnd() { return end; }
+}
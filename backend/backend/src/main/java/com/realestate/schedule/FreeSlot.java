@@ -0,0 +1,21 @@
+package com.realestate.schedule;
+
+import java.time.Instant;
+
+public class FreeSlot {
+    private final long agentId;
+    private final Instant start;
+    private final Instant end;
+    
+    public FreeSlot(long agentId, Instant start, Instant end) {
+        this.agentId = agentId;
+        this.start = start;
+        this.end = end;
+    }
+    
+    public long getAgentId() { return agentId; }
+    
+    public Instant getStart() { return start; }
+    
+    public Instant getEnd() { return end; }
+}
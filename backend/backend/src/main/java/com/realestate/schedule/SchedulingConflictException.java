@@ -0,0 +1,15 @@
+package com.realestate.schedule;
+
+import java.util.List;
+
+public class SchedulingConflictException extends RuntimeException {
+    private final List<Booking> conflicts;
+    
+    public SchedulingConflictException(List<Booking> conflicts) {
+        super("Requested time overlaps " + conflicts.size() + " existing bookings: "
+                + conflicts.stream().map(booking -> booking.getId() + " (" + booking.getStart() + " - " + booking.getEnd() + ")").toList());
+        this.conflicts = conflicts;
+    }
+    
+    public List<Booking> getConflicts() { return conflicts; }
+}
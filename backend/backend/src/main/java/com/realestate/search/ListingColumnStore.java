@@ -0,0 +1,583 @@
+package com.realestate.search;
+
+import com.realestate.dto.ListingSummary;
+import com.realestate.geo.BoundingBox;
+import com.realestate.geo.GeoGridIndex;
+import com.realestate.geo.GeoPoint;
+import com.realestate.model.Property;
+import com.realestate.model.Property.ListingType;
+import com.realestate.model.Property.PropertyCondition;
+import com.realestate.model.Property.PropertyStatus;
+import com.realestate.model.Property.PropertyType;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+/**
+ * Column-oriented copy of the searchable {@link Property} fields. Every listing occupies one
+ * slot across a set of primitive arrays; enum and city/state columns are additionally indexed
+ * as one {@link BitSet} per value so equality filters reduce to bitset intersections.
+ * Coordinates are additionally indexed in a {@link GeoGridIndex} for radius, bounding-box and
+ * nearest-neighbour queries.
+ *
+ * <p>Not thread-safe; {@link ListingSearchEngine} guards access with a read/write lock.
+ */
+public class ListingColumnStore {
+    static final int NULL_INT = Integer.MIN_VALUE;
+    static final long NULL_LONG = Long.MIN_VALUE;
+    private static final byte NULL_ORDINAL = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+    
+    private long[] ids;
+    private long[] priceCents;
+    private int[] bedrooms;
+    private int[] bathrooms;
+    private int[] squareFeet;
+    private int[] yearBuilt;
+    private int[] listingDays;
+    private double[] latitudes;
+    private double[] longitudes;
+    private byte[] propertyTypes;
+    private byte[] listingTypes;
+    private byte[] statuses;
+    private byte[] conditions;
+    private int[] cityCodes;
+    private int[] stateCodes;
+    private String[] titles;
+    private String[] mainImageUrls;
+    private int highWater;
+    
+    private final BitSet live = new BitSet();
+    private final BitSet located = new BitSet();
+    private final BitSet[] propertyTypeBits = newBitSets(PropertyType.values().length);
+    private final BitSet[] listingTypeBits = newBitSets(ListingType.values().length);
+    private final BitSet[] statusBits = newBitSets(PropertyStatus.values().length);
+    private final BitSet[] conditionBits = newBitSets(PropertyCondition.values().length);
+    private final DictionaryColumn cities = new DictionaryColumn();
+    private final DictionaryColumn states = new DictionaryColumn();
+    private final GeoGridIndex geoIndex = new GeoGridIndex();
+    private final Map<Long, Integer> slotsById = new HashMap<>();
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    
+    public ListingColumnStore() {
+        allocate(INITIAL_CAPACITY);
+    }
+    
+    public int size() {
+        return slotsById.size();
+    }
+    
+    public int slotOf(long id) {
+        Integer slot = slotsById.get(id);
+        return slot == null ? -1 : slot;
+    }
+    
+    public long idAt(int slot) {
+        return ids[slot];
+    }
+    
+    public long priceCentsAt(int slot) {
+        return priceCents[slot];
+    }
+    
+    public int bedroomsAt(int slot) {
+        return bedrooms[slot];
+    }
+    
+    public void upsert(Property property) {
+        if (property.getId() == null) {
+            return;
+        }
+        Integer existing = slotsById.get(property.getId());
+        int slot;
+        if (existing != null) {
+            slot = existing;
+            unindex(slot);
+        } else {
+            slot = nextSlot();
+            slotsById.put(property.getId(), slot);
+        }
+        
+        ids[slot] = property.getId();
+        priceCents[slot] = toCents(property.getPrice());
+        bedrooms[slot] = orNull(property.getBedrooms());
+        bathrooms[slot] = orNull(property.getBathrooms());
+        squareFeet[slot] = orNull(property.getSquareFeet());
+        yearBuilt[slot] = orNull(property.getYearBuilt());
+        listingDays[slot] = property.getListingDate() == null
+                ? NULL_INT : (int) property.getListingDate().toEpochDay();
+        titles[slot] = property.getTitle();
+        mainImageUrls[slot] = property.getMainImageUrl();
+        
+        if (property.hasCoordinates()) {
+            latitudes[slot] = property.getLatitude();
+            longitudes[slot] = property.getLongitude();
+            geoIndex.add(slot, latitudes[slot], longitudes[slot]);
+            located.set(slot);
+        } else {
+            latitudes[slot] = Double.NaN;
+            longitudes[slot] = Double.NaN;
+        }
+        propertyTypes[slot] = index(propertyTypeBits, property.getPropertyType(), slot);
+        listingTypes[slot] = index(listingTypeBits, property.getListingType(), slot);
+        statuses[slot] = index(statusBits, property.getStatus(), slot);
+        conditions[slot] = index(conditionBits, property.getPropertyCondition(), slot);
+        cityCodes[slot] = cities.index(property.getCity(), slot);
+        stateCodes[slot] = states.index(property.getState(), slot);
+        live.set(slot);
+    }
+    
+    public boolean remove(long id) {
+        Integer slot = slotsById.remove(id);
+        if (slot == null) {
+            return false;
+        }
+        unindex(slot);
+        live.clear(slot);
+        titles[slot] = null;
+        mainImageUrls[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+        return true;
+    }
+    
+    /**
+     * Returns the slots matching every populated criterion of the query. Enum and dictionary
+     * filters are applied as bitset intersections first; range filters then run as a single
+     * pass over the surviving slots reading the primitive columns directly.
+     */
+    public BitSet filter(ListingQuery query) {
+        BitSet result = indexedMatches(query);
+        IntPredicate ranges = rangeFilter(query);
+        if (ranges == null) {
+            return result;
+        }
+        for (int slot = result.nextSetBit(0); slot >= 0; slot = result.nextSetBit(slot + 1)) {
+            if (!ranges.test(slot)) {
+                result.clear(slot);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Per-slot form of {@link #filter}: the bitset intersections run up front but range
+     * criteria are only evaluated for the slots actually tested. Cheaper than {@link #filter}
+     * when the caller visits a small fraction of the store, as keyword search does.
+     */
+    public IntPredicate matcher(ListingQuery query) {
+        BitSet indexed = indexedMatches(query);
+        IntPredicate ranges = rangeFilter(query);
+        return ranges == null ? indexed::get : slot -> indexed.get(slot) && ranges.test(slot);
+    }
+    
+    private BitSet indexedMatches(ListingQuery query) {
+        BitSet result = (BitSet) live.clone();
+        andAny(result, propertyTypeBits, query.getPropertyTypes());
+        andAny(result, listingTypeBits, query.getListingTypes());
+        andAny(result, statusBits, query.getStatuses());
+        andAny(result, conditionBits, query.getConditions());
+        if (query.getCity() != null && !cities.and(result, query.getCity())) {
+            return new BitSet();
+        }
+        if (query.getState() != null && !states.and(result, query.getState())) {
+            return new BitSet();
+        }
+        BoundingBox box = boundingBox(query);
+        if (box != null) {
+            BitSet nearby = new BitSet();
+            geoIndex.collect(box, nearby);
+            result.and(nearby);
+        }
+        return result;
+    }
+    
+    /** Range and distance criteria of the query as a slot test, or null if it has none. */
+    private IntPredicate rangeFilter(ListingQuery query) {
+        BoundingBox box = boundingBox(query);
+        boolean radius = query.getRadiusKm() != null && query.getLatitude() != null && query.getLongitude() != null;
+        double centerLat = radius ? query.getLatitude() : Double.NaN;
+        double centerLon = radius ? query.getLongitude() : Double.NaN;
+        double radiusKm = radius ? query.getRadiusKm() : Double.NaN;
+        long minPrice = query.getMinPrice() == null ? NULL_LONG : toCents(query.getMinPrice());
+        long maxPrice = query.getMaxPrice() == null ? NULL_LONG : toCents(query.getMaxPrice());
+        int minBeds = orNull(query.getMinBedrooms());
+        int maxBeds = orNull(query.getMaxBedrooms());
+        int minBaths = orNull(query.getMinBathrooms());
+        int maxBaths = orNull(query.getMaxBathrooms());
+        int minSqft = orNull(query.getMinSquareFeet());
+        int maxSqft = orNull(query.getMaxSquareFeet());
+        int minYear = orNull(query.getMinYearBuilt());
+        int maxYear = orNull(query.getMaxYearBuilt());
+        boolean ranged = box != null || minPrice != NULL_LONG || maxPrice != NULL_LONG
+                || minBeds != NULL_INT || maxBeds != NULL_INT
+                || minBaths != NULL_INT || maxBaths != NULL_INT
+                || minSqft != NULL_INT || maxSqft != NULL_INT
+                || minYear != NULL_INT || maxYear != NULL_INT;
+        if (!ranged) {
+            return null;
+        }
+        return slot -> within(priceCents[slot], minPrice, maxPrice)
+                && within(bedrooms[slot], minBeds, maxBeds)
+                && within(bathrooms[slot], minBaths, maxBaths)
+                && within(squareFeet[slot], minSqft, maxSqft)
+                && within(yearBuilt[slot], minYear, maxYear)
+                && (box == null || box.contains(latitudes[slot], longitudes[slot]))
+                && (!radius || GeoPoint.distanceKm(centerLat, centerLon,
+                        latitudes[slot], longitudes[slot]) <= radiusKm);
+    }
+    
+    /**
+     * Selects the first {@code limit} matching slots in the requested order using a bounded
+     * heap, so only the page window is ever sorted.
+     */
+    public int[] topSlots(BitSet matches, int limit, ListingSort sort) {
+        int[] heap = new int[Math.min(limit, matches.cardinality())];
+        if (heap.length == 0) {
+            return heap;
+        }
+        int size = 0;
+        for (int slot = matches.nextSetBit(0); slot >= 0; slot = matches.nextSetBit(slot + 1)) {
+            if (size < heap.length) {
+                heap[size] = slot;
+                siftUp(heap, size++, sort);
+            } else if (compare(slot, heap[0], sort) < 0) {
+                heap[0] = slot;
+                siftDown(heap, size, sort);
+            }
+        }
+        int[] ordered = new int[size];
+        for (int i = size - 1; i >= 0; i--) {
+            ordered[i] = heap[0];
+            heap[0] = heap[--size];
+            siftDown(heap, size, sort);
+        }
+        return ordered;
+    }
+    
+    /**
+     * Finds the {@code limit} slots among {@code allowed} closest to the given point by
+     * expanding rings of grid cells outward until no unvisited ring can hold a closer point, or
+     * every allowed slot with coordinates was seen. Slots without coordinates never qualify.
+     * Returns the slots nearest first; {@code distancesKm} receives the matching distances.
+     */
+    public int[] nearestSlots(BitSet allowed, double latitude, double longitude, int limit, double[] distancesKm) {
+        BitSet candidates = (BitSet) allowed.clone();
+        candidates.and(located);
+        int candidateCount = candidates.cardinality();
+        int capacity = Math.min(limit, candidateCount);
+        int[] heapSlots = new int[capacity];
+        double[] heapDistances = new double[capacity];
+        if (capacity == 0) {
+            return heapSlots;
+        }
+        int[] size = new int[1];
+        int[] seen = new int[1];
+        for (int ring = 0; ring <= geoIndex.maxRing() && seen[0] < candidateCount; ring++) {
+            if (size[0] == capacity && geoIndex.ringLowerBoundKm(latitude, ring) > heapDistances[0]) {
+                break;
+            }
+            geoIndex.visitRing(latitude, longitude, ring, slot -> {
+                if (!candidates.get(slot)) {
+                    return;
+                }
+                seen[0]++;
+                double distance = GeoPoint.distanceKm(latitude, longitude, latitudes[slot], longitudes[slot]);
+                if (size[0] < capacity) {
+                    pushNearest(heapSlots, heapDistances, size[0]++, slot, distance);
+                } else if (distance < heapDistances[0]) {
+                    replaceFarthest(heapSlots, heapDistances, capacity, slot, distance);
+                }
+            });
+        }
+        
+        int count = size[0];
+        int[] ordered = new int[count];
+        for (int i = count - 1; i >= 0; i--) {
+            ordered[i] = heapSlots[0];
+            distancesKm[i] = heapDistances[0];
+            replaceFarthest(heapSlots, heapDistances, i, heapSlots[i], heapDistances[i]);
+        }
+        return ordered;
+    }
+    
+    public PropertyStatus statusAt(int slot) {
+        return statuses[slot] == NULL_ORDINAL ? null : PropertyStatus.values()[statuses[slot]];
+    }
+    
+    public ListingSummary summaryAt(int slot) {
+        return new ListingSummary(
+                ids[slot],
+                titles[slot],
+                priceCents[slot] == NULL_LONG ? null : BigDecimal.valueOf(priceCents[slot], 2),
+                boxed(bedrooms[slot]),
+                boxed(bathrooms[slot]),
+                boxed(squareFeet[slot]),
+                cities.valueOf(cityCodes[slot]),
+                states.valueOf(stateCodes[slot]),
+                propertyTypes[slot] == NULL_ORDINAL ? null : PropertyType.values()[propertyTypes[slot]],
+                listingTypes[slot] == NULL_ORDINAL ? null : ListingType.values()[listingTypes[slot]],
+                statuses[slot] == NULL_ORDINAL ? null : PropertyStatus.values()[statuses[slot]],
+                mainImageUrls[slot]);
+    }
+    
+    static long toCents(BigDecimal amount) {
+        if (amount == null) {
+            return NULL_LONG;
+        }
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+    
+    private int compare(int left, int right, ListingSort sort) {
+        int result;
+        switch (sort) {
+            case PRICE_ASC:
+                result = Long.compare(priceCents[left], priceCents[right]);
+                break;
+            case PRICE_DESC:
+                result = Long.compare(priceCents[right], priceCents[left]);
+                break;
+            default:
+                result = Integer.compare(listingDays[right], listingDays[left]);
+        }
+        return result != 0 ? result : Long.compare(ids[right], ids[left]);
+    }
+    
+    // Max-heap on sort order: the root is the slot that would be listed last.
+    private void siftUp(int[] heap, int index, ListingSort sort) {
+        int slot = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (compare(slot, heap[parent], sort) <= 0) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = slot;
+    }
+    
+    private void siftDown(int[] heap, int size, ListingSort sort) {
+        if (size == 0) {
+            return;
+        }
+        int slot = heap[0];
+        int index = 0;
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && compare(heap[child + 1], heap[child], sort) > 0) {
+                child++;
+            }
+            if (compare(slot, heap[child], sort) >= 0) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = slot;
+    }
+    
+    // Max-heap on distance, root is the farthest of the current nearest candidates.
+    private static void pushNearest(int[] slots, double[] distances, int index, int slot, double distance) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (distances[parent] >= distance) {
+                break;
+            }
+            slots[index] = slots[parent];
+            distances[index] = distances[parent];
+            index = parent;
+        }
+        slots[index] = slot;
+        distances[index] = distance;
+    }
+    
+    private static void replaceFarthest(int[] slots, double[] distances, int size, int slot, double distance) {
+        int index = 0;
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && distances[child + 1] > distances[child]) {
+                child++;
+            }
+            if (distance >= distances[child]) {
+                break;
+            }
+            slots[index] = slots[child];
+            distances[index] = distances[child];
+            index = child;
+        }
+        if (size > 0) {
+            slots[index] = slot;
+            distances[index] = distance;
+        }
+    }
+    
+    private static BoundingBox boundingBox(ListingQuery query) {
+        if (query.getMinLatitude() != null && query.getMaxLatitude() != null
+                && query.getMinLongitude() != null && query.getMaxLongitude() != null) {
+            return new BoundingBox(query.getMinLatitude(), query.getMaxLatitude(),
+                    query.getMinLongitude(), query.getMaxLongitude());
+        }
+        if (query.getRadiusKm() != null && query.getLatitude() != null && query.getLongitude() != null) {
+            return BoundingBox.around(query.getLatitude(), query.getLongitude(), query.getRadiusKm());
+        }
+        return null;
+    }
+    
+    private void unindex(int slot) {
+        if (!Double.isNaN(latitudes[slot])) {
+            geoIndex.remove(slot, latitudes[slot], longitudes[slot]);
+            located.clear(slot);
+        }
+        clearOrdinal(propertyTypeBits, propertyTypes[slot], slot);
+        clearOrdinal(listingTypeBits, listingTypes[slot], slot);
+        clearOrdinal(statusBits, statuses[slot], slot);
+        clearOrdinal(conditionBits, conditions[slot], slot);
+        cities.clear(cityCodes[slot], slot);
+        states.clear(stateCodes[slot], slot);
+    }
+    
+    private int nextSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (highWater == ids.length) {
+            allocate(ids.length * 2);
+        }
+        return highWater++;
+    }
+    
+    private void allocate(int capacity) {
+        ids = ids == null ? new long[capacity] : Arrays.copyOf(ids, capacity);
+        priceCents = priceCents == null ? new long[capacity] : Arrays.copyOf(priceCents, capacity);
+        bedrooms = bedrooms == null ? new int[capacity] : Arrays.copyOf(bedrooms, capacity);
+        bathrooms = bathrooms == null ? new int[capacity] : Arrays.copyOf(bathrooms, capacity);
+        squareFeet = squareFeet == null ? new int[capacity] : Arrays.copyOf(squareFeet, capacity);
+        yearBuilt = yearBuilt == null ? new int[capacity] : Arrays.copyOf(yearBuilt, capacity);
+        listingDays = listingDays == null ? new int[capacity] : Arrays.copyOf(listingDays, capacity);
+        latitudes = latitudes == null ? new double[capacity] : Arrays.copyOf(latitudes, capacity);
+        longitudes = longitudes == null ? new double[capacity] : Arrays.copyOf(longitudes, capacity);
+        propertyTypes = propertyTypes == null ? new byte[capacity] : Arrays.copyOf(propertyTypes, capacity);
+        listingTypes = listingTypes == null ? new byte[capacity] : Arrays.copyOf(listingTypes, capacity);
+        statuses = statuses == null ? new byte[capacity] : Arrays.copyOf(statuses, capacity);
+        conditions = conditions == null ? new byte[capacity] : Arrays.copyOf(conditions, capacity);
+        cityCodes = cityCodes == null ? new int[capacity] : Arrays.copyOf(cityCodes, capacity);
+        stateCodes = stateCodes == null ? new int[capacity] : Arrays.copyOf(stateCodes, capacity);
+        titles = titles == null ? new String[capacity] : Arrays.copyOf(titles, capacity);
+        mainImageUrls = mainImageUrls == null ? new String[capacity] : Arrays.copyOf(mainImageUrls, capacity);
+    }
+    
+    private static boolean within(long value, long min, long max) {
+        if (min == NULL_LONG && max == NULL_LONG) {
+            return true;
+        }
+        return value != NULL_LONG && (min == NULL_LONG || value >= min) && (max == NULL_LONG || value <= max);
+    }
+    
+    private static boolean within(int value, int min, int max) {
+        if (min == NULL_INT && max == NULL_INT) {
+            return true;
+        }
+        return value != NULL_INT && (min == NULL_INT || value >= min) && (max == NULL_INT || value <= max);
+    }
+    
+    private static <E extends Enum<E>> void andAny(BitSet result, BitSet[] bitsByOrdinal, Set<E> values) {
+        if (values == null || values.isEmpty()) {
+            return;
+        }
+        BitSet union = new BitSet();
+        for (E value : values) {
+            union.or(bitsByOrdinal[value.ordinal()]);
+        }
+        result.and(union);
+    }
+    
+    private static byte index(BitSet[] bitsByOrdinal, Enum<?> value, int slot) {
+        if (value == null) {
+            return NULL_ORDINAL;
+        }
+        bitsByOrdinal[value.ordinal()].set(slot);
+        return (byte) value.ordinal();
+    }
+    
+    private static void clearOrdinal(BitSet[] bitsByOrdinal, byte ordinal, int slot) {
+        if (ordinal != NULL_ORDINAL) {
+            bitsByOrdinal[ordinal].clear(slot);
+        }
+    }
+    
+    private static BitSet[] newBitSets(int count) {
+        BitSet[] bitSets = new BitSet[count];
+        for (int i = 0; i < count; i++) {
+            bitSets[i] = new BitSet();
+        }
+        return bitSets;
+    }
+    
+    private static int orNull(Integer value) {
+        return value == null ? NULL_INT : value;
+    }
+    
+    private static Integer boxed(int value) {
+        return value == NULL_INT ? null : value;
+    }
+    
+    /**
+     * Low-cardinality string column (city, state) stored as dictionary codes, with one bitset
+     * of slots per distinct value. Lookups are case-insensitive; the first spelling seen is kept
+     * for display.
+     */
+    private static class DictionaryColumn {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private final List<BitSet> slots = new ArrayList<>();
+        
+        int index(String value, int slot) {
+            if (value == null) {
+                return NULL_INT;
+            }
+            String key = value.trim().toLowerCase(Locale.ROOT);
+            Integer code = codes.get(key);
+            if (code == null) {
+                code = values.size();
+                codes.put(key, code);
+                values.add(value.trim());
+                slots.add(new BitSet());
+            }
+            slots.get(code).set(slot);
+            return code;
+        }
+        
+        void clear(int code, int slot) {
+            if (code != NULL_INT) {
+                slots.get(code).clear(slot);
+            }
+        }
+        
+        boolean and(BitSet result, String value) {
+            Integer code = codes.get(value.trim().toLowerCase(Locale.ROOT));
+            if (code == null) {
+                return false;
+            }
+            result.and(slots.get(code));
+            return true;
+        }
+        
+        String valueOf(int code) {
+            return code == NULL_INT ? null : values.get(code);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.realestate.search;
+
+import com.realestate.model.Property.ListingType;
+import com.realestate.model.Property.PropertyCondition;
+import com.realestate.model.Property.PropertyStatus;
+import com.realestate.model.Property.PropertyType;
+import java.math.BigDecimal;
+import java.util.Set;
+
+public class ListingQuery {
+    private String city;
+    private String state;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private Integer minBedrooms;
+    private Integer maxBedrooms;
+    private Integer minBathrooms;
+    private Integer maxBathrooms;
+    private Integer minSquareFeet;
+    private Integer maxSquareFeet;
+    private Integer minYearBuilt;
+    private Integer maxYearBuilt;
+    private Set<PropertyType> propertyTypes;
+    private Set<ListingType> listingTypes;
+    private Set<PropertyStatus> statuses;
+    private Set<PropertyCondition> conditions;
+    private Double latitude;
+    private Double longitude;
+    private Double radiusKm;
+    private Double minLatitude;
+    private Double maxLatitude;
+    private Double minLongitude;
+    private Double maxLongitude;
+    private ListingSort sort = ListingSort.NEWEST;
+    
+    public String getCity() { return city; }
+    public void setCity(String city) { this.city = city; }
+    
+    public String getState() { return state; }
+    public void setState(String state) { this.state = state; }
+    
+    public BigDecimal getMinPrice() { return minPrice; }
+    public void setMinPrice(BigDecimal minPrice) { this.minPrice = minPrice; }
+    
+    public BigDecimal getMaxPrice() { return maxPrice; }
+    public void setMaxPrice(BigDecimal maxPrice) { this.maxPrice = maxPrice; }
+    
+    public Integer getMinBedrooms() { return minBedrooms; }
+    public void setMinBedrooms(Integer minBedrooms) { this.minBedrooms = minBedrooms; }
+    
+    public Integer getMaxBedrooms() { return maxBedrooms; }
+    public void setMaxBedrooms(Integer maxBedrooms) { this.maxBedrooms = maxBedrooms; }
+    
+    public Integer getMinBathrooms() { return minBathrooms; }
+    public void setMinBathrooms(Integer minBathrooms) { this.minBathrooms = minBathrooms; }
+    
+    public Integer getMaxBathrooms() { return maxBathrooms; }
+    public void setMaxBathrooms(Integer maxBathrooms) { this.maxBathrooms = maxBathrooms; }
+    
+    public Integer getMinSquareFeet() { return minSquareFeet; }
+    public void setMinSquareFeet(Integer minSquareFeet) { this.minSquareFeet = minSquareFeet; }
+    
+    public Integer getMaxSquareFeet() { return maxSquareFeet; }
+    public void setMaxSquareFeet(Integer maxSquareFeet) { this.maxSquareFeet = maxSquareFeet; }
+    
+    public Integer getMinYearBuilt() { return minYearBuilt; }
+    public void setMinYearBuilt(Integer minYearBuilt) { this.minYearBuilt = minYearBuilt; }
+    
+    public Integer getMaxYearBuilt() { return maxYearBuilt; }
+    public void setMaxYearBuilt(Integer maxYearBuilt) { this.maxYearBuilt = maxYearBuilt; }
+    
+    public Set<PropertyType> getPropertyTypes() { return propertyTypes; }
+    public void setPropertyTypes(Set<PropertyType> propertyTypes) { this.propertyTypes = propertyTypes; }
+    
+    public Set<ListingType> getListingTypes() { return listingTypes; }
+    public void setListingTypes(Set<ListingType> listingTypes) { this.listingTypes = listingTypes; }
+    
+    public Set<PropertyStatus> getStatuses() { return statuses; }
+    public void setStatuses(Set<PropertyStatus> statuses) { this.statuses = statuses; }
+    
+    public Set<PropertyCondition> getConditions() { return conditions; }
+    public void setConditions(Set<PropertyCondition> conditions) { this.conditions = conditions; }
+    
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+    
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
+    
+    public Double getRadiusKm() { return radiusKm; }
+    public void setRadiusKm(Double radiusKm) { this.radiusKm = radiusKm; }
+    
+    public Double getMinLatitude() { return minLatitude; }
+    public void setMinLatitude(Double minLatitude) { this.minLatitude = minLatitude; }
+    
+    public Double getMaxLatitude() { return maxLatitude; }
+    public void setMaxLatitude(Double maxLatitude) { this.maxLatitude = maxLatitude; }
+    
+    public Double getMinLongitude() { return minLongitude; }
+    public void setMinLongitude(Double minLongitude) { this.minLongitude = minLongitude; }
+    
+    public Double getMaxLongitude() { return maxLongitude; }
+    public void setMaxLongitude(Double maxLongitude) { this.maxLongitude = maxLongitude; }
+    
+    public ListingSort getSort() { return sort; }
+    public void setSort(ListingSort sort) { this.sort = sort; }
+}
@@ -0,0 +1,306 @@
+package com.realestate.search;
+
+import com.realestate.dto.ListingSummary;
+import com.realestate.dto.NearbyListing;
+import com.realestate.dto.RankedListing;
+import com.realestate.event.EntityChangeType;
+import com.realestate.event.ListingStatusChangedEvent;
+import com.realestate.event.PropertyChangedEvent;
+import com.realestate.model.Property;
+import com.realestate.model.Property.PropertyStatus;
+import com.realestate.search.text.ListingTextIndex;
+import com.realestate.search.text.TextHits;
+import com.realestate.search.text.TextQuery;
+import com.realestate.startup.ListingSink;
+import com.realestate.startup.WarmBootSnapshot;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Serves faceted listing searches from an in-memory {@link ListingColumnStore} instead of the
+ * database, and keyword searches from a {@link ListingTextIndex} addressed by the same slots.
+ * Both are loaded at startup, from the {@link WarmBootSnapshot} when warm boot is enabled, and
+ * then follow committed writes through {@link PropertyChangedEvent}s; changes committed while
+ * a rebuild loads are applied to the live index and replayed into the rebuilt one before it
+ * replaces it, so none is lost with the swap. As the index knows each
+ * listing's last committed status, it also announces status transitions as
+ * {@link ListingStatusChangedEvent}s.
+ */
+@Service
+public class ListingSearchEngine {
+    private static final Logger log = LoggerFactory.getLogger(ListingSearchEngine.class);
+    
+    private final WarmBootSnapshot warmBoot;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private ListingColumnStore store = new ListingColumnStore();
+    private ListingTextIndex textIndex = new ListingTextIndex();
+    /** Changes applied since the running rebuild started, or {@code null} when none runs. */
+    private List<Change> changedDuringRebuild;
+    
+    public ListingSearchEngine(WarmBootSnapshot warmBoot, ApplicationEventPublisher eventPublisher) {
+        this.warmBoot = warmBoot;
+        this.eventPublisher = eventPublisher;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.nanoTime();
+        ListingColumnStore rebuilt = new ListingColumnStore();
+        ListingTextIndex rebuiltText = new ListingTextIndex();
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        boolean loaded = false;
+        try {
+            load(rebuilt, rebuiltText);
+            loaded = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (loaded) {
+                    for (Change change : changedDuringRebuild) {
+                        if (change.listing() == null) {
+                            remove(rebuilt, rebuiltText, change.id());
+                        } else {
+                            upsert(rebuilt, rebuiltText, change.listing());
+                        }
+                    }
+                    store = rebuilt;
+                    textIndex = rebuiltText;
+                }
+                changedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Indexed {} listings ({} terms) for search in {} ms",
+                rebuilt.size(), rebuiltText.termCount(), (System.nanoTime() - started) / 1_000_000);
+    }
+    
+    private void load(ListingColumnStore rebuilt, ListingTextIndex rebuiltText) {
+        warmBoot.load("search", new ListingSink() {
+            @Override
+            public void upsert(Property property) {
+                ListingSearchEngine.upsert(rebuilt, rebuiltText, property);
+            }
+            
+            @Override
+            public void remove(long id) {
+                ListingSearchEngine.remove(rebuilt, rebuiltText, id);
+            }
+        });
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPropertyChanged(PropertyChangedEvent event) {
+        Property property = event.getProperty();
+        ListingStatusChangedEvent statusChange = null;
+        lock.writeLock().lock();
+        try {
+            if (changedDuringRebuild != null && property.getId() != null) {
+                changedDuringRebuild.add(new Change(property.getId(),
+                        event.getChangeType() == EntityChangeType.DELETED ? null : indexedCopy(property)));
+            }
+            if (event.getChangeType() == EntityChangeType.DELETED) {
+                remove(store, textIndex, property.getId());
+            } else {
+                int slot = store.slotOf(property.getId());
+                PropertyStatus previous = slot >= 0 ? store.statusAt(slot) : null;
+                upsert(store, textIndex, property);
+                slot = store.slotOf(property.getId());
+                if (slot >= 0 && !Objects.equals(previous, store.statusAt(slot))) {
+                    statusChange = new ListingStatusChangedEvent(store.summaryAt(slot), previous, Instant.now());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (statusChange != null) {
+            eventPublisher.publishEvent(statusChange);
+        }
+    }
+    
+    public Page<ListingSummary> search(ListingQuery query, Pageable pageable) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = store.filter(query);
+            int total = matches.cardinality();
+            int from = (int) Math.min(pageable.getOffset(), total);
+            int[] slots = store.topSlots(matches, from + pageable.getPageSize(), query.getSort());
+            List<ListingSummary> content = new ArrayList<>(Math.max(slots.length - from, 0));
+            for (int i = from; i < slots.length; i++) {
+                content.add(store.summaryAt(slots[i]));
+            }
+            return new PageImpl<>(content, pageable, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Ids of up to {@code limit} listings matching the query, in its sort order. Together with
+     * {@link #summaries} this lets callers hand out a large result in chunks without holding
+     * the index lock in between.
+     */
+    public long[] matchingIds(ListingQuery query, int limit) {
+        lock.readLock().lock();
+        try {
+            int[] slots = store.topSlots(store.filter(query), limit, query.getSort());
+            long[] ids = new long[slots.length];
+            for (int i = 0; i < slots.length; i++) {
+                ids[i] = store.idAt(slots[i]);
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /** Current summaries of {@code ids[from, to)}, skipping listings deleted since. */
+    public List<ListingSummary> summaries(long[] ids, int from, int to) {
+        lock.readLock().lock();
+        try {
+            List<ListingSummary> summaries = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                int slot = store.slotOf(ids[i]);
+                if (slot >= 0) {
+                    summaries.add(store.summaryAt(slot));
+                }
+            }
+            return summaries;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns up to {@code limit} listings matching the query filters, nearest to the given
+     * point first. Any radius or bounding box on the query further restricts the candidates.
+     */
+    public List<NearbyListing> nearest(ListingQuery query, double latitude, double longitude, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = store.filter(query);
+            double[] distances = new double[Math.min(limit, matches.cardinality())];
+            int[] slots = store.nearestSlots(matches, latitude, longitude, limit, distances);
+            List<NearbyListing> nearby = new ArrayList<>(slots.length);
+            for (int i = 0; i < slots.length; i++) {
+                nearby.add(new NearbyListing(store.summaryAt(slots[i]), distances[i]));
+            }
+            return nearby;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Ranks listings matching the keyword query and the structured filters of {@code query} by
+     * relevance. Without any keywords this is a plain filtered search with zero scores. Listings
+     * that cannot score into the requested page are skipped uncounted, so the page total may be
+     * a lower bound, see {@link TextHits}.
+     */
+    public Page<RankedListing> searchText(String keywords, ListingQuery query, Pageable pageable) {
+        TextQuery textQuery = TextQuery.parse(keywords);
+        if (textQuery.isEmpty()) {
+            return search(query, pageable).map(summary -> new RankedListing(summary, 0));
+        }
+        lock.readLock().lock();
+        try {
+            int from = (int) Math.min(pageable.getOffset(), Integer.MAX_VALUE);
+            TextHits hits = textIndex.search(textQuery, store.matcher(query), from + pageable.getPageSize());
+            List<RankedListing> content = new ArrayList<>(Math.max(hits.size() - from, 0));
+            for (int i = from; i < hits.size(); i++) {
+                content.add(new RankedListing(store.summaryAt(hits.slotAt(i)), hits.scoreAt(i)));
+            }
+            return new PageImpl<>(content, pageable, hits.getTotalHits());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public List<String> suggest(String prefix, int limit) {
+        lock.readLock().lock();
+        try {
+            return textIndex.suggest(prefix, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return store.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * A detached copy of the fields the column store and the text index read, taken when the
+     * change arrives: the entity stays attached to its session and may have changed again by
+     * the time a rebuild replays it.
+     */
+    private static Property indexedCopy(Property property) {
+        Property copy = new Property();
+        copy.setId(property.getId());
+        copy.setTitle(property.getTitle());
+        copy.setDescription(property.getDescription());
+        copy.setPropertyFeatures(property.getPropertyFeatures());
+        copy.setAppliancesIncluded(property.getAppliancesIncluded());
+        copy.setMainImageUrl(property.getMainImageUrl());
+        copy.setCity(property.getCity());
+        copy.setState(property.getState());
+        copy.setLatitude(property.getLatitude());
+        copy.setLongitude(property.getLongitude());
+        copy.setPropertyType(property.getPropertyType());
+        copy.setListingType(property.getListingType());
+        copy.setStatus(property.getStatus());
+        copy.setPropertyCondition(property.getPropertyCondition());
+        copy.setPrice(property.getPrice());
+        copy.setBedrooms(property.getBedrooms());
+        copy.setBathrooms(property.getBathrooms());
+        copy.setSquareFeet(property.getSquareFeet());
+        copy.setYearBuilt(property.getYearBuilt());
+        copy.setListingDate(property.getListingDate());
+        return copy;
+    }
+    
+    private static void upsert(ListingColumnStore store, ListingTextIndex textIndex, Property property) {
+        if (property.getId() == null) {
+            return;
+        }
+        store.upsert(property);
+        textIndex.index(store.slotOf(property.getId()), property);
+    }
+    
+    private static void remove(ListingColumnStore store, ListingTextIndex textIndex, long id) {
+        int slot = store.slotOf(id);
+        if (slot >= 0) {
+            textIndex.remove(slot);
+            store.remove(id);
+        }
+    }
+    
+    /** A change applied during a rebuild; {@code listing} is null for a deletion. */
+    private record Change(long id, Property listing) {
+    }
+}
@@ -0,0 +1,5 @@
+package com.realestate.search;
+
+public enum ListingSort {
+    NEWEST, PRICE_ASC, PRICE_DESC
+}
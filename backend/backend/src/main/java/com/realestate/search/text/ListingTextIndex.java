@@ -0,0 +1,736 @@
+package com.realestate.search.text;
+
+import com.realestate.model.Property;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.IntPredicate;
+
+/**
+ * Inverted index over the free-text fields of listings (title, features, appliances and
+ * description), addressed by column store slot so matches can be checked against the store's
+ * structured filter bitset directly.
+ *
+ * <p>Documents get increasing internal ids so posting lists stay sorted and delta-coded. An
+ * update tombstones the slot's previous document and appends a new one, and the index compacts
+ * itself once a quarter of its documents are tombstones. Positions of field {@code f} start at
+ * {@code f << 12}, which keeps phrases from matching across fields and tells indexing which
+ * field boost each occurrence earns; the boosted frequency is stored with the posting so
+ * scoring (a simplified BM25F) never decodes positions.
+ *
+ * <p>Clauses are intersected rarest first. Once the best {@code limit} documents are collected,
+ * whatever cannot beat the k-th best is skipped: whole posting blocks whose summed score bound
+ * falls short are passed over undecoded, and a document's phrase positions are verified only
+ * if its score bound, exact for the plain terms, could still beat it. Skipped documents are not
+ * counted, so the reported total of such a search is a lower bound.
+ *
+ * <p>Not thread-safe; {@code ListingSearchEngine} guards access with its read/write lock.
+ */
+public class ListingTextIndex {
+    private static final int FIELD_SHIFT = 12;
+    private static final int MAX_FIELD_TERMS = (1 << FIELD_SHIFT) - 2;
+    private static final float[] FIELD_BOOSTS = {3.0f, 1.5f, 1.0f, 1.0f};
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int COMPACT_MIN_DELETED = 1024;
+    private static final int INITIAL_CAPACITY = 1024;
+    
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private volatile String[] sortedTerms;
+    private int[] docSlots = new int[INITIAL_CAPACITY];
+    private float[] docLengths = new float[INITIAL_CAPACITY];
+    private int docCount;
+    private final BitSet deleted = new BitSet();
+    private int deletedCount;
+    private double totalLength;
+    private int[] slotDocs = new int[0];
+    private long[] slotHashes = new long[0];
+    
+    /** Live documents, excluding tombstones. */
+    public int size() {
+        return docCount - deletedCount;
+    }
+    
+    public int termCount() {
+        return postings.size();
+    }
+    
+    public long sizeInBytes() {
+        long bytes = 8L * docSlots.length + 12L * slotDocs.length;
+        for (PostingList list : postings.values()) {
+            bytes += list.sizeInBytes();
+        }
+        return bytes;
+    }
+    
+    /**
+     * Indexes the listing's text under {@code slot}, replacing what the slot held before. A
+     * listing whose text fields are unchanged is skipped, so price or status updates do not
+     * churn the index.
+     */
+    public void index(int slot, Property property) {
+        String[] fields = {property.getTitle(), property.getPropertyFeatures(),
+                property.getAppliancesIncluded(), property.getDescription()};
+        long hash = hash(fields);
+        ensureSlotCapacity(slot);
+        int previous = slotDocs[slot];
+        if (previous >= 0 && slotHashes[slot] == hash) {
+            return;
+        }
+        if (previous >= 0) {
+            tombstone(previous);
+        }
+        
+        int doc = docCount++;
+        ensureDocCapacity(doc);
+        Map<String, TermPositions> terms = new HashMap<>();
+        float length = 0;
+        for (int field = 0; field < fields.length; field++) {
+            int base = field << FIELD_SHIFT;
+            int count = TextAnalyzer.analyze(fields[field], MAX_FIELD_TERMS,
+                    (term, position) -> terms.computeIfAbsent(term, t -> new TermPositions()).add(base + position));
+            length += count * FIELD_BOOSTS[field];
+        }
+        for (Map.Entry<String, TermPositions> entry : terms.entrySet()) {
+            PostingList list = postings.get(entry.getKey());
+            if (list == null) {
+                list = new PostingList();
+                postings.put(entry.getKey(), list);
+                sortedTerms = null;
+            }
+            TermPositions positions = entry.getValue();
+            list.add(doc, positions.positions, positions.size, weightedFreq(positions.positions, positions.size),
+                    length);
+        }
+        docSlots[doc] = slot;
+        docLengths[doc] = length;
+        slotDocs[slot] = doc;
+        slotHashes[slot] = hash;
+        totalLength += length;
+        maybeCompact();
+    }
+    
+    public void remove(int slot) {
+        if (slot < slotDocs.length && slotDocs[slot] >= 0) {
+            tombstone(slotDocs[slot]);
+            slotDocs[slot] = -1;
+            maybeCompact();
+        }
+    }
+    
+    /**
+     * Ranks the documents matching every clause of the query whose slot passes
+     * {@code allowedSlots} and returns the best {@code limit}.
+     */
+    public TextHits search(TextQuery query, IntPredicate allowedSlots, int limit) {
+        int live = size();
+        if (query.isEmpty() || live == 0) {
+            return TextHits.EMPTY;
+        }
+        List<Clause> clauses = new ArrayList<>();
+        for (String term : query.getTerms()) {
+            PostingList list = postings.get(term);
+            if (list == null) {
+                return TextHits.EMPTY;
+            }
+            clauses.add(new TermClause(list.iterator(), idf(list.docCount(), live)));
+        }
+        for (String prefix : query.getPrefixes()) {
+            List<String> expansions = topTermsWithPrefix(prefix, MAX_PREFIX_EXPANSIONS);
+            if (expansions.isEmpty()) {
+                return TextHits.EMPTY;
+            }
+            PostingIterator[] iterators = new PostingIterator[expansions.size()];
+            float[] idfs = new float[expansions.size()];
+            for (int i = 0; i < iterators.length; i++) {
+                PostingList list = postings.get(expansions.get(i));
+                iterators[i] = list.iterator();
+                idfs[i] = idf(list.docCount(), live);
+            }
+            clauses.add(new DisjunctionClause(iterators, idfs));
+        }
+        for (List<String> phrase : query.getPhrases()) {
+            PostingIterator[] iterators = new PostingIterator[phrase.size()];
+            float idf = 0;
+            for (int i = 0; i < iterators.length; i++) {
+                PostingList list = postings.get(phrase.get(i));
+                if (list == null) {
+                    return TextHits.EMPTY;
+                }
+                iterators[i] = list.iterator();
+                idf += idf(list.docCount(), live);
+            }
+            clauses.add(new PhraseClause(iterators, idf));
+        }
+        clauses.sort(Comparator.comparingLong(Clause::cost));
+        return collect(clauses, allowedSlots, limit, (float) (totalLength / live));
+    }
+    
+    /** Most frequent indexed terms starting with the prefix, most frequent first. */
+    public List<String> suggest(String prefix, int limit) {
+        String normalized = TextAnalyzer.normalizePrefix(prefix);
+        return normalized.isEmpty() ? List.of() : topTermsWithPrefix(normalized, limit);
+    }
+    
+    private TextHits collect(List<Clause> clauses, IntPredicate allowedSlots, int limit, float averageLength) {
+        int clauseCount = clauses.size();
+        Clause lead = clauses.get(0);
+        int[] heapDocs = new int[Math.max(limit, 1)];
+        float[] heapScores = new float[heapDocs.length];
+        int heapSize = 0;
+        int total = 0;
+        boolean skipped = false;
+        // Score bounds of the clauses after clause i over the current block range, summed
+        float[] blockBoundsAfter = new float[clauseCount + 1];
+        int blockEnd = -1;
+        int doc = lead.nextDoc();
+        outer:
+        while (doc != PostingIterator.NO_MORE_DOCS) {
+            boolean full = limit > 0 && heapSize == limit;
+            float norm = norm(docLengths[doc], averageLength);
+            if (full) {
+                if (doc > blockEnd) {
+                    // The range ends with the lead's block; the other clauses are bounded over it
+                    blockEnd = lead.shallowAdvance(doc);
+                    for (int i = clauseCount - 1; i >= 0; i--) {
+                        Clause clause = clauses.get(i);
+                        if (i > 0) {
+                            clause.shallowAdvance(doc);
+                        }
+                        blockBoundsAfter[i] = blockBoundsAfter[i + 1] + clause.maxScore(blockEnd, averageLength);
+                    }
+                }
+                if (blockBoundsAfter[0] <= heapScores[0]) {
+                    skipped = true;
+                    if (blockEnd == PostingIterator.NO_MORE_DOCS) {
+                        break;
+                    }
+                    doc = lead.advance(blockEnd + 1);
+                    continue;
+                }
+            }
+            // Clauses are aligned cheapest first; once one is on the document its own bound
+            // replaces the block bound, and the document is dropped as soon as it cannot compete
+            float bound = 0;
+            if (full) {
+                bound = lead.maxScore(norm);
+                if (bound + blockBoundsAfter[1] <= heapScores[0]) {
+                    skipped = true;
+                    doc = lead.nextDoc();
+                    continue;
+                }
+            }
+            if (deleted.get(doc) || !allowedSlots.test(docSlots[doc])) {
+                doc = lead.nextDoc();
+                continue;
+            }
+            for (int i = 1; i < clauseCount; i++) {
+                Clause clause = clauses.get(i);
+                if (clause.docID() != doc) {
+                    int next = clause.docID() < doc ? clause.advance(doc) : clause.docID();
+                    if (next != doc) {
+                        doc = lead.advance(next);
+                        continue outer;
+                    }
+                }
+                if (full) {
+                    bound += clause.maxScore(norm);
+                    if (bound + blockBoundsAfter[i + 1] <= heapScores[0]) {
+                        skipped = true;
+                        doc = lead.nextDoc();
+                        continue outer;
+                    }
+                }
+            }
+            if (matches(clauses)) {
+                total++;
+                if (limit > 0) {
+                    float score = 0;
+                    for (int i = 0; i < clauseCount; i++) {
+                        score += clauses.get(i).score(norm);
+                    }
+                    if (heapSize < limit) {
+                        heapDocs[heapSize] = doc;
+                        heapScores[heapSize] = score;
+                        siftUp(heapDocs, heapScores, heapSize++);
+                    } else if (score > heapScores[0]) {
+                        heapDocs[0] = doc;
+                        heapScores[0] = score;
+                        siftDown(heapDocs, heapScores, heapSize);
+                    }
+                }
+            }
+            doc = lead.nextDoc();
+        }
+        int[] slots = new int[heapSize];
+        float[] scores = new float[heapSize];
+        for (int i = heapSize - 1; i >= 0; i--) {
+            slots[i] = docSlots[heapDocs[0]];
+            scores[i] = heapScores[0];
+            heapDocs[0] = heapDocs[i];
+            heapScores[0] = heapScores[i];
+            siftDown(heapDocs, heapScores, i);
+        }
+        return new TextHits(slots, scores, total, !skipped);
+    }
+    
+    private static boolean matches(List<Clause> clauses) {
+        for (int i = 0; i < clauses.size(); i++) {
+            if (!clauses.get(i).matches()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private List<String> topTermsWithPrefix(String prefix, int limit) {
+        String[] terms = sortedTerms();
+        int from = Arrays.binarySearch(terms, prefix);
+        from = from < 0 ? -from - 1 : from;
+        Comparator<String> byDocCount = Comparator.comparingInt(term -> postings.get(term).docCount());
+        PriorityQueue<String> top = new PriorityQueue<>(byDocCount);
+        for (int i = from; i < terms.length && terms[i].startsWith(prefix); i++) {
+            top.add(terms[i]);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        List<String> result = new ArrayList<>(top);
+        result.sort(byDocCount.reversed().thenComparing(Comparator.naturalOrder()));
+        return result;
+    }
+    
+    /** Sorted term dictionary for prefix lookups, rebuilt lazily after new terms arrive. */
+    private String[] sortedTerms() {
+        String[] terms = sortedTerms;
+        if (terms == null) {
+            terms = postings.keySet().toArray(new String[0]);
+            Arrays.sort(terms);
+            sortedTerms = terms;
+        }
+        return terms;
+    }
+    
+    private void tombstone(int doc) {
+        deleted.set(doc);
+        deletedCount++;
+        totalLength -= docLengths[doc];
+    }
+    
+    private void maybeCompact() {
+        if (deletedCount >= COMPACT_MIN_DELETED && deletedCount * 4L >= docCount) {
+            compact();
+        }
+    }
+    
+    /** Rewrites every posting list without tombstoned documents and renumbers the survivors. */
+    private void compact() {
+        int[] remap = new int[docCount];
+        int live = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            remap[doc] = deleted.get(doc) ? -1 : live++;
+        }
+        int[] compactedSlots = new int[Math.max(INITIAL_CAPACITY, live)];
+        float[] compactedLengths = new float[compactedSlots.length];
+        for (int doc = 0; doc < docCount; doc++) {
+            if (remap[doc] >= 0) {
+                compactedSlots[remap[doc]] = docSlots[doc];
+                compactedLengths[remap[doc]] = docLengths[doc];
+                slotDocs[docSlots[doc]] = remap[doc];
+            }
+        }
+        int[] buffer = new int[16];
+        Iterator<Map.Entry<String, PostingList>> entries = postings.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<String, PostingList> entry = entries.next();
+            PostingList rebuilt = new PostingList();
+            PostingIterator iterator = entry.getValue().iterator();
+            for (int doc = iterator.nextDoc(); doc != PostingIterator.NO_MORE_DOCS; doc = iterator.nextDoc()) {
+                if (remap[doc] >= 0) {
+                    buffer = iterator.positions(buffer);
+                    rebuilt.add(remap[doc], buffer, iterator.freq(), iterator.weightedFreq(), compactedLengths[remap[doc]]);
+                }
+            }
+            if (rebuilt.docCount() == 0) {
+                entries.remove();
+                sortedTerms = null;
+            } else {
+                rebuilt.trim();
+                entry.setValue(rebuilt);
+            }
+        }
+        docSlots = compactedSlots;
+        docLengths = compactedLengths;
+        docCount = live;
+        deleted.clear();
+        deletedCount = 0;
+    }
+    
+    private void ensureDocCapacity(int doc) {
+        if (doc == docSlots.length) {
+            docSlots = Arrays.copyOf(docSlots, doc * 2);
+            docLengths = Arrays.copyOf(docLengths, doc * 2);
+        }
+    }
+    
+    private void ensureSlotCapacity(int slot) {
+        if (slot >= slotDocs.length) {
+            int capacity = Math.max(INITIAL_CAPACITY, Math.max(slot + 1, slotDocs.length * 2));
+            int from = slotDocs.length;
+            slotDocs = Arrays.copyOf(slotDocs, capacity);
+            slotHashes = Arrays.copyOf(slotHashes, capacity);
+            Arrays.fill(slotDocs, from, capacity, -1);
+        }
+    }
+    
+    private static float idf(int docFrequency, int documents) {
+        double idf = Math.log(1 + (documents - docFrequency + 0.5) / (docFrequency + 0.5));
+        return (float) Math.max(idf, 1e-3);
+    }
+    
+    private static float norm(float length, float averageLength) {
+        return K1 * (1 - B + B * length / averageLength);
+    }
+    
+    private static float bm25(float idf, float freq, float norm) {
+        return idf * freq * (K1 + 1) / (freq + norm);
+    }
+    
+    private static float weightedFreq(int[] positions, int freq) {
+        float weighted = 0;
+        for (int i = 0; i < freq; i++) {
+            weighted += FIELD_BOOSTS[positions[i] >>> FIELD_SHIFT];
+        }
+        return weighted;
+    }
+    
+    /** 64-bit FNV-1a over the text fields, used to skip re-indexing unchanged text. */
+    private static long hash(String[] fields) {
+        long hash = 0xcbf29ce484222325L;
+        for (String field : fields) {
+            if (field != null) {
+                for (int i = 0; i < field.length(); i++) {
+                    hash = (hash ^ field.charAt(i)) * 0x100000001b3L;
+                }
+            }
+            hash = (hash ^ 0x1f) * 0x100000001b3L;
+        }
+        return hash;
+    }
+    
+    private static void siftUp(int[] docs, float[] scores, int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (scores[parent] <= scores[index]) {
+                return;
+            }
+            swap(docs, scores, parent, index);
+            index = parent;
+        }
+    }
+    
+    private static void siftDown(int[] docs, float[] scores, int size) {
+        int index = 0;
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1;
+            if (left < size && scores[left] < scores[smallest]) {
+                smallest = left;
+            }
+            if (left + 1 < size && scores[left + 1] < scores[smallest]) {
+                smallest = left + 1;
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap(docs, scores, smallest, index);
+            index = smallest;
+        }
+    }
+    
+    private static void swap(int[] docs, float[] scores, int i, int j) {
+        int doc = docs[i];
+        docs[i] = docs[j];
+        docs[j] = doc;
+        float score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+    }
+    
+    private static final class TermPositions {
+        private int[] positions = new int[4];
+        private int size;
+        
+        void add(int position) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            positions[size++] = position;
+        }
+    }
+    
+    private abstract static class Clause {
+        abstract int docID();
+        
+        abstract int nextDoc();
+        
+        abstract int advance(int target);
+        
+        abstract long cost();
+        
+        /** Only valid after {@link #matches()} returned true for the current document. */
+        abstract float score(float norm);
+        
+        /** Upper bound of {@link #score} for the current document, before {@link #matches()}. */
+        float maxScore(float norm) {
+            return score(norm);
+        }
+        
+        /**
+         * Moves the start of {@link #maxScore(int, float)} to {@code target} without decoding
+         * and returns the last document of the posting block there, or
+         * {@link PostingIterator#NO_MORE_DOCS} past the last one.
+         */
+        abstract int shallowAdvance(int target);
+        
+        /** Upper bound of {@link #score} for the documents from the last {@link #shallowAdvance} through {@code upTo}. */
+        abstract float maxScore(int upTo, float averageLength);
+        
+        /** Confirms a document the iterator stopped on; for clauses whose iteration is approximate. */
+        boolean matches() {
+            return true;
+        }
+    }
+    
+    private static final class TermClause extends Clause {
+        private final PostingIterator iterator;
+        private final float idf;
+        
+        TermClause(PostingIterator iterator, float idf) {
+            this.iterator = iterator;
+            this.idf = idf;
+        }
+        
+        @Override
+        int docID() {
+            return iterator.docID();
+        }
+        
+        @Override
+        int nextDoc() {
+            return iterator.nextDoc();
+        }
+        
+        @Override
+        int advance(int target) {
+            return iterator.advance(target);
+        }
+        
+        @Override
+        long cost() {
+            return iterator.cost();
+        }
+        
+        @Override
+        float score(float norm) {
+            return bm25(idf, iterator.weightedFreq(), norm);
+        }
+        
+        @Override
+        int shallowAdvance(int target) {
+            return iterator.shallowAdvance(target);
+        }
+        
+        @Override
+        float maxScore(int upTo, float averageLength) {
+            return bm25(idf, iterator.maxWeight(upTo), norm(iterator.minLength(upTo), averageLength));
+        }
+    }
+    
+    /** Expanded prefix: matches a document containing any of the expansions. */
+    private static final class DisjunctionClause extends Clause {
+        private final PostingIterator[] iterators;
+        private final float[] idfs;
+        private int doc = -1;
+        
+        DisjunctionClause(PostingIterator[] iterators, float[] idfs) {
+            this.iterators = iterators;
+            this.idfs = idfs;
+        }
+        
+        @Override
+        int docID() {
+            return doc;
+        }
+        
+        @Override
+        int nextDoc() {
+            return doc == PostingIterator.NO_MORE_DOCS ? doc : advance(doc + 1);
+        }
+        
+        @Override
+        int advance(int target) {
+            int min = PostingIterator.NO_MORE_DOCS;
+            for (PostingIterator iterator : iterators) {
+                int current = iterator.docID() < target ? iterator.advance(target) : iterator.docID();
+                min = Math.min(min, current);
+            }
+            return doc = min;
+        }
+        
+        @Override
+        long cost() {
+            long cost = 0;
+            for (PostingIterator iterator : iterators) {
+                cost += iterator.cost();
+            }
+            return cost;
+        }
+        
+        @Override
+        float score(float norm) {
+            float score = 0;
+            for (int i = 0; i < iterators.length; i++) {
+                if (iterators[i].docID() == doc) {
+                    score += bm25(idfs[i], iterators[i].weightedFreq(), norm);
+                }
+            }
+            return score;
+        }
+        
+        @Override
+        int shallowAdvance(int target) {
+            int end = PostingIterator.NO_MORE_DOCS;
+            for (PostingIterator iterator : iterators) {
+                end = Math.min(end, iterator.shallowAdvance(target));
+            }
+            return end;
+        }
+        
+        @Override
+        float maxScore(int upTo, float averageLength) {
+            float bound = 0;
+            for (int i = 0; i < iterators.length; i++) {
+                bound += bm25(idfs[i], iterators[i].maxWeight(upTo), norm(iterators[i].minLength(upTo), averageLength));
+            }
+            return bound;
+        }
+    }
+    
+    /**
+     * Consecutive terms. Iteration only aligns documents containing all terms, rarest term
+     * first; {@link #matches()} then checks positions. The phrase scores as one term carrying
+     * the summed idf.
+     */
+    private static final class PhraseClause extends Clause {
+        private final PostingIterator[] iterators;
+        private final PostingIterator[] byCost;
+        private final float idf;
+        private final int[][] positions;
+        private int doc = -1;
+        private float phraseFreq;
+        
+        PhraseClause(PostingIterator[] iterators, float idf) {
+            this.iterators = iterators;
+            this.byCost = iterators.clone();
+            Arrays.sort(byCost, Comparator.comparingInt(PostingIterator::cost));
+            this.idf = idf;
+            this.positions = new int[iterators.length][8];
+        }
+        
+        @Override
+        int docID() {
+            return doc;
+        }
+        
+        @Override
+        int nextDoc() {
+            return doc == PostingIterator.NO_MORE_DOCS ? doc : advance(doc + 1);
+        }
+        
+        @Override
+        int advance(int target) {
+            PostingIterator lead = byCost[0];
+            int candidate = lead.docID() < target ? lead.advance(target) : lead.docID();
+            while (candidate != PostingIterator.NO_MORE_DOCS) {
+                int next = candidate;
+                for (int i = 1; i < byCost.length && next == candidate; i++) {
+                    next = byCost[i].docID() < candidate ? byCost[i].advance(candidate) : byCost[i].docID();
+                }
+                if (next == candidate) {
+                    return doc = candidate;
+                }
+                candidate = lead.advance(next);
+            }
+            return doc = PostingIterator.NO_MORE_DOCS;
+        }
+        
+        @Override
+        long cost() {
+            return byCost[0].cost();
+        }
+        
+        @Override
+        float maxScore(float norm) {
+            float bound = Float.MAX_VALUE;
+            for (PostingIterator iterator : iterators) {
+                bound = Math.min(bound, iterator.weightedFreq());
+            }
+            return bm25(idf, bound, norm);
+        }
+        
+        @Override
+        boolean matches() {
+            for (int i = 0; i < iterators.length; i++) {
+                positions[i] = iterators[i].positions(positions[i]);
+            }
+            float weighted = 0;
+            int firstFreq = iterators[0].freq();
+            for (int p = 0; p < firstFreq; p++) {
+                int start = positions[0][p];
+                boolean match = true;
+                for (int i = 1; i < iterators.length && match; i++) {
+                    match = Arrays.binarySearch(positions[i], 0, iterators[i].freq(), start + i) >= 0;
+                }
+                if (match) {
+                    weighted += FIELD_BOOSTS[start >>> FIELD_SHIFT];
+                }
+            }
+            phraseFreq = weighted;
+            return weighted > 0;
+        }
+        
+        @Override
+        float score(float norm) {
+            return bm25(idf, phraseFreq, norm);
+        }
+        
+        @Override
+        int shallowAdvance(int target) {
+            int end = PostingIterator.NO_MORE_DOCS;
+            for (PostingIterator iterator : iterators) {
+                end = Math.min(end, iterator.shallowAdvance(target));
+            }
+            return end;
+        }
+        
+        /** Every occurrence of the phrase is one of each term's, and a match holds all terms. */
+        @Override
+        float maxScore(int upTo, float averageLength) {
+            float weight = Float.MAX_VALUE;
+            float length = 0;
+            for (PostingIterator iterator : iterators) {
+                weight = Math.min(weight, iterator.maxWeight(upTo));
+                length = Math.max(length, iterator.minLength(upTo));
+            }
+            return bm25(idf, weight, norm(length, averageLength));
+        }
+    }
+}
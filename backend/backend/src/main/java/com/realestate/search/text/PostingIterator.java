@@ -0,0 +1,211 @@
+package com.realestate.search.text;
+
+import java.util.Arrays;
+
+/**
+ * Forward-only cursor over a {@link PostingList}. The position stream is only advanced when
+ * positions are asked for: documents passed over in between are skipped in one go at that
+ * point, so intersections that never need positions never read them.
+ *
+ * <p>{@link #shallowAdvance} looks up the block holding a target document without moving the
+ * cursor, for the score bounds of {@link #maxWeight} and {@link #minLength}.
+ */
+final class PostingIterator {
+    static final int NO_MORE_DOCS = Integer.MAX_VALUE;
+    
+    private final byte[] docs;
+    private final byte[] positions;
+    private final int docCount;
+    private final int lastDoc;
+    private final int[] skipDocs;
+    private final int[] skipDocOffsets;
+    private final int[] skipPositionOffsets;
+    private final int skipCount;
+    private final int[] blockMaxWeights;
+    private final float[] blockMinLengths;
+    private int shallowBlock;
+    private int docOffset;
+    private int index;
+    private int doc = -1;
+    private int freq;
+    private int weightedFreq;
+    private int positionOffset;
+    private int positionsToSkip;
+    private int currentPositionsStart = -1;
+    
+    PostingIterator(byte[] docs, byte[] positions, int docCount, int lastDoc, int[] skipDocs, int[] skipDocOffsets,
+                    int[] skipPositionOffsets, int skipCount, int[] blockMaxWeights, float[] blockMinLengths) {
+        this.docs = docs;
+        this.positions = positions;
+        this.docCount = docCount;
+        this.lastDoc = lastDoc;
+        this.skipDocs = skipDocs;
+        this.skipDocOffsets = skipDocOffsets;
+        this.skipPositionOffsets = skipPositionOffsets;
+        this.skipCount = skipCount;
+        this.blockMaxWeights = blockMaxWeights;
+        this.blockMinLengths = blockMinLengths;
+    }
+    
+    int docID() {
+        return doc;
+    }
+    
+    int freq() {
+        return freq;
+    }
+    
+    /** Field-weighted term frequency of the current document. */
+    float weightedFreq() {
+        return (float) weightedFreq / PostingList.WEIGHT_SCALE;
+    }
+    
+    int cost() {
+        return docCount;
+    }
+    
+    int nextDoc() {
+        if (index == docCount) {
+            return doc = NO_MORE_DOCS;
+        }
+        if (currentPositionsStart < 0) {
+            positionsToSkip += freq;
+        }
+        currentPositionsStart = -1;
+        doc += readVInt();
+        freq = readVInt();
+        weightedFreq = readVInt();
+        index++;
+        return doc;
+    }
+    
+    /** Moves to the first document at or after {@code target}. */
+    int advance(int target) {
+        if (doc >= target) {
+            return doc;
+        }
+        int fromBlock = index / PostingList.BLOCK_SIZE;
+        if (fromBlock < skipCount && skipDocs[fromBlock] < target) {
+            int low = fromBlock;
+            int high = skipCount - 1;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (skipDocs[mid] < target) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            docOffset = skipDocOffsets[low];
+            positionOffset = skipPositionOffsets[low];
+            positionsToSkip = 0;
+            currentPositionsStart = -1;
+            freq = 0;
+            doc = skipDocs[low];
+            index = (low + 1) * PostingList.BLOCK_SIZE;
+        }
+        while (nextDoc() < target) {
+            // linear scan inside the block
+        }
+        return doc;
+    }
+    
+    /**
+     * Finds the block that holds the first document at or after {@code target}, without moving
+     * the cursor, and returns the last document of that block, or {@link #NO_MORE_DOCS} if no
+     * document follows. Targets must not decrease between calls.
+     */
+    int shallowAdvance(int target) {
+        if (target > lastDoc) {
+            shallowBlock = skipCount + 1;
+            return NO_MORE_DOCS;
+        }
+        int low = Math.max(shallowBlock, index == 0 ? 0 : (index - 1) / PostingList.BLOCK_SIZE);
+        int high = skipCount;
+        if (low < skipCount && skipDocs[low] < target) {
+            // Targets are mostly near: gallop ahead before the binary search
+            int step = 1;
+            high = low + 1;
+            while (high < skipCount && skipDocs[high] < target) {
+                low = high;
+                step <<= 1;
+                high = Math.min(skipCount, low + step);
+            }
+            low++;
+        }
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (skipDocs[mid] < target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        shallowBlock = low;
+        return low < skipCount ? skipDocs[low] : lastDoc;
+    }
+    
+    /**
+     * Highest field-weighted frequency of the documents from the block of the last
+     * {@link #shallowAdvance} through {@code upTo}; 0 past the end.
+     */
+    float maxWeight(int upTo) {
+        int weight = 0;
+        for (int block = shallowBlock; block <= skipCount; block++) {
+            weight = Math.max(weight, blockMaxWeights[block]);
+            if (block == skipCount || skipDocs[block] >= upTo) {
+                break;
+            }
+        }
+        return (float) weight / PostingList.WEIGHT_SCALE;
+    }
+    
+    /** Shortest document length over the same blocks as {@link #maxWeight}. */
+    float minLength(int upTo) {
+        float length = Float.MAX_VALUE;
+        for (int block = shallowBlock; block <= skipCount; block++) {
+            length = Math.min(length, blockMinLengths[block]);
+            if (block == skipCount || skipDocs[block] >= upTo) {
+                break;
+            }
+        }
+        return length;
+    }
+    
+    /** Decodes the positions of the current document into {@code buffer}, growing it if needed. */
+    int[] positions(int[] buffer) {
+        if (currentPositionsStart < 0) {
+            for (; positionsToSkip > 0; positionsToSkip--) {
+                while (positions[positionOffset++] < 0) {
+                    // continuation byte
+                }
+            }
+            currentPositionsStart = positionOffset;
+        }
+        int[] decoded = buffer.length >= freq ? buffer : Arrays.copyOf(buffer, Math.max(freq, buffer.length * 2));
+        int offset = currentPositionsStart;
+        int position = 0;
+        for (int i = 0; i < freq; i++) {
+            byte b = positions[offset++];
+            int delta = b & 0x7f;
+            for (int shift = 7; b < 0; shift += 7) {
+                b = positions[offset++];
+                delta |= (b & 0x7f) << shift;
+            }
+            position += delta;
+            decoded[i] = position;
+        }
+        positionOffset = offset;
+        return decoded;
+    }
+    
+    private int readVInt() {
+        byte b = docs[docOffset++];
+        int value = b & 0x7f;
+        for (int shift = 7; b < 0; shift += 7) {
+            b = docs[docOffset++];
+            value |= (b & 0x7f) << shift;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,111 @@
+package com.realestate.search.text;
+
+import java.util.Arrays;
+
+/**
+ * Append-only posting list of one term, as two variable-length integer streams. The document
+ * stream holds, per document, the delta to the previous id, the term frequency and the
+ * field-weighted frequency in units of 1/{@value #WEIGHT_SCALE}; the position stream holds the
+ * delta-coded positions. Keeping positions apart means intersection and scoring never read
+ * them, only phrase checks do. Every {@value #BLOCK_SIZE} documents a skip entry records the
+ * preceding document id and both stream offsets, letting {@link PostingIterator#advance} jump
+ * over whole blocks. Each block also keeps the highest weighted frequency and the shortest
+ * document length among its documents, which bound the score any of them can reach, so
+ * searches can pass over blocks that cannot make the top results without decoding them.
+ */
+final class PostingList {
+    static final int BLOCK_SIZE = 32;
+    static final int WEIGHT_SCALE = 4;
+    
+    private final VIntBuffer docs = new VIntBuffer();
+    private final VIntBuffer positions = new VIntBuffer();
+    private int docCount;
+    private int lastDoc = -1;
+    private int[] skipDocs = new int[0];
+    private int[] skipDocOffsets = new int[0];
+    private int[] skipPositionOffsets = new int[0];
+    private int skipCount;
+    private int[] blockMaxWeights = new int[1];
+    private float[] blockMinLengths = new float[1];
+    
+    void add(int doc, int[] termPositions, int freq, float weightedFreq, float docLength) {
+        if (docCount > 0 && docCount % BLOCK_SIZE == 0) {
+            if (skipCount == skipDocs.length) {
+                int capacity = Math.max(4, skipCount * 2);
+                skipDocs = Arrays.copyOf(skipDocs, capacity);
+                skipDocOffsets = Arrays.copyOf(skipDocOffsets, capacity);
+                skipPositionOffsets = Arrays.copyOf(skipPositionOffsets, capacity);
+            }
+            skipDocs[skipCount] = lastDoc;
+            skipDocOffsets[skipCount] = docs.length;
+            skipPositionOffsets[skipCount] = positions.length;
+            skipCount++;
+        }
+        int block = docCount / BLOCK_SIZE;
+        int weight = Math.max(1, Math.round(weightedFreq * WEIGHT_SCALE));
+        if (block == blockMaxWeights.length) {
+            blockMaxWeights = Arrays.copyOf(blockMaxWeights, block * 2);
+            blockMinLengths = Arrays.copyOf(blockMinLengths, block * 2);
+        }
+        if (docCount % BLOCK_SIZE == 0) {
+            blockMaxWeights[block] = weight;
+            blockMinLengths[block] = docLength;
+        } else {
+            blockMaxWeights[block] = Math.max(blockMaxWeights[block], weight);
+            blockMinLengths[block] = Math.min(blockMinLengths[block], docLength);
+        }
+        docs.write(doc - lastDoc);
+        docs.write(freq);
+        docs.write(weight);
+        int previous = 0;
+        for (int i = 0; i < freq; i++) {
+            positions.write(termPositions[i] - previous);
+            previous = termPositions[i];
+        }
+        lastDoc = doc;
+        docCount++;
+    }
+    
+    int docCount() {
+        return docCount;
+    }
+    
+    long sizeInBytes() {
+        return docs.bytes.length + positions.bytes.length + 12L * skipDocs.length + 8L * blockMaxWeights.length;
+    }
+    
+    PostingIterator iterator() {
+        return new PostingIterator(docs.bytes, positions.bytes, docCount, lastDoc,
+                skipDocs, skipDocOffsets, skipPositionOffsets, skipCount, blockMaxWeights, blockMinLengths);
+    }
+    
+    void trim() {
+        docs.trim();
+        positions.trim();
+        skipDocs = Arrays.copyOf(skipDocs, skipCount);
+        skipDocOffsets = Arrays.copyOf(skipDocOffsets, skipCount);
+        skipPositionOffsets = Arrays.copyOf(skipPositionOffsets, skipCount);
+        blockMaxWeights = Arrays.copyOf(blockMaxWeights, skipCount + 1);
+        blockMinLengths = Arrays.copyOf(blockMinLengths, skipCount + 1);
+    }
+    
+    private static final class VIntBuffer {
+        private byte[] bytes = new byte[8];
+        private int length;
+        
+        void write(int value) {
+            if (length + 5 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + 5));
+            }
+            while ((value & ~0x7f) != 0) {
+                bytes[length++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+        
+        void trim() {
+            bytes = Arrays.copyOf(bytes, length);
+        }
+    }
+}
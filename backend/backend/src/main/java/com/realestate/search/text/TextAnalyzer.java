@@ -0,0 +1,88 @@
+package com.realestate.search.text;
+
+import java.util.Set;
+
+/**
+ * Splits text into lower-cased terms on anything that is not a letter or digit and strips
+ * regular English plurals, so "Kitchens" and "kitchen" index to the same term. The same
+ * analysis runs at index and query time.
+ */
+public final class TextAnalyzer {
+    static final int MAX_TERM_LENGTH = 40;
+    
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it",
+            "of", "on", "or", "the", "this", "to", "with");
+    
+    private TextAnalyzer() {
+    }
+    
+    @FunctionalInterface
+    public interface TermConsumer {
+        void accept(String term, int position);
+    }
+    
+    /**
+     * Feeds each term of {@code text} with its position to the consumer, stopping after
+     * {@code maxTerms}.
+     *
+     * @return the number of terms emitted
+     */
+    public static int analyze(String text, int maxTerms, TermConsumer consumer) {
+        if (text == null) {
+            return 0;
+        }
+        StringBuilder token = new StringBuilder(16);
+        int count = 0;
+        for (int i = 0, length = text.length(); i < length && count < maxTerms; i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (token.length() < MAX_TERM_LENGTH) {
+                    token.append(Character.toLowerCase(c));
+                }
+            } else if (c != '\'' && token.length() > 0) {
+                consumer.accept(stem(token), count++);
+                token.setLength(0);
+            }
+        }
+        if (token.length() > 0 && count < maxTerms) {
+            consumer.accept(stem(token), count++);
+        }
+        return count;
+    }
+    
+    /** Lower-cases a prefix and drops non-alphanumerics without stemming it. */
+    public static String normalizePrefix(String prefix) {
+        StringBuilder normalized = new StringBuilder(prefix.length());
+        for (int i = 0; i < prefix.length() && normalized.length() < MAX_TERM_LENGTH; i++) {
+            char c = prefix.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+    
+    public static boolean isStopWord(String term) {
+        return STOP_WORDS.contains(term);
+    }
+    
+    /** Harman's S-stemmer: "ies" to "y", "es" to "e" and a final "s" dropped, with exceptions. */
+    private static String stem(StringBuilder token) {
+        int n = token.length();
+        if (n > 3 && token.charAt(n - 1) == 's' && Character.isLetter(token.charAt(n - 2))) {
+            char previous = token.charAt(n - 2);
+            if (n > 4 && previous == 'e' && token.charAt(n - 3) == 'i'
+                    && token.charAt(n - 4) != 'e' && token.charAt(n - 4) != 'a') {
+                return token.substring(0, n - 3) + 'y';
+            }
+            if (previous == 'e' && "aeo".indexOf(token.charAt(n - 3)) >= 0) {
+                return token.toString();
+            }
+            if (previous != 'u' && previous != 's') {
+                return token.substring(0, n - 1);
+            }
+        }
+        return token.toString();
+    }
+}
@@ -0,0 +1,38 @@
+package com.realestate.search.text;
+
+/**
+ * Best-scoring slots of a text search in descending score order, plus the number of documents
+ * that matched in total. Once a search has skipped documents that could not reach the
+ * requested page, those are not counted and the total is a lower bound.
+ */
+public class TextHits {
+    static final TextHits EMPTY = new TextHits(new int[0], new float[0], 0, true);
+    
+    private final int[] slots;
+    private final float[] scores;
+    private final int totalHits;
+    private final boolean totalExact;
+    
+    TextHits(int[] slots, float[] scores, int totalHits, boolean totalExact) {
+        this.slots = slots;
+        this.scores = scores;
+        this.totalHits = totalHits;
+        this.totalExact = totalExact;
+    }
+    
+    public int size() {
+        return slots.length;
+    }
+    
+    public int slotAt(int index) {
+        return slots[index];
+    }
+    
+    public float scoreAt(int index) {
+        return scores[index];
+    }
+    
+    public int getTotalHits() { return totalHits; }
+    
+    public boolean isTotalExact() { return totalExact; }
+}
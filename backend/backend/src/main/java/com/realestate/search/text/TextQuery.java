@@ -0,0 +1,84 @@
+package com.realestate.search.text;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Parsed keyword query. Every clause is required: plain words become terms, a word ending in
+ * {@code *} becomes a prefix and a double-quoted span becomes a phrase whose terms must appear
+ * consecutively. Stop words are dropped outside phrases.
+ */
+public class TextQuery {
+    private final List<String> terms = new ArrayList<>();
+    private final List<String> prefixes = new ArrayList<>();
+    private final List<List<String>> phrases = new ArrayList<>();
+    
+    private TextQuery() {
+    }
+    
+    public static TextQuery parse(String input) {
+        TextQuery query = new TextQuery();
+        if (input == null) {
+            return query;
+        }
+        int i = 0;
+        int length = input.length();
+        while (i < length) {
+            char c = input.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '"') {
+                int end = input.indexOf('"', i + 1);
+                end = end < 0 ? length : end;
+                query.addPhrase(input.substring(i + 1, end));
+                i = end + 1;
+            } else {
+                int end = i;
+                while (end < length && !Character.isWhitespace(input.charAt(end)) && input.charAt(end) != '"') {
+                    end++;
+                }
+                query.addWord(input.substring(i, end));
+                i = end;
+            }
+        }
+        return query;
+    }
+    
+    public List<String> getTerms() { return Collections.unmodifiableList(terms); }
+    
+    public List<String> getPrefixes() { return Collections.unmodifiableList(prefixes); }
+    
+    public List<List<String>> getPhrases() { return Collections.unmodifiableList(phrases); }
+    
+    public boolean isEmpty() {
+        return terms.isEmpty() && prefixes.isEmpty() && phrases.isEmpty();
+    }
+    
+    private void addWord(String word) {
+        if (word.endsWith("*")) {
+            String prefix = TextAnalyzer.normalizePrefix(word);
+            if (!prefix.isEmpty()) {
+                prefixes.add(prefix);
+            }
+            return;
+        }
+        TextAnalyzer.analyze(word, Integer.MAX_VALUE, (term, position) -> {
+            if (!TextAnalyzer.isStopWord(term) && !terms.contains(term)) {
+                terms.add(term);
+            }
+        });
+    }
+    
+    private void addPhrase(String text) {
+        List<String> phrase = new ArrayList<>();
+        TextAnalyzer.analyze(text, Integer.MAX_VALUE, (term, position) -> phrase.add(term));
+        if (phrase.size() == 1) {
+            if (!terms.contains(phrase.get(0))) {
+                terms.add(phrase.get(0));
+            }
+        } else if (phrase.size() > 1) {
+            phrases.add(phrase);
+        }
+    }
+}
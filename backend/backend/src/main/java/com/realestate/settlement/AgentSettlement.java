@@ -0,0 +1,71 @@
+package com.realestate.settlement;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * An agent's commission totals for one settlement period ({@code yyyy-MM}). Rows are upserted
+ * with JDBC by {@link SettlementEngine}; the mapping exists so the schema is generated with the
+ * rest of the entities.
+ */
+@Entity
+@Table(name = "agent_settlements",
+        uniqueConstraints = @UniqueConstraint(name = "uk_agent_settlements_agent_period", columnNames = {"agent_id", "period"}))
+public class AgentSettlement {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "agent_id", nullable = false)
+    private Long agentId;
+    
+    @Column(nullable = false, length = 7)
+    private String period;
+    
+    @Column(name = "transaction_count", nullable = false)
+    private int transactionCount;
+    
+    @Column(name = "sales_volume", nullable = false, precision = 19, scale = 2)
+    private BigDecimal salesVolume;
+    
+    @Column(name = "gross_commission", nullable = false, precision = 19, scale = 2)
+    private BigDecimal grossCommission;
+    
+    @Column(name = "agent_payout", nullable = false, precision = 19, scale = 2)
+    private BigDecimal agentPayout;
+    
+    @Column(name = "brokerage_share", nullable = false, precision = 19, scale = 2)
+    private BigDecimal brokerageShare;
+    
+    @Column(name = "computed_at", nullable = false)
+    private LocalDateTime computedAt;
+    
+    protected AgentSettlement() {
+    }
+    
+    public Long getId() { return id; }
+    
+    public Long getAgentId() { return agentId; }
+    
+    public String getPeriod() { return period; }
+    
+    public int getTransactionCount() { return transactionCount; }
+    
+    public BigDecimal getSalesVolume() { return salesVolume; }
+    
+    public BigDecimal getGrossCommission() { return grossCommission; }
+    
+    public BigDecimal getAgentPayout() { return agentPayout; }
+    
+    public BigDecimal getBrokerageShare() { return brokerageShare; }
+    
+    public LocalDateTime getComputedAt() { return computedAt; }
+}
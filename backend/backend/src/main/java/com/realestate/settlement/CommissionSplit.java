@@ -0,0 +1,33 @@
+package com.realestate.settlement;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Divides the commission on a sale between the agent and the brokerage. Amounts are exact
+ * decimals rounded once, half-even to the cent, at the level of a single transaction: the
+ * gross commission is rounded, the agent's share of it is rounded, and the brokerage keeps the
+ * remainder, so the two shares always add up to the gross.
+ */
+public final class CommissionSplit {
+    private final BigDecimal agentShare;
+    
+    /** {@code agentShare} is the agent's fraction of the gross commission, e.g. {@code 0.70}. */
+    public CommissionSplit(BigDecimal agentShare) {
+        if (agentShare.signum() < 0 || agentShare.compareTo(BigDecimal.ONE) > 0) {
+            throw new IllegalArgumentException("Agent share must be between 0 and 1");
+        }
+        this.agentShare = agentShare;
+    }
+    
+    /** The commission on a sale at {@code ratePercent}, e.g. {@code 2.5} for 2.5 %. */
+    public Commission compute(BigDecimal salePrice, BigDecimal ratePercent) {
+        BigDecimal gross = salePrice.multiply(ratePercent).movePointLeft(2).setScale(2, RoundingMode.HALF_EVEN);
+        BigDecimal agent = gross.multiply(agentShare).setScale(2, RoundingMode.HALF_EVEN);
+        return new Commission(gross, agent, gross.subtract(agent));
+    }
+    
+    public BigDecimal getAgentShare() { return agentShare; }
+    
+    public record Commission(BigDecimal gross, BigDecimal agentPayout, BigDecimal brokerageShare) {}
+}
@@ -0,0 +1,398 @@
+package com.realestate.settlement;
+
+import com.realestate.routing.WorkloadClass;
+import com.realestate.settlement.CommissionSplit.Commission;
+import com.realestate.settlement.SettlementReport.PartitionResult;
+import com.realestate.shard.EntityShards;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Month-end commission settlement. Agents are split into contiguous id ranges which are settled
+ * in parallel on a dedicated fork-join pool of {@code realestate.settlement.parallelism}
+ * workers:
+ * <ul>
+ *   <li>Each range streams its agents' closed transactions of the month through a forward-only
+ *       cursor, ordered by agent, with {@code transactions-query} joined to the agent's
+ *       commission rate, and totals them one agent at a time, so memory holds one range's
+ *       totals rather than the transactions.</li>
+ *   <li>Commissions and splits are exact decimals, see {@link CommissionSplit}.</li>
+ *   <li>The range's rows in {@code agent_settlements} are replaced by its totals, inserted in
+ *       batches of {@code batch-size}, and the range is marked complete in
+ *       {@code settlement_partitions} in the same transaction.</li>
+ * </ul>
+ * Settling a period again skips the ranges already complete, so a run that failed part-way
+ * resumes where it stopped, and adds ranges for agent ids beyond the period's ranges, such as
+ * agents created since; {@code recompute} starts the period over. A dry run computes the same
+ * totals and timings without writing anything.
+ *
+ * <p>With sharding each shard settles its own agents one after the other, keeping its ranges
+ * and settlements next to the agents' transactions, see {@link EntityShards}; partition
+ * {@code k} of shard {@code s} is reported as {@code s * max-partitions + k}. Settling is
+ * refused while a region is being moved, as its agents are then on two shards.
+ */
+@Service
+public class SettlementEngine {
+    private static final Logger log = LoggerFactory.getLogger(SettlementEngine.class);
+    private static final String SELECT_PARTITIONS_SQL = "SELECT partition_index, first_agent_id, last_agent_id, "
+            + "completed_at, agents, transactions FROM settlement_partitions WHERE period = ? ORDER BY partition_index";
+    private static final String INSERT_PARTITION_SQL = "INSERT INTO settlement_partitions "
+            + "(period, partition_index, first_agent_id, last_agent_id) VALUES (?, ?, ?, ?)";
+    private static final String COMPLETE_PARTITION_SQL = "UPDATE settlement_partitions "
+            + "SET completed_at = ?, agents = ?, transactions = ?, elapsed_millis = ? WHERE period = ? AND partition_index = ?";
+    private static final String DELETE_PARTITIONS_SQL = "DELETE FROM settlement_partitions WHERE period = ?";
+    private static final String DELETE_SETTLEMENTS_SQL = "DELETE FROM agent_settlements "
+            + "WHERE period = ? AND agent_id BETWEEN ? AND ?";
+    private static final String INSERT_SETTLEMENT_SQL = "INSERT INTO agent_settlements (agent_id, period, "
+            + "transaction_count, sales_volume, gross_commission, agent_payout, brokerage_share, computed_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityShards shards;
+    private final TransactionTemplate transaction;
+    private final TransactionTemplate readOnlyTransaction;
+    private final CommissionSplit split;
+    private final String transactionsQuery;
+    private final int parallelism;
+    private final int maxPartitions;
+    private final int fetchSize;
+    private final int batchSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+    
+    public SettlementEngine(JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            EntityShards shards,
+                            @Value("${realestate.settlement.agent-share:0.70}") BigDecimal agentShare,
+                            @Value("${realestate.settlement.transactions-query}") String transactionsQuery,
+                            @Value("${realestate.settlement.parallelism:4}") int parallelism,
+                            @Value("${realestate.settlement.max-partitions:256}") int maxPartitions,
+                            @Value("${realestate.settlement.fetch-size:1000}") int fetchSize,
+                            @Value("${realestate.settlement.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shards = shards;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.split = new CommissionSplit(agentShare);
+        this.transactionsQuery = transactionsQuery;
+        this.parallelism = parallelism;
+        this.maxPartitions = maxPartitions;
+        this.fetchSize = fetchSize;
+        this.batchSize = batchSize;
+    }
+    
+    /**
+     * Settles {@code period} in {@code partitions} agent id ranges, or in the ranges of an
+     * earlier run of the period. Only one settlement runs at a time.
+     */
+    public SettlementReport settle(YearMonth period, int partitions, boolean dryRun, boolean recompute) {
+        if (partitions < 1 || partitions > maxPartitions) {
+            throw new IllegalArgumentException("partitions must be between 1 and " + maxPartitions);
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A settlement is already running");
+        }
+        try {
+            return WorkloadClass.BULK.run(() -> run(period, partitions, dryRun, recompute));
+        } finally {
+            running.set(false);
+        }
+    }
+    
+    /** Checkpoints of the period's ranges, in range order, shard by shard when sharded. */
+    public List<Map<String, Object>> partitions(YearMonth period) {
+        List<Map<String, Object>> partitions = new ArrayList<>();
+        shards.forEachShard(shard -> {
+            for (Map<String, Object> partition : jdbcTemplate.queryForList("SELECT partition_index, first_agent_id, "
+                    + "last_agent_id, completed_at, agents, transactions, elapsed_millis FROM settlement_partitions "
+                    + "WHERE period = ? ORDER BY partition_index", period.toString())) {
+                partition.put("partition_index", reported(shard, ((Number) partition.get("partition_index")).intValue()));
+                partitions.add(partition);
+            }
+        });
+        return partitions;
+    }
+    
+    private SettlementReport run(YearMonth period, int partitions, boolean dryRun, boolean recompute) {
+        long started = System.nanoTime();
+        String key = period.toString();
+        if (shards.isMoving()) {
+            throw new IllegalStateException("A region is being moved between shards; settle " + key + " once the move is done");
+        }
+        List<PartitionResult> results = new ArrayList<>();
+        Totals totals = new Totals();
+        int pending = 0;
+        for (int shard = 0; shard < shards.getShardCount(); shard++) {
+            int current = shard;
+            pending += shards.onShard(shard, () -> settleShard(current, period, partitions, dryRun, recompute, results,
+                    totals));
+        }
+        results.sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+        
+        SettlementReport report = new SettlementReport(key, dryRun, parallelism, (System.nanoTime() - started) / 1_000_000,
+                totals.transactions, totals.gross, totals.agentPayout, totals.brokerageShare, results);
+        log.info("{} {}: {} transactions in {} of {} partitions, {} transactions/s{}", dryRun ? "Dry-ran settlement" : "Settled",
+                key, report.getTransactions(), pending, results.size(), Math.round(report.getTransactionsPerSecond()),
+                report.isComplete() ? "" : "; failed partitions stay pending");
+        return report;
+    }
+    
+    /**
+     * Settles the agents of the shard in scope, adding a result per range and the totals of
+     * the ranges settled now.
+     *
+     * @return the number of ranges settled now
+     */
+    private int settleShard(int shard, YearMonth period, int partitions, boolean dryRun, boolean recompute,
+                            List<PartitionResult> results, Totals totals) {
+        String key = period.toString();
+        if (recompute && !dryRun) {
+            jdbcTemplate.update(DELETE_PARTITIONS_SQL, key);
+        }
+        List<Range> ranges = new ArrayList<>(recompute ? List.of() : loadRanges(key));
+        // Agent ids are read on every run, so agents created after the first run are settled too
+        IdBounds bounds = agentIdBounds();
+        List<Range> added = ranges.isEmpty() ? split(partitions, bounds) : uncovered(ranges, bounds);
+        if (!added.isEmpty() && !dryRun) {
+            jdbcTemplate.batchUpdate(INSERT_PARTITION_SQL, added.stream()
+                    .map(range -> new Object[] {key, range.index, range.first, range.last}).toList());
+        }
+        ranges.addAll(added);
+        
+        List<Range> pending = new ArrayList<>();
+        for (Range range : ranges) {
+            if (range.completed && !dryRun) {
+                results.add(new PartitionResult(reported(shard, range.index), range.first, range.last, true, range.agents,
+                        range.transactions, 0, 0, null));
+            } else {
+                pending.add(range);
+            }
+        }
+        if (!pending.isEmpty()) {
+            ForkJoinPool pool = new ForkJoinPool(Math.min(parallelism, pending.size()), SettlementEngine::worker, null, false);
+            try {
+                for (RangeOutcome outcome : pool.invoke(new SettleTask(shard, period, pending, dryRun))) {
+                    results.add(outcome.result);
+                    totals.add(outcome.totals);
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+        return pending.size();
+    }
+    
+    private int reported(int shard, int index) {
+        return shard * maxPartitions + index;
+    }
+    
+    private List<Range> loadRanges(String period) {
+        return jdbcTemplate.query(SELECT_PARTITIONS_SQL, (rs, rowNum) -> new Range(
+                rs.getInt("partition_index"), rs.getLong("first_agent_id"), rs.getLong("last_agent_id"),
+                rs.getTimestamp("completed_at") != null, rs.getInt("agents"), rs.getLong("transactions")), period);
+    }
+    
+    private IdBounds agentIdBounds() {
+        Map<String, Object> bounds = jdbcTemplate.queryForMap("SELECT MIN(id) AS lo, MAX(id) AS hi FROM agents");
+        if (bounds.get("lo") == null) {
+            return null;
+        }
+        return new IdBounds(((Number) bounds.get("lo")).longValue(), ((Number) bounds.get("hi")).longValue());
+    }
+    
+    private static List<Range> split(int partitions, IdBounds bounds) {
+        if (bounds == null) {
+            return List.of();
+        }
+        long lo = bounds.lo();
+        long hi = bounds.hi();
+        int count = (int) Math.min(partitions, hi - lo + 1);
+        long width = (hi - lo) / count + 1;
+        List<Range> ranges = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long first = lo + i * width;
+            if (first > hi) {
+                break;
+            }
+            ranges.add(new Range(i, first, Math.min(hi, first + width - 1), false, 0, 0));
+        }
+        return ranges;
+    }
+    
+    /** New ranges for the agent ids below and above the contiguous ids {@code ranges} cover. */
+    private static List<Range> uncovered(List<Range> ranges, IdBounds bounds) {
+        List<Range> added = new ArrayList<>(2);
+        if (bounds == null) {
+            return added;
+        }
+        long first = ranges.stream().mapToLong(Range::first).min().orElseThrow();
+        long last = ranges.stream().mapToLong(Range::last).max().orElseThrow();
+        int index = ranges.stream().mapToInt(Range::index).max().orElseThrow() + 1;
+        if (bounds.lo() < first) {
+            added.add(new Range(index++, bounds.lo(), first - 1, false, 0, 0));
+        }
+        if (bounds.hi() > last) {
+            added.add(new Range(index, last + 1, bounds.hi(), false, 0, 0));
+        }
+        return added;
+    }
+    
+    /** Settles one range; a failure is reported in the result and leaves the range pending. */
+    private RangeOutcome settleRange(int shard, YearMonth period, Range range, boolean dryRun) {
+        long started = System.nanoTime();
+        try {
+            List<AgentTotals> agents = WorkloadClass.BULK.run(() -> read(period, range));
+            long read = System.nanoTime();
+            Totals totals = new Totals();
+            agents.forEach(totals::add);
+            if (!dryRun) {
+                WorkloadClass.BULK.run(() -> transaction.executeWithoutResult(status -> write(period, range, agents,
+                        totals.transactions, (System.nanoTime() - started) / 1_000_000)));
+            }
+            long written = System.nanoTime();
+            return new RangeOutcome(new PartitionResult(reported(shard, range.index), range.first, range.last, false,
+                    agents.size(), totals.transactions, (read - started) / 1_000_000,
+                    dryRun ? 0 : (written - read) / 1_000_000, null), totals);
+        } catch (RuntimeException e) {
+            log.warn("Settlement of {} agents {}-{} failed", period, range.first, range.last, e);
+            return new RangeOutcome(new PartitionResult(reported(shard, range.index), range.first, range.last, false, 0, 0,
+                    (System.nanoTime() - started) / 1_000_000, 0, String.valueOf(e.getMessage())), new Totals());
+        }
+    }
+    
+    private List<AgentTotals> read(YearMonth period, Range range) {
+        List<AgentTotals> agents = new ArrayList<>();
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(transactionsQuery, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            statement.setLong(1, range.first);
+            statement.setLong(2, range.last);
+            statement.setDate(3, Date.valueOf(period.atDay(1)));
+            statement.setDate(4, Date.valueOf(period.plusMonths(1).atDay(1)));
+            return statement;
+        }, rs -> {
+            long agentId = rs.getLong("agent_id");
+            AgentTotals current = agents.isEmpty() ? null : agents.get(agents.size() - 1);
+            if (current == null || current.agentId != agentId) {
+                current = new AgentTotals(agentId);
+                agents.add(current);
+            }
+            BigDecimal price = rs.getBigDecimal("sale_price");
+            BigDecimal rate = rs.getBigDecimal("commission_rate");
+            current.add(price == null ? BigDecimal.ZERO : price,
+                    split.compute(price == null ? BigDecimal.ZERO : price, rate == null ? BigDecimal.ZERO : rate));
+        }));
+        return agents;
+    }
+    
+    /**
+     * Replaces the range's settlements, so agents that no longer have closed transactions in the
+     * period lose the row an earlier run wrote for them.
+     */
+    private void write(YearMonth period, Range range, List<AgentTotals> agents, long transactions, long elapsedMillis) {
+        String key = period.toString();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update(DELETE_SETTLEMENTS_SQL, key, range.first, range.last);
+        for (int from = 0; from < agents.size(); from += batchSize) {
+            List<AgentTotals> batch = agents.subList(from, Math.min(agents.size(), from + batchSize));
+            jdbcTemplate.batchUpdate(INSERT_SETTLEMENT_SQL, batch.stream()
+                    .map(agent -> new Object[] {agent.agentId, key, agent.transactions, agent.volume, agent.gross,
+                            agent.agentPayout, agent.brokerageShare, now})
+                    .toList());
+        }
+        jdbcTemplate.update(COMPLETE_PARTITION_SQL, now, agents.size(), transactions, elapsedMillis, key, range.index);
+    }
+    
+    private static ForkJoinWorkerThread worker(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("settlement-" + thread.getPoolIndex());
+        return thread;
+    }
+    
+    /** Settles a list of ranges of a shard by halving it until one range is left per task. */
+    private final class SettleTask extends RecursiveTask<List<RangeOutcome>> {
+        private final int shard;
+        private final YearMonth period;
+        private final List<Range> ranges;
+        private final boolean dryRun;
+        
+        SettleTask(int shard, YearMonth period, List<Range> ranges, boolean dryRun) {
+            this.shard = shard;
+            this.period = period;
+            this.ranges = ranges;
+            this.dryRun = dryRun;
+        }
+        
+        @Override
+        protected List<RangeOutcome> compute() {
+            if (ranges.size() == 1) {
+                // Workers do not inherit the caller's shard
+                return List.of(shards.onShard(shard, () -> settleRange(shard, period, ranges.get(0), dryRun)));
+            }
+            int middle = ranges.size() / 2;
+            SettleTask left = new SettleTask(shard, period, ranges.subList(0, middle), dryRun);
+            left.fork();
+            List<RangeOutcome> outcomes = new ArrayList<>(new SettleTask(shard, period, ranges.subList(middle, ranges.size()),
+                    dryRun).compute());
+            outcomes.addAll(left.join());
+            return outcomes;
+        }
+    }
+    
+    private record Range(int index, long first, long last, boolean completed, int agents, long transactions) {}
+    
+    private record RangeOutcome(PartitionResult result, Totals totals) {}
+    
+    private record IdBounds(long lo, long hi) {}
+    
+    private static class Totals {
+        long transactions;
+        BigDecimal gross = BigDecimal.ZERO;
+        BigDecimal agentPayout = BigDecimal.ZERO;
+        BigDecimal brokerageShare = BigDecimal.ZERO;
+        
+        void add(Totals other) {
+            transactions += other.transactions;
+            gross = gross.add(other.gross);
+            agentPayout = agentPayout.add(other.agentPayout);
+            brokerageShare = brokerageShare.add(other.brokerageShare);
+        }
+    }
+    
+    private static final class AgentTotals extends Totals {
+        final long agentId;
+        BigDecimal volume = BigDecimal.ZERO;
+        
+        AgentTotals(long agentId) {
+            this.agentId = agentId;
+        }
+        
+        void add(BigDecimal salePrice, Commission commission) {
+            transactions++;
+            volume = volume.add(salePrice);
+            gross = gross.add(commission.gross());
+            agentPayout = agentPayout.add(commission.agentPayout());
+            brokerageShare = brokerageShare.add(commission.brokerageShare());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.realestate.settlement;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.time.LocalDateTime;
+
+/**
+ * Checkpoint of one agent id range of a settlement run. The ranges of a period are fixed by its
+ * first run; a partition is marked complete in the transaction that writes its settlements, so
+ * a run that failed part-way is resumed by settling the period again.
+ */
+@Entity
+@Table(name = "settlement_partitions",
+        uniqueConstraints = @UniqueConstraint(name = "uk_settlement_partitions_period_index", columnNames = {"period", "partition_index"}))
+public class SettlementPartition {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false, length = 7)
+    private String period;
+    
+    @Column(name = "partition_index", nullable = false)
+    private int partitionIndex;
+    
+    @Column(name = "first_agent_id", nullable = false)
+    private long firstAgentId;
+    
+    @Column(name = "last_agent_id", nullable = false)
+    private long lastAgentId;
+    
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+    
+    private Integer agents;
+    
+    private Long transactions;
+    
+    @Column(name = "elapsed_millis")
+    private Long elapsedMillis;
+    
+    protected SettlementPartition() {
+    }
+    
+    public Long getId() { return id; }
+    
+    public String getPeriod() { return period; }
+    
+    public int getPartitionIndex() { return partitionIndex; }
+    
+    public long getFirstAgentId() { return firstAgentId; }
+    
+    public long getLastAgentId() { return lastAgentId; }
+    
+    public LocalDateTime getCompletedAt() { return completedAt; }
+    
+    public Integer getAgents() { return agents; }
+    
+    public Long getTransactions() { return transactions; }
+    
+    public Long getElapsedMillis() { return elapsedMillis; }
+}
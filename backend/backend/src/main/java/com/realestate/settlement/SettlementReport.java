@@ -0,0 +1,110 @@
+package com.realestate.settlement;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Outcome of a settlement run. Amounts and throughput cover the partitions settled by this run;
+ * partitions completed by an earlier run are listed as skipped with the counts they recorded.
+ */
+public class SettlementReport {
+    private final String period;
+    private final boolean dryRun;
+    private final int parallelism;
+    private final long elapsedMillis;
+    private final long transactions;
+    private final BigDecimal grossCommission;
+    private final BigDecimal agentPayout;
+    private final BigDecimal brokerageShare;
+    private final List<PartitionResult> partitions;
+    
+    public SettlementReport(String period, boolean dryRun, int parallelism, long elapsedMillis, long transactions,
+                            BigDecimal grossCommission, BigDecimal agentPayout, BigDecimal brokerageShare,
+                            List<PartitionResult> partitions) {
+        this.period = period;
+        this.dryRun = dryRun;
+        this.parallelism = parallelism;
+        this.elapsedMillis = elapsedMillis;
+        this.transactions = transactions;
+        this.grossCommission = grossCommission;
+        this.agentPayout = agentPayout;
+        this.brokerageShare = brokerageShare;
+        this.partitions = partitions;
+    }
+    
+    public String getPeriod() { return period; }
+    
+    /** Whether results were computed only, without writing settlements or checkpoints. */
+    public boolean isDryRun() { return dryRun; }
+    
+    public int getParallelism() { return parallelism; }
+    
+    public long getElapsedMillis() { return elapsedMillis; }
+    
+    public long getTransactions() { return transactions; }
+    
+    public BigDecimal getGrossCommission() { return grossCommission; }
+    
+    public BigDecimal getAgentPayout() { return agentPayout; }
+    
+    public BigDecimal getBrokerageShare() { return brokerageShare; }
+    
+    public List<PartitionResult> getPartitions() { return partitions; }
+    
+    public double getTransactionsPerSecond() {
+        return elapsedMillis == 0 ? transactions : transactions * 1000.0 / elapsedMillis;
+    }
+    
+    public boolean isComplete() {
+        return partitions.stream().allMatch(partition -> partition.getError() == null);
+    }
+    
+    public static class PartitionResult {
+        private final int index;
+        private final long firstAgentId;
+        private final long lastAgentId;
+        private final boolean skipped;
+        private final int agents;
+        private final long transactions;
+        private final long readMillis;
+        private final long writeMillis;
+        private final String error;
+        
+        public PartitionResult(int index, long firstAgentId, long lastAgentId, boolean skipped, int agents,
+                               long transactions, long readMillis, long writeMillis, String error) {
+            this.index = index;
+            this.firstAgentId = firstAgentId;
+            this.lastAgentId = lastAgentId;
+            this.skipped = skipped;
+            this.agents = agents;
+            this.transactions = transactions;
+            this.readMillis = readMillis;
+            this.writeMillis = writeMillis;
+            this.error = error;
+        }
+        
+        public int getIndex() { return index; }
+        
+        /** Lower bound of the agent id range, inclusive. */
+        public long getFirstAgentId() { return firstAgentId; }
+        
+        /** Upper bound of the agent id range, inclusive. */
+        public long getLastAgentId() { return lastAgentId; }
+        
+        /** Completed by an earlier run and not settled again. */
+        public boolean isSkipped() { return skipped; }
+        
+        public int getAgents() { return agents; }
+        
+        public long getTransactions() { return transactions; }
+        
+        /** Time spent streaming and computing the partition's transactions. */
+        public long getReadMillis() { return readMillis; }
+        
+        /** Time spent upserting the partition's settlements; zero on a dry run. */
+        public long getWriteMillis() { return writeMillis; }
+        
+        /** Why the partition failed; it stays pending and is retried by the next run. */
+        public String getError() { return error; }
+    }
+}
@@ -0,0 +1,439 @@
+package com.realestate.shard;
+
+import com.realestate.model.Agent;
+import com.realestate.model.Client;
+import com.realestate.model.Property;
+import com.realestate.outbox.AggregateType;
+import com.realestate.outbox.ChangeEvent;
+import com.realestate.outbox.OutboxRelay;
+import com.realestate.repository.AgentRepository;
+import com.realestate.repository.ClientRepository;
+import com.realestate.repository.PropertyRepository;
+import com.realestate.shard.ShardDirectory.Placement;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Where listings, agents and clients live, and the way to read and write them. With
+ * {@code realestate.sharding.enabled=true} they are partitioned over the shards:
+ * <ul>
+ *   <li>An agent lives on the shard owning the region of their address, see
+ *       {@link RegionKey#of(Agent)}, together with their listings and every row belonging to
+ *       either. A client lives on the shard of their own region, and every other shard holding
+ *       a listing of theirs keeps a reference copy, refreshed when the client changes.</li>
+ *   <li>The home region of each entity is recorded in the directory when it is first written,
+ *       and stays: a listing can only go to another agent of the same region, and a later change
+ *       of address does not move anyone.</li>
+ *   <li>Reads and writes run through the ordinary repositories inside {@link #onShard}, which
+ *       points the application's connections at the shard; {@link #onEveryShard} runs a read on
+ *       all shards in parallel. Code scanning the shards leaves out what
+ *       {@link #servedBy} says a shard does not serve: reference copies, and the rows of regions
+ *       being moved.</li>
+ *   <li>Writes hold their region's lock shared. While the region is being moved, what a write
+ *       changed is copied to the target after it committed on the owner, see
+ *       {@link RegionRebalancer}.</li>
+ * </ul>
+ * Every shard gets the entity tables on startup if it lacks them, with sequences starting at
+ * {@code (shard + 1) << 40} so ids stay unique across shards, and an outbox relay of its own.
+ *
+ * <p>Without sharding everything is on the primary, which acts as the only shard, and the
+ * methods here just run what they are given.
+ */
+@Component
+public class EntityShards {
+    private static final Logger log = LoggerFactory.getLogger(EntityShards.class);
+    private static final String ENTITY_TABLES_SQL = "SELECT COUNT(*) FROM information_schema.tables "
+            + "WHERE UPPER(table_name) = 'PROPERTIES'";
+    private static final String SEQUENCES_SQL = "SELECT sequence_name FROM information_schema.sequences "
+            + "WHERE sequence_schema = CURRENT_SCHEMA";
+    private static final int SEQUENCE_SHIFT = 40;
+    
+    private final ShardRouter router;
+    private final AgentRepository agentRepository;
+    private final ClientRepository clientRepository;
+    private final PropertyRepository propertyRepository;
+    private final TransactionTemplate transaction;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ObjectProvider<OutboxRelay> outboxRelay;
+    
+    @Autowired
+    public EntityShards(ObjectProvider<ShardRouter> router,
+                        AgentRepository agentRepository,
+                        ClientRepository clientRepository,
+                        PropertyRepository propertyRepository,
+                        PlatformTransactionManager transactionManager,
+                        EntityManagerFactory entityManagerFactory,
+                        ObjectProvider<OutboxRelay> outboxRelay) {
+        this(router.getIfAvailable(), agentRepository, clientRepository, propertyRepository,
+                new TransactionTemplate(transactionManager), entityManagerFactory, outboxRelay);
+    }
+    
+    private EntityShards(ShardRouter router,
+                         AgentRepository agentRepository,
+                         ClientRepository clientRepository,
+                         PropertyRepository propertyRepository,
+                         TransactionTemplate transaction,
+                         EntityManagerFactory entityManagerFactory,
+                         ObjectProvider<OutboxRelay> outboxRelay) {
+        this.router = router;
+        this.agentRepository = agentRepository;
+        this.clientRepository = clientRepository;
+        this.propertyRepository = propertyRepository;
+        this.transaction = transaction;
+        this.entityManagerFactory = entityManagerFactory;
+        this.outboxRelay = outboxRelay;
+    }
+    
+    /**
+     * Everything on the primary, for code built outside the application context that only reads
+     * through it; its {@code save} and {@code delete} methods cannot be used.
+     */
+    public static EntityShards unsharded() {
+        return new EntityShards((ShardRouter) null, null, null, null, null, null, null);
+    }
+    
+    /** Loads the region placements and prepares every shard: its tables, sequences and outbox relay. */
+    @PostConstruct
+    public void initialize() {
+        if (router == null) {
+            return;
+        }
+        router.getDirectory().reload();
+        for (int shard = 0; shard < router.getShardCount(); shard++) {
+            JdbcTemplate template = router.shard(shard);
+            if (template.queryForObject(ENTITY_TABLES_SQL, Integer.class) == 0) {
+                ShardScope.run(shard, () -> entityManagerFactory.unwrap(SessionFactory.class).getSchemaManager()
+                        .exportMappedObjects(true));
+                long start = (shard + 1L) << SEQUENCE_SHIFT;
+                for (String sequence : template.queryForList(SEQUENCES_SQL, String.class)) {
+                    template.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + start);
+                }
+                log.info("Created the entity tables on shard {}, with ids from {}", shard, start);
+            }
+            int current = shard;
+            outboxRelay.ifAvailable(relay -> relay.relayFor("shard-" + current, template));
+        }
+    }
+    
+    public boolean isSharded() {
+        return router != null;
+    }
+    
+    public int getShardCount() {
+        return router == null ? 1 : router.getShardCount();
+    }
+    
+    /** Whether a region is being moved, so that its rows are on two shards. */
+    public boolean isMoving() {
+        return router != null && router.getDirectory().placements().values().stream().anyMatch(placement -> placement.isMoving());
+    }
+    
+    /** Runs {@code task} against {@code shard}; it may start transactions, but must not run inside one. */
+    public <T> T onShard(int shard, Supplier<T> task) {
+        return router == null ? task.get() : ShardScope.run(shard, () -> task.get());
+    }
+    
+    /** Runs {@code task} on every shard in turn, passing the shard. */
+    public void forEachShard(IntConsumer task) {
+        for (int shard = 0; shard < getShardCount(); shard++) {
+            int current = shard;
+            onShard(shard, () -> {
+                task.accept(current);
+                return null;
+            });
+        }
+    }
+    
+    /**
+     * Runs {@code task} on every shard in parallel, in the caller's workload class, and returns
+     * the results in shard order.
+     */
+    public <T> List<T> onEveryShard(IntFunction<T> task) {
+        if (router == null) {
+            return List.of(task.apply(0));
+        }
+        return router.scatterAll((shard, template) -> ShardScope.run(shard, () -> task.apply(shard)));
+    }
+    
+    /** The shard {@code id} of {@code type} lives on, or empty if it was never stored. */
+    public OptionalInt locate(AggregateType type, long id) {
+        if (router == null) {
+            return OptionalInt.of(0);
+        }
+        return router.getDirectory().home(type, id)
+                .map(region -> OptionalInt.of(router.getDirectory().placement(region).shard()))
+                .orElse(OptionalInt.empty());
+    }
+    
+    /** Runs {@code lookup} on the shard {@code id} of {@code type} lives on; empty if it is on none. */
+    public <T> Optional<T> find(AggregateType type, long id, Supplier<Optional<T>> lookup) {
+        OptionalInt shard = locate(type, id);
+        return shard.isPresent() ? onShard(shard.getAsInt(), lookup) : Optional.empty();
+    }
+    
+    /** {@code ids} grouped by the shard they live on, leaving out those never stored. */
+    public Map<Integer, List<Long>> byShard(AggregateType type, Collection<Long> ids) {
+        Map<Integer, List<Long>> grouped = new LinkedHashMap<>();
+        if (router == null) {
+            grouped.put(0, List.copyOf(ids));
+            return grouped;
+        }
+        router.getDirectory().homes(type, ids).forEach((id, region) -> grouped
+                .computeIfAbsent(router.getDirectory().placement(region).shard(), shard -> new ArrayList<>()).add(id));
+        return grouped;
+    }
+    
+    /**
+     * Those of {@code ids}, read on {@code shard}, that the shard serves: it owns their region
+     * and the region is not being moved to it. Reference copies of clients and rows copied by a
+     * move, or left behind by one, are not served.
+     */
+    public Set<Long> servedBy(int shard, AggregateType type, Collection<Long> ids) {
+        if (router == null) {
+            return new HashSet<>(ids);
+        }
+        List<RegionKey> unserved = router.unservedRegions(shard);
+        if (unserved.isEmpty() && type != AggregateType.CLIENT) {
+            // Only clients have copies on shards not owning them
+            return new HashSet<>(ids);
+        }
+        Set<Long> served = new HashSet<>();
+        router.getDirectory().homes(type, ids).forEach((id, region) -> {
+            if (router.getDirectory().placement(region).shard() == shard && !unserved.contains(region)) {
+                served.add(id);
+            }
+        });
+        return served;
+    }
+    
+    /**
+     * The agents whose rows {@code shard} holds without serving them, as their regions are being
+     * moved to or away from it; reads of listings on the shard leave out theirs.
+     */
+    public Set<Long> unservedAgents(int shard) {
+        return router == null ? Set.of() : new HashSet<>(router.unservedAgents(shard));
+    }
+    
+    /**
+     * Reads every row of {@code type} in pages of {@code pageSize}, shard by shard and in id
+     * order on each, and passes {@code consumer} the rows each shard serves. Every page is read
+     * in a persistence context of its own, and the consumer runs outside the shard's scope.
+     */
+    public <T> void forEachPage(AggregateType type, Function<Pageable, Page<T>> load, ToLongFunction<T> id,
+                                int pageSize, Consumer<List<T>> consumer) {
+        for (int shard = 0; shard < getShardCount(); shard++) {
+            int current = shard;
+            Pageable pageable = PageRequest.of(0, pageSize, Sort.by("id"));
+            Page<T> page;
+            do {
+                Pageable next = pageable;
+                page = onShard(current, () -> load.apply(next));
+                List<T> rows = page.getContent();
+                if (router != null) {
+                    Set<Long> served = servedBy(current, type, rows.stream().map(id::applyAsLong).toList());
+                    rows = rows.stream().filter(row -> served.contains(id.applyAsLong(row))).toList();
+                }
+                consumer.accept(rows);
+                pageable = page.nextPageable();
+            } while (page.hasNext());
+        }
+    }
+    
+    /**
+     * Saves the agent on their home shard, a new one on the shard of their region.
+     */
+    public Agent save(Agent agent) {
+        if (router == null) {
+            return transaction.execute(status -> agentRepository.save(agent));
+        }
+        RegionKey region = agent.getId() == null ? RegionKey.of(agent)
+                : router.getDirectory().home(AggregateType.AGENT, agent.getId()).orElse(RegionKey.of(agent));
+        return write(region, shard -> ShardScope.run(shard, () -> transaction.execute(status -> {
+            Agent saved = agentRepository.save(agent);
+            agentRepository.flush();
+            router.getDirectory().setHome(AggregateType.AGENT, List.of(saved.getId()), region);
+            return saved;
+        })), (saved, placement) -> router.rows().copyAgents(List.of(saved.getId()), placement.shard(),
+                placement.movingTo(), false));
+    }
+    
+    /** Saves the client on their home shard, a new one on the shard of their region. */
+    public Client save(Client client) {
+        if (router == null) {
+            return transaction.execute(status -> clientRepository.save(client));
+        }
+        RegionKey region = client.getId() == null ? RegionKey.of(client)
+                : router.getDirectory().home(AggregateType.CLIENT, client.getId()).orElse(RegionKey.of(client));
+        return write(region, shard -> ShardScope.run(shard, () -> transaction.execute(status -> {
+            Client saved = clientRepository.save(client);
+            clientRepository.flush();
+            router.getDirectory().setHome(AggregateType.CLIENT, List.of(saved.getId()), region);
+            return saved;
+        })), (saved, placement) -> router.rows().copyClients(List.of(saved.getId()), placement.shard(),
+                placement.movingTo()));
+    }
+    
+    /**
+     * Saves the listing on its agent's shard, copying its owner there first if the owner lives
+     * elsewhere.
+     *
+     * @throws IllegalArgumentException if the agent was never stored, or the listing belongs to
+     *                                  an agent of another region
+     */
+    public Property save(Property property) {
+        if (router == null) {
+            return transaction.execute(status -> propertyRepository.save(property));
+        }
+        if (property.getAgent() == null || property.getAgent().getId() == null) {
+            throw new IllegalArgumentException("A listing needs a stored agent");
+        }
+        RegionKey region = router.getDirectory().home(AggregateType.AGENT, property.getAgent().getId())
+                .orElseThrow(() -> new IllegalArgumentException("Agent " + property.getAgent().getId() + " was never stored"));
+        if (property.getId() != null) {
+            router.getDirectory().home(AggregateType.PROPERTY, property.getId())
+                    .filter(home -> !home.equals(region))
+                    .ifPresent(home -> {
+                        throw new IllegalArgumentException("Listing " + property.getId() + " belongs to region " + home
+                                + " and cannot go to an agent of " + region);
+                    });
+        }
+        return write(region, shard -> {
+            Client owner = property.getOwner();
+            if (owner != null && owner.getId() != null) {
+                locate(AggregateType.CLIENT, owner.getId())
+                        .ifPresent(home -> router.rows().ensureClients(List.of(owner.getId()), home, shard));
+            }
+            return ShardScope.run(shard, () -> transaction.execute(status -> {
+                Property saved = propertyRepository.save(property);
+                propertyRepository.flush();
+                router.getDirectory().setHome(AggregateType.PROPERTY, List.of(saved.getId()), region);
+                return saved;
+            }));
+        }, (saved, placement) -> router.rows().copyListings(List.of(saved.getId()), placement.shard(),
+                placement.movingTo()));
+    }
+    
+    /** The home regions of those of {@code ids} that were stored; empty without sharding, which has no regions. */
+    public Map<Long, RegionKey> homes(AggregateType type, Collection<Long> ids) {
+        return router == null ? Map.of() : router.getDirectory().homes(type, ids);
+    }
+    
+    /**
+     * Runs {@code insert}, which writes the listings {@code ids} of agents of {@code region} over
+     * plain JDBC, in a transaction on the shard of the region, and records where they live.
+     * Without sharding {@code region} is ignored.
+     */
+    public void insertListings(RegionKey region, List<Long> ids, Runnable insert) {
+        if (router == null) {
+            transaction.executeWithoutResult(status -> insert.run());
+            return;
+        }
+        write(region, shard -> ShardScope.run(shard, () -> transaction.execute(status -> {
+            insert.run();
+            router.getDirectory().setHome(AggregateType.PROPERTY, ids, region);
+            return ids;
+        })), (inserted, placement) -> router.rows().copyListings(ids, placement.shard(), placement.movingTo()));
+    }
+    
+    /** Deletes the listing, with whatever JPA cascades to, from its shard. */
+    public void deleteListing(long id) {
+        if (router == null) {
+            transaction.executeWithoutResult(status -> propertyRepository.deleteById(id));
+            return;
+        }
+        router.getDirectory().home(AggregateType.PROPERTY, id).ifPresent(region -> {
+            write(region, shard -> ShardScope.run(shard, () -> transaction.execute(status -> {
+                propertyRepository.deleteById(id);
+                return id;
+            })), (deleted, placement) -> router.rows().deleteListings(List.of(id), placement.movingTo()));
+            router.getDirectory().removeHome(AggregateType.PROPERTY, List.of(id));
+        });
+    }
+    
+    /** Deletes the agent, with their listings and whatever else JPA cascades to, from their shard. */
+    public void deleteAgent(long id) {
+        if (router == null) {
+            transaction.executeWithoutResult(status -> agentRepository.deleteById(id));
+            return;
+        }
+        router.getDirectory().home(AggregateType.AGENT, id).ifPresent(region -> {
+            List<Long> listings = write(region, shard -> ShardScope.run(shard, () -> transaction.execute(status -> {
+                List<Long> ids = propertyRepository.findIdsByAgentId(id);
+                agentRepository.deleteById(id);
+                return ids;
+            })), (deleted, placement) -> router.rows().deleteAgents(List.of(id), placement.movingTo()));
+            router.getDirectory().removeHome(AggregateType.PROPERTY, listings);
+            router.getDirectory().removeHome(AggregateType.AGENT, List.of(id));
+        });
+    }
+    
+    /**
+     * Brings the reference copies of a changed client up to date with the client's home row.
+     * A failure fails the delivery, so the relay tries again.
+     */
+    @EventListener
+    public void onChange(ChangeEvent event) {
+        if (router == null || event.getAggregateType() != AggregateType.CLIENT) {
+            return;
+        }
+        locate(AggregateType.CLIENT, event.getAggregateId())
+                .ifPresent(home -> router.rows().refreshCopies(event.getAggregateId(), home));
+    }
+    
+    /**
+     * Runs {@code write} on the owner of {@code region} with the region's lock held shared, and
+     * while the region is being moved, {@code copy} to the target. A copy that fails leaves the
+     * move to be run again; the write itself has committed.
+     */
+    private <T> T write(RegionKey region, IntFunction<T> write, BiConsumer<T, Placement> copy) {
+        Lock lock = router.regionLock(region).readLock();
+        lock.lock();
+        try {
+            Placement placement = router.getDirectory().placement(region);
+            T result = write.apply(placement.shard());
+            if (placement.isMoving()) {
+                try {
+                    copy.accept(result, placement);
+                } catch (RuntimeException e) {
+                    log.warn("Could not copy a write of {} to shard {}; the move has to be run again", region,
+                            placement.movingTo(), e);
+                    router.markUnsynced(region);
+                }
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.realestate.shard;
+
+import com.realestate.model.Agent;
+import com.realestate.model.Client;
+import com.realestate.model.Property;
+import java.util.Locale;
+
+/**
+ * The partition key: a country and state, trimmed and upper-cased so that "usa"/" ca" and
+ * "USA"/"CA" are the same region. Missing parts become {@link #UNKNOWN}, so entities without an
+ * address still have a home; clients have no country, so theirs is always unknown. Written as
+ * {@code COUNTRY/STATE}.
+ */
+public record RegionKey(String country, String state) {
+    public static final String UNKNOWN = "-";
+    
+    public RegionKey {
+        country = normalize(country);
+        state = normalize(state);
+    }
+    
+    public static RegionKey of(Property property) {
+        return new RegionKey(property.getCountry(), property.getState());
+    }
+    
+    public static RegionKey of(Agent agent) {
+        return new RegionKey(agent.getCountry(), agent.getState());
+    }
+    
+    public static RegionKey of(Client client) {
+        return new RegionKey(null, client.getState());
+    }
+    
+    /** SQL normalizing {@code column} the way the constructor does, to compare it with a key part. */
+    static String normalized(String column) {
+        return "COALESCE(NULLIF(UPPER(TRIM(" + column + ")), ''), '" + UNKNOWN + "')";
+    }
+    
+    /** Parses {@code COUNTRY/STATE}. */
+    public static RegionKey parse(String value) {
+        int slash = value.indexOf('/');
+        if (slash <= 0 || slash == value.length() - 1 || value.indexOf('/', slash + 1) >= 0) {
+            throw new IllegalArgumentException("Region must be COUNTRY/STATE, got " + value);
+        }
+        return new RegionKey(value.substring(0, slash), value.substring(slash + 1));
+    }
+    
+    @Override
+    public String toString() {
+        return country + "/" + state;
+    }
+    
+    private static String normalize(String value) {
+        if (value == null || value.isBlank()) {
+            return UNKNOWN;
+        }
+        return value.trim().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,207 @@
+package com.realestate.shard;
+
+import com.realestate.outbox.AggregateType;
+import com.realestate.routing.WorkloadClass;
+import com.realestate.shard.ShardDirectory.Placement;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.function.IntSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Moves a region, its agents with their listings and everything belonging to them, and its
+ * clients, to another shard while it stays readable and writable:
+ * <ol>
+ *   <li>With the region's writes held off, the directory records the target. Reads stay on the
+ *       source, and from then on a write is copied to the target once it committed on the
+ *       source; a listing only if the target has its agent already.</li>
+ *   <li>The agents and clients homed in the region are copied in id order, in batches on the
+ *       bulk pools, each batch with the region's writes held off, replacing what the target had
+ *       of them. Clients referenced by the copied listings come along as reference copies.</li>
+ *   <li>With the region's writes held off, the target becomes the owner, unless a write could
+ *       not be copied meanwhile; then the move fails and has to be run again.</li>
+ *   <li>The rows left on the source are deleted in batches, keeping clients still referenced
+ *       there as reference copies. Searches leave them out until then.</li>
+ * </ol>
+ * A move that fails midway leaves the region on its source with the copying on; running it
+ * again resumes it from the start, and {@link #cancel} abandons it.
+ */
+public class RegionRebalancer {
+    private static final Logger log = LoggerFactory.getLogger(RegionRebalancer.class);
+    
+    private final ShardRouter router;
+    private final int batchSize;
+    private final Set<RegionKey> running = ConcurrentHashMap.newKeySet();
+    
+    public RegionRebalancer(ShardRouter router, int batchSize) {
+        this.router = router;
+        this.batchSize = batchSize;
+    }
+    
+    /**
+     * Moves {@code region} to shard {@code target}.
+     *
+     * @return the shards involved and the agents and clients copied and removed
+     * @throws IllegalArgumentException if the target does not exist or nothing of the region was
+     *                                  ever stored
+     * @throws IllegalStateException if the region is being moved elsewhere or by another call, or
+     *                               a write could not be copied during the move
+     */
+    public Map<String, Object> move(RegionKey region, int target) {
+        checkShard(target);
+        ShardDirectory directory = router.getDirectory();
+        Placement placement = directory.find(region)
+                .orElseThrow(() -> new IllegalArgumentException("Nothing of " + region + " was ever stored"));
+        if (placement.isMoving() && placement.movingTo() != target) {
+            throw new IllegalStateException(region + " is being moved to shard " + placement.movingTo()
+                    + "; finish or cancel that move first");
+        }
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("region", region.toString());
+        report.put("from", placement.shard());
+        report.put("to", target);
+        if (placement.shard() == target) {
+            report.put("moved", false);
+            return report;
+        }
+        if (!running.add(region)) {
+            throw new IllegalStateException(region + " is already being moved");
+        }
+        try {
+            long started = System.nanoTime();
+            Lock lock = router.regionLock(region).writeLock();
+            lock.lock();
+            try {
+                if (!placement.isMoving()) {
+                    // A barrier: writes that read the old placement finish before the copy starts,
+                    // so none of them can land on the source alone behind the copy
+                    placement = directory.startMove(region, placement, target);
+                }
+                // Everything is copied again below, so earlier failed copies no longer matter
+                router.clearUnsynced(region);
+            } finally {
+                lock.unlock();
+            }
+            int source = placement.shard();
+            long agents = WorkloadClass.BULK.run(() -> forEachBatch(region, AggregateType.AGENT, ids -> locked(region,
+                    () -> router.rows().copyAgents(ids, source, target, false))));
+            long clients = WorkloadClass.BULK.run(() -> forEachBatch(region, AggregateType.CLIENT, ids -> locked(region,
+                    () -> {
+                        router.rows().copyClients(ids, source, target);
+                        return ids.size();
+                    })));
+            lock.lock();
+            try {
+                if (router.clearUnsynced(region)) {
+                    throw new IllegalStateException("Some writes of " + region + " could not be copied to shard "
+                            + target + "; run the move again");
+                }
+                directory.completeMove(region, placement);
+                router.startDraining(region, source);
+            } finally {
+                lock.unlock();
+            }
+            long removed = WorkloadClass.BULK.run(() -> removeAll(region, source));
+            long millis = (System.nanoTime() - started) / 1_000_000;
+            log.info("Moved {} from shard {} to {} in {} ms: {} agents and {} clients copied, {} rows removed",
+                    region, source, target, millis, agents, clients, removed);
+            report.put("moved", true);
+            report.put("agentsCopied", agents);
+            report.put("clientsCopied", clients);
+            report.put("removedFromSource", removed);
+            report.put("millis", millis);
+            return report;
+        } finally {
+            running.remove(region);
+        }
+    }
+    
+    /**
+     * Abandons an unfinished move of {@code region}: writes stop being copied to the target and
+     * what was copied there is deleted. The region stays on its source.
+     */
+    public Map<String, Object> cancel(RegionKey region) {
+        ShardDirectory directory = router.getDirectory();
+        Placement placement = directory.find(region)
+                .filter(Placement::isMoving)
+                .orElseThrow(() -> new IllegalStateException(region + " is not being moved"));
+        if (!running.add(region)) {
+            throw new IllegalStateException(region + " is being moved right now");
+        }
+        try {
+            int target = placement.movingTo();
+            Lock lock = router.regionLock(region).writeLock();
+            lock.lock();
+            try {
+                directory.cancelMove(region, placement);
+                router.clearUnsynced(region);
+                router.startDraining(region, target);
+            } finally {
+                lock.unlock();
+            }
+            long removed = WorkloadClass.BULK.run(() -> removeAll(region, target));
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("region", region.toString());
+            report.put("shard", placement.shard());
+            report.put("removedFromTarget", removed);
+            return report;
+        } finally {
+            running.remove(region);
+        }
+    }
+    
+    /** Deletes the region's agents and clients from {@code shard}, which no longer serves it. */
+    private long removeAll(RegionKey region, int shard) {
+        try {
+            long agents = forEachBatch(region, AggregateType.AGENT, ids -> {
+                router.rows().deleteAgents(ids, shard);
+                return ids.size();
+            });
+            return agents + forEachBatch(region, AggregateType.CLIENT, ids -> router.rows().deleteClients(ids, shard));
+        } finally {
+            router.stopDraining(region);
+        }
+    }
+    
+    /** Runs {@code batch} over the ids of {@code type} homed in the region, in id order, and sums its results. */
+    private long forEachBatch(RegionKey region, AggregateType type, Batch batch) {
+        long total = 0;
+        long afterId = Long.MIN_VALUE;
+        while (true) {
+            List<Long> ids = router.getDirectory().homed(region, type, afterId, batchSize);
+            if (!ids.isEmpty()) {
+                total += batch.apply(ids);
+            }
+            if (ids.size() < batchSize) {
+                return total;
+            }
+            afterId = ids.get(ids.size() - 1);
+        }
+    }
+    
+    private int locked(RegionKey region, IntSupplier task) {
+        Lock lock = router.regionLock(region).writeLock();
+        lock.lock();
+        try {
+            return task.getAsInt();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void checkShard(int shard) {
+        if (shard < 0 || shard >= router.getShardCount()) {
+            throw new IllegalArgumentException("Shard must be between 0 and " + (router.getShardCount() - 1));
+        }
+    }
+    
+    @FunctionalInterface
+    private interface Batch {
+        int apply(List<Long> ids);
+    }
+}
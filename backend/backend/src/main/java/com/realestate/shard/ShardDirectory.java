@@ -0,0 +1,229 @@
+package com.realestate.shard;
+
+import com.realestate.outbox.AggregateType;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Which shard owns which region, backed by {@code shard_regions} on the primary and cached in
+ * memory. A region seen for the first time is placed by hashing its key over the shards; later it
+ * only changes shard through {@link RegionRebalancer}.
+ *
+ * <p>It also records the home region of every listing, agent and client in
+ * {@code shard_entities}, see {@link ShardEntity}. Those rows are read from the table each time,
+ * as there are as many as there are entities.
+ *
+ * <p>The cache is only updated by this instance. Running several instances against the same
+ * shards needs moves to be made through one of them and the others restarted, or
+ * {@link #reload()}ed, after the move.
+ */
+public class ShardDirectory {
+    private static final String SELECT_ALL_SQL = "SELECT country, state, shard, moving_to, version FROM shard_regions";
+    private static final String SELECT_SQL = SELECT_ALL_SQL + " WHERE country = ? AND state = ?";
+    private static final String INSERT_SQL = "INSERT INTO shard_regions (country, state, shard, version, updated_at) "
+            + "VALUES (?, ?, ?, 0, ?)";
+    private static final String START_MOVE_SQL = "UPDATE shard_regions SET moving_to = ?, version = version + 1, "
+            + "updated_at = ? WHERE country = ? AND state = ? AND version = ?";
+    private static final String COMPLETE_MOVE_SQL = "UPDATE shard_regions SET shard = moving_to, moving_to = NULL, "
+            + "version = version + 1, updated_at = ? WHERE country = ? AND state = ? AND version = ?";
+    private static final String CANCEL_MOVE_SQL = "UPDATE shard_regions SET moving_to = NULL, version = version + 1, "
+            + "updated_at = ? WHERE country = ? AND state = ? AND version = ?";
+    private static final String SELECT_HOME_SQL = "SELECT country, state FROM shard_entities "
+            + "WHERE entity_type = ? AND entity_id = ?";
+    private static final String SELECT_HOMES_SQL = "SELECT entity_id, country, state FROM shard_entities "
+            + "WHERE entity_type = ? AND entity_id IN (%s)";
+    private static final String INSERT_HOME_SQL = "INSERT INTO shard_entities (entity_type, entity_id, country, state) "
+            + "VALUES (?, ?, ?, ?)";
+    private static final String UPDATE_HOME_SQL = "UPDATE shard_entities SET country = ?, state = ? "
+            + "WHERE entity_type = ? AND entity_id = ?";
+    private static final String DELETE_HOME_SQL = "DELETE FROM shard_entities WHERE entity_type = ? AND entity_id = ?";
+    private static final String SELECT_HOMED_SQL = "SELECT entity_id FROM shard_entities "
+            + "WHERE country = ? AND state = ? AND entity_type = ? AND entity_id > ? ORDER BY entity_id LIMIT ?";
+    private static final int LOOKUP_BATCH_SIZE = 500;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final int shardCount;
+    private final Map<RegionKey, Placement> placements = new ConcurrentHashMap<>();
+    
+    public ShardDirectory(JdbcTemplate jdbcTemplate, int shardCount) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardCount = shardCount;
+    }
+    
+    /** Replaces the cached placements with the table's. */
+    public synchronized void reload() {
+        Map<RegionKey, Placement> loaded = new ConcurrentHashMap<>();
+        jdbcTemplate.query(SELECT_ALL_SQL, rs -> {
+            RegionKey region = new RegionKey(rs.getString(1), rs.getString(2));
+            loaded.put(region, checked(region, new Placement(rs.getInt(3), (Integer) rs.getObject(4), rs.getLong(5))));
+        });
+        placements.keySet().retainAll(loaded.keySet());
+        placements.putAll(loaded);
+    }
+    
+    /** The region's placement, assigning and persisting one on first use. */
+    public Placement placement(RegionKey region) {
+        Placement placement = placements.get(region);
+        return placement != null ? placement : assign(region);
+    }
+    
+    /** The region's placement, or empty if nothing of the region was ever stored. */
+    public Optional<Placement> find(RegionKey region) {
+        return Optional.ofNullable(placements.get(region));
+    }
+    
+    /** Every known region and its placement, ordered by region. */
+    public Map<RegionKey, Placement> placements() {
+        Map<RegionKey, Placement> sorted = new TreeMap<>((a, b) -> a.toString().compareTo(b.toString()));
+        sorted.putAll(placements);
+        return sorted;
+    }
+    
+    public int getShardCount() { return shardCount; }
+    
+    /** The region {@code id} of {@code type} lives in, or empty if it was never stored. */
+    public Optional<RegionKey> home(AggregateType type, long id) {
+        return Optional.ofNullable(jdbcTemplate.query(SELECT_HOME_SQL,
+                rs -> rs.next() ? new RegionKey(rs.getString(1), rs.getString(2)) : null, type.name(), id));
+    }
+    
+    /** The home regions of those of {@code ids} that were stored. */
+    public Map<Long, RegionKey> homes(AggregateType type, Collection<Long> ids) {
+        Map<Long, RegionKey> homes = new HashMap<>();
+        List<Long> all = List.copyOf(ids);
+        for (int from = 0; from < all.size(); from += LOOKUP_BATCH_SIZE) {
+            List<Long> batch = all.subList(from, Math.min(from + LOOKUP_BATCH_SIZE, all.size()));
+            List<Object> args = new ArrayList<>(batch.size() + 1);
+            args.add(type.name());
+            args.addAll(batch);
+            jdbcTemplate.query(String.format(SELECT_HOMES_SQL, String.join(", ", Collections.nCopies(batch.size(), "?"))),
+                    rs -> {
+                        homes.put(rs.getLong(1), new RegionKey(rs.getString(2), rs.getString(3)));
+                    }, args.toArray());
+        }
+        return homes;
+    }
+    
+    /** Records {@code region} as the home of {@code ids}, replacing any earlier home. */
+    public void setHome(AggregateType type, Collection<Long> ids, RegionKey region) {
+        for (long id : ids) {
+            if (jdbcTemplate.update(UPDATE_HOME_SQL, region.country(), region.state(), type.name(), id) > 0) {
+                continue;
+            }
+            try {
+                jdbcTemplate.update(INSERT_HOME_SQL, type.name(), id, region.country(), region.state());
+            } catch (DuplicateKeyException e) {
+                // Recorded by another instance in the meantime
+                jdbcTemplate.update(UPDATE_HOME_SQL, region.country(), region.state(), type.name(), id);
+            }
+        }
+    }
+    
+    public void removeHome(AggregateType type, Collection<Long> ids) {
+        if (!ids.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_HOME_SQL, ids.stream().map(id -> new Object[] {type.name(), id}).toList());
+        }
+    }
+    
+    /** Ids of {@code type} homed in {@code region}, in id order after {@code afterId}. */
+    public List<Long> homed(RegionKey region, AggregateType type, long afterId, int limit) {
+        return jdbcTemplate.queryForList(SELECT_HOMED_SQL, Long.class, region.country(), region.state(), type.name(),
+                afterId, limit);
+    }
+    
+    /**
+     * Starts dual writes of the region to {@code target}.
+     *
+     * @throws IllegalStateException if the placement changed since {@code expected} was read
+     */
+    Placement startMove(RegionKey region, Placement expected, int target) {
+        return update(region, expected, new Placement(expected.shard(), target, expected.version() + 1),
+                START_MOVE_SQL, target);
+    }
+    
+    /** Makes the target of a move the owner of the region. */
+    Placement completeMove(RegionKey region, Placement expected) {
+        return update(region, expected, new Placement(expected.movingTo(), null, expected.version() + 1),
+                COMPLETE_MOVE_SQL);
+    }
+    
+    /** Stops dual writes of the region, leaving it on its current shard. */
+    Placement cancelMove(RegionKey region, Placement expected) {
+        return update(region, expected, new Placement(expected.shard(), null, expected.version() + 1),
+                CANCEL_MOVE_SQL);
+    }
+    
+    private synchronized Placement assign(RegionKey region) {
+        Placement placement = placements.get(region);
+        if (placement != null) {
+            return placement;
+        }
+        int shard = Math.floorMod(region.toString().hashCode(), shardCount);
+        try {
+            jdbcTemplate.update(INSERT_SQL, region.country(), region.state(), shard, Timestamp.valueOf(LocalDateTime.now()));
+            placement = new Placement(shard, null, 0);
+        } catch (DuplicateKeyException e) {
+            // Placed by another instance in the meantime
+            placement = read(region);
+        }
+        placements.put(region, placement);
+        return placement;
+    }
+    
+    private synchronized Placement update(RegionKey region, Placement expected, Placement updated, String sql,
+                                          Object... leadingArgs) {
+        Object[] args = new Object[leadingArgs.length + 4];
+        System.arraycopy(leadingArgs, 0, args, 0, leadingArgs.length);
+        args[leadingArgs.length] = Timestamp.valueOf(LocalDateTime.now());
+        args[leadingArgs.length + 1] = region.country();
+        args[leadingArgs.length + 2] = region.state();
+        args[leadingArgs.length + 3] = expected.version();
+        if (jdbcTemplate.update(sql, args) == 0) {
+            placements.put(region, read(region));
+            throw new IllegalStateException("Placement of " + region + " changed concurrently; retry");
+        }
+        placements.put(region, updated);
+        return updated;
+    }
+    
+    private Placement read(RegionKey region) {
+        return jdbcTemplate.query(SELECT_SQL,
+                rs -> rs.next() ? checked(region, new Placement(rs.getInt(3), (Integer) rs.getObject(4), rs.getLong(5))) : null,
+                region.country(), region.state());
+    }
+    
+    private Placement checked(RegionKey region, Placement placement) {
+        if (placement.shard() >= shardCount || (placement.movingTo() != null && placement.movingTo() >= shardCount)) {
+            throw new IllegalStateException("Region " + region + " is placed on a shard beyond the " + shardCount
+                    + " configured; restore realestate.sharding.shard-urls before starting");
+        }
+        return placement;
+    }
+    
+    /**
+     * Where a region lives: its owning {@code shard} and, during a move, the shard it is being
+     * copied to, which receives writes too but serves no reads until the move completes.
+     */
+    public record Placement(int shard, Integer movingTo, long version) {
+        
+        public boolean isMoving() {
+            return movingTo != null;
+        }
+        
+        /** Whether writes of the region go to {@code candidate}. */
+        public boolean writesTo(int candidate) {
+            return shard == candidate || (movingTo != null && movingTo == candidate);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.realestate.shard;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * The home region of one listing, agent or client, kept on the primary. Rows are written with
+ * JDBC by {@link ShardDirectory}; the mapping exists so the schema is generated with the rest of
+ * the entities.
+ *
+ * <p>Agents and clients are homed in the region of their address when created, and a listing in
+ * its agent's; the entity lives on whichever shard owns that region. Moving a region changes its
+ * placement, not these rows.
+ */
+@Entity
+@Table(name = "shard_entities",
+        uniqueConstraints = @UniqueConstraint(name = "uk_shard_entities_entity", columnNames = {"entity_type", "entity_id"}),
+        indexes = @Index(name = "idx_shard_entities_region", columnList = "country, state, entity_type, entity_id"))
+public class ShardEntity {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "entity_type", nullable = false, length = 20)
+    private String entityType;
+    
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+    
+    @Column(nullable = false, length = 100)
+    private String country;
+    
+    @Column(nullable = false, length = 100)
+    private String state;
+    
+    protected ShardEntity() {
+    }
+    
+    public Long getId() { return id; }
+    
+    public String getEntityType() { return entityType; }
+    
+    public Long getEntityId() { return entityId; }
+    
+    public String getCountry() { return country; }
+    
+    public String getState() { return state; }
+}
@@ -0,0 +1,51 @@
+package com.realestate.shard;
+
+import com.realestate.dto.ListingSummary;
+import com.realestate.model.Property.ListingType;
+import com.realestate.model.Property.PropertyStatus;
+import com.realestate.model.Property.PropertyType;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * The searchable fields of a listing as read from a shard's {@code properties} table, with the
+ * listing's own region; the shard it lives on follows its agent's region.
+ */
+record ShardListing(long id, RegionKey region, String city, Long agentId, PropertyStatus status,
+                    ListingType listingType, PropertyType propertyType, BigDecimal price, Integer bedrooms,
+                    Integer bathrooms, Integer squareFeet, String title, String mainImageUrl, LocalDate listingDate,
+                    LocalDateTime updatedAt) {
+    static final String COLUMNS = "id, country, state, city, agent_id, status, listing_type, property_type, price, "
+            + "bedrooms, bathrooms, square_feet, title, main_image_url, listing_date, updated_at";
+    
+    static final RowMapper<ShardListing> MAPPER = ShardListing::read;
+    
+    static ShardListing read(ResultSet rs, int rowNum) throws SQLException {
+        Date listingDate = rs.getDate("listing_date");
+        Timestamp updatedAt = rs.getTimestamp("updated_at");
+        return new ShardListing(rs.getLong("id"), new RegionKey(rs.getString("country"), rs.getString("state")),
+                rs.getString("city"), rs.getObject("agent_id", Long.class),
+                enumValue(PropertyStatus.class, rs.getString("status")),
+                enumValue(ListingType.class, rs.getString("listing_type")),
+                enumValue(PropertyType.class, rs.getString("property_type")), rs.getBigDecimal("price"),
+                rs.getObject("bedrooms", Integer.class), rs.getObject("bathrooms", Integer.class),
+                rs.getObject("square_feet", Integer.class), rs.getString("title"), rs.getString("main_image_url"),
+                listingDate != null ? listingDate.toLocalDate() : null,
+                updatedAt != null ? updatedAt.toLocalDateTime() : LocalDateTime.now());
+    }
+    
+    ListingSummary toSummary() {
+        return new ListingSummary(id, title, price, bedrooms, bathrooms, squareFeet, city, region.state(), propertyType,
+                listingType, status, mainImageUrl);
+    }
+    
+    private static <E extends Enum<E>> E enumValue(Class<E> type, String name) {
+        return name != null ? Enum.valueOf(type, name) : null;
+    }
+}
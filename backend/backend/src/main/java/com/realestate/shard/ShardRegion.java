@@ -0,0 +1,63 @@
+package com.realestate.shard;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.time.LocalDateTime;
+
+/**
+ * Placement of one {@link RegionKey} on a shard, kept on the primary. Rows are written with JDBC
+ * by {@link ShardDirectory}; the mapping exists so the schema is generated with the rest of the
+ * entities.
+ *
+ * <p>While {@code moving_to} is set the region is being copied to that shard by
+ * {@link RegionRebalancer} and writes go to both; {@code version} is bumped by every change of
+ * placement so concurrent moves of the same region cannot both succeed.
+ */
+@Entity
+@Table(name = "shard_regions", uniqueConstraints = @UniqueConstraint(name = "uk_shard_regions_region", columnNames = {"country", "state"}))
+public class ShardRegion {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false, length = 100)
+    private String country;
+    
+    @Column(nullable = false, length = 100)
+    private String state;
+    
+    @Column(nullable = false)
+    private int shard;
+    
+    @Column(name = "moving_to")
+    private Integer movingTo;
+    
+    @Column(nullable = false)
+    private long version;
+    
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+    
+    protected ShardRegion() {
+    }
+    
+    public Long getId() { return id; }
+    
+    public String getCountry() { return country; }
+    
+    public String getState() { return state; }
+    
+    public int getShard() { return shard; }
+    
+    public Integer getMovingTo() { return movingTo; }
+    
+    public long getVersion() { return version; }
+    
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+}
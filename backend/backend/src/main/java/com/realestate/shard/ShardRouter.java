@@ -0,0 +1,207 @@
+package com.realestate.shard;
+
+import com.realestate.outbox.AggregateType;
+import com.realestate.routing.DatabaseNode;
+import com.realestate.routing.WorkloadClass;
+import com.realestate.shard.ShardDirectory.Placement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * The shard databases and how work reaches them. Every shard is a {@link DatabaseNode}, so
+ * it has an interactive and a bulk pool like the primary and replicas; the pool is chosen by
+ * the workload class of the thread that asked, also when the work runs on a scatter thread.
+ * <ul>
+ *   <li>{@link #scatter} runs one task per shard on a shared pool of daemon threads and waits
+ *       for all of them; the first failure fails the whole call.</li>
+ *   <li>Every region has a read-write lock: writes of the region hold it shared, the copy steps
+ *       and the cutover of a move hold it exclusively, so every write either precedes a copy step
+ *       or is copied by the writer itself, and none lands on the old owner after the switch.</li>
+ * </ul>
+ * The state of moves in progress, writes that missed the target and rows still being deleted,
+ * is kept in memory: like the placements, it is only known to the instance running the move.
+ */
+public class ShardRouter implements AutoCloseable {
+    private static final int HOMED_BATCH_SIZE = 1000;
+    
+    private final List<DatabaseNode> nodes;
+    private final List<JdbcTemplate> templates;
+    private final ShardDirectory directory;
+    private final ExecutorService scatterPool;
+    private final Map<RegionKey, ReadWriteLock> regionLocks = new ConcurrentHashMap<>();
+    private final Set<RegionKey> unsynced = ConcurrentHashMap.newKeySet();
+    private final Map<RegionKey, Integer> draining = new ConcurrentHashMap<>();
+    private final ShardRows rows;
+    
+    public ShardRouter(List<DatabaseNode> nodes, ShardDirectory directory, int scatterThreads) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.nodes = List.copyOf(nodes);
+        this.templates = nodes.stream().map(JdbcTemplate::new).toList();
+        this.directory = directory;
+        this.scatterPool = Executors.newFixedThreadPool(scatterThreads, scatterThreads());
+        this.rows = new ShardRows(this.nodes, templates);
+    }
+    
+    public int getShardCount() { return nodes.size(); }
+    
+    public List<DatabaseNode> getNodes() { return nodes; }
+    
+    public ShardDirectory getDirectory() { return directory; }
+    
+    public JdbcTemplate shard(int shard) {
+        return templates.get(shard);
+    }
+    
+    /** The lock writes of {@code region} hold shared and a move's copy steps hold exclusively. */
+    public ReadWriteLock regionLock(RegionKey region) {
+        return regionLocks.computeIfAbsent(region, key -> new ReentrantReadWriteLock());
+    }
+    
+    ShardRows rows() {
+        return rows;
+    }
+    
+    /** Records that a write of {@code region} reached its owner but not the target of the region's move. */
+    void markUnsynced(RegionKey region) {
+        unsynced.add(region);
+    }
+    
+    /** Whether a write was marked unsynced since the last call, clearing the mark. */
+    boolean clearUnsynced(RegionKey region) {
+        return unsynced.remove(region);
+    }
+    
+    /** Records that {@code shard} still holds rows of {@code region} it no longer serves, while they are deleted. */
+    void startDraining(RegionKey region, int shard) {
+        draining.put(region, shard);
+    }
+    
+    void stopDraining(RegionKey region) {
+        draining.remove(region);
+    }
+    
+    /**
+     * The regions whose rows {@code shard} holds without serving them: those being moved to it
+     * and those moved away or cancelled whose rows are still being deleted.
+     */
+    public List<RegionKey> unservedRegions(int shard) {
+        List<RegionKey> regions = new ArrayList<>();
+        directory.placements().forEach((region, placement) -> {
+            if (placement.isMoving() && placement.movingTo() == shard) {
+                regions.add(region);
+            }
+        });
+        draining.forEach((region, drained) -> {
+            if (drained == shard && !regions.contains(region)) {
+                regions.add(region);
+            }
+        });
+        return regions;
+    }
+    
+    /** The agents homed in the regions {@code shard} holds without serving them, see {@link #unservedRegions}. */
+    public List<Long> unservedAgents(int shard) {
+        List<Long> agents = new ArrayList<>();
+        for (RegionKey region : unservedRegions(shard)) {
+            long afterId = Long.MIN_VALUE;
+            while (true) {
+                List<Long> ids = directory.homed(region, AggregateType.AGENT, afterId, HOMED_BATCH_SIZE);
+                agents.addAll(ids);
+                if (ids.size() < HOMED_BATCH_SIZE) {
+                    break;
+                }
+                afterId = ids.get(ids.size() - 1);
+            }
+        }
+        return agents;
+    }
+    
+    /**
+     * The regions each shard serves reads for: those it owns, leaving out copies that are still
+     * being moved in and leftovers that are still being removed after a move out.
+     */
+    public Map<Integer, List<RegionKey>> ownedRegions() {
+        Map<Integer, List<RegionKey>> owned = new LinkedHashMap<>();
+        for (Map.Entry<RegionKey, Placement> entry : directory.placements().entrySet()) {
+            owned.computeIfAbsent(entry.getValue().shard(), shard -> new ArrayList<>()).add(entry.getKey());
+        }
+        return owned;
+    }
+    
+    /**
+     * Runs {@code task} against each of {@code shards} in parallel, in the caller's workload
+     * class, and returns the results in the order of {@code shards}.
+     */
+    public <T> List<T> scatter(Collection<Integer> shards, BiFunction<Integer, JdbcTemplate, T> task) {
+        WorkloadClass workload = WorkloadClass.current();
+        List<Future<T>> futures = new ArrayList<>(shards.size());
+        for (int shard : shards) {
+            futures.add(scatterPool.submit(() -> workload.run(() -> task.apply(shard, templates.get(shard)))));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for shards", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Shard query failed", e.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        return results;
+    }
+    
+    /** {@link #scatter} over every shard. */
+    public <T> List<T> scatterAll(BiFunction<Integer, JdbcTemplate, T> task) {
+        List<Integer> all = new ArrayList<>(nodes.size());
+        for (int shard = 0; shard < nodes.size(); shard++) {
+            all.add(shard);
+        }
+        return scatter(all, task);
+    }
+    
+    /** Pool usage per shard. */
+    public Map<String, Object> poolStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        nodes.forEach(node -> stats.put(node.getName(), node.poolStats()));
+        return stats;
+    }
+    
+    @Override
+    public void close() {
+        scatterPool.shutdownNow();
+        nodes.forEach(DatabaseNode::close);
+    }
+    
+    private static ThreadFactory scatterThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "shard-scatter-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,43 @@
+package com.realestate.shard;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * The application's data source with sharding enabled: connections come from the shard of the
+ * calling thread's {@link ShardScope}, and from the wrapped data source, the primary, outside any
+ * scope. JPA, the transaction manager and the application's {@code JdbcTemplate} all go through
+ * it, so the same repositories read and write whichever database the scope names.
+ *
+ * <p>The router is looked up on first use, as it is built from the primary's
+ * {@code JdbcTemplate}, which is built from this data source.
+ */
+public class ShardRoutingDataSource extends DelegatingDataSource {
+    private final Supplier<ShardRouter> router;
+    
+    public ShardRoutingDataSource(DataSource primary, Supplier<ShardRouter> router) {
+        super(primary);
+        this.router = router;
+    }
+    
+    /** The primary, for work that must reach it whatever the scope, such as the region directory. */
+    public DataSource getPrimary() {
+        return obtainTargetDataSource();
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        Integer shard = ShardScope.current();
+        return shard == null ? super.getConnection() : router.get().getNodes().get(shard).getConnection();
+    }
+    
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Integer shard = ShardScope.current();
+        return shard == null ? super.getConnection(username, password)
+                : router.get().getNodes().get(shard).getConnection(username, password);
+    }
+}
@@ -0,0 +1,376 @@
+package com.realestate.shard;
+
+import com.realestate.routing.DatabaseNode;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Copies and deletes whole agents and listings between shards with plain JDBC, for region moves
+ * and the writes made while one runs. An agent goes with its listings, and both with every row
+ * that references them through a foreign key, found from the shards' metadata, down to the rows
+ * referencing those. Clients referenced by the copied rows are copied along if the target lacks
+ * them and stay there as reference copies.
+ *
+ * <p>Copies replace what the target held of the same agents or listings, in one transaction on
+ * the target, so rows deleted on the source since an earlier copy go too. Rows of other tables
+ * may only reference agents and listings of their own region; anything else fails the copy.
+ */
+class ShardRows {
+    private static final Logger log = LoggerFactory.getLogger(ShardRows.class);
+    private static final String AGENTS = "agents";
+    private static final String LISTINGS = "properties";
+    private static final String CLIENTS = "clients";
+    private static final Set<String> ROOTS = Set.of(AGENTS, LISTINGS, CLIENTS);
+    private static final int IN_BATCH_SIZE = 500;
+    
+    private final List<JdbcTemplate> shards;
+    private final List<TransactionTemplate> transactions;
+    private volatile Schema schema;
+    
+    ShardRows(List<DatabaseNode> nodes, List<JdbcTemplate> shards) {
+        this.shards = shards;
+        this.transactions = nodes.stream()
+                .map(node -> new TransactionTemplate(new DataSourceTransactionManager(node)))
+                .toList();
+    }
+    
+    /**
+     * Copies the agents with everything that belongs to them from {@code from} to {@code to}.
+     *
+     * @param present only copy agents the target already has, so that an agent not yet moved
+     *                is left to the move
+     * @return how many agents were copied
+     */
+    int copyAgents(Collection<Long> agentIds, int from, int to, boolean present) {
+        Schema tables = schema();
+        JdbcTemplate source = shards.get(from);
+        JdbcTemplate target = shards.get(to);
+        return transactions.get(to).execute(status -> {
+            List<Long> ids = present ? ids(select(target, AGENTS, "id", agentIds), "id") : List.copyOf(agentIds);
+            List<Map<String, Object>> agents = select(source, AGENTS, "id", ids);
+            List<Long> found = ids(agents, "id");
+            deleteTree(target, tables.agentChildren(), found);
+            deleteListings(target, tables, ids(select(target, LISTINGS, "agent_id", found), "id"));
+            List<Map<String, Object>> listings = select(source, LISTINGS, "agent_id", found);
+            List<Rows> children = new ArrayList<>();
+            collect(source, tables.agentChildren(), found, children);
+            collect(source, tables.listingChildren(), ids(listings, "id"), children);
+            Set<Long> clients = new HashSet<>(referenced(listings, tables.listingClientColumns()));
+            children.forEach(rows -> clients.addAll(referenced(rows.rows(), rows.table().clientColumns())));
+            ensureClients(clients, from, to);
+            upsert(target, AGENTS, "id", agents);
+            insert(target, LISTINGS, listings);
+            children.forEach(rows -> insert(target, rows.table().name(), rows.rows()));
+            return found.size();
+        });
+    }
+    
+    /**
+     * Copies the listings with the rows that belong to them, leaving out those whose agent the
+     * target does not have yet.
+     */
+    void copyListings(Collection<Long> listingIds, int from, int to) {
+        Schema tables = schema();
+        JdbcTemplate source = shards.get(from);
+        JdbcTemplate target = shards.get(to);
+        transactions.get(to).execute(status -> {
+            List<Map<String, Object>> listings = select(source, LISTINGS, "id", listingIds);
+            Set<Long> agents = new HashSet<>(ids(select(target, AGENTS, "id", referenced(listings, List.of("agent_id"))), "id"));
+            listings.removeIf(row -> !agents.contains(((Number) row.get("agent_id")).longValue()));
+            List<Long> ids = ids(listings, "id");
+            deleteListings(target, tables, ids);
+            List<Rows> children = new ArrayList<>();
+            collect(source, tables.listingChildren(), ids, children);
+            Set<Long> clients = new HashSet<>(referenced(listings, tables.listingClientColumns()));
+            children.forEach(rows -> clients.addAll(referenced(rows.rows(), rows.table().clientColumns())));
+            ensureClients(clients, from, to);
+            insert(target, LISTINGS, listings);
+            children.forEach(rows -> insert(target, rows.table().name(), rows.rows()));
+            return null;
+        });
+    }
+    
+    /** Writes the clients' rows on {@code from} to {@code to}, adding or replacing them. */
+    void copyClients(Collection<Long> clientIds, int from, int to) {
+        List<Map<String, Object>> clients = select(shards.get(from), CLIENTS, "id", clientIds);
+        transactions.get(to).execute(status -> {
+            upsert(shards.get(to), CLIENTS, "id", clients);
+            return null;
+        });
+    }
+    
+    /** Copies those of the clients that {@code to} lacks from {@code from}. */
+    void ensureClients(Collection<Long> clientIds, int from, int to) {
+        if (clientIds.isEmpty() || from == to) {
+            return;
+        }
+        Set<Long> missing = new LinkedHashSet<>(clientIds);
+        ids(select(shards.get(to), CLIENTS, "id", clientIds), "id").forEach(missing::remove);
+        if (!missing.isEmpty()) {
+            insert(shards.get(to), CLIENTS, select(shards.get(from), CLIENTS, "id", missing));
+        }
+    }
+    
+    /** Replaces the copies of the client on every other shard holding one with its row on {@code home}. */
+    void refreshCopies(long clientId, int home) {
+        List<Map<String, Object>> row = select(shards.get(home), CLIENTS, "id", List.of(clientId));
+        if (row.isEmpty()) {
+            return;
+        }
+        for (int shard = 0; shard < shards.size(); shard++) {
+            if (shard != home) {
+                update(shards.get(shard), CLIENTS, "id", row);
+            }
+        }
+    }
+    
+    /** Deletes the agents, their listings and every row belonging to either from {@code shard}. */
+    void deleteAgents(Collection<Long> agentIds, int shard) {
+        Schema tables = schema();
+        JdbcTemplate target = shards.get(shard);
+        transactions.get(shard).execute(status -> {
+            deleteTree(target, tables.agentChildren(), agentIds);
+            deleteListings(target, tables, ids(select(target, LISTINGS, "agent_id", agentIds), "id"));
+            delete(target, AGENTS, "id", agentIds);
+            return null;
+        });
+    }
+    
+    void deleteListings(Collection<Long> listingIds, int shard) {
+        Schema tables = schema();
+        transactions.get(shard).execute(status -> {
+            deleteListings(shards.get(shard), tables, listingIds);
+            return null;
+        });
+    }
+    
+    /**
+     * Deletes the clients from {@code shard}, keeping those still referenced there as reference
+     * copies.
+     *
+     * @return how many were deleted
+     */
+    int deleteClients(Collection<Long> clientIds, int shard) {
+        int deleted = 0;
+        for (long id : clientIds) {
+            try {
+                deleted += shards.get(shard).update("DELETE FROM " + CLIENTS + " WHERE id = ?", id);
+            } catch (DataIntegrityViolationException e) {
+                // Still referenced by listings of another region
+            }
+        }
+        return deleted;
+    }
+    
+    private void deleteListings(JdbcTemplate target, Schema tables, Collection<Long> listingIds) {
+        deleteTree(target, tables.listingChildren(), listingIds);
+        delete(target, LISTINGS, "id", listingIds);
+    }
+    
+    /** Deletes the rows referencing {@code parentIds} through {@code tables}, the deepest first. */
+    private void deleteTree(JdbcTemplate target, List<Table> tables, Collection<Long> parentIds) {
+        if (parentIds.isEmpty()) {
+            return;
+        }
+        for (Table table : tables) {
+            if (!table.children().isEmpty()) {
+                deleteTree(target, table.children(), ids(select(target, table.name(), table.parentColumn(), parentIds),
+                        table.idColumn()));
+            }
+            delete(target, table.name(), table.parentColumn(), parentIds);
+        }
+    }
+    
+    /** Adds the rows referencing {@code parentIds} through {@code tables}, parents before children. */
+    private void collect(JdbcTemplate source, List<Table> tables, Collection<Long> parentIds, List<Rows> out) {
+        if (parentIds.isEmpty()) {
+            return;
+        }
+        for (Table table : tables) {
+            List<Map<String, Object>> rows = select(source, table.name(), table.parentColumn(), parentIds);
+            out.add(new Rows(table, rows));
+            collect(source, table.children(), ids(rows, table.idColumn()), out);
+        }
+    }
+    
+    private static List<Map<String, Object>> select(JdbcTemplate template, String table, String column,
+                                                    Collection<Long> ids) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        List<Long> all = List.copyOf(ids);
+        for (int from = 0; from < all.size(); from += IN_BATCH_SIZE) {
+            List<Long> batch = all.subList(from, Math.min(from + IN_BATCH_SIZE, all.size()));
+            rows.addAll(template.queryForList("SELECT * FROM " + table + " WHERE " + column + " IN (" + placeholders(batch.size())
+                    + ")", batch.toArray()));
+        }
+        return rows;
+    }
+    
+    private static void delete(JdbcTemplate template, String table, String column, Collection<Long> ids) {
+        List<Long> all = List.copyOf(ids);
+        for (int from = 0; from < all.size(); from += IN_BATCH_SIZE) {
+            List<Long> batch = all.subList(from, Math.min(from + IN_BATCH_SIZE, all.size()));
+            template.update("DELETE FROM " + table + " WHERE " + column + " IN (" + placeholders(batch.size()) + ")",
+                    batch.toArray());
+        }
+    }
+    
+    private static void insert(JdbcTemplate template, String table, List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<String> columns = List.copyOf(rows.get(0).keySet());
+        String sql = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES (" + placeholders(columns.size())
+                + ")";
+        template.batchUpdate(sql, rows.stream().map(row -> columns.stream().map(row::get).toArray()).toList());
+    }
+    
+    /** Updates the rows the target has, leaving out the others; returns the rows it lacked. */
+    private static List<Map<String, Object>> update(JdbcTemplate template, String table, String idColumn,
+                                                    List<Map<String, Object>> rows) {
+        List<Map<String, Object>> missing = new ArrayList<>();
+        for (Map<String, Object> row : rows) {
+            List<String> columns = row.keySet().stream().filter(column -> !column.equalsIgnoreCase(idColumn)).toList();
+            List<Object> args = new ArrayList<>(columns.size() + 1);
+            columns.forEach(column -> args.add(row.get(column)));
+            args.add(row.get(idColumn));
+            String sql = "UPDATE " + table + " SET " + String.join(" = ?, ", columns) + " = ? WHERE " + idColumn + " = ?";
+            if (template.update(sql, args.toArray()) == 0) {
+                missing.add(row);
+            }
+        }
+        return missing;
+    }
+    
+    private static void upsert(JdbcTemplate template, String table, String idColumn, List<Map<String, Object>> rows) {
+        insert(template, table, update(template, table, idColumn, rows));
+    }
+    
+    private static List<Long> referenced(List<Map<String, Object>> rows, List<String> columns) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Map<String, Object> row : rows) {
+            for (String column : columns) {
+                if (row.get(column) instanceof Number id) {
+                    ids.add(id.longValue());
+                }
+            }
+        }
+        return List.copyOf(ids);
+    }
+    
+    private static List<Long> ids(List<Map<String, Object>> rows, String column) {
+        return rows.stream().map(row -> ((Number) row.get(column)).longValue()).toList();
+    }
+    
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+    
+    private Schema schema() {
+        Schema tables = schema;
+        if (tables == null) {
+            tables = shards.get(0).execute((ConnectionCallback<Schema>) connection -> {
+                DatabaseMetaData metaData = connection.getMetaData();
+                String catalog = connection.getCatalog();
+                String schemaName = connection.getSchema();
+                String listings = name(metaData, catalog, schemaName, LISTINGS);
+                // A table referencing both is copied with the listings
+                Set<String> seen = new HashSet<>();
+                List<Table> listingChildren = children(metaData, catalog, schemaName, listings, seen);
+                List<Table> agentChildren = children(metaData, catalog, schemaName,
+                        name(metaData, catalog, schemaName, AGENTS), seen);
+                return new Schema(agentChildren, listingChildren, clientColumns(metaData, catalog, schemaName, listings));
+            });
+            schema = tables;
+        }
+        return tables;
+    }
+    
+    /** The tables referencing {@code table}, other than the agent, listing and client tables themselves. */
+    private static List<Table> children(DatabaseMetaData metaData, String catalog, String schemaName, String table,
+                                        Set<String> seen) throws SQLException {
+        List<String[]> keys = new ArrayList<>();
+        try (ResultSet rs = metaData.getExportedKeys(catalog, schemaName, table)) {
+            while (rs.next()) {
+                keys.add(new String[] {rs.getString("FKTABLE_NAME"), rs.getString("FKCOLUMN_NAME")});
+            }
+        }
+        List<Table> children = new ArrayList<>();
+        for (String[] key : keys) {
+            String child = key[0];
+            if (ROOTS.contains(child.toLowerCase(Locale.ROOT)) || !seen.add(child)) {
+                continue;
+            }
+            List<String> primaryKey = new ArrayList<>();
+            try (ResultSet rs = metaData.getPrimaryKeys(catalog, schemaName, child)) {
+                while (rs.next()) {
+                    primaryKey.add(rs.getString("COLUMN_NAME"));
+                }
+            }
+            if (primaryKey.size() != 1) {
+                log.warn("Table {} references {} but has no single-column primary key; it is not copied between shards",
+                        child, table);
+                continue;
+            }
+            children.add(new Table(child, key[1], primaryKey.get(0), clientColumns(metaData, catalog, schemaName, child),
+                    children(metaData, catalog, schemaName, child, seen)));
+        }
+        return children;
+    }
+    
+    private static List<String> clientColumns(DatabaseMetaData metaData, String catalog, String schemaName, String table)
+            throws SQLException {
+        List<String> columns = new ArrayList<>();
+        try (ResultSet rs = metaData.getImportedKeys(catalog, schemaName, table)) {
+            while (rs.next()) {
+                if (rs.getString("PKTABLE_NAME").equalsIgnoreCase(CLIENTS)) {
+                    columns.add(rs.getString("FKCOLUMN_NAME"));
+                }
+            }
+        }
+        return columns;
+    }
+    
+    /** The table's name as the database stores it. */
+    private static String name(DatabaseMetaData metaData, String catalog, String schemaName, String table)
+            throws SQLException {
+        try (ResultSet rs = metaData.getTables(catalog, schemaName, null, new String[] {"TABLE"})) {
+            while (rs.next()) {
+                if (rs.getString("TABLE_NAME").equalsIgnoreCase(table)) {
+                    return rs.getString("TABLE_NAME");
+                }
+            }
+        }
+        throw new IllegalStateException("The shards have no " + table + " table");
+    }
+    
+    /**
+     * A table of rows belonging to an agent or listing: {@code parentColumn} references the
+     * parent, {@code clientColumns} reference clients.
+     */
+    private record Table(String name, String parentColumn, String idColumn, List<String> clientColumns,
+                         List<Table> children) {
+    }
+    
+    private record Schema(List<Table> agentChildren, List<Table> listingChildren, List<String> listingClientColumns) {
+    }
+    
+    private record Rows(Table table, List<Map<String, Object>> rows) {
+    }
+}
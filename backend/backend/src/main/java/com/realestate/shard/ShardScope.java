@@ -0,0 +1,55 @@
+package com.realestate.shard;
+
+import com.realestate.routing.WorkloadClass;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * The shard the current thread's JPA and JDBC work goes to: {@link ShardRoutingDataSource} hands
+ * out connections of that shard inside {@link #run} and of the primary outside. A transaction
+ * keeps the connection it started with, so a scope has to be entered before the transaction,
+ * never inside one.
+ */
+public final class ShardScope {
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+    
+    private ShardScope() {
+    }
+    
+    /** The shard of the current thread, or null on the primary. */
+    public static Integer current() {
+        return CURRENT.get();
+    }
+    
+    /**
+     * Runs {@code task} on the current thread against {@code shard}.
+     *
+     * @throws IllegalStateException if a transaction on another database is active
+     */
+    public static <T, E extends Exception> T run(int shard, WorkloadClass.Task<T, E> task) throws E {
+        Integer previous = CURRENT.get();
+        if (previous != null && previous == shard) {
+            return task.run();
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Cannot switch to shard " + shard + " inside a transaction on "
+                    + (previous == null ? "the primary" : "shard " + previous));
+        }
+        CURRENT.set(shard);
+        try {
+            return task.run();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+    
+    public static void run(int shard, Runnable task) {
+        run(shard, () -> {
+            task.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,52 @@
+package com.realestate.shard;
+
+import com.realestate.model.Property.ListingType;
+import com.realestate.model.Property.PropertyStatus;
+import com.realestate.model.Property.PropertyType;
+import com.realestate.search.ListingSort;
+import java.math.BigDecimal;
+import java.util.Set;
+
+/**
+ * Filters of a search over the sharded listings. {@code regions} are {@code COUNTRY/STATE}
+ * values matched against the listing's own address; with an {@code agentId}, only the agent's
+ * shard is searched.
+ */
+public class ShardedListingQuery {
+    private Set<String> regions;
+    private Long agentId;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private Integer minBedrooms;
+    private Set<PropertyType> propertyTypes;
+    private Set<ListingType> listingTypes;
+    private Set<PropertyStatus> statuses;
+    private ListingSort sort = ListingSort.NEWEST;
+    
+    public Set<String> getRegions() { return regions; }
+    public void setRegions(Set<String> regions) { this.regions = regions; }
+    
+    public Long getAgentId() { return agentId; }
+    public void setAgentId(Long agentId) { this.agentId = agentId; }
+    
+    public BigDecimal getMinPrice() { return minPrice; }
+    public void setMinPrice(BigDecimal minPrice) { this.minPrice = minPrice; }
+    
+    public BigDecimal getMaxPrice() { return maxPrice; }
+    public void setMaxPrice(BigDecimal maxPrice) { this.maxPrice = maxPrice; }
+    
+    public Integer getMinBedrooms() { return minBedrooms; }
+    public void setMinBedrooms(Integer minBedrooms) { this.minBedrooms = minBedrooms; }
+    
+    public Set<PropertyType> getPropertyTypes() { return propertyTypes; }
+    public void setPropertyTypes(Set<PropertyType> propertyTypes) { this.propertyTypes = propertyTypes; }
+    
+    public Set<ListingType> getListingTypes() { return listingTypes; }
+    public void setListingTypes(Set<ListingType> listingTypes) { this.listingTypes = listingTypes; }
+    
+    public Set<PropertyStatus> getStatuses() { return statuses; }
+    public void setStatuses(Set<PropertyStatus> statuses) { this.statuses = statuses; }
+    
+    public ListingSort getSort() { return sort; }
+    public void setSort(ListingSort sort) { this.sort = sort; }
+}
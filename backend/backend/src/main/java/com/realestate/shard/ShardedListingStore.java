@@ -0,0 +1,235 @@
+package com.realestate.shard;
+
+import com.realestate.dto.ListingSummary;
+import com.realestate.outbox.AggregateType;
+import com.realestate.search.ListingSort;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Search over the listings where they live, partitioned with their agents over the shards, see
+ * {@link EntityShards}.
+ * <ul>
+ *   <li>A search for one agent's listings runs on the shard of the agent's region. Any other
+ *       search runs on every shard in parallel, as the {@code regions} filter matches a
+ *       listing's own region, which need not be its agent's.</li>
+ *   <li>Each shard returns its first {@code offset + size} rows in the requested order and the
+ *       results are merged; deep pages are refused past {@code max-result-window}.</li>
+ *   <li>A shard leaves out the listings of agents whose region it holds without serving it,
+ *       copies of a region being moved to it and leftovers of one moved away, so no listing is
+ *       counted twice.</li>
+ * </ul>
+ */
+public class ShardedListingStore {
+    private static final String SELECT_SQL = "SELECT " + ShardListing.COLUMNS + " FROM properties";
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM properties";
+    
+    private final ShardRouter router;
+    private final int maxResultWindow;
+    
+    public ShardedListingStore(ShardRouter router, int maxResultWindow) {
+        this.router = router;
+        this.maxResultWindow = maxResultWindow;
+    }
+    
+    /** Listings matching {@code query}, merged across shards in its sort order. */
+    public Page<ListingSummary> search(ShardedListingQuery query, Pageable pageable) {
+        long window = pageable.getOffset() + pageable.getPageSize();
+        if (window > maxResultWindow) {
+            throw new IllegalArgumentException("Pages beyond the first " + maxResultWindow + " results are not served");
+        }
+        List<Integer> targets = targets(query.getAgentId());
+        if (targets.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, 0);
+        }
+        List<RegionKey> regions = query.getRegions() == null ? List.of()
+                : query.getRegions().stream().map(RegionKey::parse).distinct().toList();
+        ListingSort sort = query.getSort() != null ? query.getSort() : ListingSort.NEWEST;
+        List<ShardPage> pages = router.scatter(targets, (shard, template) -> {
+            List<Object> args = new ArrayList<>();
+            String where = where(query, regions, query.getAgentId() == null ? router.unservedAgents(shard) : List.of(), args);
+            List<Object> pageArgs = new ArrayList<>(args);
+            pageArgs.add(window);
+            List<ShardListing> rows = template.query(SELECT_SQL + where + " ORDER BY " + orderBy(sort) + " LIMIT ?",
+                    ShardListing.MAPPER, pageArgs.toArray());
+            long total = rows.size() < window ? rows.size()
+                    : template.queryForObject(COUNT_SQL + where, Long.class, args.toArray());
+            return new ShardPage(rows, total);
+        });
+        
+        Comparator<ShardListing> order = order(sort);
+        PriorityQueue<Cursor> heads = new PriorityQueue<>((a, b) -> order.compare(a.head(), b.head()));
+        long total = 0;
+        for (ShardPage page : pages) {
+            total += page.total();
+            if (!page.rows().isEmpty()) {
+                heads.add(new Cursor(page.rows()));
+            }
+        }
+        List<ListingSummary> content = new ArrayList<>(pageable.getPageSize());
+        for (long skipped = 0; !heads.isEmpty() && content.size() < pageable.getPageSize(); ) {
+            Cursor cursor = heads.poll();
+            if (skipped < pageable.getOffset()) {
+                skipped++;
+            } else {
+                content.add(cursor.head().toSummary());
+            }
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        return new PageImpl<>(content, pageable, total);
+    }
+    
+    /** The listing as stored on the shard of its agent's region. */
+    public Optional<ListingSummary> find(long id) {
+        return router.getDirectory().home(AggregateType.PROPERTY, id)
+                .map(region -> router.getDirectory().placement(region).shard())
+                .flatMap(shard -> router.shard(shard).query(SELECT_SQL + " WHERE id = ?", ShardListing.MAPPER, id)
+                        .stream().findFirst())
+                .map(ShardListing::toSummary);
+    }
+    
+    /** Listings, owned regions and pool usage per shard, and the regions being moved. */
+    public Map<String, Object> stats() {
+        List<Long> counts = router.scatterAll((shard, template) -> template.queryForObject(COUNT_SQL, Long.class));
+        Map<Integer, List<RegionKey>> owned = router.ownedRegions();
+        Map<String, Object> pools = router.poolStats();
+        List<Map<String, Object>> shards = new ArrayList<>();
+        for (int shard = 0; shard < counts.size(); shard++) {
+            Map<String, Object> shardStats = new LinkedHashMap<>();
+            shardStats.put("shard", shard);
+            shardStats.put("rows", counts.get(shard));
+            shardStats.put("regions", owned.getOrDefault(shard, List.of()).stream().map(RegionKey::toString).toList());
+            shardStats.put("pools", pools.get("shard-" + shard));
+            shards.add(shardStats);
+        }
+        Map<String, Object> moving = new LinkedHashMap<>();
+        router.getDirectory().placements().forEach((region, placement) -> {
+            if (placement.isMoving()) {
+                moving.put(region.toString(), placement.shard() + " -> " + placement.movingTo());
+            }
+        });
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("shards", shards);
+        stats.put("moving", moving);
+        return stats;
+    }
+    
+    /** The shards to ask: the one of the agent's region when searching by agent, otherwise all. */
+    private List<Integer> targets(Long agentId) {
+        if (agentId == null) {
+            List<Integer> all = new ArrayList<>(router.getShardCount());
+            for (int shard = 0; shard < router.getShardCount(); shard++) {
+                all.add(shard);
+            }
+            return all;
+        }
+        return router.getDirectory().home(AggregateType.AGENT, agentId)
+                .map(region -> List.of(router.getDirectory().placement(region).shard()))
+                .orElse(List.of());
+    }
+    
+    private static String where(ShardedListingQuery query, List<RegionKey> regions, List<Long> excludedAgents,
+                                List<Object> args) {
+        StringBuilder where = new StringBuilder(" WHERE 1 = 1");
+        if (!regions.isEmpty()) {
+            where.append(" AND (");
+            for (int i = 0; i < regions.size(); i++) {
+                where.append(i == 0 ? "" : " OR ").append('(').append(RegionKey.normalized("country"))
+                        .append(" = ? AND ").append(RegionKey.normalized("state")).append(" = ?)");
+                args.add(regions.get(i).country());
+                args.add(regions.get(i).state());
+            }
+            where.append(')');
+        }
+        if (query.getAgentId() != null) {
+            where.append(" AND agent_id = ?");
+            args.add(query.getAgentId());
+        }
+        if (!excludedAgents.isEmpty()) {
+            where.append(" AND agent_id NOT IN (");
+            for (int i = 0; i < excludedAgents.size(); i++) {
+                where.append(i == 0 ? "?" : ", ?");
+                args.add(excludedAgents.get(i));
+            }
+            where.append(')');
+        }
+        if (query.getMinPrice() != null) {
+            where.append(" AND price >= ?");
+            args.add(query.getMinPrice());
+        }
+        if (query.getMaxPrice() != null) {
+            where.append(" AND price <= ?");
+            args.add(query.getMaxPrice());
+        }
+        if (query.getMinBedrooms() != null) {
+            where.append(" AND bedrooms >= ?");
+            args.add(query.getMinBedrooms());
+        }
+        appendIn(where, "status", query.getStatuses(), args);
+        appendIn(where, "listing_type", query.getListingTypes(), args);
+        appendIn(where, "property_type", query.getPropertyTypes(), args);
+        return where.toString();
+    }
+    
+    private static void appendIn(StringBuilder where, String column, Set<? extends Enum<?>> values, List<Object> args) {
+        if (values == null || values.isEmpty()) {
+            return;
+        }
+        where.append(" AND ").append(column).append(" IN (");
+        int i = 0;
+        for (Enum<?> value : values) {
+            where.append(i++ == 0 ? "?" : ", ?");
+            args.add(value.name());
+        }
+        where.append(')');
+    }
+    
+    // Must order exactly as order(sort) does, or the merge interleaves shards wrongly
+    private static String orderBy(ListingSort sort) {
+        return switch (sort) {
+            case PRICE_ASC -> "price ASC NULLS LAST, id DESC";
+            case PRICE_DESC -> "price DESC NULLS LAST, id DESC";
+            case NEWEST -> "listing_date DESC NULLS LAST, id DESC";
+        };
+    }
+    
+    private static Comparator<ShardListing> order(ListingSort sort) {
+        Comparator<ShardListing> primary = switch (sort) {
+            case PRICE_ASC -> Comparator.comparing(ShardListing::price, Comparator.nullsLast(Comparator.naturalOrder()));
+            case PRICE_DESC -> Comparator.comparing(ShardListing::price, Comparator.nullsLast(Comparator.reverseOrder()));
+            case NEWEST -> Comparator.comparing(ShardListing::listingDate, Comparator.nullsLast(Comparator.reverseOrder()));
+        };
+        return primary.thenComparing(Comparator.comparingLong(ShardListing::id).reversed());
+    }
+    
+    private record ShardPage(List<ShardListing> rows, long total) {
+    }
+    
+    private static final class Cursor {
+        private final List<ShardListing> rows;
+        private int position;
+        
+        Cursor(List<ShardListing> rows) {
+            this.rows = rows;
+        }
+        
+        ShardListing head() {
+            return rows.get(position);
+        }
+        
+        boolean advance() {
+            return ++position < rows.size();
+        }
+    }
+}
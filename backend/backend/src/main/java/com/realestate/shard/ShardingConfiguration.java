@@ -0,0 +1,91 @@
+package com.realestate.shard;
+
+import com.realestate.routing.DatabaseNode;
+import com.realestate.routing.DatabaseNode.ConnectionSettings;
+import com.realestate.routing.DatabaseNode.PoolSettings;
+import com.realestate.routing.WorkloadClass;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Partitions listings, agents and clients by region over the databases in
+ * {@code realestate.sharding.shard-urls} when {@code realestate.sharding.enabled=true}, see
+ * {@link EntityShards}. The primary keeps the region directory and everything that is not
+ * partitioned. The application's data source is wrapped in a {@link ShardRoutingDataSource}, so
+ * JPA and the application's {@code JdbcTemplate} reach a shard inside a {@link ShardScope}.
+ * Shards use the {@code realestate.sharding.username} and {@code password} and the pool sizes
+ * of {@code realestate.sharding.pool.*}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "realestate.sharding.enabled", havingValue = "true")
+public class ShardingConfiguration {
+    
+    @Bean
+    public static BeanPostProcessor shardRoutingDataSourcePostProcessor(ObjectProvider<ShardRouter> router) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ShardRoutingDataSource)) {
+                    return new ShardRoutingDataSource(dataSource, () -> router.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+    
+    @Bean(destroyMethod = "close")
+    public ShardRouter shardRouter(
+            DataSource dataSource,
+            @Value("${realestate.sharding.shard-urls}") List<String> shardUrls,
+            @Value("${realestate.sharding.username:sa}") String username,
+            @Value("${realestate.sharding.password:}") String password,
+            @Value("${realestate.sharding.scatter-threads:16}") int scatterThreads,
+            @Value("${realestate.sharding.pool.interactive.maximum-pool-size:10}") int interactiveSize,
+            @Value("${realestate.sharding.pool.interactive.connection-timeout:5s}") Duration interactiveTimeout,
+            @Value("${realestate.sharding.pool.bulk.maximum-pool-size:4}") int bulkSize,
+            @Value("${realestate.sharding.pool.bulk.connection-timeout:60s}") Duration bulkTimeout) {
+        Map<WorkloadClass, PoolSettings> pools = new EnumMap<>(WorkloadClass.class);
+        pools.put(WorkloadClass.INTERACTIVE, new PoolSettings(interactiveSize, interactiveTimeout));
+        pools.put(WorkloadClass.BULK, new PoolSettings(bulkSize, bulkTimeout));
+        List<DatabaseNode> nodes = new ArrayList<>(shardUrls.size());
+        for (int shard = 0; shard < shardUrls.size(); shard++) {
+            ConnectionSettings connection = new ConnectionSettings(shardUrls.get(shard).trim(), username, password, null);
+            nodes.add(new DatabaseNode("shard-" + shard, connection, pools, false));
+        }
+        return new ShardRouter(nodes, new ShardDirectory(new JdbcTemplate(primary(dataSource)), nodes.size()),
+                scatterThreads);
+    }
+    
+    @Bean
+    public ShardedListingStore shardedListingStore(ShardRouter shardRouter,
+                                                   @Value("${realestate.sharding.max-result-window:10000}") int maxResultWindow) {
+        return new ShardedListingStore(shardRouter, maxResultWindow);
+    }
+    
+    @Bean
+    public RegionRebalancer regionRebalancer(ShardRouter shardRouter,
+                                             @Value("${realestate.sharding.move-batch-size:500}") int batchSize) {
+        return new RegionRebalancer(shardRouter, batchSize);
+    }
+    
+    /** The primary behind the application's data source, which the directory must reach whatever the scope. */
+    private static DataSource primary(DataSource dataSource) {
+        try {
+            return dataSource.unwrap(ShardRoutingDataSource.class).getPrimary();
+        } catch (SQLException e) {
+            throw new IllegalStateException("The application's data source does not route to shards", e);
+        }
+    }
+}
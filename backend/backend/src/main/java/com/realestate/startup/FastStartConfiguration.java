@@ -0,0 +1,23 @@
+package com.realestate.startup;
+
+import com.realestate.analytics.MarketAnalyticsService;
+import com.realestate.cache.EntityCacheService;
+import com.realestate.search.ListingSearchEngine;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Beans created eagerly even under {@code spring.main.lazy-initialization=true} (set by the
+ * {@code fast-start} profile): the ones the first search and detail requests depend on, so
+ * their startup loading happens before the instance reports ready rather than inside a request.
+ */
+@Configuration
+public class FastStartConfiguration {
+    
+    @Bean
+    public static LazyInitializationExcludeFilter eagerStartupBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(WarmBootSnapshot.class, ListingSearchEngine.class,
+                MarketAnalyticsService.class, EntityCacheService.class);
+    }
+}
@@ -0,0 +1,16 @@
+package com.realestate.startup;
+
+import com.realestate.model.Property;
+
+/** Receives the listings of a startup rebuild, see {@link WarmBootSnapshot#load}. */
+public interface ListingSink {
+    
+    /**
+     * Adds or replaces a listing. Listings replayed from a snapshot carry their own fields only:
+     * agent, owner, images and appointments are unset.
+     */
+    void upsert(Property property);
+    
+    /** Drops a listing that was in the snapshot but has since been deleted. */
+    void remove(long id);
+}
@@ -0,0 +1,442 @@
+package com.realestate.startup;
+
+import com.realestate.cache.EntityCacheService;
+import com.realestate.compact.CompactListing;
+import com.realestate.compact.StringDictionary;
+import com.realestate.model.Property;
+import com.realestate.outbox.AggregateType;
+import com.realestate.repository.PropertyRepository;
+import com.realestate.routing.WorkloadClass;
+import com.realestate.shard.EntityShards;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Local on-disk copy of every listing, so a new instance can build its in-memory indexes from a
+ * file instead of loading each listing through Hibernate. With
+ * {@code realestate.warm-boot.enabled=true} the snapshot is rewritten every
+ * {@code snapshot-interval} and on shutdown, and startup rebuilds go through {@link #load}:
+ * the snapshot's listings, then the listings the database stamps as written since the snapshot
+ * was started (less {@code catch-up-margin} for clock skew between instances), then removal of
+ * snapshot listings the database no longer has. A missing, unreadable, foreign-format or older
+ * than {@code max-age} snapshot falls back to reading the database page by page.
+ *
+ * <p>The snapshot also records the hottest listing and agent cache keys, which are reloaded
+ * into the caches at startup. Values are read from the database, never the file, so a warm
+ * cache is as fresh as a cold one.
+ *
+ * <p>File layout: magic, {@link CompactListing#FORMAT_FINGERPRINT}, write time, catch-up
+ * watermark, the two hot key lists, then listings each preceded by {@code true}, and a final
+ * {@code false}. Listings are in id order, shard by shard when sharded, see
+ * {@link EntityShards#forEachPage}. Files are written next to the target and renamed over it.
+ */
+@Component
+public class WarmBootSnapshot {
+    private static final Logger log = LoggerFactory.getLogger(WarmBootSnapshot.class);
+    private static final int MAGIC = 0x52455742;
+    private static final int PAGE_SIZE = 1000;
+    private static final String LISTING_IDS_SQL = "SELECT id, agent_id FROM properties";
+    
+    private final PropertyRepository propertyRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityCacheService entityCache;
+    private final EntityShards shards;
+    private final boolean enabled;
+    private final Path path;
+    private final Duration snapshotInterval;
+    private final Duration maxAge;
+    private final Duration catchUpMargin;
+    private final boolean writeOnShutdown;
+    private final int hotKeys;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Map<String, Map<String, Object>> loads = new ConcurrentHashMap<>();
+    private volatile Map<String, Object> lastWrite = Map.of();
+    private volatile boolean running;
+    private Thread writer;
+    
+    public WarmBootSnapshot(PropertyRepository propertyRepository,
+                            JdbcTemplate jdbcTemplate,
+                            EntityCacheService entityCache,
+                            EntityShards shards,
+                            @Value("${realestate.warm-boot.enabled:false}") boolean enabled,
+                            @Value("${realestate.warm-boot.snapshot-path:${java.io.tmpdir}/realestate-warm-boot/listings.snapshot}") Path path,
+                            @Value("${realestate.warm-boot.snapshot-interval:15m}") Duration snapshotInterval,
+                            @Value("${realestate.warm-boot.max-age:24h}") Duration maxAge,
+                            @Value("${realestate.warm-boot.catch-up-margin:5m}") Duration catchUpMargin,
+                            @Value("${realestate.warm-boot.write-on-shutdown:true}") boolean writeOnShutdown,
+                            @Value("${realestate.warm-boot.hot-keys:1000}") int hotKeys) {
+        this.propertyRepository = propertyRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityCache = entityCache;
+        this.shards = shards;
+        this.enabled = enabled;
+        this.path = path.toAbsolutePath();
+        this.snapshotInterval = snapshotInterval;
+        this.maxAge = maxAge;
+        this.catchUpMargin = catchUpMargin;
+        this.writeOnShutdown = writeOnShutdown;
+        this.hotKeys = hotKeys;
+    }
+    
+    /**
+     * Feeds every current listing to {@code sink}, from the snapshot plus the changes since when
+     * warm boot is enabled and the snapshot is usable, otherwise from the database.
+     * {@code consumer} names the caller in logs and {@link #stats}.
+     */
+    public void load(String consumer, ListingSink sink) {
+        long started = System.nanoTime();
+        IdList replayed = new IdList();
+        LocalDateTime since = null;
+        if (enabled) {
+            try {
+                since = replay(sink, replayed);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Listing snapshot {} unreadable after {} listings, loading {} from the database",
+                        path, replayed.size, consumer, e);
+            }
+        }
+        int loaded = since != null ? loadChangedSince(since, sink) : loadAll(sink);
+        int removed = replayed.size > 0 ? removeDeleted(replayed, sink) : 0;
+        
+        long millis = (System.nanoTime() - started) / 1_000_000;
+        Map<String, Object> load = new LinkedHashMap<>();
+        load.put("source", since != null ? "snapshot" : "database");
+        load.put("fromSnapshot", since != null ? replayed.size : 0);
+        load.put("fromDatabase", loaded);
+        load.put("removed", removed);
+        load.put("millis", millis);
+        loads.put(consumer, load);
+        if (since != null) {
+            log.info("Loaded {} listings for {} from snapshot, {} changed and {} removed since, in {} ms",
+                    replayed.size, consumer, loaded, removed, millis);
+        }
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        warmCaches();
+        running = true;
+        writer = new Thread(this::writePeriodically, "warm-boot-snapshot-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+    
+    /** Stops the periodic writer and, if configured, writes a last snapshot for the next start. */
+    @PreDestroy
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        writer.interrupt();
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writeOnShutdown) {
+            try {
+                write();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not write listing snapshot {} on shutdown", path, e);
+            }
+        }
+    }
+    
+    /** Writes a new snapshot, replacing the previous one once complete. */
+    public Map<String, Object> write() throws IOException {
+        writeLock.lock();
+        try {
+            long started = System.nanoTime();
+            LocalDateTime watermark = LocalDateTime.now().minus(catchUpMargin);
+            Files.createDirectories(path.getParent());
+            Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+            int listings;
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(CompactListing.FORMAT_FINGERPRINT);
+                out.writeLong(System.currentTimeMillis());
+                out.writeLong(watermark.toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(watermark.getNano());
+                writeIds(out, entityCache.hotPropertyIds(hotKeys));
+                writeIds(out, entityCache.hotAgentIds(hotKeys));
+                listings = WorkloadClass.BULK.run(() -> writeListings(out));
+                out.writeBoolean(false);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            
+            Map<String, Object> written = new LinkedHashMap<>();
+            written.put("at", Instant.now());
+            written.put("listings", listings);
+            written.put("bytes", Files.size(path));
+            written.put("millis", (System.nanoTime() - started) / 1_000_000);
+            lastWrite = written;
+            log.info("Wrote listing snapshot {} with {} listings in {} ms", path, listings, written.get("millis"));
+            return written;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("path", path.toString());
+        stats.put("lastWrite", lastWrite);
+        stats.put("loads", new LinkedHashMap<>(loads));
+        return stats;
+    }
+    
+    /**
+     * Replays the snapshot's listings into the sink, recording their ids.
+     *
+     * @return the time from which database changes must be applied on top, or null if there is
+     *         no usable snapshot
+     */
+    private LocalDateTime replay(ListingSink sink, IdList replayed) throws IOException {
+        try (DataInputStream in = open()) {
+            LocalDateTime watermark = readHeader(in);
+            if (watermark == null) {
+                return null;
+            }
+            skipIds(in);
+            skipIds(in);
+            StringDictionary dictionary = new StringDictionary();
+            while (in.readBoolean()) {
+                CompactListing listing = CompactListing.readFrom(in, dictionary);
+                sink.upsert(listing.toEntity(id -> null, id -> null));
+                replayed.add(listing.getId());
+            }
+            return watermark;
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+    
+    private void warmCaches() {
+        long started = System.nanoTime();
+        List<Long> propertyIds;
+        List<Long> agentIds;
+        try (DataInputStream in = open()) {
+            if (readHeader(in) == null) {
+                return;
+            }
+            propertyIds = readIds(in);
+            agentIds = readIds(in);
+        } catch (NoSuchFileException e) {
+            return;
+        } catch (IOException e) {
+            log.warn("Could not read hot cache keys from listing snapshot {}", path, e);
+            return;
+        }
+        entityCache.preload(propertyIds, agentIds);
+        log.info("Preloaded {} listings and {} agents into the caches in {} ms",
+                propertyIds.size(), agentIds.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+    
+    /** Writes every interval, and right away when there is no snapshot yet for the next start. */
+    private void writePeriodically() {
+        boolean due = Files.notExists(path);
+        while (running) {
+            try {
+                if (!due) {
+                    Thread.sleep(snapshotInterval);
+                }
+                due = false;
+                write();
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not write listing snapshot {}", path, e);
+            }
+        }
+    }
+    
+    private int writeListings(DataOutputStream out) throws IOException {
+        StringDictionary dictionary = new StringDictionary();
+        int[] listings = new int[1];
+        try {
+            shards.forEachPage(AggregateType.PROPERTY, pageable -> propertyRepository.findAll(pageable), Property::getId,
+                    PAGE_SIZE, page -> {
+                        try {
+                            for (Property property : page) {
+                                out.writeBoolean(true);
+                                CompactListing.of(property, dictionary).writeTo(out);
+                                listings[0]++;
+                            }
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return listings[0];
+    }
+    
+    private int loadAll(ListingSink sink) {
+        int[] loaded = new int[1];
+        shards.forEachPage(AggregateType.PROPERTY, pageable -> propertyRepository.findAll(pageable), Property::getId,
+                PAGE_SIZE, page -> {
+                    for (Property property : page) {
+                        sink.upsert(property);
+                        loaded[0]++;
+                    }
+                });
+        return loaded[0];
+    }
+    
+    private int loadChangedSince(LocalDateTime since, ListingSink sink) {
+        int loaded = 0;
+        for (int shard = 0; shard < shards.getShardCount(); shard++) {
+            int current = shard;
+            long afterId = Long.MIN_VALUE;
+            List<Property> page;
+            do {
+                long after = afterId;
+                page = shards.onShard(current, () -> propertyRepository.findChangedSince(since, after, Limit.of(PAGE_SIZE)));
+                Set<Long> served = shards.servedBy(current, AggregateType.PROPERTY,
+                        page.stream().map(Property::getId).toList());
+                for (Property property : page) {
+                    if (served.contains(property.getId())) {
+                        sink.upsert(property);
+                        loaded++;
+                    }
+                    afterId = property.getId();
+                }
+            } while (page.size() == PAGE_SIZE);
+        }
+        return loaded;
+    }
+    
+    /**
+     * Removes replayed ids the database no longer has, merging both id sequences once sorted;
+     * with sharding a moved agent's listings keep their ids, so the shards' ranges interleave.
+     */
+    private int removeDeleted(IdList replayed, ListingSink sink) {
+        long[] ids = replayed.ids;
+        Arrays.sort(ids, 0, replayed.size);
+        IdList current = new IdList();
+        for (int shard = 0; shard < shards.getShardCount(); shard++) {
+            Set<Long> unserved = shards.unservedAgents(shard);
+            shards.onShard(shard, () -> {
+                jdbcTemplate.query(LISTING_IDS_SQL, rs -> {
+                    if (!unserved.contains(rs.getLong(2))) {
+                        current.add(rs.getLong(1));
+                    }
+                });
+                return null;
+            });
+        }
+        Arrays.sort(current.ids, 0, current.size);
+        int position = 0;
+        int removed = 0;
+        for (int i = 0; i < current.size; i++) {
+            long id = current.ids[i];
+            while (position < replayed.size && ids[position] < id) {
+                sink.remove(ids[position++]);
+                removed++;
+            }
+            if (position < replayed.size && ids[position] == id) {
+                position++;
+            }
+        }
+        for (int i = position; i < replayed.size; i++) {
+            sink.remove(ids[i]);
+            removed++;
+        }
+        return removed;
+    }
+    
+    private DataInputStream open() throws IOException {
+        return new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16));
+    }
+    
+    /** Reads the header up to the hot keys and returns the watermark, or null if the file is unusable. */
+    private LocalDateTime readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            log.warn("{} is not a listing snapshot, ignoring it", path);
+            return null;
+        }
+        if (in.readInt() != CompactListing.FORMAT_FINGERPRINT) {
+            log.info("Listing snapshot {} has an older format, ignoring it", path);
+            return null;
+        }
+        Instant writtenAt = Instant.ofEpochMilli(in.readLong());
+        if (writtenAt.plus(maxAge).isBefore(Instant.now())) {
+            log.info("Listing snapshot {} was written at {}, more than {} ago, ignoring it", path, writtenAt, maxAge);
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+    }
+    
+    private static void writeIds(DataOutputStream out, List<Long> ids) throws IOException {
+        out.writeInt(ids.size());
+        for (long id : ids) {
+            out.writeLong(id);
+        }
+    }
+    
+    private static List<Long> readIds(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Negative key count " + count);
+        }
+        List<Long> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(in.readLong());
+        }
+        return ids;
+    }
+    
+    private static void skipIds(DataInputStream in) throws IOException {
+        in.skipNBytes((long) in.readInt() * Long.BYTES);
+    }
+    
+    /** Growable list of listing ids. */
+    private static final class IdList {
+        long[] ids = new long[1024];
+        int size;
+        
+        void add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.realestate.validation;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ElementKind;
+import jakarta.validation.Path;
+import jakarta.validation.ValidationException;
+import jakarta.validation.metadata.ConstraintDescriptor;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Violation of a field constraint found by a {@link CompiledEntityValidator}; the entity is both
+ * the root and the leaf bean and the path is the single property node.
+ */
+final class CompiledConstraintViolation<T> implements ConstraintViolation<T> {
+    private final String message;
+    private final ConstraintDescriptor<?> descriptor;
+    private final Class<T> rootBeanClass;
+    private final T rootBean;
+    private final Path path;
+    private final Object invalidValue;
+    
+    CompiledConstraintViolation(String message, ConstraintDescriptor<?> descriptor, Class<T> rootBeanClass, T rootBean,
+                                Path path, Object invalidValue) {
+        this.message = message;
+        this.descriptor = descriptor;
+        this.rootBeanClass = rootBeanClass;
+        this.rootBean = rootBean;
+        this.path = path;
+        this.invalidValue = invalidValue;
+    }
+    
+    @Override
+    public String getMessage() { return message; }
+    
+    @Override
+    public String getMessageTemplate() { return descriptor.getMessageTemplate(); }
+    
+    @Override
+    public T getRootBean() { return rootBean; }
+    
+    @Override
+    public Class<T> getRootBeanClass() { return rootBeanClass; }
+    
+    @Override
+    public Object getLeafBean() { return rootBean; }
+    
+    @Override
+    public Object[] getExecutableParameters() { return null; }
+    
+    @Override
+    public Object getExecutableReturnValue() { return null; }
+    
+    @Override
+    public Path getPropertyPath() { return path; }
+    
+    @Override
+    public Object getInvalidValue() { return invalidValue; }
+    
+    @Override
+    public ConstraintDescriptor<?> getConstraintDescriptor() { return descriptor; }
+    
+    @Override
+    public <U> U unwrap(Class<U> type) {
+        if (type.isInstance(this)) {
+            return type.cast(this);
+        }
+        throw new ValidationException("Type " + type.getName() + " not supported for unwrapping");
+    }
+    
+    @Override
+    public String toString() {
+        return "ConstraintViolation{propertyPath=" + path + ", message='" + message + "', rootBeanClass="
+                + rootBeanClass.getName() + "}";
+    }
+    
+    /** Path of a field on the root bean. Immutable, so one instance per property is shared. */
+    static final class PropertyPath implements Path {
+        private final FieldNode node;
+        
+        PropertyPath(String name) {
+            this.node = new FieldNode(name);
+        }
+        
+        @Override
+        public Iterator<Node> iterator() {
+            return List.<Node>of(node).iterator();
+        }
+        
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof PropertyPath path && path.node.name.equals(node.name);
+        }
+        
+        @Override
+        public int hashCode() {
+            return node.name.hashCode();
+        }
+        
+        @Override
+        public String toString() {
+            return node.name;
+        }
+    }
+    
+    /**
+     * The single node of a {@link PropertyPath}. Not named PropertyNode: inside PropertyPath that
+     * simple name resolves to the inherited {@link Path.PropertyNode}.
+     */
+    private record FieldNode(String name) implements Path.PropertyNode {
+        
+        @Override
+        public String getName() { return name; }
+        
+        @Override
+        public boolean isInIterable() { return false; }
+        
+        @Override
+        public Integer getIndex() { return null; }
+        
+        @Override
+        public Object getKey() { return null; }
+        
+        @Override
+        public ElementKind getKind() { return ElementKind.PROPERTY; }
+        
+        @Override
+        public <N extends Path.Node> N as(Class<N> nodeType) {
+            if (nodeType.isInstance(this)) {
+                return nodeType.cast(this);
+            }
+            throw new ClassCastException("Property node cannot be cast to " + nodeType.getName());
+        }
+        
+        @Override
+        public Class<?> getContainerClass() { return null; }
+        
+        @Override
+        public Integer getTypeArgumentIndex() { return null; }
+        
+        @Override
+        public String toString() { return name; }
+    }
+}
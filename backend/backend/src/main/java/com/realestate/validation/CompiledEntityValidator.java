@@ -0,0 +1,201 @@
+package com.realestate.validation;
+
+import com.realestate.validation.ConstraintChecks.ValueCheck;
+import jakarta.validation.Constraint;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.GroupSequence;
+import jakarta.validation.MessageInterpolator;
+import jakarta.validation.Path;
+import jakarta.validation.ValidationException;
+import jakarta.validation.ValidatorFactory;
+import jakarta.validation.groups.Default;
+import jakarta.validation.metadata.BeanDescriptor;
+import jakarta.validation.metadata.ConstraintDescriptor;
+import jakarta.validation.metadata.PropertyDescriptor;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Validates one entity class against its field constraints without Hibernate Validator's
+ * per-call metadata traversal. The constraints are read once through the factory's metadata API
+ * and flattened into an array of checks, each holding a method handle for the field, the
+ * precompiled test from {@link ConstraintChecks} and the message, interpolated up front with the
+ * factory's interpolator in the default locale. Validating is a loop over that array, and a
+ * valid entity allocates nothing: it gets an empty, unmodifiable set.
+ *
+ * <p>{@link #compile} refuses classes whose constraints need more than that: class-level,
+ * getter or cascaded constraints, a redefined default group sequence, composed constraints,
+ * constraints {@link ConstraintChecks} does not cover, and messages using expression language,
+ * which may depend on the validated value.
+ */
+public final class CompiledEntityValidator<T> {
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    
+    private final Class<T> type;
+    private final PropertyConstraint[] constraints;
+    
+    private CompiledEntityValidator(Class<T> type, PropertyConstraint[] constraints) {
+        this.type = type;
+        this.constraints = constraints;
+    }
+    
+    /**
+     * @throws IllegalArgumentException if the constraints of {@code type} cannot be compiled
+     */
+    public static <T> CompiledEntityValidator<T> compile(Class<T> type, ValidatorFactory factory) {
+        if (type.isAnnotationPresent(GroupSequence.class)) {
+            throw unsupported(type, "it redefines the default group sequence");
+        }
+        BeanDescriptor bean = factory.getValidator().getConstraintsForClass(type);
+        if (!bean.getConstraintDescriptors().isEmpty()) {
+            throw unsupported(type, "it has class-level constraints");
+        }
+        List<PropertyConstraint> constraints = new ArrayList<>();
+        for (PropertyDescriptor property : bean.getConstrainedProperties()) {
+            String name = property.getPropertyName();
+            if (property.isCascaded() || !property.getConstrainedContainerElementTypes().isEmpty()) {
+                throw unsupported(type, name + " is cascaded or has container element constraints");
+            }
+            Field field = findField(type, name);
+            if (field == null || fieldConstraintCount(field) != property.getConstraintDescriptors().size()) {
+                throw unsupported(type, name + " has constraints declared outside its field");
+            }
+            MethodHandle getter = getter(field);
+            Path path = new CompiledConstraintViolation.PropertyPath(name);
+            for (ConstraintDescriptor<?> descriptor : property.getConstraintDescriptors()) {
+                if (!descriptor.getGroups().contains(Default.class) || !descriptor.getComposingConstraints().isEmpty()) {
+                    throw unsupported(type, name + " has a constraint outside the default group or a composed constraint");
+                }
+                ValueCheck check;
+                try {
+                    check = ConstraintChecks.forConstraint(descriptor.getAnnotation(), field.getType(), factory.getClockProvider());
+                } catch (IllegalArgumentException e) {
+                    throw unsupported(type, name + ": " + e.getMessage());
+                }
+                constraints.add(new PropertyConstraint(getter, check, path, descriptor,
+                        message(type, descriptor, factory.getMessageInterpolator())));
+            }
+        }
+        return new CompiledEntityValidator<>(type, constraints.toArray(new PropertyConstraint[0]));
+    }
+    
+    public Class<T> getType() {
+        return type;
+    }
+    
+    public Set<ConstraintViolation<T>> validate(T entity) {
+        Set<ConstraintViolation<T>> violations = null;
+        for (PropertyConstraint constraint : constraints) {
+            Object value = constraint.read(entity);
+            if (!constraint.check.isValid(value)) {
+                if (violations == null) {
+                    violations = new HashSet<>();
+                }
+                violations.add(new CompiledConstraintViolation<>(constraint.message, constraint.descriptor, type,
+                        entity, constraint.path, value));
+            }
+        }
+        return violations == null ? Collections.emptySet() : violations;
+    }
+    
+    private static Field findField(Class<?> type, String name) {
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (field.getName().equals(name)) {
+                    return field;
+                }
+            }
+        }
+        return null;
+    }
+    
+    // Constraints on the field itself, unwrapping repeated-annotation containers such as @Pattern.List
+    private static int fieldConstraintCount(Field field) {
+        int count = 0;
+        for (Annotation annotation : field.getDeclaredAnnotations()) {
+            if (annotation.annotationType().isAnnotationPresent(Constraint.class)) {
+                count++;
+            } else {
+                count += repeatedConstraints(annotation);
+            }
+        }
+        return count;
+    }
+    
+    private static int repeatedConstraints(Annotation annotation) {
+        try {
+            Method value = annotation.annotationType().getDeclaredMethod("value");
+            if (value.getReturnType().isArray()
+                    && value.getReturnType().getComponentType().isAnnotationPresent(Constraint.class)) {
+                return ((Annotation[]) value.invoke(annotation)).length;
+            }
+        } catch (NoSuchMethodException e) {
+            return 0;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot read " + annotation, e);
+        }
+        return 0;
+    }
+    
+    private static MethodHandle getter(Field field) {
+        try {
+            return MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup())
+                    .unreflectGetter(field)
+                    .asType(GETTER_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot read " + field, e);
+        }
+    }
+    
+    private static String message(Class<?> type, ConstraintDescriptor<?> descriptor, MessageInterpolator interpolator) {
+        String template = descriptor.getMessageTemplate();
+        if (template.contains("${")) {
+            throw unsupported(type, "message '" + template + "' uses expression language");
+        }
+        return interpolator.interpolate(template, new InterpolationContext(descriptor));
+    }
+    
+    private static IllegalArgumentException unsupported(Class<?> type, String reason) {
+        return new IllegalArgumentException("Cannot compile the constraints of " + type.getSimpleName() + ": " + reason);
+    }
+    
+    private record PropertyConstraint(MethodHandle getter, ValueCheck check, Path path,
+                                      ConstraintDescriptor<?> descriptor, String message) {
+        
+        Object read(Object entity) {
+            try {
+                return (Object) getter.invokeExact(entity);
+            } catch (Throwable e) {
+                throw new ValidationException("Cannot read " + path + " of " + entity.getClass().getSimpleName(), e);
+            }
+        }
+    }
+    
+    /** Message parameters come from the constraint attributes only; no value is being validated yet. */
+    private record InterpolationContext(ConstraintDescriptor<?> descriptor) implements MessageInterpolator.Context {
+        
+        @Override
+        public ConstraintDescriptor<?> getConstraintDescriptor() {
+            return descriptor;
+        }
+        
+        @Override
+        public Object getValidatedValue() {
+            return null;
+        }
+        
+        @Override
+        public <U> U unwrap(Class<U> type) {
+            throw new ValidationException("Type " + type.getName() + " not supported for unwrapping");
+        }
+    }
+}
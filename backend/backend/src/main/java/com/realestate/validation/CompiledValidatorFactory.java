@@ -0,0 +1,191 @@
+package com.realestate.validation;
+
+import jakarta.validation.ClockProvider;
+import jakarta.validation.ConstraintValidatorFactory;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.MessageInterpolator;
+import jakarta.validation.ParameterNameProvider;
+import jakarta.validation.TraversableResolver;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorContext;
+import jakarta.validation.ValidatorFactory;
+import jakarta.validation.executable.ExecutableValidator;
+import jakarta.validation.groups.Default;
+import jakarta.validation.metadata.BeanDescriptor;
+import jakarta.validation.valueextraction.ValueExtractor;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Validator factory whose validators check the given entity classes with a
+ * {@link CompiledEntityValidator} when validating the default group, and hand everything else
+ * to the wrapped factory: other classes, other groups, property and value validation, and
+ * classes whose constraints could not be compiled. Closing it is left to the owner of the
+ * wrapped factory.
+ *
+ * <p>Validators from {@link #usingContext()} stay compiled when only the traversable resolver
+ * is replaced, as Hibernate does for its pre-write validation: compiled constraints are all on
+ * basic fields, which its resolver always reports reachable. Any other customization falls back
+ * to the wrapped factory, since messages and clocks were fixed at compile time.
+ */
+public class CompiledValidatorFactory implements ValidatorFactory {
+    private static final Logger log = LoggerFactory.getLogger(CompiledValidatorFactory.class);
+    
+    private final ValidatorFactory target;
+    private final Map<Class<?>, CompiledEntityValidator<?>> compiled;
+    
+    public CompiledValidatorFactory(ValidatorFactory target, Collection<Class<?>> entityTypes) {
+        this.target = target;
+        Map<Class<?>, CompiledEntityValidator<?>> validators = new HashMap<>();
+        for (Class<?> type : entityTypes) {
+            try {
+                validators.put(type, CompiledEntityValidator.compile(type, target));
+            } catch (IllegalArgumentException e) {
+                log.warn("{}; it keeps the standard validator", e.getMessage());
+            }
+        }
+        this.compiled = Map.copyOf(validators);
+        log.info("Compiled validators for {}", compiled.keySet().stream().map(Class::getSimpleName).sorted().toList());
+    }
+    
+    public boolean isCompiled(Class<?> type) {
+        return compiled.containsKey(type);
+    }
+    
+    @Override
+    public Validator getValidator() {
+        return new CompiledValidator(target.getValidator());
+    }
+    
+    @Override
+    public ValidatorContext usingContext() {
+        return new CompiledValidatorContext(target.usingContext());
+    }
+    
+    @Override
+    public MessageInterpolator getMessageInterpolator() { return target.getMessageInterpolator(); }
+    
+    @Override
+    public TraversableResolver getTraversableResolver() { return target.getTraversableResolver(); }
+    
+    @Override
+    public ConstraintValidatorFactory getConstraintValidatorFactory() { return target.getConstraintValidatorFactory(); }
+    
+    @Override
+    public ParameterNameProvider getParameterNameProvider() { return target.getParameterNameProvider(); }
+    
+    @Override
+    public ClockProvider getClockProvider() { return target.getClockProvider(); }
+    
+    @Override
+    public <T> T unwrap(Class<T> type) {
+        return type.isInstance(this) ? type.cast(this) : target.unwrap(type);
+    }
+    
+    @Override
+    public void close() {
+    }
+    
+    private static boolean isDefaultGroup(Class<?>[] groups) {
+        return groups.length == 0 || groups.length == 1 && groups[0] == Default.class;
+    }
+    
+    private class CompiledValidatorContext implements ValidatorContext {
+        private final ValidatorContext target;
+        private boolean customized;
+        
+        CompiledValidatorContext(ValidatorContext target) {
+            this.target = target;
+        }
+        
+        @Override
+        public ValidatorContext messageInterpolator(MessageInterpolator messageInterpolator) {
+            target.messageInterpolator(messageInterpolator);
+            customized = true;
+            return this;
+        }
+        
+        @Override
+        public ValidatorContext traversableResolver(TraversableResolver traversableResolver) {
+            target.traversableResolver(traversableResolver);
+            return this;
+        }
+        
+        @Override
+        public ValidatorContext constraintValidatorFactory(ConstraintValidatorFactory factory) {
+            target.constraintValidatorFactory(factory);
+            customized = true;
+            return this;
+        }
+        
+        @Override
+        public ValidatorContext parameterNameProvider(ParameterNameProvider parameterNameProvider) {
+            target.parameterNameProvider(parameterNameProvider);
+            return this;
+        }
+        
+        @Override
+        public ValidatorContext clockProvider(ClockProvider clockProvider) {
+            target.clockProvider(clockProvider);
+            customized = true;
+            return this;
+        }
+        
+        @Override
+        public ValidatorContext addValueExtractor(ValueExtractor<?> extractor) {
+            target.addValueExtractor(extractor);
+            customized = true;
+            return this;
+        }
+        
+        @Override
+        public Validator getValidator() {
+            Validator validator = target.getValidator();
+            return customized ? validator : new CompiledValidator(validator);
+        }
+    }
+    
+    private class CompiledValidator implements Validator {
+        private final Validator target;
+        
+        CompiledValidator(Validator target) {
+            this.target = target;
+        }
+        
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> Set<ConstraintViolation<T>> validate(T object, Class<?>... groups) {
+            CompiledEntityValidator<T> validator = object == null ? null : (CompiledEntityValidator<T>) compiled.get(object.getClass());
+            if (validator != null && isDefaultGroup(groups)) {
+                return validator.validate(object);
+            }
+            return target.validate(object, groups);
+        }
+        
+        @Override
+        public <T> Set<ConstraintViolation<T>> validateProperty(T object, String propertyName, Class<?>... groups) {
+            return target.validateProperty(object, propertyName, groups);
+        }
+        
+        @Override
+        public <T> Set<ConstraintViolation<T>> validateValue(Class<T> beanType, String propertyName, Object value,
+                                                             Class<?>... groups) {
+            return target.validateValue(beanType, propertyName, value, groups);
+        }
+        
+        @Override
+        public BeanDescriptor getConstraintsForClass(Class<?> type) { return target.getConstraintsForClass(type); }
+        
+        @Override
+        public <T> T unwrap(Class<T> type) {
+            return type.isInstance(this) ? type.cast(this) : target.unwrap(type);
+        }
+        
+        @Override
+        public ExecutableValidator forExecutables() { return target.forExecutables(); }
+    }
+}
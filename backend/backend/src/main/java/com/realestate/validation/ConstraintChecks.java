@@ -0,0 +1,156 @@
+package com.realestate.validation;
+
+import jakarta.validation.ClockProvider;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Future;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import java.lang.annotation.Annotation;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.util.Objects;
+import org.hibernate.validator.internal.constraintvalidators.bv.EmailValidator;
+
+/**
+ * Turns a constraint annotation into a {@link ValueCheck} with the same outcome as the Hibernate
+ * Validator implementation for the declared type of the field. Bounds and patterns are parsed
+ * here, once. Only the constraints and field types the entities use are covered; anything else
+ * is reported as unsupported so the entity stays on the standard validator.
+ */
+final class ConstraintChecks {
+    
+    private ConstraintChecks() {}
+    
+    @FunctionalInterface
+    interface ValueCheck {
+        boolean isValid(Object value);
+    }
+    
+    static ValueCheck forConstraint(Annotation constraint, Class<?> type, ClockProvider clockProvider) {
+        return switch (constraint) {
+            case NotNull notNull -> Objects::nonNull;
+            case NotBlank notBlank -> {
+                requireType(constraint, type, CharSequence.class);
+                yield value -> value != null && !value.toString().trim().isEmpty();
+            }
+            case Size size -> {
+                requireType(constraint, type, CharSequence.class);
+                int min = size.min();
+                int max = size.max();
+                yield value -> {
+                    if (value == null) {
+                        return true;
+                    }
+                    int length = ((CharSequence) value).length();
+                    return length >= min && length <= max;
+                };
+            }
+            case Min min -> integralBound(constraint, type, min.value(), true);
+            case Max max -> integralBound(constraint, type, max.value(), false);
+            case DecimalMin min -> decimalBound(constraint, type, new BigDecimal(min.value()), min.inclusive(), true);
+            case DecimalMax max -> decimalBound(constraint, type, new BigDecimal(max.value()), max.inclusive(), false);
+            case Pattern pattern -> {
+                requireType(constraint, type, CharSequence.class);
+                java.util.regex.Pattern compiled = java.util.regex.Pattern.compile(pattern.regexp(), flags(pattern.flags()));
+                yield value -> value == null || compiled.matcher((CharSequence) value).matches();
+            }
+            case Email email -> {
+                // The address grammar (length limits, IDN domains) is Hibernate Validator's own
+                // and not worth duplicating; its validator is stateless once initialized.
+                requireType(constraint, type, CharSequence.class);
+                EmailValidator validator = new EmailValidator();
+                validator.initialize(email);
+                yield value -> validator.isValid((CharSequence) value, null);
+            }
+            case Future future -> {
+                requireType(constraint, type, LocalDate.class);
+                yield value -> value == null || ((LocalDate) value).isAfter(LocalDate.now(clockProvider.getClock()));
+            }
+            default -> throw unsupported(constraint, type);
+        };
+    }
+    
+    private static ValueCheck integralBound(Annotation constraint, Class<?> type, long bound, boolean lower) {
+        if (isIntegral(type)) {
+            return lower
+                    ? value -> value == null || ((Number) value).longValue() >= bound
+                    : value -> value == null || ((Number) value).longValue() <= bound;
+        }
+        if (type == BigDecimal.class) {
+            BigDecimal decimal = BigDecimal.valueOf(bound);
+            return value -> value == null || compliant(((BigDecimal) value).compareTo(decimal), true, lower);
+        }
+        if (type == BigInteger.class) {
+            BigInteger integer = BigInteger.valueOf(bound);
+            return value -> value == null || compliant(((BigInteger) value).compareTo(integer), true, lower);
+        }
+        throw unsupported(constraint, type);
+    }
+    
+    private static ValueCheck decimalBound(Annotation constraint, Class<?> type, BigDecimal bound, boolean inclusive,
+                                           boolean lower) {
+        if (type == Double.class) {
+            // NaN fails both bounds; infinities compare as beyond any finite bound
+            return value -> {
+                if (value == null) {
+                    return true;
+                }
+                double number = (Double) value;
+                int comparison;
+                if (Double.isNaN(number)) {
+                    comparison = lower ? -1 : 1;
+                } else if (Double.isInfinite(number)) {
+                    comparison = number > 0 ? 1 : -1;
+                } else {
+                    comparison = BigDecimal.valueOf(number).compareTo(bound);
+                }
+                return compliant(comparison, inclusive, lower);
+            };
+        }
+        if (type == BigDecimal.class) {
+            return value -> value == null || compliant(((BigDecimal) value).compareTo(bound), inclusive, lower);
+        }
+        if (isIntegral(type)) {
+            return value -> value == null
+                    || compliant(BigDecimal.valueOf(((Number) value).longValue()).compareTo(bound), inclusive, lower);
+        }
+        throw unsupported(constraint, type);
+    }
+    
+    private static boolean compliant(int comparison, boolean inclusive, boolean lower) {
+        if (comparison == 0) {
+            return inclusive;
+        }
+        return lower ? comparison > 0 : comparison < 0;
+    }
+    
+    private static boolean isIntegral(Class<?> type) {
+        return type == Integer.class || type == Long.class || type == Short.class || type == Byte.class;
+    }
+    
+    private static int flags(Pattern.Flag[] flags) {
+        int combined = 0;
+        for (Pattern.Flag flag : flags) {
+            combined |= flag.getValue();
+        }
+        return combined;
+    }
+    
+    private static void requireType(Annotation constraint, Class<?> type, Class<?> supported) {
+        if (!supported.isAssignableFrom(type)) {
+            throw unsupported(constraint, type);
+        }
+    }
+    
+    private static IllegalArgumentException unsupported(Annotation constraint, Class<?> type) {
+        return new IllegalArgumentException("@" + constraint.annotationType().getSimpleName() + " on "
+                + type.getSimpleName() + " is not supported");
+    }
+}
@@ -0,0 +1,31 @@
+package com.realestate.validation;
+
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+
+/**
+ * The validation applied to entity writes: Hibernate's pre-insert and pre-update validation and
+ * the checks of bulk ingestion. In {@code standard} mode this is the application's Hibernate
+ * Validator factory; in {@code compiled} mode the entities are checked by
+ * {@link CompiledEntityValidator}s, producing the same violations and messages.
+ */
+public class EntityValidation {
+    public static final String STANDARD = "standard";
+    public static final String COMPILED = "compiled";
+    
+    private final String mode;
+    private final ValidatorFactory validatorFactory;
+    private final Validator validator;
+    
+    public EntityValidation(String mode, ValidatorFactory validatorFactory) {
+        this.mode = mode;
+        this.validatorFactory = validatorFactory;
+        this.validator = validatorFactory.getValidator();
+    }
+    
+    public String getMode() { return mode; }
+    
+    public ValidatorFactory getValidatorFactory() { return validatorFactory; }
+    
+    public Validator getValidator() { return validator; }
+}
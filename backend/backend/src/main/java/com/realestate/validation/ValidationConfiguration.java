@@ -0,0 +1,37 @@
+package com.realestate.validation;
+
+import com.realestate.model.Agent;
+import com.realestate.model.Client;
+import com.realestate.model.Property;
+import jakarta.validation.ValidatorFactory;
+import java.util.List;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+@Configuration
+public class ValidationConfiguration {
+    
+    @Bean
+    public EntityValidation entityValidation(ValidatorFactory validatorFactory,
+                                             @Value("${realestate.validation.mode:standard}") String mode) {
+        return switch (mode) {
+            case EntityValidation.STANDARD -> new EntityValidation(mode, validatorFactory);
+            case EntityValidation.COMPILED -> new EntityValidation(mode,
+                    new CompiledValidatorFactory(validatorFactory, List.of(Property.class, Agent.class, Client.class)));
+            default -> throw new IllegalArgumentException("Unknown realestate.validation.mode '" + mode
+                    + "'; expected " + EntityValidation.STANDARD + " or " + EntityValidation.COMPILED);
+        };
+    }
+    
+    /** Runs first so that customizers wrapping the validation factory, such as the metrics, see this one. */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public HibernatePropertiesCustomizer entityValidationHibernatePropertiesCustomizer(EntityValidation entityValidation) {
+        return properties -> properties.put(AvailableSettings.JAKARTA_VALIDATION_FACTORY, entityValidation.getValidatorFactory());
+    }
+}
@@ -0,0 +1,179 @@
+package com.realestate.view;
+
+import com.realestate.dto.AgentDashboard;
+import com.realestate.dto.ClientPortfolio;
+import com.realestate.dto.ListingCard;
+import com.realestate.dto.ListingWithAgent;
+import com.realestate.model.Agent;
+import com.realestate.model.Client;
+import com.realestate.model.Property;
+import com.realestate.model.Property.PropertyStatus;
+import com.realestate.outbox.AggregateType;
+import com.realestate.persistence.QueryBudgetGuard;
+import com.realestate.repository.AgentRepository;
+import com.realestate.repository.ClientRepository;
+import com.realestate.repository.PropertyRepository;
+import com.realestate.shard.EntityShards;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.function.Supplier;
+import org.springframework.beans.support.PropertyComparator;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Read models for views that span several entities. Each loads its associations through a
+ * named entity graph and runs under a fixed query budget, so touching a new lazy association
+ * in one of these views shows up as a budget violation instead of one query per row.
+ *
+ * <p>With sharding, the budget applies per shard: an agent's dashboard is read on the agent's
+ * shard, while listing pages and client portfolios are read on every shard and merged, see
+ * {@link EntityShards}.
+ */
+@Service
+public class PortfolioViewService {
+    /** Agent with listings, then the agent's transactions. */
+    public static final int AGENT_DASHBOARD_BUDGET = 2;
+    /** Page of listings with agent and owner, then the count query. */
+    public static final int LISTING_LIST_BUDGET = 2;
+    /** Client with owned listings and their agents. */
+    public static final int CLIENT_PORTFOLIO_BUDGET = 1;
+    
+    private final AgentRepository agentRepository;
+    private final PropertyRepository propertyRepository;
+    private final ClientRepository clientRepository;
+    private final QueryBudgetGuard queryBudget;
+    private final EntityShards shards;
+    private final TransactionTemplate readOnlyTransaction;
+    
+    public PortfolioViewService(AgentRepository agentRepository,
+                                PropertyRepository propertyRepository,
+                                ClientRepository clientRepository,
+                                QueryBudgetGuard queryBudget,
+                                EntityShards shards,
+                                PlatformTransactionManager transactionManager) {
+        this.agentRepository = agentRepository;
+        this.propertyRepository = propertyRepository;
+        this.clientRepository = clientRepository;
+        this.queryBudget = queryBudget;
+        this.shards = shards;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+    
+    public Optional<AgentDashboard> agentDashboard(Long agentId) {
+        return shards.find(AggregateType.AGENT, agentId, () -> read("agent-dashboard", AGENT_DASHBOARD_BUDGET, () ->
+                agentRepository.findDashboardById(agentId).map(agent -> {
+                    List<ListingCard> listings = agent.getProperties().stream()
+                            .sorted(Comparator.comparing(Property::getId))
+                            .map(ListingCard::of)
+                            .toList();
+                    long active = agent.getProperties().stream()
+                            .filter(property -> property.getStatus() == PropertyStatus.ACTIVE)
+                            .count();
+                    return new AgentDashboard(agent.getId(), agent.getFullName(), active,
+                            agent.getTransactions().size(), listings);
+                })));
+    }
+    
+    /**
+     * A page of listings with the status. With sharding every shard reads its first
+     * {@code offset + size} listings in the requested order, which are merged in memory.
+     */
+    public Page<ListingWithAgent> listings(PropertyStatus status, Pageable pageable) {
+        if (!shards.isSharded()) {
+            return read("listing-list", LISTING_LIST_BUDGET, () ->
+                    propertyRepository.findByStatus(status, pageable).map(PortfolioViewService::withAgent));
+        }
+        Pageable window = PageRequest.of(0, (int) (pageable.getOffset() + pageable.getPageSize()), pageable.getSort());
+        List<Page<Property>> pages = shards.onEveryShard(shard -> {
+            Set<Long> unserved = shards.unservedAgents(shard);
+            return read("listing-list", LISTING_LIST_BUDGET, () -> unserved.isEmpty()
+                    ? propertyRepository.findByStatus(status, window)
+                    : propertyRepository.findByStatusAndAgentIdNotIn(status, unserved, window));
+        });
+        List<Property> merged = new ArrayList<>();
+        long total = 0;
+        for (Page<Property> page : pages) {
+            merged.addAll(page.getContent());
+            total += page.getTotalElements();
+        }
+        List<ListingWithAgent> content = merged.stream()
+                .sorted(order(pageable.getSort()))
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .map(PortfolioViewService::withAgent)
+                .toList();
+        return new PageImpl<>(content, pageable, total);
+    }
+    
+    /**
+     * The client's listings with their agents. With sharding they are read on every shard, as the
+     * listings live with their agents, each from the shard serving its agent.
+     */
+    public Optional<ClientPortfolio> clientPortfolio(Long clientId) {
+        if (!shards.isSharded()) {
+            return read("client-portfolio", CLIENT_PORTFOLIO_BUDGET, () ->
+                    clientRepository.findPortfolioById(clientId).map(client -> new ClientPortfolio(client.getId(),
+                            client.getFullName(),
+                            client.getProperties().stream()
+                                    .sorted(Comparator.comparing(Property::getId))
+                                    .map(PortfolioViewService::withAgent)
+                                    .toList())));
+        }
+        OptionalInt home = shards.locate(AggregateType.CLIENT, clientId);
+        if (home.isEmpty()) {
+            return Optional.empty();
+        }
+        List<Optional<ClientPortfolio>> portfolios = shards.onEveryShard(shard -> {
+            Set<Long> unserved = shards.unservedAgents(shard);
+            return read("client-portfolio", CLIENT_PORTFOLIO_BUDGET, () -> clientRepository.findPortfolioById(clientId)
+                    .map(client -> new ClientPortfolio(client.getId(),
+                            client.getFullName(),
+                            client.getProperties().stream()
+                                    .filter(property -> property.getAgent() == null
+                                            || !unserved.contains(property.getAgent().getId()))
+                                    .map(PortfolioViewService::withAgent)
+                                    .toList())));
+        });
+        return portfolios.get(home.getAsInt()).map(portfolio -> new ClientPortfolio(portfolio.getClientId(),
+                portfolio.getClientName(),
+                portfolios.stream()
+                        .flatMap(shardPortfolio -> shardPortfolio.stream().flatMap(found -> found.getProperties().stream()))
+                        .sorted(Comparator.comparing(row -> row.getListing().getId()))
+                        .toList()));
+    }
+    
+    private <T> T read(String view, int budget, Supplier<T> action) {
+        return queryBudget.run(view, budget, () -> readOnlyTransaction.execute(status -> action.get()));
+    }
+    
+    /** The order of {@code sort} in memory, by id after its own properties so shards merge the same way every time. */
+    private static Comparator<Property> order(Sort sort) {
+        Comparator<Property> order = (a, b) -> 0;
+        for (Sort.Order by : sort) {
+            order = order.thenComparing(new PropertyComparator<>(by.getProperty(), by.isIgnoreCase(), by.isAscending()));
+        }
+        return order.thenComparing(Property::getId);
+    }
+    
+    private static ListingWithAgent withAgent(Property property) {
+        Agent agent = property.getAgent();
+        Client owner = property.getOwner();
+        return new ListingWithAgent(ListingCard.of(property),
+                agent != null ? agent.getId() : null,
+                agent != null ? agent.getFullName() : null,
+                owner != null ? owner.getId() : null,
+                owner != null ? owner.getFullName() : null);
+    }
+}
@@ -0,0 +1,60 @@
+package com.realestate.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.realestate.dto.MarketStats;
+import com.realestate.event.EntityChangeType;
+import com.realestate.event.PropertyChangedEvent;
+import com.realestate.model.Property;
+import com.realestate.model.Property.ListingType;
+import com.realestate.model.Property.PropertyStatus;
+import com.realestate.startup.ListingSink;
+import com.realestate.startup.WarmBootSnapshot;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class MarketAnalyticsRebuildTest {
+    
+    @Test
+    void changesCommittedDuringRebuildSurviveTheSwap() {
+        MarketAnalyticsService[] service = new MarketAnalyticsService[1];
+        WarmBootSnapshot loader = new WarmBootSnapshot(null, null, null, null, false, Path.of("unused"),
+                Duration.ZERO, Duration.ZERO, Duration.ZERO, false, 0) {
+            @Override
+            public void load(String consumer, ListingSink sink) {
+                sink.upsert(listing(1, PropertyStatus.ACTIVE));
+                sink.upsert(listing(2, PropertyStatus.ACTIVE));
+                // Committed while the loader is still reading
+                service[0].onPropertyChanged(new PropertyChangedEvent(listing(2, PropertyStatus.SOLD), EntityChangeType.UPDATED));
+                service[0].onPropertyChanged(new PropertyChangedEvent(listing(3, PropertyStatus.ACTIVE), EntityChangeType.CREATED));
+            }
+        };
+        service[0] = new MarketAnalyticsService(loader);
+        
+        service[0].rebuild();
+        
+        MarketStats austin = service[0].stats(ListingType.SALE, MarketDimension.CITY, "Austin").orElseThrow();
+        Map<PropertyStatus, Long> byStatus = austin.getListingsByStatus();
+        assertEquals(2L, byStatus.get(PropertyStatus.ACTIVE));
+        assertEquals(1L, byStatus.get(PropertyStatus.SOLD));
+    }
+    
+    private static Property listing(long id, PropertyStatus status) {
+        Property property = new Property();
+        property.setId(id);
+        property.setCity("Austin");
+        property.setPropertyType(Property.PropertyType.values()[0]);
+        property.setListingType(ListingType.SALE);
+        property.setStatus(status);
+        property.setPrice(new BigDecimal("350000.00"));
+        property.setSquareFeet(1500);
+        property.setListingDate(LocalDate.of(2026, 1, 10));
+        property.setUpdatedAt(LocalDateTime.of(2026, 2, 1, 12, 0));
+        return property;
+    }
+}
@@ -0,0 +1,144 @@
+package com.realestate.execution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.realestate.ingest.PooledIdAllocator;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.support.incrementer.DataFieldMaxValueIncrementer;
+
+/**
+ * Runs the code that blocks on JDBC while other threads wait for it on many virtual threads
+ * and records {@code jdk.VirtualThreadPinned} with JFR: none may occur. Database round-trips
+ * are stood in for by short sleeps, which park a virtual thread unless it is pinned.
+ */
+class VirtualThreadPinningTest {
+    private static final int THREADS = 200;
+    private static final Duration ROUND_TRIP = Duration.ofMillis(2);
+    
+    @Test
+    void idAllocatorDoesNotPinWhileFetchingABlock() throws Exception {
+        PooledIdAllocator allocator = new PooledIdAllocator(new SlowSequence(20), 20);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        
+        List<RecordedEvent> pinned = recordPinning(() -> {
+            for (int i = 0; i < 50; i++) {
+                ids.add(allocator.nextId());
+            }
+        });
+        assertEquals(THREADS * 50, ids.size(), "ids were handed out twice");
+        assertTrue(pinned.isEmpty(), "pinned: " + pinned);
+    }
+    
+    @Test
+    void connectionLimitParksWaitersWithoutPinning() throws Exception {
+        AtomicInteger open = new AtomicInteger();
+        AtomicInteger mostOpen = new AtomicInteger();
+        ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(new AbstractDataSource() {
+            @Override
+            public Connection getConnection() {
+                mostOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+                return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class},
+                        (proxy, method, args) -> {
+                            if (method.getName().equals("close")) {
+                                open.decrementAndGet();
+                            }
+                            return null;
+                        });
+            }
+            
+            @Override
+            public Connection getConnection(String username, String password) {
+                return getConnection();
+            }
+        }, 4, Duration.ofSeconds(30));
+        
+        List<RecordedEvent> pinned = recordPinning(() -> {
+            Connection connection = dataSource.getConnection();
+            try {
+                Thread.sleep(ROUND_TRIP);
+            } finally {
+                connection.close();
+            }
+        });
+        assertEquals(4, mostOpen.get());
+        assertEquals(4, dataSource.getAvailablePermits());
+        assertTrue(pinned.isEmpty(), "pinned: " + pinned);
+    }
+    
+    /** Runs {@code task} once on each of {@link #THREADS} virtual threads and returns the pinning events. */
+    private static List<RecordedEvent> recordPinning(Task task) throws Exception {
+        Path file = Files.createTempFile("pinning", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.start();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<Object>> futures = executor.invokeAll(Collections.nCopies(THREADS, () -> {
+                    task.run();
+                    return null;
+                }));
+                for (Future<Object> future : futures) {
+                    future.get();
+                }
+            }
+            recording.stop();
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+    
+    private interface Task {
+        void run() throws Exception;
+    }
+    
+    /** A pooled sequence that takes {@link #ROUND_TRIP} per call, like a database sequence. */
+    private static class SlowSequence implements DataFieldMaxValueIncrementer {
+        private final AtomicLong value;
+        private final int increment;
+        
+        SlowSequence(int increment) {
+            this.value = new AtomicLong(1 - increment);
+            this.increment = increment;
+        }
+        
+        @Override
+        public long nextLongValue() {
+            try {
+                Thread.sleep(ROUND_TRIP);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return value.addAndGet(increment);
+        }
+        
+        @Override
+        public int nextIntValue() {
+            return Math.toIntExact(nextLongValue());
+        }
+        
+        @Override
+        public String nextStringValue() {
+            return Long.toString(nextLongValue());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.realestate.geo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class GeoGridIndexTest {
+    
+    @Test
+    void everyPointIsVisitedInExactlyOneRing() {
+        // 30 degree cells: 6 rows and 12 columns, so rings wider than half the grid wrap around
+        GeoGridIndex index = new GeoGridIndex(30);
+        int slot = 0;
+        for (double latitude = -75; latitude < 90; latitude += 30) {
+            for (double longitude = -165; longitude < 180; longitude += 30) {
+                index.add(slot++, latitude, longitude);
+            }
+        }
+        for (double[] center : new double[][] {{0, 0}, {40, -170}, {-80, 175}}) {
+            Map<Integer, Integer> visits = new HashMap<>();
+            int visited = 0;
+            for (int ring = 0; ring <= index.maxRing(); ring++) {
+                visited += index.visitRing(center[0], center[1], ring, point -> visits.merge(point, 1, Integer::sum));
+            }
+            assertEquals(slot, visited);
+            assertEquals(slot, visits.size());
+            assertEquals(1, visits.values().stream().mapToInt(Integer::intValue).max().orElse(0));
+        }
+    }
+}
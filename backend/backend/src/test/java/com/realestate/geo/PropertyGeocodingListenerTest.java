@@ -0,0 +1,71 @@
+package com.realestate.geo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.realestate.model.Property;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class PropertyGeocodingListenerTest {
+    private static final Map<String, GeoPoint> KNOWN = Map.of(
+            "100 Congress Ave, Austin, TX 78701, USA", new GeoPoint(30.2672, -97.7431),
+            "200 Lamar Blvd, Austin, TX 78703, USA", new GeoPoint(30.2950, -97.7600));
+    
+    private final PropertyGeocodingListener listener = new PropertyGeocodingListener(
+            new CachingGeocoder(address -> Optional.ofNullable(KNOWN.get(address)), 100));
+    
+    @Test
+    void resolvesMissingCoordinates() {
+        Property property = listing("100 Congress Ave", "78701");
+        listener.fillCoordinates(property);
+        assertEquals(30.2672, property.getLatitude());
+        assertEquals("100 Congress Ave, Austin, TX 78701, USA", property.getGeocodedAddress());
+    }
+    
+    @Test
+    void resolvesAgainWhenTheAddressChanges() {
+        Property property = listing("100 Congress Ave", "78701");
+        listener.fillCoordinates(property);
+        property.setAddress("200 Lamar Blvd");
+        property.setPostalCode("78703");
+        listener.fillCoordinates(property);
+        assertEquals(30.2950, property.getLatitude());
+        assertEquals(-97.7600, property.getLongitude());
+        assertEquals("200 Lamar Blvd, Austin, TX 78703, USA", property.getGeocodedAddress());
+    }
+    
+    @Test
+    void clearsCoordinatesWhenTheNewAddressCannotBeResolved() {
+        Property property = listing("100 Congress Ave", "78701");
+        listener.fillCoordinates(property);
+        property.setAddress("1 Nowhere Rd");
+        listener.fillCoordinates(property);
+        assertFalse(property.hasCoordinates());
+        assertNull(property.getGeocodedAddress());
+    }
+    
+    @Test
+    void keepsCoordinatesTheCallerSupplied() {
+        Property property = listing("1 Nowhere Rd", "78701");
+        property.setLatitude(45.0);
+        property.setLongitude(-100.0);
+        listener.fillCoordinates(property);
+        property.setAddress("100 Congress Ave");
+        listener.fillCoordinates(property);
+        assertEquals(45.0, property.getLatitude());
+        assertNull(property.getGeocodedAddress());
+    }
+    
+    private static Property listing(String address, String postalCode) {
+        Property property = new Property();
+        property.setAddress(address);
+        property.setCity("Austin");
+        property.setState("TX");
+        property.setPostalCode(postalCode);
+        property.setCountry("USA");
+        return property;
+    }
+}
@@ -0,0 +1,121 @@
+package com.realestate.history;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import com.realestate.dto.ListingHistory;
+import com.realestate.event.EntityChangeType;
+import com.realestate.model.Property.PropertyStatus;
+import com.realestate.outbox.AggregateType;
+import com.realestate.outbox.ChangeEvent;
+import com.realestate.shard.EntityShards;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * Feeds the store outbox changes against an in-memory H2 database holding just the tables it
+ * reads and writes.
+ */
+class ListingHistoryStoreTest {
+    private static final LocalDateTime LISTED = LocalDateTime.of(2026, 1, 5, 0, 0);
+    
+    private JdbcTemplate jdbcTemplate;
+    private ListingHistoryStore store;
+    private long nextEventId;
+    
+    @BeforeEach
+    void createSchema() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:history-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE properties (id BIGINT PRIMARY KEY, city VARCHAR(255), "
+                + "price NUMERIC(15, 2), status VARCHAR(20), listing_date DATE, created_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE listing_history_chunks (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "property_id BIGINT NOT NULL, city VARCHAR(100), first_at BIGINT NOT NULL, last_at BIGINT NOT NULL, "
+                + "point_count INT NOT NULL, sealed BOOLEAN NOT NULL, data VARBINARY(8192) NOT NULL)");
+        jdbcTemplate.update("INSERT INTO properties VALUES (1, 'Austin', 400000.00, 'ACTIVE', ?, ?)",
+                Date.valueOf(LISTED.toLocalDate()), LISTED);
+        store = new ListingHistoryStore(jdbcTemplate, EntityShards.unsharded(),
+                new DataSourceTransactionManager(dataSource), 4);
+        store.start();
+    }
+    
+    @Test
+    void changesAppendThePriceAndStatusTheyWrote() {
+        store.onChange(change(1, LocalDateTime.of(2026, 2, 1, 9, 0), "380000.00", PropertyStatus.ACTIVE));
+        store.onChange(change(1, LocalDateTime.of(2026, 3, 1, 9, 0), "380000.00", PropertyStatus.PENDING));
+        store.onChange(change(1, LocalDateTime.of(2026, 4, 1, 9, 0), "375000.00", PropertyStatus.SOLD));
+        
+        // The row only holds the last state; the points keep every one, each at its own time
+        List<HistoryPoint> points = points(1);
+        assertEquals(List.of(PropertyStatus.ACTIVE, PropertyStatus.ACTIVE, PropertyStatus.PENDING, PropertyStatus.SOLD),
+                points.stream().map(HistoryPoint::getStatus).toList());
+        assertEquals(List.of(new BigDecimal("400000.00"), new BigDecimal("380000.00"), new BigDecimal("380000.00"),
+                new BigDecimal("375000.00")), points.stream().map(point -> point.getPrice().setScale(2)).toList());
+        assertEquals(LocalDateTime.of(2026, 3, 1, 9, 0).toInstant(ZoneOffset.UTC), points.get(2).getAt());
+    }
+    
+    @Test
+    void changesWithoutListingStateTakeTheCurrentRow() {
+        update(1, "380000.00", PropertyStatus.SOLD);
+        store.onChange(new ChangeEvent(++nextEventId, AggregateType.PROPERTY, 1, EntityChangeType.UPDATED,
+                LocalDateTime.of(2026, 2, 1, 9, 0)));
+        
+        assertEquals(List.of(PropertyStatus.ACTIVE, PropertyStatus.SOLD),
+                points(1).stream().map(HistoryPoint::getStatus).toList());
+    }
+    
+    @Test
+    void redeliveredChangesAddNothing() {
+        ChangeEvent event = change(1, LocalDateTime.of(2026, 2, 1, 9, 0), "390000.00", PropertyStatus.ACTIVE);
+        store.onChange(event);
+        store.onChange(event);
+        assertEquals(2, points(1).size());
+    }
+    
+    @Test
+    void chunksRollOverAndKeepPointsInTimeOrder() {
+        for (int i = 1; i <= 9; i++) {
+            // The last change is stamped before the one it follows
+            store.onChange(change(1, LocalDateTime.of(2026, 2, i == 9 ? 1 : i + 1, 9, 0),
+                    (400000 - i * 1000) + ".00", PropertyStatus.ACTIVE));
+        }
+        List<HistoryPoint> points = points(1);
+        assertEquals(10, points.size());
+        for (int i = 1; i < points.size(); i++) {
+            assertFalse(points.get(i).getAt().isBefore(points.get(i - 1).getAt()), "point " + i + " out of order");
+        }
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM listing_history_chunks", Integer.class));
+    }
+    
+    @Test
+    void otherAggregatesAndDeletionsAreIgnored() {
+        store.onChange(new ChangeEvent(++nextEventId, AggregateType.AGENT, 1, EntityChangeType.UPDATED, LocalDateTime.now()));
+        store.onChange(new ChangeEvent(++nextEventId, AggregateType.PROPERTY, 1, EntityChangeType.DELETED, LocalDateTime.now()));
+        store.onChange(change(2, LocalDateTime.now(), "250000.00", PropertyStatus.ACTIVE));
+        assertEquals(1, points(1).size());
+    }
+    
+    private void update(long id, String price, PropertyStatus status) {
+        jdbcTemplate.update("UPDATE properties SET price = ?, status = ? WHERE id = ?", new BigDecimal(price), status.name(), id);
+    }
+    
+    private ChangeEvent change(long id, LocalDateTime occurredAt, String price, PropertyStatus status) {
+        return new ChangeEvent(++nextEventId, AggregateType.PROPERTY, id, EntityChangeType.UPDATED, occurredAt,
+                "Austin", new BigDecimal(price), status);
+    }
+    
+    private List<HistoryPoint> points(long id) {
+        return store.history(id, Instant.EPOCH, Instant.now()).map(ListingHistory::getPoints).orElse(List.of());
+    }
+}
@@ -0,0 +1,48 @@
+package com.realestate.ingest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class IngestionCheckpointTest {
+    
+    @Test
+    void emptyCheckpointCommitsNothing() {
+        IngestionCheckpoint checkpoint = new IngestionCheckpoint();
+        assertTrue(checkpoint.isEmpty());
+        assertEquals(0, checkpoint.getCommittedPrefix());
+        assertFalse(checkpoint.isCommitted(0));
+    }
+    
+    @Test
+    void batchesCommittedOutOfOrderAreSkippedIndividually() {
+        IngestionCheckpoint checkpoint = new IngestionCheckpoint();
+        checkpoint.add(500, 1000);
+        checkpoint.add(1500, 2000);
+        assertEquals(0, checkpoint.getCommittedPrefix());
+        assertFalse(checkpoint.isCommitted(499));
+        assertTrue(checkpoint.isCommitted(500));
+        assertTrue(checkpoint.isCommitted(999));
+        assertFalse(checkpoint.isCommitted(1000));
+        assertTrue(checkpoint.isCommitted(1999));
+        assertFalse(checkpoint.isCommitted(2000));
+    }
+    
+    @Test
+    void adjacentAndOverlappingRangesMerge() {
+        IngestionCheckpoint checkpoint = new IngestionCheckpoint();
+        checkpoint.add(1000, 1500);
+        checkpoint.add(2000, 2500);
+        checkpoint.add(0, 500);
+        assertEquals(500, checkpoint.getCommittedPrefix());
+        checkpoint.add(500, 1000);
+        assertEquals(1500, checkpoint.getCommittedPrefix());
+        // A resumed batch may span records that were committed before
+        checkpoint.add(1200, 2100);
+        assertEquals(2500, checkpoint.getCommittedPrefix());
+        checkpoint.add(100, 200);
+        assertEquals(2500, checkpoint.getCommittedPrefix());
+    }
+}
@@ -0,0 +1,64 @@
+package com.realestate.match;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.realestate.event.ClientChangedEvent;
+import com.realestate.event.EntityChangeType;
+import com.realestate.model.Client;
+import com.realestate.model.Property;
+import com.realestate.repository.ClientRepository;
+import com.realestate.repository.PropertyRepository;
+import com.realestate.shard.EntityShards;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+class ListingMatchRebuildTest {
+    
+    @Test
+    void clientChangesDuringRebuildSurviveTheSwap() {
+        ClientRepository clients = mock(ClientRepository.class);
+        PropertyRepository properties = mock(PropertyRepository.class);
+        ListingMatchService service = new ListingMatchService(clients, properties, EntityShards.unsharded(), event -> { });
+        when(clients.findAll(any(Pageable.class))).thenAnswer(invocation -> {
+            // Clients 1 and 2 were read; then, before the page is compiled, 3 signs up and 1 leaves
+            List<Client> read = List.of(buyer(1), buyer(2));
+            service.onClientChanged(new ClientChangedEvent(buyer(3), EntityChangeType.CREATED));
+            service.onClientChanged(new ClientChangedEvent(buyer(1), EntityChangeType.DELETED));
+            return new PageImpl<>(read, invocation.getArgument(0), read.size());
+        });
+        when(properties.findById(10L)).thenReturn(Optional.of(listing(10)));
+        
+        service.rebuild();
+        
+        assertEquals(Optional.of(List.of(2L, 3L)), service.matchingClients(10L));
+    }
+    
+    private static Client buyer(long id) {
+        Client client = new Client();
+        client.setId(id);
+        client.setClientType(Client.ClientType.BUYER);
+        client.setStatus(Client.ClientStatus.ACTIVE);
+        return client;
+    }
+    
+    private static Property listing(long id) {
+        Property property = new Property();
+        property.setId(id);
+        property.setCity("Austin");
+        property.setState("TX");
+        property.setPropertyType(Property.PropertyType.values()[0]);
+        property.setListingType(Property.ListingType.SALE);
+        property.setStatus(Property.PropertyStatus.ACTIVE);
+        property.setPrice(new BigDecimal("350000.00"));
+        property.setBedrooms(3);
+        property.setBathrooms(2);
+        return property;
+    }
+}
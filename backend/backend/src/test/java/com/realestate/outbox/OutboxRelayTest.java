@@ -0,0 +1,248 @@
+package com.realestate.outbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.realestate.event.EntityChangeType;
+import com.realestate.event.PropertyChangedEvent;
+import com.realestate.model.Property;
+import com.realestate.model.Property.PropertyStatus;
+import jakarta.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes changes through {@link OutboxWriter} in JPA transactions on an in-memory H2 database
+ * that holds only the outbox tables, and delivers them with {@link OutboxRelay}s of four
+ * partitions.
+ */
+class OutboxRelayTest {
+    private static final int LISTINGS = 20;
+    private static final int ROUNDS = 5;
+    private static final Duration LEASE = Duration.ofMillis(600);
+    
+    private final ConcurrentLinkedQueue<ChangeEvent> received = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<List<Long>> sinkBatches = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger sinkFailures = new AtomicInteger();
+    private final List<OutboxRelay> relays = new ArrayList<>();
+    private volatile long failingListing = -1;
+    private LocalContainerEntityManagerFactoryBean factoryBean;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private OutboxRelay relay;
+    private OutboxWriter writer;
+    
+    @BeforeEach
+    void createOutbox() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:outbox-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan(OutboxRecord.class.getPackageName());
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(Map.of("hibernate.hbm2ddl.auto", "create"));
+        factoryBean.afterPropertiesSet();
+        EntityManagerFactory entityManagerFactory = Objects.requireNonNull(factoryBean.getObject());
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new JpaTransactionManager(entityManagerFactory));
+        relay = newRelay("first", received);
+        writer = new OutboxWriter(jdbcTemplate,
+                SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory), relay);
+    }
+    
+    @AfterEach
+    void close() {
+        relays.forEach(OutboxRelay::stop);
+        factoryBean.destroy();
+    }
+    
+    @Test
+    void onlyCommittedChangesAreRecorded() {
+        transactionTemplate.executeWithoutResult(status -> {
+            writer.onPropertyChanged(new PropertyChangedEvent(listing(1), EntityChangeType.CREATED));
+            writer.onPropertyChanged(new PropertyChangedEvent(listing(2), EntityChangeType.CREATED));
+        });
+        transactionTemplate.executeWithoutResult(status -> {
+            writer.onPropertyChanged(new PropertyChangedEvent(listing(3), EntityChangeType.CREATED));
+            status.setRollbackOnly();
+        });
+        
+        assertEquals(List.of(1L, 2L), jdbcTemplate.queryForList(
+                "SELECT aggregate_id FROM outbox_events ORDER BY id", Long.class));
+        assertEquals(2, relay.pendingCount());
+    }
+    
+    @Test
+    void changesToOneListingAreDeliveredInOrder() {
+        writeRounds();
+        relay.start();
+        
+        awaitDelivered(LISTINGS * ROUNDS);
+        Map<Long, List<ChangeEvent>> byListing = new TreeMap<>();
+        for (ChangeEvent event : received) {
+            byListing.computeIfAbsent(event.getAggregateId(), id -> new ArrayList<>()).add(event);
+        }
+        assertEquals(LISTINGS, byListing.size());
+        for (List<ChangeEvent> events : byListing.values()) {
+            assertEquals(ROUNDS, events.size());
+            assertEquals(EntityChangeType.CREATED, events.get(0).getChangeType());
+            for (int i = 1; i < events.size(); i++) {
+                assertTrue(events.get(i - 1).getId() < events.get(i).getId(), "out of order: " + events);
+                assertEquals(EntityChangeType.UPDATED, events.get(i).getChangeType());
+            }
+            for (ChangeEvent event : events) {
+                assertEquals(BigDecimal.valueOf(event.getAggregateId() * 1000).setScale(2), event.getPrice());
+                assertEquals(PropertyStatus.ACTIVE, event.getStatus());
+                assertEquals("Austin", event.getCity());
+            }
+        }
+    }
+    
+    @Test
+    void failedDeliveriesAreRetriedAndDeliveredAgain() {
+        sinkFailures.set(3);
+        writeRounds();
+        relay.start();
+        
+        awaitDelivered(LISTINGS * ROUNDS);
+        assertEquals(3, relay.retryCount());
+        List<Long> attempted = new ArrayList<>();
+        sinkBatches.forEach(attempted::addAll);
+        assertTrue(attempted.size() > LISTINGS * ROUNDS, "no batch was delivered twice");
+        assertEquals(LISTINGS * ROUNDS, received.stream().map(ChangeEvent::getId).distinct().count());
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM outbox_events WHERE failed_at IS NOT NULL", Long.class));
+    }
+    
+    @Test
+    void batchesFailingEveryAttemptAreMarkedFailed() {
+        sinkFailures.set(Integer.MAX_VALUE);
+        transactionTemplate.executeWithoutResult(status ->
+                writer.onPropertyChanged(new PropertyChangedEvent(listing(1), EntityChangeType.CREATED)));
+        relay.start();
+        
+        await(() -> relay.pendingCount() == 0);
+        assertEquals(5, relay.retryCount());
+        assertTrue(received.isEmpty());
+        assertEquals(5, jdbcTemplate.queryForObject(
+                "SELECT attempts FROM outbox_events WHERE failed_at IS NOT NULL", Integer.class));
+    }
+    
+    @Test
+    void onlyTheFailingEventOfABatchIsParked() {
+        failingListing = 7;
+        transactionTemplate.executeWithoutResult(status -> {
+            for (long id = 1; id <= LISTINGS; id++) {
+                writer.onPropertyChanged(new PropertyChangedEvent(listing(id), EntityChangeType.CREATED));
+            }
+        });
+        relay.start();
+        
+        await(() -> relay.pendingCount() == 0);
+        assertEquals(List.of(7L), jdbcTemplate.queryForList(
+                "SELECT aggregate_id FROM outbox_events WHERE failed_at IS NOT NULL", Long.class));
+        assertEquals(LISTINGS - 1, received.stream().map(ChangeEvent::getAggregateId).distinct().count());
+        assertTrue(received.stream().noneMatch(event -> event.getAggregateId() == 7));
+    }
+    
+    @Test
+    void onlyTheLeaseHolderRelaysAndAStandbyTakesOver() {
+        ConcurrentLinkedQueue<ChangeEvent> standbyReceived = new ConcurrentLinkedQueue<>();
+        OutboxRelay standby = newRelay("standby", standbyReceived);
+        relay.start();
+        await(relay::isLeader);
+        standby.start();
+        writeRounds();
+        
+        awaitDelivered(LISTINGS * ROUNDS);
+        assertTrue(standbyReceived.isEmpty(), "the standby delivered too");
+        assertEquals(LISTINGS * ROUNDS, received.stream().map(ChangeEvent::getId).distinct().count());
+        
+        relay.stop();
+        transactionTemplate.executeWithoutResult(status ->
+                writer.onPropertyChanged(new PropertyChangedEvent(listing(1), EntityChangeType.UPDATED)));
+        await(() -> standby.deliveredCount() == 1 && standby.pendingCount() == 0);
+        assertTrue(standby.isLeader());
+        assertEquals(LISTINGS * ROUNDS, received.size());
+    }
+    
+    private OutboxRelay newRelay(String instanceId, ConcurrentLinkedQueue<ChangeEvent> delivered) {
+        DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+        beans.registerSingleton("sink", (ChangeEventSink) events -> {
+            sinkBatches.add(events.stream().map(ChangeEvent::getId).toList());
+            if (sinkFailures.getAndUpdate(left -> Math.max(left - 1, 0)) > 0) {
+                throw new IllegalStateException("Injected sink failure");
+            }
+            if (events.stream().anyMatch(event -> event.getAggregateId() == failingListing)) {
+                throw new IllegalStateException("Injected failure of listing " + failingListing);
+            }
+        });
+        OutboxRelay created = new OutboxRelay(jdbcTemplate, event -> {
+            if (event instanceof ChangeEvent change) {
+                delivered.add(change);
+            }
+        }, beans.getBeanProvider(ChangeEventSink.class), true, 4, 3, 50, 5,
+                Duration.ofMillis(20), Duration.ofMillis(1), Duration.ofDays(1), LEASE, instanceId);
+        relays.add(created);
+        return created;
+    }
+    
+    /** Creates every listing in the first round and updates each in the later ones, one transaction per round. */
+    private void writeRounds() {
+        for (int round = 0; round < ROUNDS; round++) {
+            EntityChangeType changeType = round == 0 ? EntityChangeType.CREATED : EntityChangeType.UPDATED;
+            transactionTemplate.executeWithoutResult(status -> {
+                for (long id = 1; id <= LISTINGS; id++) {
+                    writer.onPropertyChanged(new PropertyChangedEvent(listing(id), changeType));
+                }
+            });
+        }
+    }
+    
+    private void awaitDelivered(int events) {
+        await(() -> relay.deliveredCount() >= events && relay.pendingCount() == 0);
+        assertEquals(events, relay.deliveredCount());
+    }
+    
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out waiting for the relay");
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+    
+    private static Property listing(long id) {
+        Property property = new Property();
+        property.setId(id);
+        property.setCity("Austin");
+        property.setPrice(BigDecimal.valueOf(id * 1000));
+        property.setStatus(PropertyStatus.ACTIVE);
+        return property;
+    }
+}
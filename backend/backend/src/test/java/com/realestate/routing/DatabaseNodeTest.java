@@ -0,0 +1,61 @@
+package com.realestate.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.realestate.routing.DatabaseNode.ConnectionSettings;
+import com.realestate.routing.DatabaseNode.PoolSettings;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DatabaseNodeTest {
+    private DatabaseNode node;
+    
+    @BeforeEach
+    void createNode() {
+        Map<WorkloadClass, PoolSettings> pools = new EnumMap<>(WorkloadClass.class);
+        pools.put(WorkloadClass.INTERACTIVE, new PoolSettings(2, Duration.ofSeconds(5)));
+        pools.put(WorkloadClass.BULK, new PoolSettings(1, Duration.ofSeconds(5)));
+        String url = "jdbc:h2:mem:node-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        node = new DatabaseNode("primary", new ConnectionSettings(url, "sa", "", null), pools, false);
+        node.limitConnections(Duration.ofMillis(100));
+    }
+    
+    @AfterEach
+    void close() {
+        node.close();
+    }
+    
+    @Test
+    void eachWorkloadPoolHasItsOwnLimit() throws SQLException {
+        Connection bulk = WorkloadClass.BULK.run(() -> node.getConnection());
+        SQLException exhausted = assertThrows(SQLException.class, () -> WorkloadClass.BULK.run(() -> node.getConnection()));
+        assertTrue(exhausted.getMessage().startsWith("No connection permit"), exhausted.getMessage());
+        
+        // A busy bulk pool leaves every interactive permit free
+        Connection first = node.getConnection();
+        Connection second = node.getConnection();
+        assertThrows(SQLException.class, node::getConnection);
+        first.close();
+        second.close();
+        
+        bulk.close();
+        WorkloadClass.BULK.run(() -> node.getConnection()).close();
+        assertEquals(0, parked(WorkloadClass.BULK));
+    }
+    
+    @SuppressWarnings("unchecked")
+    private int parked(WorkloadClass workload) {
+        Map<String, Object> pool = (Map<String, Object>) node.poolStats().get(workload.name().toLowerCase(Locale.ROOT));
+        return (Integer) pool.get("parked");
+    }
+}
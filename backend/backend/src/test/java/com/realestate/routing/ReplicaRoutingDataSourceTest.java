@@ -0,0 +1,81 @@
+package com.realestate.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.realestate.routing.DatabaseNode.ConnectionSettings;
+import com.realestate.routing.DatabaseNode.PoolSettings;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Wires a primary and a replica, two in-memory H2 databases that each name themselves in a
+ * one-row table, the way {@link ReadReplicaConfiguration} does, and checks where reads land.
+ */
+class ReplicaRoutingDataSourceTest {
+    private DatabaseNode primary;
+    private DatabaseNode replica;
+    private ReplicaRoutingDataSource reads;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnlyTransaction;
+    
+    @BeforeEach
+    void createNodes() {
+        Map<WorkloadClass, PoolSettings> pools = new EnumMap<>(WorkloadClass.class);
+        pools.put(WorkloadClass.INTERACTIVE, new PoolSettings(2, Duration.ofSeconds(5)));
+        pools.put(WorkloadClass.BULK, new PoolSettings(1, Duration.ofSeconds(5)));
+        primary = node("primary", pools, false);
+        replica = node("replica", pools, true);
+        reads = new ReplicaRoutingDataSource(primary, List.of(replica), Duration.ofSeconds(5));
+        reads.lagMeasured(replica, Duration.ZERO);
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(reads);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readOnlyTransaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnlyTransaction.setReadOnly(true);
+    }
+    
+    @AfterEach
+    void close() {
+        primary.close();
+        replica.close();
+    }
+    
+    @Test
+    void readOnlyTransactionsGoToAReplicaInLag() {
+        assertEquals("replica", readNode());
+        assertEquals("primary", jdbcTemplate.queryForObject("SELECT name FROM node", String.class));
+        
+        reads.lagMeasured(replica, Duration.ofSeconds(10));
+        assertEquals("primary", readNode());
+    }
+    
+    @Test
+    void primaryConsistencyKeepsReadOnlyTransactionsOnThePrimary() {
+        assertEquals("primary", ReadConsistency.PRIMARY.run(this::readNode));
+        assertEquals("replica", readNode());
+        assertEquals(1L, reads.stats().get("primaryReads"));
+    }
+    
+    private String readNode() {
+        return readOnlyTransaction.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM node", String.class));
+    }
+    
+    private static DatabaseNode node(String name, Map<WorkloadClass, PoolSettings> pools, boolean readOnly) {
+        String url = "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        JdbcTemplate setup = new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+        setup.execute("CREATE TABLE node (name VARCHAR(20))");
+        setup.update("INSERT INTO node VALUES (?)", name);
+        return new DatabaseNode(name, new ConnectionSettings(url, "sa", "", null), pools, readOnly);
+    }
+}
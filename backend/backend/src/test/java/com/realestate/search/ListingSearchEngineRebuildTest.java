@@ -0,0 +1,93 @@
+package com.realestate.search;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import com.realestate.event.EntityChangeType;
+import com.realestate.event.PropertyChangedEvent;
+import com.realestate.model.Property;
+import com.realestate.startup.ListingSink;
+import com.realestate.startup.WarmBootSnapshot;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.EnumSet;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+class ListingSearchEngineRebuildTest {
+    
+    @Test
+    void changesCommittedDuringRebuildSurviveTheSwap() {
+        ListingSearchEngine[] engine = new ListingSearchEngine[1];
+        WarmBootSnapshot loader = new WarmBootSnapshot(null, null, null, null, false, Path.of("unused"),
+                Duration.ZERO, Duration.ZERO, Duration.ZERO, false, 0) {
+            @Override
+            public void load(String consumer, ListingSink sink) {
+                sink.upsert(listing(1, "Loft"));
+                sink.upsert(listing(2, "Cottage"));
+                // Committed while the loader is still reading
+                engine[0].onPropertyChanged(new PropertyChangedEvent(listing(3, "Villa"), EntityChangeType.CREATED));
+                engine[0].onPropertyChanged(new PropertyChangedEvent(listing(1, "Loft"), EntityChangeType.DELETED));
+                sink.upsert(listing(4, "Bungalow"));
+            }
+        };
+        engine[0] = new ListingSearchEngine(loader, event -> { });
+        
+        engine[0].rebuild();
+        
+        long[] ids = engine[0].matchingIds(new ListingQuery(), 10);
+        Arrays.sort(ids);
+        assertArrayEquals(new long[] {2, 3, 4}, ids);
+        
+        engine[0].onPropertyChanged(new PropertyChangedEvent(listing(5, "Cabin"), EntityChangeType.CREATED));
+        ids = engine[0].matchingIds(new ListingQuery(), 10);
+        Arrays.sort(ids);
+        assertArrayEquals(new long[] {2, 3, 4, 5}, ids);
+    }
+    
+    @Test
+    void changesAreReplayedAsAnnouncedNotAsTheEntityLaterLooks() {
+        ListingSearchEngine[] engine = new ListingSearchEngine[1];
+        WarmBootSnapshot loader = new WarmBootSnapshot(null, null, null, null, false, Path.of("unused"),
+                Duration.ZERO, Duration.ZERO, Duration.ZERO, false, 0) {
+            @Override
+            public void load(String consumer, ListingSink sink) {
+                Property villa = listing(3, "Villa");
+                engine[0].onPropertyChanged(new PropertyChangedEvent(villa, EntityChangeType.CREATED));
+                // The session keeps changing the entity; a rollback would never announce this
+                villa.setStatus(Property.PropertyStatus.SOLD);
+                villa.setTitle("Warehouse");
+            }
+        };
+        engine[0] = new ListingSearchEngine(loader, event -> { });
+        
+        engine[0].rebuild();
+        
+        ListingQuery active = new ListingQuery();
+        active.setStatuses(EnumSet.of(Property.PropertyStatus.ACTIVE));
+        assertArrayEquals(new long[] {3}, engine[0].matchingIds(active, 10));
+        assertArrayEquals(new long[] {3}, engine[0].searchText("villa", new ListingQuery(), PageRequest.of(0, 10))
+                .getContent().stream().mapToLong(ranked -> ranked.getListing().getId()).toArray());
+    }
+    
+    private static Property listing(long id, String title) {
+        Property property = new Property();
+        property.setId(id);
+        property.setTitle(title);
+        property.setAddress(id + " Congress Ave");
+        property.setCity("Austin");
+        property.setState("TX");
+        property.setPostalCode("78701");
+        property.setCountry("USA");
+        property.setPropertyType(Property.PropertyType.values()[0]);
+        property.setListingType(Property.ListingType.SALE);
+        property.setStatus(Property.PropertyStatus.ACTIVE);
+        property.setPrice(new BigDecimal("350000.00"));
+        property.setBedrooms(3);
+        property.setBathrooms(2);
+        property.setListingDate(LocalDate.of(2026, 1, (int) id));
+        return property;
+    }
+}
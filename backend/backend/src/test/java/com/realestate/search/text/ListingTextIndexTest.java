@@ -0,0 +1,84 @@
+package com.realestate.search.text;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.realestate.model.Property;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares searches for the first page, which pass over documents that cannot make it, with
+ * searches whose page holds every match, which score them all.
+ */
+class ListingTextIndexTest {
+    private static final String[] WORDS = {"pool", "garden", "granite", "countertops", "smart", "home", "solar",
+            "panels", "hardwood", "floors", "fireplace", "firepit", "view", "quiet", "street", "modern"};
+    private static final int LISTINGS = 5000;
+    private static final int PAGE = 10;
+    
+    @Test
+    void prunedSearchesRankLikeExhaustiveOnes() {
+        ListingTextIndex index = new ListingTextIndex();
+        Random random = new Random(7);
+        for (int slot = 0; slot < LISTINGS; slot++) {
+            index.index(slot, listing(random));
+        }
+        // Re-indexed listings leave tombstones behind
+        for (int slot = 0; slot < LISTINGS; slot += 7) {
+            index.index(slot, listing(random));
+        }
+        
+        for (String keywords : new String[] {"pool", "hardwood floors", "\"solar panels\"", "fire*",
+                "granite countertops smart home", "\"smart home\" view"}) {
+            TextQuery query = TextQuery.parse(keywords);
+            TextHits page = index.search(query, slot -> slot % 3 != 0, PAGE);
+            TextHits all = index.search(query, slot -> slot % 3 != 0, LISTINGS);
+            
+            assertTrue(all.isTotalExact());
+            assertEquals(Math.min(PAGE, all.size()), page.size(), keywords);
+            assertTrue(page.getTotalHits() <= all.getTotalHits(), keywords);
+            assertEquals(page.isTotalExact(), page.getTotalHits() == all.getTotalHits(), keywords);
+            assertArrayEquals(scores(all, page.size()), scores(page, page.size()), keywords);
+            if (page.size() > 0) {
+                // Ties with the last hit of the page may be either of the tied listings
+                float last = page.scoreAt(page.size() - 1);
+                assertEquals(slotsAbove(all, last), slotsAbove(page, last), keywords);
+            }
+        }
+    }
+    
+    private static float[] scores(TextHits hits, int count) {
+        float[] scores = new float[count];
+        for (int i = 0; i < count; i++) {
+            scores[i] = hits.scoreAt(i);
+        }
+        return scores;
+    }
+    
+    private static Set<Integer> slotsAbove(TextHits hits, float score) {
+        Set<Integer> slots = new HashSet<>();
+        for (int i = 0; i < hits.size() && hits.scoreAt(i) > score; i++) {
+            slots.add(hits.slotAt(i));
+        }
+        return slots;
+    }
+    
+    private static Property listing(Random random) {
+        Property property = new Property();
+        property.setTitle(words(random, 3));
+        property.setPropertyFeatures(words(random, 1 + random.nextInt(6)));
+        property.setDescription(words(random, random.nextInt(40)));
+        return property;
+    }
+    
+    private static String words(Random random, int count) {
+        String[] words = new String[count];
+        Arrays.setAll(words, i -> WORDS[(int) Math.min(WORDS.length - 1, -Math.log(random.nextDouble()) * 4)]);
+        return String.join(" ", words);
+    }
+}
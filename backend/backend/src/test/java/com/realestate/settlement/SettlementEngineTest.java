@@ -0,0 +1,111 @@
+package com.realestate.settlement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.realestate.shard.EntityShards;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * Runs the engine against an in-memory H2 database holding just the tables it reads and writes.
+ */
+class SettlementEngineTest {
+    private static final YearMonth PERIOD = YearMonth.of(2026, 3);
+    private static final String TRANSACTIONS_QUERY = "SELECT t.agent_id, t.sale_price, a.commission_rate "
+            + "FROM transactions t JOIN agents a ON a.id = t.agent_id "
+            + "WHERE t.agent_id BETWEEN ? AND ? AND t.closing_date >= ? AND t.closing_date < ? "
+            + "ORDER BY t.agent_id, t.id";
+    
+    private JdbcTemplate jdbcTemplate;
+    private SettlementEngine engine;
+    
+    @BeforeEach
+    void createSchema() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:settlement-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE agents (id BIGINT PRIMARY KEY, commission_rate NUMERIC(5, 2))");
+        jdbcTemplate.execute("CREATE TABLE transactions (id BIGINT AUTO_INCREMENT PRIMARY KEY, agent_id BIGINT, "
+                + "sale_price NUMERIC(15, 2), closing_date DATE)");
+        jdbcTemplate.execute("CREATE TABLE settlement_partitions (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "period VARCHAR(7) NOT NULL, partition_index INT NOT NULL, first_agent_id BIGINT NOT NULL, "
+                + "last_agent_id BIGINT NOT NULL, completed_at TIMESTAMP, agents INT, transactions BIGINT, "
+                + "elapsed_millis BIGINT)");
+        jdbcTemplate.execute("CREATE TABLE agent_settlements (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "agent_id BIGINT NOT NULL, period VARCHAR(7) NOT NULL, transaction_count BIGINT NOT NULL, "
+                + "sales_volume NUMERIC(19, 2) NOT NULL, gross_commission NUMERIC(19, 2) NOT NULL, "
+                + "agent_payout NUMERIC(19, 2) NOT NULL, brokerage_share NUMERIC(19, 2) NOT NULL, "
+                + "computed_at TIMESTAMP NOT NULL, UNIQUE (agent_id, period))");
+        engine = new SettlementEngine(jdbcTemplate, new DataSourceTransactionManager(dataSource),
+                EntityShards.unsharded(), new BigDecimal("0.70"), TRANSACTIONS_QUERY, 2, 16, 100, 2);
+        for (long id = 1; id <= 10; id++) {
+            addAgent(id);
+            addSale(id, "100000.00");
+        }
+    }
+    
+    @Test
+    void settlesEveryAgentWithSales() {
+        SettlementReport report = engine.settle(PERIOD, 3, false, false);
+        assertTrue(report.isComplete());
+        assertEquals(10, report.getTransactions());
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), settledAgents());
+    }
+    
+    @Test
+    void laterRunSettlesAgentsCreatedSinceTheFirst() {
+        engine.settle(PERIOD, 3, false, false);
+        addAgent(11);
+        addAgent(12);
+        addSale(12, "50000.00");
+        
+        SettlementReport report = engine.settle(PERIOD, 3, false, false);
+        assertTrue(report.isComplete());
+        assertEquals(1, report.getTransactions());
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L, 12L), settledAgents());
+        assertEquals(12L, jdbcTemplate.queryForObject(
+                "SELECT MAX(last_agent_id) FROM settlement_partitions WHERE period = ?", Long.class, PERIOD.toString()));
+    }
+    
+    @Test
+    void recomputeDropsSettlementsOfAgentsWithoutSalesAnyMore() {
+        engine.settle(PERIOD, 3, false, false);
+        jdbcTemplate.update("DELETE FROM transactions WHERE agent_id IN (4, 9)");
+        
+        SettlementReport report = engine.settle(PERIOD, 4, false, true);
+        assertTrue(report.isComplete());
+        assertEquals(8, report.getTransactions());
+        assertEquals(List.of(1L, 2L, 3L, 5L, 6L, 7L, 8L, 10L), settledAgents());
+    }
+    
+    @Test
+    void dryRunWritesNothing() {
+        SettlementReport report = engine.settle(PERIOD, 3, true, false);
+        assertEquals(10, report.getTransactions());
+        assertEquals(List.of(), settledAgents());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM settlement_partitions", Integer.class));
+    }
+    
+    private void addAgent(long id) {
+        jdbcTemplate.update("INSERT INTO agents (id, commission_rate) VALUES (?, 3.00)", id);
+    }
+    
+    private void addSale(long agentId, String price) {
+        jdbcTemplate.update("INSERT INTO transactions (agent_id, sale_price, closing_date) VALUES (?, ?, ?)",
+                agentId, new BigDecimal(price), Date.valueOf(PERIOD.atDay(15)));
+    }
+    
+    private List<Long> settledAgents() {
+        return jdbcTemplate.queryForList("SELECT agent_id FROM agent_settlements WHERE period = ? ORDER BY agent_id",
+                Long.class, PERIOD.toString());
+    }
+}
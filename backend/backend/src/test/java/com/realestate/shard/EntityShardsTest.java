@@ -0,0 +1,304 @@
+package com.realestate.shard;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.realestate.browse.ListingBrowseService;
+import com.realestate.dto.CursorPage;
+import com.realestate.dto.ListingCard;
+import com.realestate.dto.ListingSummary;
+import com.realestate.event.EntityChangeType;
+import com.realestate.geo.CachingGeocoder;
+import com.realestate.ingest.IngestionCheckpointStore;
+import com.realestate.model.Agent;
+import com.realestate.model.Client;
+import com.realestate.model.Property;
+import com.realestate.model.Property.PropertyStatus;
+import com.realestate.outbox.AggregateType;
+import com.realestate.outbox.ChangeEvent;
+import com.realestate.repository.PropertyRepository;
+import com.realestate.search.ListingSort;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Writes and reads agents, clients and listings through the repositories with two in-memory H2
+ * databases as the shards next to the test database as the primary. Going by their hash,
+ * "USA/TX" is placed on shard 0 and "USA/NY" and "-/NY" on shard 1. Nothing runs in a test
+ * transaction, as the shards are switched between transactions; every test works on rows of its
+ * own.
+ */
+@DataJpaTest(properties = {
+        "realestate.sharding.enabled=true",
+        "realestate.sharding.shard-urls=jdbc:h2:mem:entity-shards-0;DB_CLOSE_DELAY=-1,"
+                + "jdbc:h2:mem:entity-shards-1;DB_CLOSE_DELAY=-1",
+        "realestate.sharding.move-batch-size=2"})
+@Import({ShardingConfiguration.class, EntityShards.class, ListingBrowseService.class, IngestionCheckpointStore.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EntityShardsTest {
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+    private static final RegionKey TEXAS = new RegionKey("USA", "TX");
+    private static final RegionKey NEW_YORK = new RegionKey("USA", "NY");
+    
+    @MockBean
+    private CachingGeocoder geocoder;
+    
+    @Autowired
+    private EntityShards shards;
+    
+    @Autowired
+    private ShardRouter router;
+    
+    @Autowired
+    private ShardedListingStore store;
+    
+    @Autowired
+    private RegionRebalancer rebalancer;
+    
+    @Autowired
+    private ListingBrowseService browse;
+    
+    @Autowired
+    private PropertyRepository propertyRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private IngestionCheckpointStore checkpoints;
+    
+    @Test
+    void listingsGoToTheShardOfTheirAgentsRegion() {
+        assertEquals(0, router.getDirectory().placement(TEXAS).shard());
+        assertEquals(1, router.getDirectory().placement(NEW_YORK).shard());
+        Agent agent = shards.save(agent("NY"));
+        Property listing = shards.save(listing(agent, null, "TX", 100));
+        
+        assertEquals(1, count(1, "properties", listing.getId()));
+        assertEquals(0, count(0, "properties", listing.getId()));
+        assertEquals(1, count(1, "agents", agent.getId()));
+        // The primary holds none of it, and shard ids are drawn far above its own
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM properties WHERE id = ?", Integer.class,
+                listing.getId()));
+        assertTrue(listing.getId() > 1L << 39);
+        
+        assertEquals(listing.getTitle(), shards.find(AggregateType.PROPERTY, listing.getId(),
+                () -> propertyRepository.findById(listing.getId())).orElseThrow().getTitle());
+        assertTrue(propertyRepository.findById(listing.getId()).isEmpty());
+        assertEquals(List.of(listing.getId()), shards.onShard(1, () -> propertyRepository.findIdsByAgentId(agent.getId())));
+    }
+    
+    @Test
+    void ownersLivingElsewhereAreCopiedAndKeptUpToDate() {
+        Client owner = shards.save(owner("NY"));
+        Agent agent = shards.save(agent("TX"));
+        Property listing = shards.save(listing(agent, owner, "TX", 200));
+        
+        assertEquals(1, count(1, "clients", owner.getId()));
+        assertEquals(1, count(0, "clients", owner.getId()));
+        assertEquals(owner.getId(), shards.onShard(0, () -> propertyRepository.findById(listing.getId()))
+                .orElseThrow().getOwner().getId());
+        
+        owner.setCity("Buffalo");
+        shards.save(owner);
+        shards.onChange(new ChangeEvent(1, AggregateType.CLIENT, owner.getId(), EntityChangeType.UPDATED,
+                LocalDateTime.now()));
+        assertEquals("Buffalo", router.shard(0).queryForObject("SELECT city FROM clients WHERE id = ?", String.class,
+                owner.getId()));
+        // Only the owner's shard serves them
+        assertEquals(List.of(owner.getId()), List.copyOf(shards.servedBy(1, AggregateType.CLIENT, List.of(owner.getId()))));
+        assertTrue(shards.servedBy(0, AggregateType.CLIENT, List.of(owner.getId())).isEmpty());
+    }
+    
+    @Test
+    void listingsStayInTheirAgentsRegion() {
+        Property listing = shards.save(listing(shards.save(agent("TX")), null, "TX", 300));
+        listing.setAgent(shards.save(agent("NY")));
+        
+        assertThrows(IllegalArgumentException.class, () -> shards.save(listing));
+        assertThrows(IllegalArgumentException.class, () -> shards.save(listing(agent("TX"), null, "TX", 300)));
+    }
+    
+    @Test
+    void searchesMergeTheShardsInOrder() {
+        Agent texan = shards.save(agent("TX"));
+        Agent newYorker = shards.save(agent("NY"));
+        for (int i = 0; i < 6; i++) {
+            shards.save(listing(i % 2 == 0 ? texan : newYorker, null, i < 3 ? "TX" : "NY", 400 + i));
+        }
+        ShardedListingQuery query = priced(400, 405);
+        query.setSort(ListingSort.PRICE_ASC);
+        
+        Page<ListingSummary> page = store.search(query, PageRequest.of(1, 2));
+        assertEquals(6, page.getTotalElements());
+        assertEquals(List.of(402_000, 403_000), page.getContent().stream().map(summary -> summary.getPrice().intValue()).toList());
+        
+        query.setRegions(Set.of("usa/ny"));
+        assertEquals(3, store.search(query, PageRequest.of(0, 10)).getTotalElements());
+        query.setRegions(null);
+        query.setAgentId(newYorker.getId());
+        assertEquals(3, store.search(query, PageRequest.of(0, 10)).getTotalElements());
+    }
+    
+    @Test
+    void browsingAndScanningReadEveryShard() {
+        Agent texan = shards.save(agent("TX"));
+        Agent newYorker = shards.save(agent("NY"));
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Property listing = listing(i % 2 == 0 ? texan : newYorker, null, "TX", 600 + i);
+            listing.setStatus(PropertyStatus.PENDING);
+            ids.add(shards.save(listing).getId());
+        }
+        
+        CursorPage<ListingCard> first = browse.browse(ListingSort.PRICE_DESC, PropertyStatus.PENDING, null, 3);
+        CursorPage<ListingCard> second = browse.browse(ListingSort.PRICE_DESC, PropertyStatus.PENDING,
+                first.getNextCursor(), 3);
+        assertEquals(List.of(604_000, 603_000, 602_000), prices(first));
+        assertEquals(List.of(601_000, 600_000), prices(second));
+        assertFalse(second.isHasMore());
+        
+        List<Long> scanned = new ArrayList<>();
+        shards.forEachPage(AggregateType.PROPERTY, pageable -> propertyRepository.findAll(pageable), Property::getId, 2,
+                page -> page.stream().map(Property::getId).filter(ids::contains).forEach(scanned::add));
+        assertEquals(ids.stream().sorted().toList(), scanned.stream().sorted().toList());
+    }
+    
+    @Test
+    void bulkInsertedListingsAndTheirCheckpointsGoToTheAgentsShard() {
+        Agent agent = shards.save(agent("NY"));
+        long id = Long.MAX_VALUE - SEQUENCE.incrementAndGet();
+        String job = "shard-job-" + id;
+        shards.insertListings(NEW_YORK, List.of(id), () -> {
+            jdbcTemplate.update("INSERT INTO properties (id, title, address, city, state, country, postal_code, latitude, "
+                    + "longitude, property_type, listing_type, status, price, bedrooms, bathrooms, agent_id) "
+                    + "VALUES (?, 'Bulk listing', '1 Elm Street', 'Albany', 'NY', 'USA', '12207', 42.65, -73.75, ?, "
+                    + "'SALE', 'ACTIVE', 700000, 3, 2, ?)", id, Property.PropertyType.values()[0].name(), agent.getId());
+            checkpoints.record(job, List.of(0L, 1L, 3L));
+        });
+        // A rejected record is checkpointed on the primary
+        checkpoints.record(job, List.of(2L));
+        
+        assertEquals(1, count(1, "properties", id));
+        assertEquals(1, shards.locate(AggregateType.PROPERTY, id).getAsInt());
+        assertEquals(4, checkpoints.load(job).getCommittedPrefix());
+        checkpoints.clear(job);
+        assertTrue(checkpoints.load(job).isEmpty());
+    }
+    
+    @Test
+    void movingARegionCarriesItsAgentsListingsAndClients() {
+        RegionKey region = new RegionKey("USA", "OR");
+        RegionKey clients = new RegionKey(null, "OR");
+        List<Agent> agents = List.of(shards.save(agent("OR")), shards.save(agent("OR")), shards.save(agent("OR")));
+        Client owner = shards.save(owner("OR"));
+        for (Agent agent : agents) {
+            shards.save(listing(agent, owner, "OR", 500));
+        }
+        int source = router.getDirectory().placement(region).shard();
+        int target = 1 - source;
+        
+        Map<String, Object> moved = rebalancer.move(region, target);
+        assertEquals(3L, moved.get("agentsCopied"));
+        rebalancer.move(clients, target);
+        
+        assertEquals(target, shards.locate(AggregateType.AGENT, agents.get(0).getId()).getAsInt());
+        for (Agent agent : agents) {
+            assertEquals(1, count(target, "agents", agent.getId()));
+            assertEquals(0, count(source, "agents", agent.getId()));
+        }
+        assertEquals(1, count(target, "clients", owner.getId()));
+        assertEquals(target, shards.locate(AggregateType.CLIENT, owner.getId()).getAsInt());
+        assertEquals(3, store.search(priced(500, 500), PageRequest.of(0, 10)).getTotalElements());
+        
+        // Writes follow the region
+        Property added = shards.save(listing(agents.get(0), owner, "OR", 500));
+        assertEquals(1, count(target, "properties", added.getId()));
+        assertFalse(shards.onShard(source, () -> propertyRepository.findById(added.getId())).isPresent());
+    }
+    
+    private static List<Integer> prices(CursorPage<ListingCard> page) {
+        return page.getItems().stream().map(card -> card.getPrice().intValue()).toList();
+    }
+    
+    private int count(int shard, String table, long id) {
+        return router.shard(shard).queryForObject("SELECT COUNT(*) FROM " + table + " WHERE id = ?", Integer.class, id);
+    }
+    
+    private static ShardedListingQuery priced(int fromThousands, int toThousands) {
+        ShardedListingQuery query = new ShardedListingQuery();
+        query.setMinPrice(BigDecimal.valueOf(fromThousands * 1_000L));
+        query.setMaxPrice(BigDecimal.valueOf(toThousands * 1_000L));
+        return query;
+    }
+    
+    private static Agent agent(String state) {
+        int i = SEQUENCE.incrementAndGet();
+        Agent agent = new Agent();
+        agent.setFirstName("Agent");
+        agent.setLastName("Number" + i);
+        agent.setEmail("shard-agent" + i + "@example.com");
+        agent.setPhoneNumber("51255501" + String.format("%02d", i));
+        agent.setLicenseNumber(state + "-" + (1000 + i));
+        agent.setLicenseExpiryDate(LocalDate.of(2030, 1, 1));
+        agent.setAddress(i + " Main Street");
+        agent.setState(state);
+        agent.setCountry("USA");
+        agent.setStatus(Agent.AgentStatus.ACTIVE);
+        return agent;
+    }
+    
+    private static Client owner(String state) {
+        int i = SEQUENCE.incrementAndGet();
+        Client client = new Client();
+        client.setFirstName("Owner");
+        client.setLastName("Number" + i);
+        client.setEmail("shard-owner" + i + "@example.com");
+        client.setPhoneNumber("51255502" + String.format("%02d", i));
+        client.setAddress(i + " Lamar Blvd");
+        client.setState(state);
+        client.setClientType(Client.ClientType.SELLER);
+        client.setStatus(Client.ClientStatus.ACTIVE);
+        return client;
+    }
+    
+    private static Property listing(Agent agent, Client owner, String state, int priceThousands) {
+        int i = SEQUENCE.incrementAndGet();
+        Property property = new Property();
+        property.setTitle("Listing number " + i);
+        property.setAddress(i + " Oak Street");
+        property.setCity("Springfield");
+        property.setState(state);
+        property.setCountry("USA");
+        property.setPostalCode("78701");
+        property.setLatitude(30.27);
+        property.setLongitude(-97.74);
+        property.setPropertyType(Property.PropertyType.values()[0]);
+        property.setListingType(Property.ListingType.SALE);
+        property.setStatus(PropertyStatus.ACTIVE);
+        property.setPrice(BigDecimal.valueOf(priceThousands * 1_000L));
+        property.setBedrooms(3);
+        property.setBathrooms(2);
+        property.setAgent(agent);
+        property.setOwner(owner);
+        return property;
+    }
+}
@@ -0,0 +1,226 @@
+package com.realestate.validation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.realestate.model.Agent;
+import com.realestate.model.Client;
+import com.realestate.model.Property;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ElementKind;
+import jakarta.validation.Path;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import java.util.function.BiConsumer;
+import java.util.function.IntFunction;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The compiled validation mode must report exactly what Hibernate Validator reports: same
+ * property, message and invalid value for every violation. Entities start valid and get each
+ * constrained field replaced, at random, by an edge value. The benchmarks module's
+ * {@code ValidationConformance} runs the same comparison at larger sizes.
+ */
+class CompiledValidationConformanceTest {
+    private static final int ENTITIES_PER_TYPE = 5_000;
+    private static final double MUTATION_RATE = 0.3;
+    private static final long SEED = 7;
+    
+    private static final String[] NAMES = {null, "", " ", "\t\n", "A", "Ab", " Ab", "x".repeat(50), "x".repeat(51), "Jane"};
+    private static final String[] TITLES = {null, "", "     ", "Loft", "Lofts", "x".repeat(200), "x".repeat(201), "Sunny home"};
+    private static final String[] EMAILS = {null, "", " ", "plain", "a@b", "a@b.c", "a..b@example.com", "@example.com",
+            "jane@", "jane doe@example.com", "jane@exa mple.com", "x".repeat(65) + "@example.com", "jane@example.com",
+            "\"quoted\"@example.com", "jane@[127.0.0.1]", "jane@münchen.de"};
+    private static final String[] PHONES = {null, "", " ", "123456789", "1234567890", "+1234567890", "++1234567890",
+            "123456789012345", "1234567890123456", "+15125550100", "12-34-56-78-90", "１２３４５６７８９０"};
+    private static final String[] TEXTS = {null, "", " ", "\u00a0", "Austin", "TX"};
+    private static final Double[] LATITUDES = {null, -90.0, 90.0, -90.0000001, 90.0000001, 0.0, -0.0, Double.NaN,
+            Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 45.5, 1e-300};
+    private static final Double[] LONGITUDES = {null, -180.0, 180.0, -180.0000001, 180.0000001, Double.NaN,
+            Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, -97.7};
+    private static final BigDecimal[] PRICES = {null, BigDecimal.ZERO, new BigDecimal("0.00"), new BigDecimal("0.01"),
+            new BigDecimal("-1"), new BigDecimal("1E-20"), new BigDecimal("450000.00")};
+    private static final Integer[] COUNTS = {null, -1, 0, 1, Integer.MIN_VALUE, Integer.MAX_VALUE};
+    
+    private static ValidatorFactory standardFactory;
+    private static Validator standard;
+    private static Validator compiled;
+    
+    @BeforeAll
+    static void buildValidators() {
+        standardFactory = Validation.buildDefaultValidatorFactory();
+        CompiledValidatorFactory compiledFactory = new CompiledValidatorFactory(standardFactory,
+                List.of(Property.class, Agent.class, Client.class));
+        for (Class<?> type : List.of(Property.class, Agent.class, Client.class)) {
+            assertTrue(compiledFactory.isCompiled(type), type.getSimpleName() + " should be compiled");
+        }
+        standard = standardFactory.getValidator();
+        compiled = compiledFactory.getValidator();
+    }
+    
+    @AfterAll
+    static void close() {
+        standardFactory.close();
+    }
+    
+    @Test
+    void validEntitiesHaveNoViolations() {
+        assertTrue(compiled.validate(newProperty(1)).isEmpty());
+        assertTrue(compiled.validate(newAgent(1)).isEmpty());
+        assertTrue(compiled.validate(newClient(1)).isEmpty());
+    }
+    
+    @Test
+    void propertiesMatchHibernateValidator() {
+        assertConforms(Property.class, CompiledValidationConformanceTest::newProperty, propertyMutations());
+    }
+    
+    @Test
+    void agentsMatchHibernateValidator() {
+        assertConforms(Agent.class, CompiledValidationConformanceTest::newAgent, agentMutations());
+    }
+    
+    @Test
+    void clientsMatchHibernateValidator() {
+        assertConforms(Client.class, CompiledValidationConformanceTest::newClient, clientMutations());
+    }
+    
+    @Test
+    void violationPathIsASinglePropertyNode() {
+        Property property = newProperty(1);
+        property.setTitle(null);
+        ConstraintViolation<Property> violation = compiled.validate(property).iterator().next();
+        List<Path.Node> nodes = new ArrayList<>();
+        violation.getPropertyPath().forEach(nodes::add);
+        assertEquals(1, nodes.size());
+        assertEquals("title", nodes.get(0).getName());
+        assertEquals(ElementKind.PROPERTY, nodes.get(0).getKind());
+        assertEquals("title", nodes.get(0).as(Path.PropertyNode.class).getName());
+        assertEquals("title", violation.getPropertyPath().toString());
+    }
+    
+    private static <T> void assertConforms(Class<T> type, IntFunction<T> factory,
+                                           List<BiConsumer<T, SplittableRandom>> mutations) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        List<String> mismatches = new ArrayList<>();
+        int invalid = 0;
+        for (int i = 0; i < ENTITIES_PER_TYPE; i++) {
+            T entity = factory.apply(i);
+            for (BiConsumer<T, SplittableRandom> mutation : mutations) {
+                if (random.nextDouble() < MUTATION_RATE) {
+                    mutation.accept(entity, random);
+                }
+            }
+            Set<String> expected = describe(standard.validate(entity));
+            Set<String> actual = describe(compiled.validate(entity));
+            if (!expected.isEmpty()) {
+                invalid++;
+            }
+            if (!expected.equals(actual) && mismatches.size() < 20) {
+                mismatches.add("standard: " + expected + "\ncompiled: " + actual);
+            }
+        }
+        assertTrue(invalid > 0, "no " + type.getSimpleName() + " was invalid; the mutations are not exercised");
+        assertTrue(mismatches.isEmpty(), String.join("\n", mismatches));
+    }
+    
+    private static Set<String> describe(Set<? extends ConstraintViolation<?>> violations) {
+        Set<String> described = new TreeSet<>();
+        for (ConstraintViolation<?> violation : violations) {
+            described.add(violation.getPropertyPath() + ": " + violation.getMessage() + " [" + violation.getInvalidValue() + "]");
+        }
+        return described;
+    }
+    
+    private static List<BiConsumer<Property, SplittableRandom>> propertyMutations() {
+        return List.of(
+                (p, r) -> p.setTitle(pick(TITLES, r)),
+                (p, r) -> p.setAddress(pick(TEXTS, r)),
+                (p, r) -> p.setCity(pick(TEXTS, r)),
+                (p, r) -> p.setState(pick(TEXTS, r)),
+                (p, r) -> p.setPostalCode(pick(TEXTS, r)),
+                (p, r) -> p.setLatitude(pick(LATITUDES, r)),
+                (p, r) -> p.setLongitude(pick(LONGITUDES, r)),
+                (p, r) -> p.setPropertyType(r.nextBoolean() ? null : Property.PropertyType.CONDO),
+                (p, r) -> p.setListingType(r.nextBoolean() ? null : Property.ListingType.RENT),
+                (p, r) -> p.setPrice(pick(PRICES, r)),
+                (p, r) -> p.setBedrooms(pick(COUNTS, r)),
+                (p, r) -> p.setBathrooms(pick(COUNTS, r)));
+    }
+    
+    private static List<BiConsumer<Agent, SplittableRandom>> agentMutations() {
+        return List.of(
+                (a, r) -> a.setFirstName(pick(NAMES, r)),
+                (a, r) -> a.setLastName(pick(NAMES, r)),
+                (a, r) -> a.setEmail(pick(EMAILS, r)),
+                (a, r) -> a.setPhoneNumber(pick(PHONES, r)),
+                (a, r) -> a.setLicenseNumber(pick(TEXTS, r)),
+                (a, r) -> a.setLicenseExpiryDate(r.nextInt(4) == 0 ? null : LocalDate.now().plusDays(r.nextInt(3) - 1)),
+                (a, r) -> a.setAddress(pick(TEXTS, r)));
+    }
+    
+    private static List<BiConsumer<Client, SplittableRandom>> clientMutations() {
+        return List.of(
+                (c, r) -> c.setFirstName(pick(NAMES, r)),
+                (c, r) -> c.setLastName(pick(NAMES, r)),
+                (c, r) -> c.setEmail(pick(EMAILS, r)),
+                (c, r) -> c.setPhoneNumber(pick(PHONES, r)),
+                (c, r) -> c.setAddress(pick(TEXTS, r)),
+                (c, r) -> c.setClientType(r.nextBoolean() ? null : Client.ClientType.values()[0]));
+    }
+    
+    private static <T> T pick(T[] values, SplittableRandom random) {
+        return values[random.nextInt(values.length)];
+    }
+    
+    private static Property newProperty(int n) {
+        Property property = new Property();
+        property.setTitle("Listing number " + n);
+        property.setAddress((100 + n % 9900) + " Congress Ave");
+        property.setCity("Austin");
+        property.setState("TX");
+        property.setPostalCode("78701");
+        property.setCountry("USA");
+        property.setLatitude(30.27);
+        property.setLongitude(-97.74);
+        property.setPropertyType(Property.PropertyType.values()[n % Property.PropertyType.values().length]);
+        property.setListingType(Property.ListingType.SALE);
+        property.setPrice(new BigDecimal("350000.00"));
+        property.setBedrooms(1 + n % 5);
+        property.setBathrooms(1 + n % 3);
+        return property;
+    }
+    
+    private static Agent newAgent(int n) {
+        Agent agent = new Agent();
+        agent.setFirstName("Agent" + n);
+        agent.setLastName("Lastname" + n);
+        agent.setEmail("agent" + n + "@example.com");
+        agent.setPhoneNumber(String.format("+1%010d", 2_000_000_000L + n));
+        agent.setLicenseNumber("TX-" + n);
+        agent.setLicenseExpiryDate(LocalDate.now().plusYears(1));
+        agent.setAddress((100 + n % 9900) + " Lamar Blvd");
+        return agent;
+    }
+    
+    private static Client newClient(int n) {
+        Client client = new Client();
+        client.setFirstName("Client" + n);
+        client.setLastName("Lastname" + n);
+        client.setEmail("client" + n + "@example.com");
+        client.setPhoneNumber(String.format("+1%010d", 3_000_000_000L + n));
+        client.setAddress((100 + n % 9900) + " Lamar Blvd");
+        client.setClientType(Client.ClientType.values()[n % Client.ClientType.values().length]);
+        return client;
+    }
+}
@@ -0,0 +1,196 @@
+package com.realestate.view;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.realestate.dto.AgentDashboard;
+import com.realestate.dto.ClientPortfolio;
+import com.realestate.dto.ListingCard;
+import com.realestate.dto.ListingWithAgent;
+import com.realestate.geo.CachingGeocoder;
+import com.realestate.model.Agent;
+import com.realestate.model.Client;
+import com.realestate.model.Property;
+import com.realestate.model.Property.PropertyStatus;
+import com.realestate.persistence.PersistenceConfiguration;
+import com.realestate.persistence.QueryBudgetExceededException;
+import com.realestate.persistence.QueryBudgetGuard;
+import com.realestate.repository.AgentRepository;
+import com.realestate.shard.EntityShards;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Runs the multi-entity views over several agents, owners and listings with query budgets
+ * enforced, so a view that starts loading an association per row fails here instead of only
+ * logging a warning. The persistence context is cleared before every view, which makes each
+ * one load what it shows from the database.
+ */
+@DataJpaTest(properties = "realestate.query-budget.enforce=true")
+@Import({PortfolioViewService.class, QueryBudgetGuard.class, PersistenceConfiguration.class, EntityShards.class})
+class PortfolioViewServiceTest {
+    private static final int AGENTS = 3;
+    private static final int OWNERS = 4;
+    private static final int LISTINGS = 24;
+    
+    @MockBean
+    private CachingGeocoder geocoder;
+    
+    @Autowired
+    private TestEntityManager entityManager;
+    
+    @Autowired
+    private PortfolioViewService views;
+    
+    @Autowired
+    private QueryBudgetGuard queryBudget;
+    
+    @Autowired
+    private AgentRepository agentRepository;
+    
+    private final List<Agent> agents = new ArrayList<>();
+    private final List<Client> owners = new ArrayList<>();
+    private final List<Property> listings = new ArrayList<>();
+    
+    @BeforeEach
+    void createPortfolios() {
+        for (int i = 0; i < AGENTS; i++) {
+            agents.add(entityManager.persist(agent(i)));
+        }
+        for (int i = 0; i < OWNERS; i++) {
+            owners.add(entityManager.persist(owner(i)));
+        }
+        // Every fifth listing has no owner on record; every third is sold
+        for (int i = 0; i < LISTINGS; i++) {
+            Property listing = listing(i, agents.get(i % AGENTS), i % 5 == 4 ? null : owners.get(i % OWNERS));
+            listings.add(entityManager.persist(listing));
+        }
+        entityManager.flush();
+    }
+    
+    @Test
+    void agentDashboardsStayWithinBudget() {
+        for (Agent agent : agents) {
+            AgentDashboard dashboard = fresh(() -> views.agentDashboard(agent.getId()).orElseThrow());
+            
+            List<Property> own = listings.stream().filter(listing -> listing.getAgent() == agent).toList();
+            assertEquals(agent.getFullName(), dashboard.getAgentName());
+            assertEquals(ids(own), dashboard.getListings().stream().map(ListingCard::getId).toList());
+            assertEquals(own.stream().filter(listing -> listing.getStatus() == PropertyStatus.ACTIVE).count(),
+                    dashboard.getActiveListings());
+            assertEquals(0, dashboard.getTransactionCount());
+        }
+    }
+    
+    @Test
+    void listingPagesStayWithinBudget() {
+        List<Property> active = listings.stream().filter(listing -> listing.getStatus() == PropertyStatus.ACTIVE).toList();
+        List<Long> seen = new ArrayList<>();
+        for (int page = 0; page * 5 < active.size(); page++) {
+            PageRequest request = PageRequest.of(page, 5, Sort.by("id"));
+            Page<ListingWithAgent> rows = fresh(() -> views.listings(PropertyStatus.ACTIVE, request));
+            
+            assertEquals(active.size(), rows.getTotalElements());
+            for (ListingWithAgent row : rows) {
+                Property listing = active.get(seen.size());
+                seen.add(row.getListing().getId());
+                assertEquals(listing.getId(), row.getListing().getId());
+                assertEquals(listing.getAgent().getFullName(), row.getAgentName());
+                assertEquals(listing.getOwner() != null ? listing.getOwner().getFullName() : null, row.getOwnerName());
+            }
+        }
+        assertEquals(ids(active), seen);
+    }
+    
+    @Test
+    void clientPortfoliosStayWithinBudget() {
+        for (Client owner : owners) {
+            ClientPortfolio portfolio = fresh(() -> views.clientPortfolio(owner.getId()).orElseThrow());
+            
+            List<Property> owned = listings.stream().filter(listing -> listing.getOwner() == owner).toList();
+            assertEquals(owner.getFullName(), portfolio.getClientName());
+            assertEquals(ids(owned), portfolio.getProperties().stream().map(row -> row.getListing().getId()).toList());
+            for (int i = 0; i < owned.size(); i++) {
+                assertEquals(owned.get(i).getAgent().getId(), portfolio.getProperties().get(i).getAgentId());
+                assertEquals(owned.get(i).getAgent().getFullName(), portfolio.getProperties().get(i).getAgentName());
+            }
+        }
+    }
+    
+    @Test
+    void listingsLoadedLazilyGoOverBudget() {
+        // Batch fetching folds the per-agent loads into one statement, which still makes two
+        QueryBudgetExceededException exceeded = assertThrows(QueryBudgetExceededException.class, () ->
+                fresh(() -> queryBudget.run("agents-with-listings", 1, () -> agentRepository.findAll().stream()
+                        .mapToInt(agent -> agent.getProperties().size())
+                        .sum())));
+        assertEquals(2, exceeded.getStatements().size());
+    }
+    
+    private <T> T fresh(Supplier<T> view) {
+        entityManager.clear();
+        return view.get();
+    }
+    
+    private static List<Long> ids(List<Property> listings) {
+        return listings.stream().map(Property::getId).sorted().toList();
+    }
+    
+    private static Agent agent(int i) {
+        Agent agent = new Agent();
+        agent.setFirstName("Agent");
+        agent.setLastName("Number" + i);
+        agent.setEmail("agent" + i + "@example.com");
+        agent.setPhoneNumber("512555010" + i);
+        agent.setLicenseNumber("TX-" + (1000 + i));
+        agent.setLicenseExpiryDate(LocalDate.of(2030, 1, 1));
+        agent.setAddress(i + " Congress Ave");
+        agent.setStatus(Agent.AgentStatus.ACTIVE);
+        return agent;
+    }
+    
+    private static Client owner(int i) {
+        Client client = new Client();
+        client.setFirstName("Owner");
+        client.setLastName("Number" + i);
+        client.setEmail("owner" + i + "@example.com");
+        client.setPhoneNumber("512555020" + i);
+        client.setAddress(i + " Lamar Blvd");
+        client.setClientType(Client.ClientType.SELLER);
+        client.setStatus(Client.ClientStatus.ACTIVE);
+        return client;
+    }
+    
+    private static Property listing(int i, Agent agent, Client owner) {
+        Property property = new Property();
+        property.setTitle("Listing number " + i);
+        property.setAddress(i + " Oak Street");
+        property.setCity("Austin");
+        property.setState("TX");
+        property.setPostalCode("78701");
+        property.setLatitude(30.27);
+        property.setLongitude(-97.74);
+        property.setPropertyType(Property.PropertyType.values()[0]);
+        property.setListingType(Property.ListingType.SALE);
+        property.setStatus(i % 3 == 2 ? PropertyStatus.SOLD : PropertyStatus.ACTIVE);
+        property.setPrice(BigDecimal.valueOf(300_000 + 1_000L * i));
+        property.setBedrooms(3);
+        property.setBathrooms(2);
+        property.setAgent(agent);
+        property.setOwner(owner);
+        return property;
+    }
+}
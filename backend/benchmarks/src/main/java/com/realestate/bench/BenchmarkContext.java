@@ -0,0 +1,82 @@
+package com.realestate.bench;
+
+import com.realestate.RealEstateApplication;
+import com.realestate.bench.data.SyntheticListingGenerator;
+import com.realestate.model.Agent;
+import com.realestate.model.Property;
+import jakarta.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Boots the backend against a private in-memory H2 database, without a web server unless one is
+ * asked for, and seeds it with synthetic data.
+ */
+final class BenchmarkContext {
+    
+    private BenchmarkContext() {}
+    
+    static ConfigurableApplicationContext start(String database, String... properties) {
+        return start(WebApplicationType.NONE, database, properties);
+    }
+    
+    /** Starts the backend with its embedded web server on a random port. */
+    static ConfigurableApplicationContext startServer(String database, String... properties) {
+        List<String> all = new ArrayList<>(List.of(properties));
+        all.add("server.port=0");
+        return start(WebApplicationType.SERVLET, database, all.toArray(new String[0]));
+    }
+    
+    private static ConfigurableApplicationContext start(WebApplicationType type, String database, String... properties) {
+        List<String> all = new ArrayList<>(List.of(
+                "spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+                "spring.jpa.open-in-view=false",
+                "logging.level.root=WARN"));
+        all.addAll(List.of(properties));
+        return new SpringApplicationBuilder(RealEstateApplication.class)
+                .web(type)
+                .properties(all.toArray(new String[0]))
+                .run();
+    }
+    
+    /**
+     * Persists {@code agentCount} agents and {@code listingCount} listings and returns the ids
+     * of the listings.
+     */
+    static List<Long> seed(ConfigurableApplicationContext context, int agentCount, int listingCount) {
+        EntityManager entityManager = context.getBean(EntityManager.class);
+        TransactionTemplate transactionTemplate = context.getBean(TransactionTemplate.class);
+        SyntheticListingGenerator generator = new SyntheticListingGenerator(42L, agentCount);
+        List<Long> agentIds = transactionTemplate.execute(status -> {
+            List<Long> ids = new ArrayList<>(agentCount);
+            for (int i = 0; i < agentCount; i++) {
+                Agent agent = generator.nextAgent();
+                entityManager.persist(agent);
+                ids.add(agent.getId());
+            }
+            return ids;
+        });
+        
+        List<Long> listingIds = new ArrayList<>(listingCount);
+        int batch = 1000;
+        for (int start = 0; start < listingCount; start += batch) {
+            int size = Math.min(listingCount - start, batch);
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = 0; i < size; i++) {
+                    Property property = generator.nextProperty();
+                    property.setAgent(entityManager.getReference(Agent.class,
+                            agentIds.get(generator.agentIndexFor(property))));
+                    entityManager.persist(property);
+                    listingIds.add(property.getId());
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+        }
+        return listingIds;
+    }
+}
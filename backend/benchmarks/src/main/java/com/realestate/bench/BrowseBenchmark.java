@@ -0,0 +1,83 @@
+package com.realestate.bench;
+
+import com.realestate.browse.ListingBrowseService;
+import com.realestate.dto.CursorPage;
+import com.realestate.dto.ListingCard;
+import com.realestate.model.Property;
+import com.realestate.model.Property.PropertyStatus;
+import com.realestate.repository.PropertyRepository;
+import com.realestate.search.ListingSort;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Fetches page {@code page} of the newest-first listing browse order with {@code OFFSET}
+ * pagination over full entities, the way a {@code Pageable} repository call does, and with the
+ * keyset browse service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BrowseBenchmark {
+    private static final int PAGE_SIZE = 20;
+    
+    @Param({"100000"})
+    public int listings;
+    
+    @Param({"1", "100", "2000"})
+    public int page;
+    
+    private ConfigurableApplicationContext context;
+    private PropertyRepository repository;
+    private ListingBrowseService browseService;
+    private TransactionTemplate transactionTemplate;
+    private String cursor;
+    
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("browse");
+        BenchmarkContext.seed(context, 50, listings);
+        repository = context.getBean(PropertyRepository.class);
+        browseService = context.getBean(ListingBrowseService.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        // walk to the cursor that starts the requested page
+        for (int i = 1; i < page; i++) {
+            cursor = browseService.browse(ListingSort.NEWEST, PropertyStatus.ACTIVE, cursor, PAGE_SIZE).getNextCursor();
+        }
+    }
+    
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Benchmark
+    public List<Property> offsetEntities() {
+        return transactionTemplate.execute(status -> repository.findAll(PageRequest.of(page - 1, PAGE_SIZE,
+                Sort.by(Sort.Order.desc("listingDate"), Sort.Order.desc("id")))).getContent());
+    }
+    
+    @Benchmark
+    public CursorPage<ListingCard> keysetProjection() {
+        return browseService.browse(ListingSort.NEWEST, PropertyStatus.ACTIVE, cursor, PAGE_SIZE);
+    }
+}
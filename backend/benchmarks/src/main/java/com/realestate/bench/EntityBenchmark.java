@@ -0,0 +1,143 @@
+package com.realestate.bench;
+
+import com.realestate.model.Agent;
+import com.realestate.model.Client;
+import com.realestate.model.Property;
+import com.realestate.model.Property.ListingType;
+import com.realestate.model.Property.PropertyType;
+import com.realestate.validation.CompiledValidatorFactory;
+import com.realestate.validation.EntityValidation;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Construction and Bean Validation cost of the three main entities, for both valid instances
+ * and instances violating several constraints, with Hibernate Validator and with the compiled
+ * validators of {@code realestate.validation.mode=compiled}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EntityBenchmark {
+    private static final LocalDate LICENSE_EXPIRY = LocalDate.now().plusYears(2);
+    
+    @Param({EntityValidation.STANDARD, EntityValidation.COMPILED})
+    public String validation;
+    
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private Agent agent;
+    private Property validProperty;
+    private Property invalidProperty;
+    private Client validClient;
+    private Agent invalidAgent;
+    
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validation.equals(EntityValidation.COMPILED)
+                ? new CompiledValidatorFactory(validatorFactory, List.of(Property.class, Agent.class, Client.class)).getValidator()
+                : validatorFactory.getValidator();
+        agent = newAgent();
+        validProperty = newProperty();
+        invalidProperty = newProperty();
+        invalidProperty.setTitle("abc");
+        invalidProperty.setPrice(BigDecimal.ZERO);
+        invalidProperty.setBedrooms(-1);
+        validClient = newClient();
+        invalidAgent = newAgent();
+        invalidAgent.setPhoneNumber("12-34");
+        invalidAgent.setEmail("not-an-email");
+    }
+    
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+    
+    @Benchmark
+    public Property constructProperty() {
+        return newProperty();
+    }
+    
+    @Benchmark
+    public Agent constructAgent() {
+        return newAgent();
+    }
+    
+    @Benchmark
+    public Client constructClient() {
+        return newClient();
+    }
+    
+    @Benchmark
+    public Set<ConstraintViolation<Property>> validateValidProperty() {
+        return validator.validate(validProperty);
+    }
+    
+    @Benchmark
+    public Set<ConstraintViolation<Property>> validateInvalidProperty() {
+        return validator.validate(invalidProperty);
+    }
+    
+    @Benchmark
+    public Set<ConstraintViolation<Agent>> validateValidAgent() {
+        return validator.validate(agent);
+    }
+    
+    @Benchmark
+    public Set<ConstraintViolation<Agent>> validateInvalidAgent() {
+        return validator.validate(invalidAgent);
+    }
+    
+    @Benchmark
+    public Set<ConstraintViolation<Client>> validateValidClient() {
+        return validator.validate(validClient);
+    }
+    
+    private Property newProperty() {
+        Property property = new Property("Sunny family home", "12 Oak Ave", "Austin", "TX", "78701",
+                PropertyType.HOUSE, ListingType.SALE, new BigDecimal("450000.00"), 3, 2, agent);
+        property.setSquareFeet(1850);
+        property.setYearBuilt(1998);
+        return property;
+    }
+    
+    private static Agent newAgent() {
+        return new Agent("Jane", "Doe", "jane.doe@example.com", "+15125550100", "TX-123456",
+                LICENSE_EXPIRY, "100 Congress Ave");
+    }
+    
+    private static Client newClient() {
+        Client client = new Client();
+        client.setFirstName("John");
+        client.setLastName("Smith");
+        client.setEmail("john.smith@example.com");
+        client.setPhoneNumber("+15125550199");
+        client.setAddress("200 Lamar Blvd");
+        client.setClientType(Client.ClientType.values()[0]);
+        return client;
+    }
+}
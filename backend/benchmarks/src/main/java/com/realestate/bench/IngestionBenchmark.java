@@ -0,0 +1,99 @@
+package com.realestate.bench;
+
+import com.realestate.bench.data.SyntheticListingGenerator;
+import com.realestate.ingest.BulkIngestionService;
+import com.realestate.ingest.CsvListingReader;
+import com.realestate.ingest.IngestionReport;
+import com.realestate.model.Agent;
+import com.realestate.model.Property;
+import com.realestate.repository.PropertyRepository;
+import jakarta.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Loads the same synthetic feed through the bulk ingestion pipeline and through one
+ * {@code save()} per row, the path it replaces.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class IngestionBenchmark {
+    
+    @Param({"20000"})
+    public int rows;
+    
+    private ConfigurableApplicationContext context;
+    private byte[] csv;
+    private List<Property> entities;
+    
+    @Setup
+    public void setUp() throws IOException {
+        context = BenchmarkContext.start("ingestion");
+        BenchmarkContext.seed(context, 1, 0);
+        SyntheticListingGenerator generator = new SyntheticListingGenerator(11L, 1);
+        StringWriter writer = new StringWriter();
+        generator.writeCsv(writer, rows);
+        csv = writer.toString().getBytes(StandardCharsets.UTF_8);
+    }
+    
+    @Setup(Level.Invocation)
+    public void prepareEntities() {
+        SyntheticListingGenerator generator = new SyntheticListingGenerator(11L, 1);
+        EntityManager entityManager = context.getBean(EntityManager.class);
+        Long agentId = context.getBean(TransactionTemplate.class).execute(status ->
+                entityManager.createQuery("select min(a.id) from Agent a", Long.class).getSingleResult());
+        Agent agent = new Agent();
+        agent.setId(agentId);
+        entities = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Property property = generator.nextProperty();
+            property.setAgent(agent);
+            entities.add(property);
+        }
+    }
+    
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Benchmark
+    public IngestionReport bulkPipeline() throws IOException {
+        return context.getBean(BulkIngestionService.class)
+                .ingest("bench-" + UUID.randomUUID(), new CsvListingReader(new ByteArrayInputStream(csv)));
+    }
+    
+    @Benchmark
+    public int saveEachRow() {
+        PropertyRepository repository = context.getBean(PropertyRepository.class);
+        for (Property property : entities) {
+            repository.save(property);
+        }
+        return entities.size();
+    }
+}
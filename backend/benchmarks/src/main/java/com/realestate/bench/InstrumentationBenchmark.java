@@ -0,0 +1,104 @@
+package com.realestate.bench;
+
+import com.realestate.model.Property;
+import jakarta.persistence.EntityManager;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Cost of the hot-path metrics: listing detail and browse requests over HTTP, and a listing
+ * update that runs validation, lifecycle callbacks and the outbox insert, with the
+ * instrumentation and every Micrometer meter switched on and off. The outbox relay is stopped
+ * so that its polling does not add noise; updates leave their change rows pending.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+public class InstrumentationBenchmark {
+    
+    @Param({"true", "false"})
+    public boolean instrumented;
+    
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String base;
+    private List<Long> ids;
+    private TransactionTemplate transactionTemplate;
+    private EntityManager entityManager;
+    private int next;
+    
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.startServer("instrumentation",
+                "realestate.instrumentation.enabled=" + instrumented,
+                "management.metrics.enable.all=" + instrumented,
+                "realestate.outbox.relay.enabled=false");
+        ids = BenchmarkContext.seed(context, 50, 5_000);
+        base = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        entityManager = context.getBean(EntityManager.class);
+    }
+    
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Benchmark
+    public String listingDetail() throws IOException, InterruptedException {
+        return get("/api/listings/" + nextId());
+    }
+    
+    @Benchmark
+    public String browse() throws IOException, InterruptedException {
+        return get("/api/listings/browse?size=20");
+    }
+    
+    @Benchmark
+    public Property updateListing() {
+        long id = nextId();
+        return transactionTemplate.execute(status -> {
+            Property property = entityManager.find(Property.class, id);
+            property.setPrice(property.getPrice().add(BigDecimal.ONE));
+            return property;
+        });
+    }
+    
+    private String get(String path) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(base + path)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(path + " returned " + response.statusCode());
+        }
+        return response.body();
+    }
+    
+    private long nextId() {
+        return ids.get(next++ % ids.size());
+    }
+}
@@ -0,0 +1,89 @@
+package com.realestate.bench;
+
+import com.realestate.compact.CompactListing;
+import com.realestate.compact.CompactListingMapper;
+import com.realestate.model.Property;
+import com.realestate.repository.PropertyRepository;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Heap retained per listing when a whole result set is held as {@link Property} entities and as
+ * {@link CompactListing}s. Both are loaded from the same seeded database, page by page, so the
+ * entities carry the strings and boxed values JDBC materializes for each row rather than the
+ * generator's shared constants. Each figure is the heap used after a full GC with the list
+ * alive, minus the figure before loading it.
+ *
+ * <pre>
+ * java -Xmx4g -cp target/benchmarks.jar com.realestate.bench.ListingFootprintHarness listings=200000
+ * </pre>
+ */
+public class ListingFootprintHarness {
+    private static final int PAGE_SIZE = 1000;
+    
+    public static void main(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>(Map.of(
+                "listings", "200000",
+                "agents", "2000"));
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0 || !options.containsKey(arg.substring(0, eq))) {
+                throw new IllegalArgumentException("Unknown option " + arg + "; expected one of " + options.keySet());
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        int listingCount = Integer.parseInt(options.get("listings"));
+        
+        try (ConfigurableApplicationContext context = BenchmarkContext.start("footprint")) {
+            BenchmarkContext.seed(context, Integer.parseInt(options.get("agents")), listingCount);
+            PropertyRepository repository = context.getBean(PropertyRepository.class);
+            CompactListingMapper mapper = context.getBean(CompactListingMapper.class);
+            
+            long before = usedAfterGc();
+            List<Property> entities = loadEntities(repository);
+            long entityBytes = usedAfterGc() - before;
+            Reference.reachabilityFence(entities);
+            entities = null;
+            
+            before = usedAfterGc();
+            List<CompactListing> compact = mapper.loadAll();
+            long compactBytes = usedAfterGc() - before;
+            Reference.reachabilityFence(compact);
+            
+            System.out.printf("%-10s %10s %14s%n", "model", "listings", "bytes/listing");
+            System.out.printf("%-10s %10d %14.1f%n", "entity", listingCount, (double) entityBytes / listingCount);
+            System.out.printf("%-10s %10d %14.1f%n", "compact", compact.size(), (double) compactBytes / compact.size());
+            System.out.printf("%ncompact/entity %.2f, %d dictionary entries%n",
+                    (double) compactBytes / entityBytes, mapper.dictionarySize());
+        }
+    }
+    
+    /** Entities page by page, each page in its own persistence context, as a report would hold them. */
+    private static List<Property> loadEntities(PropertyRepository repository) {
+        List<Property> entities = new ArrayList<>();
+        Pageable pageable = PageRequest.of(0, PAGE_SIZE, Sort.by("id"));
+        Page<Property> page;
+        do {
+            page = repository.findAll(pageable);
+            entities.addAll(page.getContent());
+            pageable = page.nextPageable();
+        } while (page.hasNext());
+        return entities;
+    }
+    
+    private static long usedAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
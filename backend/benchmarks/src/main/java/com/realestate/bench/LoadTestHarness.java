@@ -0,0 +1,247 @@
+package com.realestate.bench;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Closed-loop HTTP load test comparing the platform-thread and virtual-thread execution modes.
+ * Each mode runs in a JVM of its own that boots the backend with its web server, points every
+ * seeded listing's image and virtual tour links at a local stub origin that answers after a
+ * fixed delay, and has {@code concurrency} clients request listing details and media link
+ * checks back to back for the configured duration. Prints throughput and latency percentiles
+ * per mode, concurrency and endpoint.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.realestate.bench.LoadTestHarness \
+ *     concurrency=50,200,800 duration=20 warmup=5 origin-delay=200 listings=2000 modes=platform,virtual
+ * </pre>
+ *
+ * The clients and the stub origin run in the same JVM as the server, so on small machines the numbers include
+ * their CPU cost too; compare modes against each other rather than against absolute targets.
+ */
+public class LoadTestHarness {
+    private static final String ROW = "load-test-row ";
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>(Map.of(
+                "concurrency", "50,200,800",
+                "duration", "20",
+                "warmup", "5",
+                "origin-delay", "200",
+                "listings", "2000",
+                "modes", "platform,virtual"));
+        options.put("mode", null);
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0 || !options.containsKey(arg.substring(0, eq))) {
+                throw new IllegalArgumentException("Unknown option " + arg + "; expected one of " + options.keySet());
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        int[] concurrencies = Arrays.stream(options.get("concurrency").split(",")).mapToInt(Integer::parseInt).toArray();
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.get("duration")));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.get("warmup")));
+        Duration originDelay = Duration.ofMillis(Long.parseLong(options.get("origin-delay")));
+        int listings = Integer.parseInt(options.get("listings"));
+        
+        String mode = options.get("mode");
+        if (mode == null) {
+            List<String> rows = new ArrayList<>();
+            for (String forked : options.get("modes").split(",")) {
+                rows.addAll(fork(forked, args));
+            }
+            System.out.printf("%nOrigin delay %d ms, %d listings, %ds per step%n",
+                    originDelay.toMillis(), listings, duration.toSeconds());
+            System.out.printf("%-9s %11s %-8s %10s %9s %9s %9s %9s %7s%n",
+                    "mode", "concurrency", "endpoint", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "errors");
+            rows.forEach(System.out::println);
+            return;
+        }
+        
+        boolean virtual = switch (mode) {
+            case "platform" -> false;
+            case "virtual" -> true;
+            default -> throw new IllegalArgumentException("Unknown mode " + mode);
+        };
+        HttpServer origin = startOrigin(originDelay);
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        ConfigurableApplicationContext context = BenchmarkContext.startServer("load-" + mode,
+                "spring.threads.virtual.enabled=" + virtual);
+        try {
+            List<Long> ids = BenchmarkContext.seed(context, 20, listings);
+            String originUrl = "http://localhost:" + origin.getAddress().getPort();
+            context.getBean(JdbcTemplate.class).update(
+                    "update properties set main_image_url = ?, virtual_tour_url = ?",
+                    originUrl + "/image.jpg", originUrl + "/tour");
+            String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            
+            run(client, base, ids, concurrencies[concurrencies.length - 1], warmup);
+            for (int concurrency : concurrencies) {
+                for (Result result : run(client, base, ids, concurrency, duration)) {
+                    System.out.println(ROW + result.format(mode, concurrency, duration));
+                }
+            }
+        } finally {
+            context.close();
+            origin.stop(0);
+        }
+    }
+    
+    /**
+     * Runs one mode in a fresh JVM with the same heap settings so neither mode benefits from
+     * the other's JIT warm-up, and returns the result rows it printed.
+     */
+    private static List<String> fork(String mode, String[] args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), LoadTestHarness.class.getName()));
+        command.addAll(List.of(args));
+        command.add("mode=" + mode);
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        List<String> rows = new ArrayList<>();
+        try (BufferedReader output = process.inputReader()) {
+            String line;
+            while ((line = output.readLine()) != null) {
+                if (line.startsWith(ROW)) {
+                    rows.add(line.substring(ROW.length()));
+                    System.out.println(rows.get(rows.size() - 1));
+                } else if (line.contains("ERROR") || line.contains("Exception")) {
+                    System.err.println(line);
+                }
+            }
+        }
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException("Load test for mode " + mode + " exited with " + process.exitValue());
+        }
+        return rows;
+    }
+    
+    /** Media host stand-in: answers every request with 200 after {@code delay}. */
+    private static HttpServer startOrigin(Duration delay) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/", exchange -> {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+        return server;
+    }
+    
+    /**
+     * Runs {@code concurrency} clients for {@code duration}. Each client alternates between the
+     * listing detail endpoint and the media check endpoint of a random listing.
+     */
+    private static List<Result> run(HttpClient client, String base, List<Long> ids, int concurrency,
+                                    Duration duration) {
+        long deadline = System.nanoTime() + duration.toNanos();
+        Recorder[] details = new Recorder[concurrency];
+        Recorder[] mediaChecks = new Recorder[concurrency];
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                Recorder detail = details[i] = new Recorder();
+                Recorder mediaCheck = mediaChecks[i] = new Recorder();
+                clients.execute(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    boolean media = random.nextBoolean();
+                    while (System.nanoTime() < deadline) {
+                        long id = ids.get(random.nextInt(ids.size()));
+                        String path = media ? "/api/listings/" + id + "/media-status" : "/api/listings/" + id;
+                        Recorder recorder = media ? mediaCheck : detail;
+                        media = !media;
+                        long started = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(
+                                    HttpRequest.newBuilder(URI.create(base + path)).timeout(Duration.ofSeconds(30)).build(),
+                                    HttpResponse.BodyHandlers.discarding());
+                            recorder.record(System.nanoTime() - started, response.statusCode() != 200);
+                        } catch (IOException e) {
+                            recorder.record(System.nanoTime() - started, true);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                });
+            }
+        }
+        return List.of(Result.of("detail", details), Result.of("media", mediaChecks));
+    }
+    
+    private static final class Recorder {
+        long[] latencies = new long[1024];
+        int count;
+        int errors;
+        
+        void record(long nanos, boolean error) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            if (error) {
+                errors++;
+            }
+        }
+    }
+    
+    private record Result(String endpoint, long[] latencies, int errors) {
+        
+        static Result of(String endpoint, Recorder[] recorders) {
+            int total = 0;
+            int errors = 0;
+            for (Recorder recorder : recorders) {
+                total += recorder.count;
+                errors += recorder.errors;
+            }
+            long[] all = new long[total];
+            int offset = 0;
+            for (Recorder recorder : recorders) {
+                System.arraycopy(recorder.latencies, 0, all, offset, recorder.count);
+                offset += recorder.count;
+            }
+            Arrays.sort(all);
+            return new Result(endpoint, all, errors);
+        }
+        
+        String format(String mode, int concurrency, Duration duration) {
+            return String.format("%-9s %11d %-8s %10.0f %9.1f %9.1f %9.1f %9.1f %7d", mode, concurrency, endpoint,
+                    latencies.length / (double) duration.toSeconds(), millis(0.50), millis(0.99), millis(0.999),
+                    latencies.length == 0 ? 0.0 : latencies[latencies.length - 1] / 1e6, errors);
+        }
+        
+        private double millis(double quantile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            return latencies[Math.min(latencies.length - 1, (int) (quantile * latencies.length))] / 1e6;
+        }
+    }
+}
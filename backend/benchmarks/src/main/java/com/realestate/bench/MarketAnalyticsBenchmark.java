@@ -0,0 +1,74 @@
+package com.realestate.bench;
+
+import com.realestate.analytics.MarketAnalyticsService;
+import com.realestate.analytics.MarketDimension;
+import com.realestate.dto.MarketStats;
+import com.realestate.model.Property.ListingType;
+import jakarta.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Per-city market figures for the manager dashboard, read from the incrementally maintained
+ * aggregates and computed with a GROUP BY over the properties table. The GROUP BY variant only
+ * gets count and average price, since H2 has no median aggregate that scales.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MarketAnalyticsBenchmark {
+    
+    @Param({"100000"})
+    public int listings;
+    
+    private ConfigurableApplicationContext context;
+    private MarketAnalyticsService analytics;
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+    
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("analytics");
+        BenchmarkContext.seed(context, 50, listings);
+        analytics = context.getBean(MarketAnalyticsService.class);
+        analytics.rebuild();
+        entityManager = context.getBean(EntityManager.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+    }
+    
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Benchmark
+    public List<MarketStats> precomputedByCity() {
+        return analytics.breakdown(ListingType.SALE, MarketDimension.CITY);
+    }
+    
+    @Benchmark
+    public List<Object[]> groupByCity() {
+        return transactionTemplate.execute(status -> entityManager.createQuery(
+                "select p.city, p.status, count(p), avg(p.price) from Property p "
+                        + "where p.listingType = :type group by p.city, p.status", Object[].class)
+                .setParameter("type", ListingType.SALE)
+                .getResultList());
+    }
+}
@@ -0,0 +1,96 @@
+package com.realestate.bench;
+
+import com.realestate.bench.data.SyntheticListingGenerator;
+import com.realestate.model.Agent;
+import com.realestate.model.Property;
+import com.realestate.repository.PropertyRepository;
+import jakarta.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * JPA save, find-by-id and filtered query throughput against the embedded H2 runtime.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class PersistenceBenchmark {
+    private static final String CITY_QUERY = "select p from Property p where p.city = :city "
+            + "and p.bedrooms >= :bedrooms and p.status = :status order by p.price";
+    
+    @Param({"10000"})
+    public int listings;
+    
+    private ConfigurableApplicationContext context;
+    private PropertyRepository propertyRepository;
+    private TransactionTemplate transactionTemplate;
+    private EntityManager entityManager;
+    private List<Long> listingIds;
+    private Long agentId;
+    private SyntheticListingGenerator generator;
+    
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("persistence");
+        listingIds = BenchmarkContext.seed(context, 200, listings);
+        propertyRepository = context.getBean(PropertyRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        entityManager = context.getBean(EntityManager.class);
+        agentId = entityManager.createQuery("select min(a.id) from Agent a", Long.class).getSingleResult();
+        generator = new SyntheticListingGenerator(7L, 1);
+    }
+    
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Benchmark
+    public Long save() {
+        Property property;
+        synchronized (generator) {
+            property = generator.nextProperty();
+        }
+        return transactionTemplate.execute(status -> {
+            property.setAgent(entityManager.getReference(Agent.class, agentId));
+            entityManager.persist(property);
+            return property.getId();
+        });
+    }
+    
+    @Benchmark
+    public Property findById() {
+        Long id = listingIds.get(ThreadLocalRandom.current().nextInt(listingIds.size()));
+        return propertyRepository.findById(id).orElseThrow();
+    }
+    
+    @Benchmark
+    public List<Property> queryByCity() {
+        return transactionTemplate.execute(status -> entityManager.createQuery(CITY_QUERY, Property.class)
+                .setParameter("city", "Austin")
+                .setParameter("bedrooms", 3)
+                .setParameter("status", Property.PropertyStatus.ACTIVE)
+                .setMaxResults(20)
+                .getResultList());
+    }
+}
@@ -0,0 +1,181 @@
+package com.realestate.bench;
+
+import com.realestate.RealEstateApplication;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Time from launching a backend JVM to its first answered search, cold and in the
+ * {@code fast-start} profile. The harness seeds a file-based H2 database once, then starts the
+ * backend in a fresh JVM {@code runs} times per mode against it, polling the readiness probe
+ * until the instance reports ready and then issuing one listing search. The fast mode gets one
+ * unmeasured start first, whose shutdown writes the warm-boot snapshot the measured starts
+ * load.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.realestate.bench.StartupTimeHarness listings=200000 runs=5
+ * </pre>
+ *
+ * By default both modes run the backend classes on this harness's class path. To measure the
+ * AOT and CDS build, point {@code fast-jar} at the jar from {@code mvn -Pfast-start package} and
+ * pass the archive and {@code -Dspring.aot.enabled=true} in {@code fast-jvm-args}; the archive
+ * only applies to the class path it was recorded with. Child output goes to
+ * {@code <dir>/<mode>-<run>.log}.
+ */
+public class StartupTimeHarness {
+    private static final Duration START_TIMEOUT = Duration.ofMinutes(5);
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>(Map.of(
+                "listings", "200000",
+                "agents", "2000",
+                "runs", "5",
+                "modes", "cold,fast",
+                "fast-jvm-args", "",
+                "fast-jar", "",
+                "dir", "target/startup-benchmark"));
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0 || !options.containsKey(arg.substring(0, eq))) {
+                throw new IllegalArgumentException("Unknown option " + arg + "; expected one of " + options.keySet());
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        Path dir = Path.of(options.get("dir")).toAbsolutePath();
+        int runs = Integer.parseInt(options.get("runs"));
+        Files.createDirectories(dir);
+        String databaseUrl = "jdbc:h2:file:" + dir.resolve("db");
+        
+        System.out.println("Seeding " + options.get("listings") + " listings into " + databaseUrl);
+        try (ConfigurableApplicationContext context = BenchmarkContext.start("startup",
+                "spring.datasource.url=" + databaseUrl,
+                "spring.jpa.hibernate.ddl-auto=create")) {
+            BenchmarkContext.seed(context, Integer.parseInt(options.get("agents")), Integer.parseInt(options.get("listings")));
+        }
+        
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+        List<String> rows = new ArrayList<>();
+        for (String mode : options.get("modes").split(",")) {
+            List<String> jvmArgs = new ArrayList<>();
+            List<String> launch = List.of("-cp", System.getProperty("java.class.path"), RealEstateApplication.class.getName());
+            List<String> appArgs = new ArrayList<>(List.of(
+                    "--spring.datasource.url=" + databaseUrl,
+                    "--spring.jpa.hibernate.ddl-auto=none",
+                    "--management.endpoint.health.probes.enabled=true",
+                    "--realestate.warm-boot.snapshot-path=" + dir.resolve("listings.snapshot")));
+            switch (mode) {
+                case "cold" -> { }
+                case "fast" -> {
+                    appArgs.add("--spring.profiles.active=fast-start");
+                    if (!options.get("fast-jvm-args").isBlank()) {
+                        jvmArgs.addAll(Arrays.asList(options.get("fast-jvm-args").trim().split("\\s+")));
+                    }
+                    if (!options.get("fast-jar").isBlank()) {
+                        launch = List.of("-jar", Path.of(options.get("fast-jar")).toAbsolutePath().toString());
+                    }
+                    Files.deleteIfExists(dir.resolve("listings.snapshot"));
+                    start(client, dir, mode + "-prime", jvmArgs, launch, appArgs);
+                }
+                default -> throw new IllegalArgumentException("Unknown mode " + mode);
+            }
+            long[] ready = new long[runs];
+            long[] firstSearch = new long[runs];
+            for (int run = 0; run < runs; run++) {
+                long[] timings = start(client, dir, mode + "-" + run, jvmArgs, launch, appArgs);
+                ready[run] = timings[0];
+                firstSearch[run] = timings[1];
+                System.out.printf("%-5s run %d: ready %d ms, first search %d ms%n", mode, run, ready[run], firstSearch[run]);
+            }
+            rows.add(String.format("%-5s %10d %10d %16d %16d", mode, median(ready), min(ready),
+                    median(firstSearch), min(firstSearch)));
+        }
+        System.out.printf("%n%-5s %10s %10s %16s %16s%n", "mode", "ready p50", "ready min", "first search p50",
+                "first search min");
+        rows.forEach(System.out::println);
+    }
+    
+    /**
+     * Starts one backend JVM, waits for readiness and one search, then shuts it down gracefully.
+     *
+     * @return milliseconds from launch to ready and to the first search response
+     */
+    private static long[] start(HttpClient client, Path dir, String name, List<String> jvmArgs, List<String> launch,
+                                List<String> appArgs) throws IOException, InterruptedException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.addAll(jvmArgs);
+        command.addAll(launch);
+        command.add("--server.port=" + port);
+        command.addAll(appArgs);
+        
+        long launched = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(dir.resolve(name + ".log").toFile())
+                .start();
+        try {
+            String base = "http://localhost:" + port;
+            awaitOk(client, process, base + "/actuator/health/readiness", launched);
+            long ready = (System.nanoTime() - launched) / 1_000_000;
+            awaitOk(client, process, base + "/api/listings/search?size=20", launched);
+            long firstSearch = (System.nanoTime() - launched) / 1_000_000;
+            return new long[] {ready, firstSearch};
+        } finally {
+            process.destroy();
+            if (!process.waitFor(2, TimeUnit.MINUTES)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+    
+    private static void awaitOk(HttpClient client, Process process, String url, long launched)
+            throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(30)).build();
+        while (System.nanoTime() - launched < START_TIMEOUT.toNanos()) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Backend exited with " + process.exitValue() + " before " + url
+                        + " answered; see its log");
+            }
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (ConnectException e) {
+                // not listening yet
+            }
+            Thread.sleep(20);
+        }
+        throw new IllegalStateException(url + " did not answer within " + START_TIMEOUT);
+    }
+    
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+    
+    private static long min(long[] values) {
+        return Arrays.stream(values).min().orElse(0);
+    }
+}
@@ -0,0 +1,195 @@
+package com.realestate.bench;
+
+import com.realestate.reactive.ReactiveListingServer;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Memory and threads held per open status-change stream on the servlet stack
+ * ({@code /api/listings/status-changes}) and on the reactive server
+ * ({@code /api/reactive/listings/status-changes}). The backend runs in a JVM of its own with both
+ * servers up; for each stack and connection count the harness opens that many idle event
+ * streams, waits until the server has subscribed all of them, and compares the server's heap
+ * after a full GC and its live thread count with the figures before opening them.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.realestate.bench.StreamingMemoryHarness \
+ *     connections=500,2000,5000 stacks=servlet,reactive
+ * </pre>
+ *
+ * Open file limits must allow the connections twice over, once per side. Heap figures cover
+ * the server's Java objects only; Netty's pooled direct buffers are not included.
+ */
+public class StreamingMemoryHarness {
+    private static final String READY = "streaming-ready ";
+    private static final String MEASURED = "streaming-measured ";
+    private static final Pattern SUBSCRIBERS = Pattern.compile("\"subscribers\"\\s*:\\s*(\\d+)");
+    private static final int OPEN_BATCH = 100;
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>(Map.of(
+                "connections", "500,2000,5000",
+                "stacks", "servlet,reactive"));
+        options.put("role", null);
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0 || !options.containsKey(arg.substring(0, eq))) {
+                throw new IllegalArgumentException("Unknown option " + arg + "; expected one of " + options.keySet());
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        if ("server".equals(options.get("role"))) {
+            serve();
+            return;
+        }
+        int[] connections = Arrays.stream(options.get("connections").split(",")).mapToInt(Integer::parseInt).toArray();
+        List<String> stacks = List.of(options.get("stacks").split(","));
+        
+        Process server = fork();
+        try (BufferedReader output = server.inputReader();
+             PrintWriter input = new PrintWriter(server.outputWriter(), true)) {
+            String[] ports = awaitLine(output, READY).split(" ");
+            String servletBase = "http://localhost:" + ports[0];
+            String reactiveBase = "http://localhost:" + ports[1];
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .build();
+            
+            List<String> rows = new ArrayList<>();
+            for (String stack : stacks) {
+                String url = switch (stack) {
+                    case "servlet" -> servletBase + "/api/listings/status-changes";
+                    case "reactive" -> reactiveBase + "/api/reactive/listings/status-changes";
+                    default -> throw new IllegalArgumentException("Unknown stack " + stack);
+                };
+                for (int count : connections) {
+                    long[] before = measure(input, output);
+                    List<InputStream> streams = open(client, url, count);
+                    awaitSubscribers(client, servletBase, count);
+                    long[] after = measure(input, output);
+                    for (InputStream stream : streams) {
+                        stream.close();
+                    }
+                    awaitSubscribers(client, servletBase, 0);
+                    double heapDelta = after[0] - before[0];
+                    rows.add(String.format("%-9s %11d %12.1f %14.1f %13d", stack, count, heapDelta / (1 << 20),
+                            heapDelta / count / 1024, after[1] - before[1]));
+                    System.out.println(rows.get(rows.size() - 1));
+                }
+            }
+            System.out.printf("%n%-9s %11s %12s %14s %13s%n",
+                    "stack", "connections", "heap MB", "heap KB/conn", "threads added");
+            rows.forEach(System.out::println);
+        } finally {
+            server.destroy();
+            server.waitFor();
+        }
+    }
+    
+    /** Server role: both stacks up, answering "measure" on stdin until it is closed. */
+    private static void serve() throws IOException {
+        ConfigurableApplicationContext context = BenchmarkContext.startServer("streaming",
+                "realestate.reactive.enabled=true",
+                "realestate.reactive.port=0",
+                "realestate.streaming.heartbeat-interval=1s",
+                "server.tomcat.max-connections=50000");
+        try (BufferedReader commands = new BufferedReader(new InputStreamReader(System.in))) {
+            int reactivePort = context.getBean(ReactiveListingServer.class).getPort();
+            System.out.println(READY + context.getEnvironment().getProperty("local.server.port") + " " + reactivePort);
+            String command;
+            while ((command = commands.readLine()) != null) {
+                if (command.equals("measure")) {
+                    for (int i = 0; i < 3; i++) {
+                        System.gc();
+                    }
+                    long heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+                    System.out.println(MEASURED + heap + " " + ManagementFactory.getThreadMXBean().getThreadCount());
+                }
+            }
+        } finally {
+            context.close();
+        }
+    }
+    
+    private static Process fork() throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), StreamingMemoryHarness.class.getName(),
+                "role=server"));
+        return new ProcessBuilder(command).redirectErrorStream(true).start();
+    }
+    
+    private static String awaitLine(BufferedReader output, String prefix) throws IOException {
+        String line;
+        while ((line = output.readLine()) != null) {
+            if (line.startsWith(prefix)) {
+                return line.substring(prefix.length());
+            }
+            if (line.contains("ERROR") || line.contains("Exception")) {
+                System.err.println(line);
+            }
+        }
+        throw new IllegalStateException("Streaming server exited before printing " + prefix.trim());
+    }
+    
+    /** The server's heap used after a full GC, and its live thread count. */
+    private static long[] measure(PrintWriter input, BufferedReader output) throws IOException {
+        input.println("measure");
+        return Arrays.stream(awaitLine(output, MEASURED).split(" ")).mapToLong(Long::parseLong).toArray();
+    }
+    
+    /**
+     * Opens {@code count} event streams, a batch at a time so connects stay within the server's
+     * accept backlog. Each stream is returned once its headers have arrived and is left unread.
+     */
+    private static List<InputStream> open(HttpClient client, String url, int count) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).header("Accept", "text/event-stream").build();
+        List<InputStream> streams = new ArrayList<>(count);
+        for (int opened = 0; opened < count; opened += OPEN_BATCH) {
+            List<CompletableFuture<HttpResponse<InputStream>>> batch = new ArrayList<>();
+            for (int i = opened; i < Math.min(count, opened + OPEN_BATCH); i++) {
+                batch.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream()));
+            }
+            for (CompletableFuture<HttpResponse<InputStream>> response : batch) {
+                streams.add(response.join().body());
+            }
+        }
+        return streams;
+    }
+    
+    private static void awaitSubscribers(HttpClient client, String servletBase, int expected)
+            throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(servletBase + "/api/listings/status-changes/stats")).build();
+        long deadline = System.nanoTime() + Duration.ofSeconds(60).toNanos();
+        while (System.nanoTime() < deadline) {
+            Matcher matcher = SUBSCRIBERS.matcher(client.send(request, HttpResponse.BodyHandlers.ofString()).body());
+            if (matcher.find() && Integer.parseInt(matcher.group(1)) == expected) {
+                return;
+            }
+            Thread.sleep(200);
+        }
+        throw new IllegalStateException("Server did not reach " + expected + " feed subscribers");
+    }
+}
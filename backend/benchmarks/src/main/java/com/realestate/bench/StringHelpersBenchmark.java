@@ -0,0 +1,62 @@
+package com.realestate.bench;
+
+import com.realestate.model.Agent;
+import com.realestate.model.Property;
+import com.realestate.model.Property.ListingType;
+import com.realestate.model.Property.PropertyType;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class StringHelpersBenchmark {
+    private Property property;
+    private Property sparseProperty;
+    private Agent agent;
+    
+    @Setup
+    public void setUp() {
+        agent = new Agent("Jane", "Doe", "jane.doe@example.com", "+15125550100", "TX-123456",
+                LocalDate.now().plusYears(2), "100 Congress Ave");
+        property = new Property("Sunny family home", "12 Oak Ave", "Austin", "TX", "78701",
+                PropertyType.HOUSE, ListingType.SALE, new BigDecimal("450000.00"), 3, 2, agent);
+        property.setCountry("USA");
+        sparseProperty = new Property("Downtown loft", "500 5th St", null, null, null,
+                PropertyType.APARTMENT, ListingType.RENT, new BigDecimal("2400.00"), 1, 1, agent);
+    }
+    
+    @Benchmark
+    public String fullAddress() {
+        return property.getFullAddress();
+    }
+    
+    @Benchmark
+    public String fullAddressSparse() {
+        return sparseProperty.getFullAddress();
+    }
+    
+    @Benchmark
+    public String shortDescription() {
+        return property.getShortDescription();
+    }
+    
+    @Benchmark
+    public String agentFullName() {
+        return agent.getFullName();
+    }
+}
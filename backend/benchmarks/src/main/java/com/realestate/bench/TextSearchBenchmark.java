@@ -0,0 +1,80 @@
+package com.realestate.bench;
+
+import com.realestate.bench.data.SyntheticListingGenerator;
+import com.realestate.dto.RankedListing;
+import com.realestate.event.EntityChangeType;
+import com.realestate.event.PropertyChangedEvent;
+import com.realestate.model.Property;
+import com.realestate.model.Property.PropertyType;
+import com.realestate.search.ListingQuery;
+import com.realestate.search.ListingSearchEngine;
+import java.math.BigDecimal;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+/**
+ * Keyword search latency over the in-memory text index. Runs in sample-time mode so the JSON
+ * results carry p99 and p99.9 per query shape; the index is fed through the same change events
+ * the application uses, without a database.
+ *
+ * <p>The queries cover a single term, two terms, a phrase, a prefix, four terms and a single
+ * term under structured filters. The default corpus keeps a run short; the figures quoted for
+ * the index were taken with {@code -p listings=1000000}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class TextSearchBenchmark {
+    
+    @Param({"100000"})
+    public int listings;
+    
+    @Param({"pool", "hardwood floors", "\"solar panels\"", "fire*", "granite countertops smart home", "filtered:pool"})
+    public String query;
+    
+    private ListingSearchEngine engine;
+    private ListingQuery filters;
+    private String keywords;
+    
+    @Setup
+    public void setUp() {
+        engine = new ListingSearchEngine(null, event -> { });
+        SyntheticListingGenerator generator = new SyntheticListingGenerator(42L, 1000);
+        for (long id = 1; id <= listings; id++) {
+            Property property = generator.nextProperty();
+            property.setId(id);
+            engine.onPropertyChanged(new PropertyChangedEvent(property, EntityChangeType.CREATED));
+        }
+        filters = new ListingQuery();
+        keywords = query;
+        if (query.startsWith("filtered:")) {
+            keywords = query.substring("filtered:".length());
+            filters.setPropertyTypes(EnumSet.of(PropertyType.HOUSE));
+            filters.setMinPrice(new BigDecimal("250000"));
+            filters.setMaxPrice(new BigDecimal("600000"));
+        }
+    }
+    
+    @Benchmark
+    public List<RankedListing> search() {
+        Page<RankedListing> page = engine.searchText(keywords, filters, PageRequest.of(0, 20));
+        return page.getContent();
+    }
+}
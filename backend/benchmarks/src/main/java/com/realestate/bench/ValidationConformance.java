@@ -0,0 +1,184 @@
+package com.realestate.bench;
+
+import com.realestate.bench.data.SyntheticListingGenerator;
+import com.realestate.model.Agent;
+import com.realestate.model.Client;
+import com.realestate.model.Property;
+import com.realestate.validation.CompiledValidatorFactory;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import java.util.function.BiConsumer;
+
+/**
+ * Checks that the compiled validation mode reports exactly what Hibernate Validator reports.
+ * Synthetic agents, clients and listings get each constrained field replaced, at random, by an
+ * edge value (null, blank, boundary lengths and numbers, NaN and infinities, malformed emails
+ * and phone numbers, dates around today); both validators then check every entity and their
+ * violations are compared by property, message and invalid value. Prints the first mismatches
+ * and exits with status 1 if there are any.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.realestate.bench.ValidationConformance entities=100000 seed=7
+ * </pre>
+ */
+public class ValidationConformance {
+    private static final int MAX_REPORTED = 20;
+    private static final double MUTATION_RATE = 0.3;
+    
+    private static final String[] NAMES = {null, "", " ", "\t\n", "A", "Ab", " Ab", "x".repeat(50), "x".repeat(51), "Jane"};
+    private static final String[] TITLES = {null, "", "     ", "Loft", "Lofts", "x".repeat(200), "x".repeat(201), "Sunny home"};
+    private static final String[] EMAILS = {null, "", " ", "plain", "a@b", "a@b.c", "a..b@example.com", "@example.com",
+            "jane@", "jane doe@example.com", "jane@exa mple.com", "x".repeat(65) + "@example.com", "jane@example.com",
+            "\"quoted\"@example.com", "jane@[127.0.0.1]", "jane@münchen.de"};
+    private static final String[] PHONES = {null, "", " ", "123456789", "1234567890", "+1234567890", "++1234567890",
+            "123456789012345", "1234567890123456", "+15125550100", "12-34-56-78-90", "１２３４５６７８９０"};
+    private static final String[] TEXTS = {null, "", " ", "\u00a0", "Austin", "TX"};
+    private static final Double[] LATITUDES = {null, -90.0, 90.0, -90.0000001, 90.0000001, 0.0, -0.0, Double.NaN,
+            Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 45.5, 1e-300};
+    private static final Double[] LONGITUDES = {null, -180.0, 180.0, -180.0000001, 180.0000001, Double.NaN,
+            Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, -97.7};
+    private static final BigDecimal[] PRICES = {null, BigDecimal.ZERO, new BigDecimal("0.00"), new BigDecimal("0.01"),
+            new BigDecimal("-1"), new BigDecimal("1E-20"), new BigDecimal("450000.00")};
+    private static final Integer[] COUNTS = {null, -1, 0, 1, Integer.MIN_VALUE, Integer.MAX_VALUE};
+    
+    public static void main(String[] args) {
+        int entities = 100_000;
+        long seed = 7;
+        for (String arg : args) {
+            if (arg.startsWith("entities=")) {
+                entities = Integer.parseInt(arg.substring("entities=".length()));
+            } else if (arg.startsWith("seed=")) {
+                seed = Long.parseLong(arg.substring("seed=".length()));
+            } else {
+                throw new IllegalArgumentException("Unknown option " + arg + "; expected entities=<n> or seed=<n>");
+            }
+        }
+        
+        try (ValidatorFactory standardFactory = Validation.buildDefaultValidatorFactory()) {
+            CompiledValidatorFactory compiledFactory = new CompiledValidatorFactory(standardFactory,
+                    List.of(Property.class, Agent.class, Client.class));
+            for (Class<?> type : List.of(Property.class, Agent.class, Client.class)) {
+                if (!compiledFactory.isCompiled(type)) {
+                    throw new IllegalStateException(type.getSimpleName() + " could not be compiled");
+                }
+            }
+            Comparison comparison = new Comparison(standardFactory.getValidator(), compiledFactory.getValidator());
+            SplittableRandom random = new SplittableRandom(seed);
+            SyntheticListingGenerator generator = new SyntheticListingGenerator(seed, 100);
+            for (int i = 0; i < entities; i++) {
+                switch (i % 3) {
+                    case 0 -> comparison.check(mutate(generator.nextProperty(), random, propertyMutations()));
+                    case 1 -> comparison.check(mutate(generator.nextAgent(), random, agentMutations()));
+                    default -> comparison.check(mutate(newClient(i), random, clientMutations()));
+                }
+            }
+            System.out.printf("%d entities, %d with violations, %d mismatches%n", entities, comparison.invalid,
+                    comparison.mismatches);
+            if (comparison.mismatches > 0) {
+                System.exit(1);
+            }
+        }
+    }
+    
+    private static List<BiConsumer<Property, SplittableRandom>> propertyMutations() {
+        return List.of(
+                (p, r) -> p.setTitle(pick(TITLES, r)),
+                (p, r) -> p.setAddress(pick(TEXTS, r)),
+                (p, r) -> p.setCity(pick(TEXTS, r)),
+                (p, r) -> p.setState(pick(TEXTS, r)),
+                (p, r) -> p.setPostalCode(pick(TEXTS, r)),
+                (p, r) -> p.setLatitude(pick(LATITUDES, r)),
+                (p, r) -> p.setLongitude(pick(LONGITUDES, r)),
+                (p, r) -> p.setPropertyType(r.nextBoolean() ? null : Property.PropertyType.CONDO),
+                (p, r) -> p.setListingType(r.nextBoolean() ? null : Property.ListingType.RENT),
+                (p, r) -> p.setPrice(pick(PRICES, r)),
+                (p, r) -> p.setBedrooms(pick(COUNTS, r)),
+                (p, r) -> p.setBathrooms(pick(COUNTS, r)));
+    }
+    
+    private static List<BiConsumer<Agent, SplittableRandom>> agentMutations() {
+        return List.of(
+                (a, r) -> a.setFirstName(pick(NAMES, r)),
+                (a, r) -> a.setLastName(pick(NAMES, r)),
+                (a, r) -> a.setEmail(pick(EMAILS, r)),
+                (a, r) -> a.setPhoneNumber(pick(PHONES, r)),
+                (a, r) -> a.setLicenseNumber(pick(TEXTS, r)),
+                (a, r) -> a.setLicenseExpiryDate(r.nextInt(4) == 0 ? null : LocalDate.now().plusDays(r.nextInt(3) - 1)),
+                (a, r) -> a.setAddress(pick(TEXTS, r)));
+    }
+    
+    private static List<BiConsumer<Client, SplittableRandom>> clientMutations() {
+        return List.of(
+                (c, r) -> c.setFirstName(pick(NAMES, r)),
+                (c, r) -> c.setLastName(pick(NAMES, r)),
+                (c, r) -> c.setEmail(pick(EMAILS, r)),
+                (c, r) -> c.setPhoneNumber(pick(PHONES, r)),
+                (c, r) -> c.setAddress(pick(TEXTS, r)),
+                (c, r) -> c.setClientType(r.nextBoolean() ? null : Client.ClientType.values()[0]));
+    }
+    
+    private static <T> T mutate(T entity, SplittableRandom random, List<BiConsumer<T, SplittableRandom>> mutations) {
+        for (BiConsumer<T, SplittableRandom> mutation : mutations) {
+            if (random.nextDouble() < MUTATION_RATE) {
+                mutation.accept(entity, random);
+            }
+        }
+        return entity;
+    }
+    
+    private static <T> T pick(T[] values, SplittableRandom random) {
+        return values[random.nextInt(values.length)];
+    }
+    
+    private static Client newClient(int n) {
+        Client client = new Client();
+        client.setFirstName("Client" + n);
+        client.setLastName("Lastname" + n);
+        client.setEmail("client" + n + "@example.com");
+        client.setPhoneNumber(String.format("+1%010d", 3_000_000_000L + n));
+        client.setAddress((100 + n % 9900) + " Lamar Blvd");
+        client.setClientType(Client.ClientType.values()[n % Client.ClientType.values().length]);
+        return client;
+    }
+    
+    private static final class Comparison {
+        final Validator standard;
+        final Validator compiled;
+        long invalid;
+        long mismatches;
+        
+        Comparison(Validator standard, Validator compiled) {
+            this.standard = standard;
+            this.compiled = compiled;
+        }
+        
+        void check(Object entity) {
+            Set<String> expected = describe(standard.validate(entity));
+            Set<String> actual = describe(compiled.validate(entity));
+            if (!expected.isEmpty()) {
+                invalid++;
+            }
+            if (!expected.equals(actual)) {
+                if (mismatches++ < MAX_REPORTED) {
+                    System.out.printf("%s%n  standard: %s%n  compiled: %s%n", entity.getClass().getSimpleName(), expected, actual);
+                }
+            }
+        }
+        
+        private static Set<String> describe(Set<? extends ConstraintViolation<?>> violations) {
+            Set<String> described = new TreeSet<>();
+            for (ConstraintViolation<?> violation : violations) {
+                described.add(violation.getPropertyPath() + ": " + violation.getMessage() + " [" + violation.getInvalidValue() + "]");
+            }
+            return described;
+        }
+    }
+}
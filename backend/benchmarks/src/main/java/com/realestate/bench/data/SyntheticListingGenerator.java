@@ -0,0 +1,290 @@
+package com.realestate.bench.data;
+
+import com.realestate.model.Agent;
+import com.realestate.model.Property;
+import com.realestate.model.Property.ListingType;
+import com.realestate.model.Property.PropertyCondition;
+import com.realestate.model.Property.PropertyStatus;
+import com.realestate.model.Property.PropertyType;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic generator of realistic-looking listings for benchmarks and load tests. Listings
+ * are produced one at a time, so anything from 10k to 10M rows can be generated or streamed to
+ * CSV without holding them in memory.
+ *
+ * <p>Distributions: cities follow a Zipf law (a few metros dominate), prices are log-normal and
+ * scale with city price level, size and bedrooms, bedrooms/bathrooms/types/statuses follow
+ * weighted categorical distributions, and coordinates scatter normally around the city center.
+ *
+ * <p>Run as {@code java -cp benchmarks.jar com.realestate.bench.data.SyntheticListingGenerator
+ * <count> <file.csv> [seed]} to produce a feed for the bulk ingestion endpoint.
+ */
+public class SyntheticListingGenerator {
+    public static final String CSV_HEADER = "title,description,address,city,state,postal_code,country,latitude,"
+            + "longitude,property_type,listing_type,price,bedrooms,bathrooms,square_feet,lot_size,year_built,"
+            + "garage_spaces,property_features,heating_type,cooling_type,flooring_type,property_condition,"
+            + "hoa_fee,listing_date,status,main_image_url,agent_id";
+    
+    private static final City[] CITIES = {
+        new City("New York", "NY", "100", 40.7128, -74.0060, 2.6),
+        new City("Los Angeles", "CA", "900", 34.0522, -118.2437, 2.4),
+        new City("Chicago", "IL", "606", 41.8781, -87.6298, 1.2),
+        new City("Houston", "TX", "770", 29.7604, -95.3698, 0.9),
+        new City("Phoenix", "AZ", "850", 33.4484, -112.0740, 1.0),
+        new City("Philadelphia", "PA", "191", 39.9526, -75.1652, 0.9),
+        new City("San Antonio", "TX", "782", 29.4241, -98.4936, 0.8),
+        new City("San Diego", "CA", "921", 32.7157, -117.1611, 2.2),
+        new City("Dallas", "TX", "752", 32.7767, -96.7970, 1.0),
+        new City("Austin", "TX", "787", 30.2672, -97.7431, 1.4),
+        new City("Jacksonville", "FL", "322", 30.3322, -81.6557, 0.8),
+        new City("San Jose", "CA", "951", 37.3382, -121.8863, 3.0),
+        new City("Columbus", "OH", "432", 39.9612, -82.9988, 0.7),
+        new City("Charlotte", "NC", "282", 35.2271, -80.8431, 1.0),
+        new City("Seattle", "WA", "981", 47.6062, -122.3321, 2.3),
+        new City("Denver", "CO", "802", 39.7392, -104.9903, 1.7),
+        new City("Boston", "MA", "021", 42.3601, -71.0589, 2.4),
+        new City("Nashville", "TN", "372", 36.1627, -86.7816, 1.2),
+        new City("Portland", "OR", "972", 45.5152, -122.6784, 1.6),
+        new City("Miami", "FL", "331", 25.7617, -80.1918, 1.8),
+        new City("Atlanta", "GA", "303", 33.7490, -84.3880, 1.1),
+        new City("Minneapolis", "MN", "554", 44.9778, -93.2650, 1.0),
+        new City("Raleigh", "NC", "276", 35.7796, -78.6382, 1.1),
+        new City("Salt Lake City", "UT", "841", 40.7608, -111.8910, 1.3),
+        new City("Kansas City", "MO", "641", 39.0997, -94.5786, 0.7),
+    };
+    private static final String[] STREETS = {
+        "Main St", "Oak Ave", "Maple Dr", "Cedar Ln", "Park Blvd", "Pine St", "Elm St", "Lakeview Dr",
+        "Hillcrest Rd", "Sunset Blvd", "River Rd", "Washington Ave", "Highland Ave", "Church St", "Mill Rd"
+    };
+    private static final String[] FEATURES = {
+        "pool", "fireplace", "hardwood floors", "granite countertops", "walk-in closet", "patio", "deck",
+        "finished basement", "vaulted ceilings", "solar panels", "home office", "fenced yard", "smart home"
+    };
+    private static final String[] HEATING = {"Forced Air", "Radiant", "Heat Pump", "Baseboard", "Geothermal"};
+    private static final String[] COOLING = {"Central Air", "Window Units", "Heat Pump", "None"};
+    private static final String[] FLOORING = {"Hardwood", "Carpet", "Tile", "Laminate", "Vinyl", "Concrete"};
+    private static final double[] BEDROOM_WEIGHTS = {0.03, 0.10, 0.25, 0.35, 0.19, 0.06, 0.02};
+    private static final double[] TYPE_WEIGHTS = {0.45, 0.20, 0.12, 0.10, 0.02, 0.04, 0.03, 0.02, 0.01, 0.01};
+    private static final double[] LISTING_TYPE_WEIGHTS = {0.70, 0.25, 0.05};
+    private static final double[] STATUS_WEIGHTS = {0.55, 0.12, 0.20, 0.06, 0.04, 0.03};
+    private static final double[] CONDITION_WEIGHTS = {0.20, 0.45, 0.20, 0.07, 0.08};
+    
+    private final SplittableRandom random;
+    private final double[] cityCumulative;
+    private final int agentCount;
+    private final LocalDate today;
+    private long sequence;
+    
+    public SyntheticListingGenerator(long seed, int agentCount) {
+        this.random = new SplittableRandom(seed);
+        this.agentCount = agentCount;
+        this.today = LocalDate.of(2024, 1, 1);
+        this.cityCumulative = zipfCumulative(CITIES.length, 1.1);
+    }
+    
+    public Agent nextAgent() {
+        long n = sequence++;
+        City city = CITIES[pick(cityCumulative)];
+        Agent agent = new Agent("Agent" + n, "Lastname" + n, "agent" + n + "@example.com",
+                String.format("+1%010d", 2_000_000_000L + n), "LIC-" + n, LocalDate.now().plusYears(2),
+                (100 + random.nextInt(9900)) + " " + STREETS[random.nextInt(STREETS.length)]);
+        agent.setCity(city.name);
+        agent.setState(city.state);
+        agent.setCommissionRate(2.0 + random.nextInt(5) * 0.5);
+        agent.setYearsExperience(random.nextInt(30));
+        return agent;
+    }
+    
+    /**
+     * Next listing; the agent reference is left unset and callers attach one by id, see
+     * {@link #agentIndexFor(Property)}.
+     */
+    public Property nextProperty() {
+        long n = sequence++;
+        City city = CITIES[pick(cityCumulative)];
+        int bedrooms = pickWeighted(BEDROOM_WEIGHTS);
+        PropertyType type = PropertyType.values()[pickWeighted(TYPE_WEIGHTS)];
+        ListingType listingType = ListingType.values()[pickWeighted(LISTING_TYPE_WEIGHTS)];
+        int bathrooms = Math.max(1, bedrooms - random.nextInt(2) + (random.nextInt(4) == 0 ? 1 : 0));
+        int squareFeet = (int) Math.max(350, 450 + bedrooms * gaussian(520, 140));
+        double pricePerSqft = city.priceLevel * Math.exp(gaussian(Math.log(180), 0.35));
+        BigDecimal price = BigDecimal.valueOf(squareFeet * pricePerSqft);
+        if (listingType != ListingType.SALE) {
+            price = price.multiply(BigDecimal.valueOf(0.0055));
+        }
+        price = price.setScale(listingType == ListingType.SALE ? -3 : 0, RoundingMode.HALF_UP).setScale(2);
+        
+        Property property = new Property(
+                bedrooms + " bed " + type.name().toLowerCase().replace('_', ' ') + " in " + city.name,
+                (1 + random.nextInt(9999)) + " " + STREETS[random.nextInt(STREETS.length)],
+                city.name, city.state, city.zipPrefix + String.format("%02d", random.nextInt(100)),
+                type, listingType, price, bedrooms, bathrooms, null);
+        property.setCountry("USA");
+        property.setDescription(description(bedrooms, bathrooms, squareFeet, city));
+        property.setLatitude(city.latitude + gaussian(0, 0.08));
+        property.setLongitude(city.longitude + gaussian(0, 0.08));
+        property.setSquareFeet(squareFeet);
+        property.setLotSize(type == PropertyType.APARTMENT || type == PropertyType.CONDO
+                ? null : Math.round(Math.exp(gaussian(Math.log(6500), 0.5))) * 1.0);
+        property.setYearBuilt(Math.min(2023, 1900 + (int) Math.abs(gaussian(85, 30))));
+        property.setGarageSpaces(random.nextInt(4));
+        property.setPropertyFeatures(features());
+        property.setHeatingType(HEATING[random.nextInt(HEATING.length)]);
+        property.setCoolingType(COOLING[random.nextInt(COOLING.length)]);
+        property.setFlooringType(FLOORING[random.nextInt(FLOORING.length)]);
+        property.setPropertyCondition(PropertyCondition.values()[pickWeighted(CONDITION_WEIGHTS)]);
+        property.setHoaFee(random.nextInt(3) == 0 ? BigDecimal.valueOf(50 + random.nextInt(600)) : null);
+        property.setListingDate(today.minusDays(random.nextInt(730)));
+        property.setStatus(PropertyStatus.values()[pickWeighted(STATUS_WEIGHTS)]);
+        property.setMainImageUrl("https://images.example.com/listings/" + n + "/main.jpg");
+        return property;
+    }
+    
+    /**
+     * Agent index in {@code [0, agentCount)} owning the listing, skewed so a minority of agents
+     * hold most listings.
+     */
+    public int agentIndexFor(Property property) {
+        double u = random.nextDouble();
+        return (int) Math.min(agentCount - 1, Math.floor(agentCount * u * u));
+    }
+    
+    public void writeCsv(Writer writer, long count) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        StringBuilder row = new StringBuilder(512);
+        for (long i = 0; i < count; i++) {
+            Property p = nextProperty();
+            row.setLength(0);
+            csv(row, p.getTitle()).append(',');
+            csv(row, p.getDescription()).append(',');
+            csv(row, p.getAddress()).append(',');
+            csv(row, p.getCity()).append(',');
+            csv(row, p.getState()).append(',');
+            csv(row, p.getPostalCode()).append(',');
+            csv(row, p.getCountry()).append(',');
+            row.append(p.getLatitude()).append(',').append(p.getLongitude()).append(',');
+            row.append(p.getPropertyType()).append(',').append(p.getListingType()).append(',');
+            row.append(p.getPrice().toPlainString()).append(',');
+            row.append(p.getBedrooms()).append(',').append(p.getBathrooms()).append(',');
+            row.append(p.getSquareFeet()).append(',');
+            row.append(p.getLotSize() == null ? "" : p.getLotSize()).append(',');
+            row.append(p.getYearBuilt()).append(',').append(p.getGarageSpaces()).append(',');
+            csv(row, p.getPropertyFeatures()).append(',');
+            csv(row, p.getHeatingType()).append(',');
+            csv(row, p.getCoolingType()).append(',');
+            csv(row, p.getFlooringType()).append(',');
+            row.append(p.getPropertyCondition()).append(',');
+            row.append(p.getHoaFee() == null ? "" : p.getHoaFee().toPlainString()).append(',');
+            row.append(p.getListingDate()).append(',').append(p.getStatus()).append(',');
+            csv(row, p.getMainImageUrl()).append(',');
+            row.append(agentIndexFor(p) + 1).append('\n');
+            writer.append(row);
+        }
+    }
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: SyntheticListingGenerator <count> <output.csv> [seed] [agents]");
+            System.exit(1);
+        }
+        long count = Long.parseLong(args[0]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+        int agents = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        try (BufferedWriter writer = Files.newBufferedWriter(Path.of(args[1]), StandardCharsets.UTF_8)) {
+            new SyntheticListingGenerator(seed, agents).writeCsv(writer, count);
+        }
+    }
+    
+    private String description(int bedrooms, int bathrooms, int squareFeet, City city) {
+        return "Bright " + bedrooms + " bedroom, " + bathrooms + " bathroom home with " + squareFeet
+                + " sq ft of living space in " + city.name + ". Features " + FEATURES[random.nextInt(FEATURES.length)]
+                + " and " + FEATURES[random.nextInt(FEATURES.length)] + ", close to schools, parks and shopping.";
+    }
+    
+    private String features() {
+        int count = 1 + random.nextInt(4);
+        StringBuilder features = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) features.append(", ");
+            features.append(FEATURES[random.nextInt(FEATURES.length)]);
+        }
+        return features.toString();
+    }
+    
+    private double gaussian(double mean, double stdDev) {
+        // Box-Muller; SplittableRandom has no nextGaussian on Java 17
+        double u1 = 1.0 - random.nextDouble();
+        double u2 = random.nextDouble();
+        return mean + stdDev * Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+    }
+    
+    private int pick(double[] cumulative) {
+        double u = random.nextDouble();
+        for (int i = 0; i < cumulative.length; i++) {
+            if (u < cumulative[i]) return i;
+        }
+        return cumulative.length - 1;
+    }
+    
+    private int pickWeighted(double[] weights) {
+        double u = random.nextDouble();
+        double sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i];
+            if (u < sum) return i;
+        }
+        return weights.length - 1;
+    }
+    
+    private static double[] zipfCumulative(int n, double exponent) {
+        double[] cumulative = new double[n];
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            total += 1 / Math.pow(i + 1, exponent);
+            cumulative[i] = total;
+        }
+        for (int i = 0; i < n; i++) {
+            cumulative[i] /= total;
+        }
+        return cumulative;
+    }
+    
+    private static StringBuilder csv(StringBuilder row, String value) {
+        if (value == null) {
+            return row;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return row.append(value);
+        }
+        return row.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+    
+    private static final class City {
+        final String name;
+        final String state;
+        final String zipPrefix;
+        final double latitude;
+        final double longitude;
+        final double priceLevel;
+        
+        City(String name, String state, String zipPrefix, double latitude, double longitude, double priceLevel) {
+            this.name = name;
+            this.state = state;
+            this.zipPrefix = zipPrefix;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.priceLevel = priceLevel;
+        }
+    }
+}